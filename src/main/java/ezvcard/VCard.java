@@ -4455,25 +4455,7 @@ public class VCard implements Iterable<VCardProperty> {
 	 * @return the validation warnings
 	 */
 	public ValidationWarnings validate(VCardVersion version) {
-		ValidationWarnings warnings = new ValidationWarnings();
-
-		//validate overall vCard object
-		if (getStructuredName() == null && (version == VCardVersion.V2_1 || version == VCardVersion.V3_0)) {
-			warnings.add(null, new Warning(0));
-		}
-		if (getFormattedName() == null && (version == VCardVersion.V3_0 || version == VCardVersion.V4_0)) {
-			warnings.add(null, new Warning(1));
-		}
-
-		//validate properties
-		for (VCardProperty property : this) {
-			List<Warning> propWarnings = property.validate(version, this);
-			if (!propWarnings.isEmpty()) {
-				warnings.add(property, propWarnings);
-			}
-		}
-
-		return warnings;
+		return new VCardValidator(version).validate(this);
 	}
 
 	@Override
@@ -0,0 +1,191 @@
+package ezvcard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import ezvcard.property.VCardProperty;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Validates vCards against a particular vCard version. This is what
+ * {@link VCard#validate} uses behind the scenes. Use it directly to validate
+ * large numbers of vCards, optionally in parallel.
+ * </p>
+ * <p>
+ * The work that does not depend on the vCard being validated is done once and
+ * shared. This includes reading the {@link SupportedVersions} annotation of
+ * each property class and building the character sets that parameter names
+ * and values are checked against. The text of each {@link Warning} is not
+ * built until {@link Warning#getMessage} is called, so callers that only look
+ * at the warning codes do not pay for message formatting.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * VCardValidator validator = new VCardValidator(VCardVersion.V4_0);
+ * ExecutorService executor = Executors.newFixedThreadPool(8);
+ *
+ * List&lt;VCard&gt; vcards = ...
+ * List&lt;ValidationWarnings&gt; results = validator.validateAll(vcards, executor);
+ * for (ValidationWarnings warnings : results) {
+ *   for (Map.Entry&lt;VCardProperty, List&lt;Warning&gt;&gt; entry : warnings) {
+ *     for (Warning warning : entry.getValue()) {
+ *       Integer code = warning.getCode();
+ *       ...
+ *     }
+ *   }
+ * }
+ * </pre>
+ * <p>
+ * This class is thread-safe, as long as each vCard is not modified while it
+ * is being validated.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class VCardValidator {
+	/**
+	 * The number of vCards that each task validates when vCards are validated
+	 * in parallel.
+	 */
+	private static final int BATCH_SIZE = 256;
+
+	private final VCardVersion version;
+	private final boolean requiresStructuredName, requiresFormattedName;
+
+	/**
+	 * @param version the version to validate the vCards against
+	 */
+	public VCardValidator(VCardVersion version) {
+		this.version = version;
+		requiresStructuredName = (version == VCardVersion.V2_1 || version == VCardVersion.V3_0);
+		requiresFormattedName = (version == VCardVersion.V3_0 || version == VCardVersion.V4_0);
+	}
+
+	/**
+	 * Gets the version that the vCards are validated against.
+	 * @return the version
+	 */
+	public VCardVersion getVersion() {
+		return version;
+	}
+
+	/**
+	 * Validates a vCard.
+	 * @param vcard the vCard to validate
+	 * @return the validation warnings
+	 * @see VCard#validate
+	 */
+	public ValidationWarnings validate(VCard vcard) {
+		ValidationWarnings warnings = new ValidationWarnings();
+
+		//validate overall vCard object
+		if (requiresStructuredName && vcard.getStructuredName() == null) {
+			warnings.add(null, new Warning(0));
+		}
+		if (requiresFormattedName && vcard.getFormattedName() == null) {
+			warnings.add(null, new Warning(1));
+		}
+
+		//validate properties
+		for (VCardProperty property : vcard) {
+			List<Warning> propWarnings = property.validate(version, vcard);
+			if (!propWarnings.isEmpty()) {
+				warnings.add(property, propWarnings);
+			}
+		}
+
+		return warnings;
+	}
+
+	/**
+	 * Validates a list of vCards on the calling thread.
+	 * @param vcards the vCards to validate
+	 * @return the validation warnings of each vCard, in the same order as the
+	 * given list
+	 */
+	public List<ValidationWarnings> validateAll(List<VCard> vcards) {
+		List<ValidationWarnings> results = new ArrayList<ValidationWarnings>(vcards.size());
+		for (VCard vcard : vcards) {
+			results.add(validate(vcard));
+		}
+		return results;
+	}
+
+	/**
+	 * Validates a list of vCards in parallel. The list is split into batches,
+	 * and each batch is validated by a separate task on the given executor.
+	 * This method blocks until all of the vCards have been validated.
+	 * @param vcards the vCards to validate
+	 * @param executor the executor to run the tasks on (this method does not
+	 * shut it down)
+	 * @return the validation warnings of each vCard, in the same order as the
+	 * given list
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 * for the tasks to finish
+	 */
+	public List<ValidationWarnings> validateAll(final List<VCard> vcards, ExecutorService executor) throws InterruptedException {
+		List<Callable<List<ValidationWarnings>>> tasks = new ArrayList<Callable<List<ValidationWarnings>>>();
+		for (int start = 0; start < vcards.size(); start += BATCH_SIZE) {
+			final List<VCard> batch = vcards.subList(start, Math.min(start + BATCH_SIZE, vcards.size()));
+			tasks.add(new Callable<List<ValidationWarnings>>() {
+				public List<ValidationWarnings> call() {
+					return validateAll(batch);
+				}
+			});
+		}
+
+		List<ValidationWarnings> results = new ArrayList<ValidationWarnings>(vcards.size());
+		for (Future<List<ValidationWarnings>> future : executor.invokeAll(tasks)) {
+			try {
+				results.addAll(future.get());
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+
+				//should never be thrown because the tasks do not throw checked exceptions
+				throw new RuntimeException(cause);
+			}
+		}
+		return results;
+	}
+}
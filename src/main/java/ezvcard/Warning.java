@@ -31,7 +31,13 @@ package ezvcard;
  */
 public class Warning {
 	private final Integer code;
-	private final String message;
+	private String message;
+
+	/**
+	 * The arguments of a message that is defined in the resource bundle. The
+	 * message is not built until it is asked for.
+	 */
+	private final Object[] args;
 
 	/**
 	 * Creates a new warning.
@@ -48,7 +54,8 @@ public class Warning {
 	 * @param args the message arguments
 	 */
 	public Warning(int code, Object... args) {
-		this(Messages.INSTANCE.getValidationWarning(code, args), code);
+		this.code = code;
+		this.args = args;
 	}
 
 	/**
@@ -59,6 +66,7 @@ public class Warning {
 	public Warning(String message, Integer code) {
 		this.code = code;
 		this.message = message;
+		this.args = null;
 	}
 
 	/**
@@ -74,14 +82,17 @@ public class Warning {
 	 * @return the warning message
 	 */
 	public String getMessage() {
+		if (message == null && args != null) {
+			message = Messages.INSTANCE.getValidationWarning(code, args);
+		}
 		return message;
 	}
 
 	@Override
 	public String toString() {
 		if (code == null) {
-			return message;
+			return getMessage();
 		}
-		return "(" + code + ") " + message;
+		return "(" + code + ") " + getMessage();
 	}
 }
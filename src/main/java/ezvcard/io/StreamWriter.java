@@ -13,6 +13,7 @@ import ezvcard.VCard;
 import ezvcard.VCardVersion;
 import ezvcard.io.scribe.ScribeIndex;
 import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.io.scribe.WritePlan;
 import ezvcard.property.Address;
 import ezvcard.property.Label;
 import ezvcard.property.ProductId;
@@ -57,6 +58,14 @@ public abstract class StreamWriter implements Closeable {
 	protected boolean addProdId = true;
 	protected boolean versionStrict = true;
 
+	/**
+	 * Holds the properties of the vCard that is being written. This list is
+	 * re-used for each vCard in order to reduce the number of objects that are
+	 * created when writing many vCards.
+	 */
+	private final List<VCardProperty> propertiesBuffer = new ArrayList<VCardProperty>();
+	private boolean propertiesBufferInUse = false;
+
 	/**
 	 * Writes a vCard to the stream.
 	 * @param vcard the vCard that is being written
@@ -65,12 +74,50 @@ public abstract class StreamWriter implements Closeable {
 	 * custom property class (see: {@link #registerScribe registerScribe})
 	 */
 	public void write(VCard vcard) throws IOException {
-		List<VCardProperty> properties = prepare(vcard);
-		_write(vcard, properties);
+		if (propertiesBufferInUse) {
+			/*
+			 * A vCard is being written from inside of another vCard (for
+			 * example, a 2.1 AGENT property), so the buffer cannot be used.
+			 */
+			List<VCardProperty> properties = new ArrayList<VCardProperty>();
+			prepare(vcard, properties);
+			_write(vcard, properties);
+			return;
+		}
+
+		propertiesBufferInUse = true;
+		try {
+			propertiesBuffer.clear();
+			prepare(vcard, propertiesBuffer);
+			_write(vcard, propertiesBuffer);
+		} finally {
+			propertiesBufferInUse = false;
+		}
 	}
 
 	/**
-	 * Writes a vCard to the stream.
+	 * <p>
+	 * Writes multiple vCards to the stream.
+	 * </p>
+	 * <p>
+	 * This method should be used when writing a large number of vCards. The
+	 * same internal buffers are used for every vCard, and the stream is not
+	 * flushed after each vCard is written.
+	 * </p>
+	 * @param vcards the vCards to write
+	 * @throws IOException if there's a problem writing to the output stream
+	 * @throws IllegalArgumentException if a scribe hasn't been registered for a
+	 * custom property class (see: {@link #registerScribe registerScribe})
+	 */
+	public void writeAll(Iterable<VCard> vcards) throws IOException {
+		for (VCard vcard : vcards) {
+			write(vcard);
+		}
+	}
+
+	/**
+	 * Writes a vCard to the stream. The properties list is re-used when the
+	 * next vCard is written, so implementations should not hold on to it.
 	 * @param vcard the vCard that is being written
 	 * @param properties the properties to write
 	 * @throws IOException if there's a problem writing to the output stream
@@ -159,18 +206,20 @@ public abstract class StreamWriter implements Closeable {
 	/**
 	 * Determines which properties need to be written.
 	 * @param vcard the vCard to write
-	 * @return the properties to write
+	 * @param propertiesToAdd the list to add the properties to (must be empty)
 	 * @throws IllegalArgumentException if a scribe hasn't been registered for a
 	 * custom property class (see: {@link #registerScribe(VCardPropertyScribe)
 	 * registerScribe})
 	 */
-	private List<VCardProperty> prepare(VCard vcard) {
+	private void prepare(VCard vcard, List<VCardProperty> propertiesToAdd) {
 		VCardVersion targetVersion = getTargetVersion();
-		List<VCardProperty> propertiesToAdd = new ArrayList<VCardProperty>();
-		Set<Class<? extends VCardProperty>> unregistered = new HashSet<Class<? extends VCardProperty>>();
+		Set<Class<? extends VCardProperty>> unregistered = null;
 		VCardProperty prodIdProperty = null;
 		for (VCardProperty property : vcard) {
-			if (versionStrict && !property.isSupportedBy(targetVersion)) {
+			WritePlan plan = index.getWritePlan(property, targetVersion);
+
+			boolean supported = (plan == null) ? property.isSupportedBy(targetVersion) : plan.isSupported();
+			if (versionStrict && !supported) {
 				//do not add the property to the vCard if it is not supported by the target version
 				continue;
 			}
@@ -182,7 +231,10 @@ public abstract class StreamWriter implements Closeable {
 			}
 
 			//check for scribe
-			if (!index.hasPropertyScribe(property)) {
+			if (plan == null) {
+				if (unregistered == null) {
+					unregistered = new HashSet<Class<? extends VCardProperty>>();
+				}
 				unregistered.add(property.getClass());
 				continue;
 			}
@@ -203,7 +255,7 @@ public abstract class StreamWriter implements Closeable {
 			}
 		}
 
-		if (!unregistered.isEmpty()) {
+		if (unregistered != null) {
 			List<String> classes = new ArrayList<String>(unregistered.size());
 			for (Class<? extends VCardProperty> clazz : unregistered) {
 				classes.add(clazz.getName());
@@ -224,7 +276,5 @@ public abstract class StreamWriter implements Closeable {
 		if (prodIdProperty != null) {
 			propertiesToAdd.add(0, prodIdProperty);
 		}
-
-		return propertiesToAdd;
 	}
 }
@@ -0,0 +1,1052 @@
+package ezvcard.io.binary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ezvcard.Messages;
+import ezvcard.VCard;
+import ezvcard.VCardDataType;
+import ezvcard.VCardVersion;
+import ezvcard.io.CannotParseException;
+import ezvcard.io.EmbeddedVCardException;
+import ezvcard.io.SkipMeException;
+import ezvcard.io.json.JCardValue;
+import ezvcard.io.json.JsonValue;
+import ezvcard.io.scribe.RawPropertyScribe;
+import ezvcard.io.scribe.ScribeIndex;
+import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.parameter.ImageType;
+import ezvcard.parameter.KeyType;
+import ezvcard.parameter.MediaTypeParameter;
+import ezvcard.parameter.SoundType;
+import ezvcard.parameter.VCardParameters;
+import ezvcard.property.Agent;
+import ezvcard.property.Anniversary;
+import ezvcard.property.BinaryProperty;
+import ezvcard.property.Birthday;
+import ezvcard.property.DateOrTimeProperty;
+import ezvcard.property.Deathdate;
+import ezvcard.property.Geo;
+import ezvcard.property.Key;
+import ezvcard.property.Logo;
+import ezvcard.property.Photo;
+import ezvcard.property.RawProperty;
+import ezvcard.property.Revision;
+import ezvcard.property.Sound;
+import ezvcard.property.Timezone;
+import ezvcard.property.VCardProperty;
+import ezvcard.util.GeoUri;
+import ezvcard.util.UtcOffset;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Encodes vCards in a compact binary format. This is useful for storing vCards
+ * in caches and sending them between applications, since decoding the binary
+ * format is much faster than parsing plain-text vCards, jCards, or xCards.
+ * </p>
+ * <p>
+ * Property and parameter names, groups, data types, and parameter values are
+ * written to a dictionary the first time they are encountered, and are
+ * referenced by number after that. The names of the standard properties and
+ * parameters are already in the dictionary. All lengths and numbers are
+ * written as variable-length integers. The data of {@link BinaryProperty}
+ * properties (such as PHOTO) is written as raw bytes, and the dates of
+ * {@link DateOrTimeProperty} properties (such as BDAY) and the REV property
+ * are written as numbers, which means that they are not rounded down to the
+ * nearest second like they are in the other formats. The coordinates of GEO
+ * properties are written as raw floating-point numbers, and TZ properties keep
+ * both their UTC offset and their text value.
+ * </p>
+ * <p>
+ * The values of all other properties are converted using the jCard
+ * marshalling methods of their scribes. This means that custom property
+ * classes are supported, as long as their scribes are registered with both the
+ * codec that encodes the vCard and the codec that decodes it (see
+ * {@link #registerScribe}).
+ * </p>
+ * <p>
+ * The first bytes of the encoded data identify the format version. Data that
+ * was encoded by a newer, incompatible version of this class will be rejected
+ * instead of being decoded incorrectly.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * VCardBinaryCodec codec = new VCardBinaryCodec();
+ *
+ * byte[] data = codec.encode(vcard);
+ * cache.put(key, data);
+ *
+ * VCard copy = codec.decode(cache.get(key));
+ * </pre>
+ * <p>
+ * This class is thread-safe, as long as its scribe index is not modified
+ * while it is in use.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class VCardBinaryCodec {
+	private static final byte[] MAGIC = { 'V', 'C', 'B' };
+	private static final int FORMAT_VERSION = 1;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/*
+	 * The strings that are in the dictionary before the first string is
+	 * written. This list is part of the format, so it must never be changed
+	 * without incrementing the format version.
+	 */
+	//@formatter:off
+	private static final String[] BUILT_IN_STRINGS = {
+		//versions
+		"2.1", "3.0", "4.0",
+
+		//property names
+		"ADR", "AGENT", "ANNIVERSARY", "BDAY", "BIRTHPLACE", "CALADRURI", "CALURI", "CATEGORIES",
+		"CLASS", "CLIENTPIDMAP", "DEATHDATE", "DEATHPLACE", "EMAIL", "EXPERTISE", "FBURL", "FN",
+		"GENDER", "GEO", "HOBBY", "IMPP", "INTEREST", "KEY", "KIND", "LABEL", "LANG", "LOGO",
+		"MAILER", "MEMBER", "N", "NAME", "NICKNAME", "NOTE", "ORG", "ORG-DIRECTORY", "PHOTO",
+		"PRODID", "PROFILE", "RELATED", "REV", "ROLE", "SORT-STRING", "SOUND", "SOURCE", "TEL",
+		"TITLE", "TZ", "UID", "URL", "XML",
+
+		//parameter names
+		"ALTID", "CALSCALE", "CHARSET", "ENCODING", "INDEX", "LANGUAGE", "LEVEL", "MEDIATYPE",
+		"PID", "PREF", "SORT-AS", "TYPE", "VALUE",
+
+		//common parameter values
+		"home", "work", "cell", "voice", "fax", "pager", "text", "internet", "x400", "pref",
+		"HOME", "WORK", "CELL", "VOICE", "FAX", "PAGER", "TEXT", "INTERNET", "X400", "PREF",
+		"postal", "parcel", "dom", "intl", "1", "2", "3", "en", "gregorian",
+
+		//data types
+		"uri", "date", "time", "date-time", "date-and-or-time", "timestamp", "boolean",
+		"integer", "float", "utc-offset", "language-tag", "url", "content-id", "binary"
+	};
+	//@formatter:on
+
+	private static final Map<String, Integer> BUILT_IN_INDEXES;
+	static {
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		for (int i = 0; i < BUILT_IN_STRINGS.length; i++) {
+			indexes.put(BUILT_IN_STRINGS[i], i);
+		}
+		BUILT_IN_INDEXES = indexes;
+	}
+
+	//property tags
+	private static final int JCARD = 0, RAW = 1, BINARY = 2, DATE = 3, TIMESTAMP = 4, AGENT = 5, TIMEZONE = 6, GEO = 7;
+
+	//JSON value tags
+	private static final int NULL = 0, STRING = 1, INTEGER = 2, FLOAT = 3, TRUE = 4, FALSE = 5, ARRAY = 6, OBJECT = 7;
+
+	//binary property content
+	private static final int NONE = 0, DATA = 1, URL = 2, KEY_TEXT = 3, NESTED_VCARD = 4;
+
+	private ScribeIndex index = new ScribeIndex();
+
+	/**
+	 * <p>
+	 * Registers a property scribe. This is the same as calling:
+	 * </p>
+	 * <p>
+	 * {@code getScribeIndex().register(scribe)}
+	 * </p>
+	 * @param scribe the scribe to register
+	 */
+	public void registerScribe(VCardPropertyScribe<? extends VCardProperty> scribe) {
+		index.register(scribe);
+	}
+
+	/**
+	 * Gets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * @return the scribe index
+	 */
+	public ScribeIndex getScribeIndex() {
+		return index;
+	}
+
+	/**
+	 * Sets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * @param index the scribe index
+	 */
+	public void setScribeIndex(ScribeIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Encodes a vCard.
+	 * @param vcard the vCard to encode
+	 * @return the encoded vCard
+	 * @throws IllegalArgumentException if a scribe hasn't been registered for a
+	 * custom property class (see: {@link #registerScribe registerScribe})
+	 */
+	public byte[] encode(VCard vcard) {
+		Output out = new Output();
+		for (byte b : MAGIC) {
+			out.writeByte(b);
+		}
+		out.writeByte(FORMAT_VERSION);
+		writeVCard(vcard, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes a vCard.
+	 * @param data the encoded vCard
+	 * @return the decoded vCard
+	 * @throws IllegalArgumentException if the data is not a vCard that was
+	 * encoded with this class, or was encoded by an incompatible version of
+	 * this class
+	 */
+	public VCard decode(byte[] data) {
+		Input in = new Input(data);
+		try {
+			for (byte b : MAGIC) {
+				if (in.readByte() != b) {
+					throw invalid();
+				}
+			}
+			if (in.readByte() != FORMAT_VERSION) {
+				throw invalid();
+			}
+
+			VCard vcard = readVCard(in);
+			if (in.pos != data.length) {
+				throw invalid();
+			}
+			return vcard;
+		} catch (IndexOutOfBoundsException e) {
+			//the data ended prematurely
+			throw invalid();
+		} catch (NegativeArraySizeException e) {
+			throw invalid();
+		}
+	}
+
+	private void writeVCard(VCard vcard, Output out) {
+		VCardVersion version = vcard.getVersion();
+		out.writeRef((version == null) ? null : version.getVersion());
+
+		Collection<VCardProperty> properties = vcard.getProperties();
+		List<Class<? extends VCardProperty>> unregistered = null;
+		for (VCardProperty property : properties) {
+			if (!(property instanceof RawProperty) && index.getPropertyScribe(property) == null) {
+				if (unregistered == null) {
+					unregistered = new ArrayList<Class<? extends VCardProperty>>();
+				}
+				unregistered.add(property.getClass());
+			}
+		}
+		if (unregistered != null) {
+			List<String> classes = new ArrayList<String>(unregistered.size());
+			for (Class<? extends VCardProperty> clazz : unregistered) {
+				classes.add(clazz.getName());
+			}
+			throw Messages.INSTANCE.getIllegalArgumentException(14, classes);
+		}
+
+		/*
+		 * Properties that ask to be skipped are only discovered while they are
+		 * being written, so the number of properties is written after the
+		 * properties themselves have been buffered.
+		 */
+		Output body = out.child();
+		int count = 0;
+		for (VCardProperty property : properties) {
+			if (writeProperty(property, body)) {
+				count++;
+			}
+		}
+		out.writeVarint(count);
+		out.append(body);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private boolean writeProperty(VCardProperty property, Output out) {
+		if (property instanceof RawProperty) {
+			RawProperty raw = (RawProperty) property;
+			writeHeader(RAW, raw.getPropertyName(), property, out);
+			VCardDataType dataType = raw.getDataType();
+			out.writeRef((dataType == null) ? null : dataType.getName());
+			out.writeString(raw.getValue());
+			return true;
+		}
+
+		VCardPropertyScribe scribe = index.getPropertyScribe(property);
+		String name = scribe.getPropertyName();
+		Class<?> clazz = property.getClass();
+
+		if (clazz == Photo.class || clazz == Logo.class || clazz == Sound.class || clazz == Key.class) {
+			BinaryProperty<?> binary = (BinaryProperty<?>) property;
+			writeHeader(BINARY, name, property, out);
+
+			MediaTypeParameter contentType = binary.getContentType();
+			if (contentType == null) {
+				out.writeRef(null);
+				out.writeRef(null);
+				out.writeRef(null);
+			} else {
+				out.writeRef(contentType.getValue());
+				out.writeRef(contentType.getMediaType());
+				out.writeRef(contentType.getExtension());
+			}
+
+			String keyText = (property instanceof Key) ? ((Key) property).getText() : null;
+			if (binary.getData() != null) {
+				out.writeByte(DATA);
+				out.writeBytes(binary.getData());
+			} else if (binary.getUrl() != null) {
+				out.writeByte(URL);
+				out.writeString(binary.getUrl());
+			} else if (keyText != null) {
+				out.writeByte(KEY_TEXT);
+				out.writeString(keyText);
+			} else {
+				out.writeByte(NONE);
+			}
+			return true;
+		}
+
+		if ((clazz == Birthday.class || clazz == Anniversary.class || clazz == Deathdate.class) && ((DateOrTimeProperty) property).getDate() != null) {
+			DateOrTimeProperty date = (DateOrTimeProperty) property;
+			writeHeader(DATE, name, property, out);
+			out.writeLong(date.getDate().getTime());
+			out.writeByte(date.hasTime() ? 1 : 0);
+			return true;
+		}
+
+		if (clazz == Revision.class && ((Revision) property).getValue() != null) {
+			writeHeader(TIMESTAMP, name, property, out);
+			out.writeLong(((Revision) property).getValue().getTime());
+			return true;
+		}
+
+		if (clazz == Agent.class) {
+			Agent agent = (Agent) property;
+			writeHeader(AGENT, name, property, out);
+			if (agent.getVCard() != null) {
+				out.writeByte(NESTED_VCARD);
+				writeVCard(agent.getVCard(), out);
+			} else if (agent.getUrl() != null) {
+				out.writeByte(URL);
+				out.writeString(agent.getUrl());
+			} else {
+				out.writeByte(NONE);
+			}
+			return true;
+		}
+
+		if (clazz == Timezone.class) {
+			Timezone timezone = (Timezone) property;
+			writeHeader(TIMEZONE, name, property, out);
+			UtcOffset offset = timezone.getOffset();
+			if (offset == null) {
+				out.writeByte(0);
+			} else {
+				out.writeByte(1);
+				out.writeLong(offset.getMillis());
+			}
+			out.writeString(timezone.getText());
+			return true;
+		}
+
+		if (clazz == Geo.class) {
+			GeoUri uri = ((Geo) property).getGeoUri();
+			writeHeader(GEO, name, property, out);
+			if (uri == null) {
+				out.writeByte(NONE);
+				return true;
+			}
+
+			out.writeByte(DATA);
+			out.writeDouble(uri.getCoordA());
+			out.writeDouble(uri.getCoordB());
+			out.writeDouble(uri.getCoordC());
+			out.writeRef(uri.getCrs());
+			out.writeDouble(uri.getUncertainty());
+
+			Map<String, String> geoParameters = uri.getParameters();
+			out.writeVarint(geoParameters.size());
+			for (Map.Entry<String, String> parameter : geoParameters.entrySet()) {
+				out.writeRef(parameter.getKey());
+				out.writeString(parameter.getValue());
+			}
+			return true;
+		}
+
+		JCardValue value;
+		try {
+			value = scribe.writeJson(property);
+		} catch (SkipMeException e) {
+			//property has requested not to be written
+			return false;
+		} catch (EmbeddedVCardException e) {
+			//only AGENT properties can contain embedded vCards, and they are handled above
+			return false;
+		}
+
+		writeHeader(JCARD, name, property, out);
+		VCardDataType dataType = scribe.dataType(property, VCardVersion.V4_0);
+		out.writeRef((dataType == null) ? null : dataType.getName());
+
+		List<JsonValue> values = value.getValues();
+		out.writeVarint(values.size());
+		for (JsonValue jsonValue : values) {
+			writeJsonValue(jsonValue, out);
+		}
+		return true;
+	}
+
+	private void writeHeader(int tag, String name, VCardProperty property, Output out) {
+		out.writeByte(tag);
+		out.writeRef(name);
+		out.writeRef(property.getGroup());
+
+		VCardParameters parameters = property.getParameters();
+		out.writeVarint(parameters.keySet().size());
+		for (Map.Entry<String, List<String>> parameter : parameters) {
+			out.writeRef(parameter.getKey());
+			List<String> values = parameter.getValue();
+			out.writeVarint(values.size());
+			for (String value : values) {
+				out.writeRef(value);
+			}
+		}
+	}
+
+	private void writeJsonValue(JsonValue jsonValue, Output out) {
+		List<JsonValue> array = jsonValue.getArray();
+		if (array != null) {
+			out.writeByte(ARRAY);
+			out.writeVarint(array.size());
+			for (JsonValue element : array) {
+				writeJsonValue(element, out);
+			}
+			return;
+		}
+
+		Map<String, JsonValue> object = jsonValue.getObject();
+		if (object != null) {
+			out.writeByte(OBJECT);
+			out.writeVarint(object.size());
+			for (Map.Entry<String, JsonValue> entry : object.entrySet()) {
+				out.writeRef(entry.getKey());
+				writeJsonValue(entry.getValue(), out);
+			}
+			return;
+		}
+
+		Object value = jsonValue.getValue();
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof Boolean) {
+			out.writeByte(((Boolean) value) ? TRUE : FALSE);
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			out.writeByte(INTEGER);
+			out.writeLong(((Number) value).longValue());
+		} else if (value instanceof Double || value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeRawDouble(((Number) value).doubleValue());
+		} else {
+			out.writeByte(STRING);
+			out.writeString(value.toString());
+		}
+	}
+
+	private VCard readVCard(Input in) {
+		VCard vcard = new VCard();
+		String versionStr = in.readRef();
+		vcard.setVersion((versionStr == null) ? null : VCardVersion.valueOfByStr(versionStr));
+
+		int count = in.readCount();
+		for (int i = 0; i < count; i++) {
+			VCardProperty property = readProperty(in);
+			if (property != null) {
+				vcard.addProperty(property);
+			}
+		}
+		return vcard;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private VCardProperty readProperty(Input in) {
+		int tag = in.readByte();
+		String name = in.readRef();
+		String group = in.readRef();
+
+		VCardParameters parameters = new VCardParameters();
+		int parameterCount = in.readCount();
+		for (int i = 0; i < parameterCount; i++) {
+			String parameterName = in.readRef();
+			int valueCount = in.readCount();
+			List<String> values = new ArrayList<String>(valueCount);
+			for (int j = 0; j < valueCount; j++) {
+				values.add(in.readRef());
+			}
+			parameters.putAll(parameterName, values);
+		}
+
+		VCardProperty property;
+		switch (tag) {
+		case RAW: {
+			VCardDataType dataType = dataType(in.readRef());
+			RawProperty raw = new RawProperty(name, in.readString(), dataType);
+			property = raw;
+			break;
+		}
+
+		case BINARY:
+			property = readBinaryProperty(name, in);
+			break;
+
+		case DATE: {
+			Date date = new Date(in.readLong());
+			boolean hasTime = (in.readByte() == 1);
+			if ("BDAY".equals(name)) {
+				property = new Birthday(date, hasTime);
+			} else if ("ANNIVERSARY".equals(name)) {
+				property = new Anniversary(date, hasTime);
+			} else if ("DEATHDATE".equals(name)) {
+				property = new Deathdate(date, hasTime);
+			} else {
+				throw invalid();
+			}
+			break;
+		}
+
+		case TIMESTAMP:
+			property = new Revision(new Date(in.readLong()));
+			break;
+
+		case AGENT: {
+			Agent agent = new Agent();
+			switch (in.readByte()) {
+			case NESTED_VCARD:
+				agent.setVCard(readVCard(in));
+				break;
+			case URL:
+				agent.setUrl(in.readString());
+				break;
+			}
+			property = agent;
+			break;
+		}
+
+		case TIMEZONE: {
+			UtcOffset offset = (in.readByte() == 1) ? new UtcOffset(in.readLong()) : null;
+			property = new Timezone(offset, in.readString());
+			break;
+		}
+
+		case GEO:
+			property = readGeo(in);
+			break;
+
+		case JCARD: {
+			VCardDataType dataType = dataType(in.readRef());
+			int valueCount = in.readCount();
+			List<JsonValue> values = new ArrayList<JsonValue>(valueCount);
+			for (int i = 0; i < valueCount; i++) {
+				values.add(readJsonValue(in));
+			}
+			JCardValue value = new JCardValue(values);
+
+			VCardPropertyScribe scribe = index.getPropertyScribe(name);
+			if (scribe == null) {
+				scribe = new RawPropertyScribe(name);
+			}
+
+			try {
+				property = scribe.parseJson(value, dataType, parameters).getProperty();
+			} catch (SkipMeException e) {
+				return null;
+			} catch (CannotParseException e) {
+				property = new RawPropertyScribe(name).parseJson(value, dataType, parameters).getProperty();
+			} catch (EmbeddedVCardException e) {
+				return null;
+			}
+			break;
+		}
+
+		default:
+			throw invalid();
+		}
+
+		property.setGroup(group);
+		property.setParameters(parameters);
+		return property;
+	}
+
+	private Geo readGeo(Input in) {
+		if (in.readByte() != DATA) {
+			return new Geo((GeoUri) null);
+		}
+
+		GeoUri.Builder builder = new GeoUri.Builder(in.readDouble(), in.readDouble());
+		builder.coordC(in.readDouble());
+		builder.crs(in.readRef());
+		builder.uncertainty(in.readDouble());
+
+		int parameterCount = in.readCount();
+		for (int i = 0; i < parameterCount; i++) {
+			String parameterName = in.readRef();
+			String parameterValue = in.readString();
+			if (parameterName == null) {
+				throw invalid();
+			}
+			builder.parameter(parameterName, parameterValue);
+		}
+
+		return new Geo(builder.build());
+	}
+
+	private VCardProperty readBinaryProperty(String name, Input in) {
+		String type = in.readRef();
+		String mediaType = in.readRef();
+		String extension = in.readRef();
+		boolean hasContentType = (type != null || mediaType != null || extension != null);
+
+		BinaryProperty<?> property;
+		if ("PHOTO".equals(name)) {
+			ImageType contentType = hasContentType ? ImageType.get(type, mediaType, extension) : null;
+			Photo photo = new Photo((String) null, contentType);
+			readBinaryContent(photo, contentType, in);
+			property = photo;
+		} else if ("LOGO".equals(name)) {
+			ImageType contentType = hasContentType ? ImageType.get(type, mediaType, extension) : null;
+			Logo logo = new Logo((String) null, contentType);
+			readBinaryContent(logo, contentType, in);
+			property = logo;
+		} else if ("SOUND".equals(name)) {
+			SoundType contentType = hasContentType ? SoundType.get(type, mediaType, extension) : null;
+			Sound sound = new Sound((String) null, contentType);
+			readBinaryContent(sound, contentType, in);
+			property = sound;
+		} else if ("KEY".equals(name)) {
+			KeyType contentType = hasContentType ? KeyType.get(type, mediaType, extension) : null;
+			Key key = new Key();
+			key.setContentType(contentType);
+			readBinaryContent(key, contentType, in);
+			property = key;
+		} else {
+			throw invalid();
+		}
+
+		return property;
+	}
+
+	private <T extends MediaTypeParameter> void readBinaryContent(BinaryProperty<T> property, T contentType, Input in) {
+		switch (in.readByte()) {
+		case DATA:
+			property.setData(in.readBytes(), contentType);
+			break;
+		case URL:
+			property.setUrl(in.readString(), contentType);
+			break;
+		case KEY_TEXT:
+			if (!(property instanceof Key)) {
+				throw invalid();
+			}
+			((Key) property).setText(in.readString(), (KeyType) contentType);
+			break;
+		}
+	}
+
+	private JsonValue readJsonValue(Input in) {
+		int tag = in.readByte();
+		switch (tag) {
+		case NULL:
+			return new JsonValue((Object) null);
+		case STRING:
+			return new JsonValue(in.readString());
+		case INTEGER:
+			return new JsonValue(in.readLong());
+		case FLOAT:
+			return new JsonValue(in.readRawDouble());
+		case TRUE:
+			return new JsonValue(Boolean.TRUE);
+		case FALSE:
+			return new JsonValue(Boolean.FALSE);
+		case ARRAY: {
+			int size = in.readCount();
+			List<JsonValue> array = new ArrayList<JsonValue>(size);
+			for (int i = 0; i < size; i++) {
+				array.add(readJsonValue(in));
+			}
+			return new JsonValue(array);
+		}
+		case OBJECT: {
+			int size = in.readCount();
+			Map<String, JsonValue> object = new LinkedHashMap<String, JsonValue>();
+			for (int i = 0; i < size; i++) {
+				String key = in.readRef();
+				object.put(key, readJsonValue(in));
+			}
+			return new JsonValue(object);
+		}
+		default:
+			throw invalid();
+		}
+	}
+
+	private static VCardDataType dataType(String name) {
+		return (name == null) ? null : VCardDataType.get(name);
+	}
+
+	private static IllegalArgumentException invalid() {
+		return Messages.INSTANCE.getIllegalArgumentException(50);
+	}
+
+	/**
+	 * A growable byte buffer that the encoded data is written to.
+	 */
+	private static class Output {
+		private byte[] buffer;
+		private int size = 0;
+
+		/*
+		 * Shared with the child buffers, since they are part of the same
+		 * encoded vCard.
+		 */
+		private final Map<String, Integer> dictionary;
+
+		public Output() {
+			this(new HashMap<String, Integer>(), 256);
+		}
+
+		private Output(Map<String, Integer> dictionary, int capacity) {
+			this.dictionary = dictionary;
+			buffer = new byte[capacity];
+		}
+
+		/**
+		 * Creates a buffer that shares this buffer's dictionary. The child
+		 * buffer's contents must be appended to this buffer immediately after
+		 * the strings that were added to the dictionary before the child was
+		 * created.
+		 * @return the child buffer
+		 */
+		public Output child() {
+			return new Output(dictionary, 256);
+		}
+
+		public void append(Output child) {
+			ensureCapacity(child.size);
+			System.arraycopy(child.buffer, 0, buffer, size, child.size);
+			size += child.size;
+		}
+
+		public void writeByte(int b) {
+			ensureCapacity(1);
+			buffer[size++] = (byte) b;
+		}
+
+		public void writeVarint(int value) {
+			writeVarlong(value & 0xffffffffL);
+		}
+
+		/**
+		 * Writes a signed number using zig-zag encoding, so that small
+		 * negative numbers are also short.
+		 * @param value the number
+		 */
+		public void writeLong(long value) {
+			writeVarlong((value << 1) ^ (value >> 63));
+		}
+
+		private void writeVarlong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7fL) != 0) {
+				buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			buffer[size++] = (byte) value;
+		}
+
+		/**
+		 * Writes a floating-point number exactly, using all 8 bytes.
+		 * @param value the number
+		 */
+		public void writeRawDouble(double value) {
+			long bits = Double.doubleToLongBits(value);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				writeByte((int) (bits >>> shift));
+			}
+		}
+
+		/**
+		 * Writes a floating-point number that may be null.
+		 * @param value the number or null
+		 */
+		public void writeDouble(Double value) {
+			if (value == null) {
+				writeByte(0);
+				return;
+			}
+
+			writeByte(1);
+			writeRawDouble(value);
+		}
+
+		public void writeBytes(byte[] bytes) {
+			writeVarint(bytes.length);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, buffer, size, bytes.length);
+			size += bytes.length;
+		}
+
+		/**
+		 * Writes a string that is not added to the dictionary.
+		 * @param string the string or null
+		 */
+		public void writeString(String string) {
+			if (string == null) {
+				writeVarint(0);
+				return;
+			}
+
+			int length = string.length();
+			boolean ascii = true;
+			for (int i = 0; i < length; i++) {
+				if (string.charAt(i) >= 0x80) {
+					ascii = false;
+					break;
+				}
+			}
+
+			if (ascii) {
+				writeVarint(length + 1);
+				ensureCapacity(length);
+				for (int i = 0; i < length; i++) {
+					buffer[size++] = (byte) string.charAt(i);
+				}
+				return;
+			}
+
+			ByteBuffer encoded = UTF8.encode(string);
+			int encodedLength = encoded.remaining();
+			writeVarint(encodedLength + 1);
+			ensureCapacity(encodedLength);
+			encoded.get(buffer, size, encodedLength);
+			size += encodedLength;
+		}
+
+		/**
+		 * Writes a reference to a string in the dictionary, adding the string
+		 * to the dictionary if it is not there.
+		 * @param string the string or null
+		 */
+		public void writeRef(String string) {
+			if (string == null) {
+				writeVarint(0);
+				return;
+			}
+
+			Integer index = BUILT_IN_INDEXES.get(string);
+			if (index == null) {
+				index = dictionary.get(string);
+			}
+			if (index != null) {
+				writeVarint(index + 2);
+				return;
+			}
+
+			dictionary.put(string, BUILT_IN_STRINGS.length + dictionary.size());
+			writeVarint(1);
+			writeString(string);
+		}
+
+		public byte[] toByteArray() {
+			byte[] copy = new byte[size];
+			System.arraycopy(buffer, 0, copy, 0, size);
+			return copy;
+		}
+
+		private void ensureCapacity(int needed) {
+			if (size + needed <= buffer.length) {
+				return;
+			}
+
+			int newLength = Math.max(buffer.length * 2, size + needed);
+			byte[] newBuffer = new byte[newLength];
+			System.arraycopy(buffer, 0, newBuffer, 0, size);
+			buffer = newBuffer;
+		}
+	}
+
+	/**
+	 * Reads the encoded data.
+	 */
+	private static class Input {
+		private final byte[] data;
+		private final List<String> dictionary = new ArrayList<String>();
+		private int pos = 0;
+
+		public Input(byte[] data) {
+			this.data = data;
+		}
+
+		public int readByte() {
+			return data[pos++];
+		}
+
+		public int readVarint() {
+			long value = readVarlong();
+			if (value > Integer.MAX_VALUE) {
+				throw invalid();
+			}
+			return (int) value;
+		}
+
+		/**
+		 * Reads the number of items in a list. Every item takes up at least
+		 * one byte, so the count cannot be larger than the number of bytes
+		 * that are left. This prevents corrupt data from causing huge
+		 * allocations.
+		 * @return the count
+		 */
+		public int readCount() {
+			int count = readVarint();
+			checkRemaining(count);
+			return count;
+		}
+
+		public long readLong() {
+			long value = readVarlong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readVarlong() {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = data[pos++];
+				value |= (long) (b & 0x7f) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw invalid();
+		}
+
+		public double readRawDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits = (bits << 8) | (readByte() & 0xff);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+
+		public Double readDouble() {
+			return (readByte() == 0) ? null : readRawDouble();
+		}
+
+		public byte[] readBytes() {
+			int length = readVarint();
+			checkRemaining(length);
+			byte[] bytes = new byte[length];
+			System.arraycopy(data, pos, bytes, 0, length);
+			pos += length;
+			return bytes;
+		}
+
+		public String readString() {
+			int length = readVarint() - 1;
+			if (length < 0) {
+				return null;
+			}
+			checkRemaining(length);
+
+			boolean ascii = true;
+			for (int i = pos; i < pos + length; i++) {
+				if (data[i] < 0) {
+					ascii = false;
+					break;
+				}
+			}
+
+			String string;
+			if (ascii) {
+				char[] chars = new char[length];
+				for (int i = 0; i < length; i++) {
+					chars[i] = (char) data[pos + i];
+				}
+				string = new String(chars);
+			} else {
+				string = UTF8.decode(ByteBuffer.wrap(data, pos, length)).toString();
+			}
+
+			pos += length;
+			return string;
+		}
+
+		public String readRef() {
+			int ref = readVarint();
+			if (ref == 0) {
+				return null;
+			}
+			if (ref == 1) {
+				String string = readString();
+				if (string == null) {
+					throw invalid();
+				}
+				dictionary.add(string);
+				return string;
+			}
+
+			int index = ref - 2;
+			if (index < BUILT_IN_STRINGS.length) {
+				return BUILT_IN_STRINGS[index];
+			}
+			index -= BUILT_IN_STRINGS.length;
+			if (index >= dictionary.size()) {
+				throw invalid();
+			}
+			return dictionary.get(index);
+		}
+
+		private void checkRemaining(int length) {
+			if (length > data.length - pos) {
+				throw invalid();
+			}
+		}
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains classes that can encode vCards in a compact binary format.
+ */
+package ezvcard.io.binary;
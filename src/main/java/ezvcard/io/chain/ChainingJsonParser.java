@@ -4,6 +4,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
+
+import com.fasterxml.jackson.core.JsonFactory;
 
 import ezvcard.Ezvcard;
 import ezvcard.io.StreamReader;
@@ -42,6 +45,8 @@ import ezvcard.io.json.JCardReader;
  * @author Michael Angstadt
  */
 public class ChainingJsonParser<T extends ChainingJsonParser<?>> extends ChainingParser<T> {
+	private JsonFactory factory;
+
 	public ChainingJsonParser(String string) {
 		super(string);
 	}
@@ -58,8 +63,35 @@ public class ChainingJsonParser<T extends ChainingJsonParser<?>> extends Chainin
 		super(file);
 	}
 
+	/**
+	 * Sets the Jackson data format backend to parse the jCards with. This
+	 * allows jCards to be read from any data format that Jackson supports,
+	 * such as Smile or CBOR. Binary formats can only be read from input
+	 * streams and files.
+	 * @param factory the factory to create the parser with (defaults to a
+	 * plain {@link JsonFactory})
+	 * @return this
+	 */
+	public T factory(JsonFactory factory) {
+		this.factory = factory;
+		return this_;
+	}
+
 	@Override
 	StreamReader constructReader() throws IOException {
+		if (factory != null) {
+			if (string != null) {
+				return new JCardReader(new StringReader(string), factory);
+			}
+			if (in != null) {
+				return new JCardReader(in, factory);
+			}
+			if (reader != null) {
+				return new JCardReader(reader, factory);
+			}
+			return new JCardReader(file, factory);
+		}
+
 		if (string != null) {
 			return new JCardReader(string);
 		}
@@ -7,6 +7,8 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Collection;
 
+import com.fasterxml.jackson.core.JsonFactory;
+
 import ezvcard.Ezvcard;
 import ezvcard.VCard;
 import ezvcard.io.json.JCardWriter;
@@ -46,6 +48,7 @@ import ezvcard.property.VCardProperty;
  */
 public class ChainingJsonWriter extends ChainingWriter<ChainingJsonWriter> {
 	private boolean prettyPrint = false;
+	private JsonFactory factory;
 
 	/**
 	 * @param vcards the vCards to write
@@ -65,6 +68,20 @@ public class ChainingJsonWriter extends ChainingWriter<ChainingJsonWriter> {
 		return this;
 	}
 
+	/**
+	 * Sets the Jackson data format backend to write the jCards with. This
+	 * allows jCards to be written in any data format that Jackson supports,
+	 * such as Smile or CBOR. Binary formats can only be written to output
+	 * streams and files.
+	 * @param factory the factory to create the generator with (defaults to a
+	 * plain {@link JsonFactory})
+	 * @return this
+	 */
+	public ChainingJsonWriter factory(JsonFactory factory) {
+		this.factory = factory;
+		return this;
+	}
+
 	@Override
 	public ChainingJsonWriter prodId(boolean include) {
 		return super.prodId(include);
@@ -101,7 +118,7 @@ public class ChainingJsonWriter extends ChainingWriter<ChainingJsonWriter> {
 	 * @throws IOException if there's a problem writing to the output stream
 	 */
 	public void go(OutputStream out) throws IOException {
-		go(new JCardWriter(out, wrapInArray()));
+		go((factory == null) ? new JCardWriter(out, wrapInArray()) : new JCardWriter(out, factory, wrapInArray()));
 	}
 
 	/**
@@ -110,7 +127,7 @@ public class ChainingJsonWriter extends ChainingWriter<ChainingJsonWriter> {
 	 * @throws IOException if there's a problem writing to the file
 	 */
 	public void go(File file) throws IOException {
-		JCardWriter writer = new JCardWriter(file, wrapInArray());
+		JCardWriter writer = (factory == null) ? new JCardWriter(file, wrapInArray()) : new JCardWriter(file, factory, wrapInArray());
 		try {
 			go(writer);
 		} finally {
@@ -124,7 +141,7 @@ public class ChainingJsonWriter extends ChainingWriter<ChainingJsonWriter> {
 	 * @throws IOException if there's a problem writing to the writer
 	 */
 	public void go(Writer writer) throws IOException {
-		go(new JCardWriter(writer, wrapInArray()));
+		go(new JCardWriter(writer, factory, wrapInArray()));
 	}
 
 	private void go(JCardWriter writer) throws IOException {
@@ -135,10 +152,8 @@ public class ChainingJsonWriter extends ChainingWriter<ChainingJsonWriter> {
 			writer.setScribeIndex(index);
 		}
 		try {
-			for (VCard vcard : vcards) {
-				writer.write(vcard);
-				writer.flush();
-			}
+			writer.writeAll(vcards);
+			writer.flush();
 		} finally {
 			writer.closeJsonStream();
 		}
@@ -216,17 +216,19 @@ public class ChainingTextWriter extends ChainingWriter<ChainingTextWriter> {
 			writer.setScribeIndex(index);
 		}
 
-		for (VCard vcard : vcards) {
-			if (version == null) {
+		if (version == null) {
+			for (VCard vcard : vcards) {
 				//use the version that's assigned to each individual vCard
 				VCardVersion vcardVersion = vcard.getVersion();
 				if (vcardVersion == null) {
 					vcardVersion = VCardVersion.V3_0;
 				}
 				writer.setTargetVersion(vcardVersion);
+				writer.write(vcard);
 			}
-			writer.write(vcard);
-			writer.flush();
+		} else {
+			writer.writeAll(vcards);
 		}
+		writer.flush();
 	}
 }
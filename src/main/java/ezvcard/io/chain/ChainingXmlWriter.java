@@ -199,9 +199,7 @@ public class ChainingXmlWriter extends ChainingWriter<ChainingXmlWriter> {
 			writer.setScribeIndex(index);
 		}
 
-		for (VCard vcard : vcards) {
-			writer.write(vcard);
-		}
+		writer.writeAll(vcards);
 
 		return document;
 	}
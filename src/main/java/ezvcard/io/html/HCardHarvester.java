@@ -0,0 +1,308 @@
+package ezvcard.io.html;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import ezvcard.VCard;
+import ezvcard.io.scribe.ScribeIndex;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Parses hCards from many local HTML files at once. Each file is parsed by a
+ * {@link HCardParser} on the given {@link Executor}, so large collections of
+ * pages can be processed on all of the machine's cores.
+ * </p>
+ * <p>
+ * To keep memory use bounded, only a limited number of files are "in flight"
+ * at a time. A file is in flight from the moment it is handed to the executor
+ * until its result is returned by {@link Harvest#next}. More files are handed
+ * to the executor as results are consumed.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+ * HCardHarvester harvester = new HCardHarvester(executor, 32);
+ *
+ * Map&lt;File, String&gt; pages = new HashMap&lt;File, String&gt;();
+ * pages.put(new File("mirror/about.html"), "http://example.com/about.html");
+ * ...
+ *
+ * HCardHarvester.Harvest harvest = harvester.harvest(pages);
+ * HCardHarvester.Page page;
+ * while ((page = harvest.next()) != null) {
+ *   if (page.getError() != null) {
+ *     //the file could not be read
+ *     continue;
+ *   }
+ *   for (VCard vcard : page.getVCards()) {
+ *     ...
+ *   }
+ * }
+ *
+ * executor.shutdown();
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class HCardHarvester {
+	private final Executor executor;
+	private final int maxInFlight;
+	private ScribeIndex index;
+
+	/**
+	 * @param executor the executor that will parse the files (this class does
+	 * not shut it down)
+	 * @param maxInFlight the maximum number of files that can be parsing or
+	 * waiting to be consumed at once
+	 * @throws IllegalArgumentException if the maximum number of files is not
+	 * positive
+	 */
+	public HCardHarvester(Executor executor, int maxInFlight) {
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("Max in-flight files must be positive.");
+		}
+
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * <p>
+	 * Gets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * </p>
+	 * <p>
+	 * The same object is shared by all of the parsers, so do not register new
+	 * scribes while files are being parsed.
+	 * </p>
+	 * @return the scribe index or null to use the default scribes
+	 */
+	public ScribeIndex getScribeIndex() {
+		return index;
+	}
+
+	/**
+	 * Sets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * @param index the scribe index or null to use the default scribes
+	 */
+	public void setScribeIndex(ScribeIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Parses hCards from a collection of files. If a file appears in the
+	 * collection more than once, it is parsed once for each occurrence.
+	 * @param files the files to parse
+	 * @return the object used to retrieve the results
+	 */
+	public Harvest harvest(Iterable<File> files) {
+		return new Harvest(files.iterator(), Collections.<File, String> emptyMap());
+	}
+
+	/**
+	 * Parses hCards from a collection of files.
+	 * @param pages the files to parse. The map values are the original URLs of
+	 * the HTML pages (used to resolve relative links), and may be null.
+	 * @return the object used to retrieve the results
+	 */
+	public Harvest harvest(Map<File, String> pages) {
+		return new Harvest(pages.keySet().iterator(), pages);
+	}
+
+	/**
+	 * Retrieves the results of a harvest. This class is not thread-safe; it
+	 * should only be used by the thread that consumes the results.
+	 */
+	public class Harvest {
+		private final Iterator<File> remaining;
+		private final Map<File, String> pageUrls;
+		private final BlockingQueue<Page> completed = new LinkedBlockingQueue<Page>();
+		private int inFlight = 0;
+
+		private Harvest(Iterator<File> remaining, Map<File, String> pageUrls) {
+			this.remaining = remaining;
+			this.pageUrls = pageUrls;
+			submit();
+		}
+
+		/**
+		 * Gets the next parsed file, waiting for one to finish if necessary.
+		 * Files are returned in the order in which they finish, which may be
+		 * different from the order in which they were passed in.
+		 * @return the parsed file or null if all files have been returned
+		 * @throws InterruptedException if the thread is interrupted while
+		 * waiting
+		 */
+		public Page next() throws InterruptedException {
+			if (inFlight == 0) {
+				return null;
+			}
+
+			Page page = completed.take();
+			inFlight--;
+			submit();
+			return page;
+		}
+
+		private void submit() {
+			while (inFlight < maxInFlight && remaining.hasNext()) {
+				File file = remaining.next();
+				String pageUrl = pageUrls.get(file);
+				try {
+					executor.execute(new ParseTask(file, pageUrl, completed));
+				} catch (RejectedExecutionException e) {
+					//report the file as failed, so that no file goes missing
+					completed.add(new Page(file, pageUrl, new ArrayList<VCard>(0), new ArrayList<List<String>>(0), e));
+				}
+				inFlight++;
+			}
+		}
+	}
+
+	private class ParseTask implements Runnable {
+		private final File file;
+		private final String pageUrl;
+		private final BlockingQueue<Page> completed;
+
+		public ParseTask(File file, String pageUrl, BlockingQueue<Page> completed) {
+			this.file = file;
+			this.pageUrl = pageUrl;
+			this.completed = completed;
+		}
+
+		public void run() {
+			List<VCard> vcards = new ArrayList<VCard>();
+			List<List<String>> warnings = new ArrayList<List<String>>();
+			Throwable error = null;
+
+			try {
+				HCardParser parser = new HCardParser(file, pageUrl);
+				if (index != null) {
+					parser.setScribeIndex(index);
+				}
+
+				VCard vcard;
+				while ((vcard = parser.readNext()) != null) {
+					vcards.add(vcard);
+					warnings.add(parser.getWarnings());
+				}
+			} catch (Throwable t) {
+				/*
+				 * Also catch Errors (such as StackOverflowError) so that a
+				 * partially-parsed file is not reported as a success.
+				 */
+				error = t;
+				vcards.clear();
+				warnings.clear();
+			} finally {
+				//always report back, so the consumer is not left waiting
+				completed.add(new Page(file, pageUrl, vcards, warnings, error));
+			}
+		}
+	}
+
+	/**
+	 * The hCards that were parsed from a single file.
+	 */
+	public static class Page {
+		private final File file;
+		private final String pageUrl;
+		private final List<VCard> vcards;
+		private final List<List<String>> warnings;
+		private final Throwable error;
+
+		private Page(File file, String pageUrl, List<VCard> vcards, List<List<String>> warnings, Throwable error) {
+			this.file = file;
+			this.pageUrl = pageUrl;
+			this.vcards = Collections.unmodifiableList(vcards);
+			this.warnings = Collections.unmodifiableList(warnings);
+			this.error = error;
+		}
+
+		/**
+		 * Gets the file that was parsed.
+		 * @return the file
+		 */
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * Gets the original URL of the HTML page. If not null, each vCard will
+		 * also have a SOURCE property containing this URL.
+		 * @return the URL or null if none was given
+		 */
+		public String getPageUrl() {
+			return pageUrl;
+		}
+
+		/**
+		 * Gets the vCards that were parsed from the file.
+		 * @return the vCards (empty if there was an error)
+		 */
+		public List<VCard> getVCards() {
+			return vcards;
+		}
+
+		/**
+		 * Gets the parser warnings. Each element in the list is a list of
+		 * warnings for the vCard at the same index in {@link #getVCards}.
+		 * @return the warnings
+		 */
+		public List<List<String>> getWarnings() {
+			return warnings;
+		}
+
+		/**
+		 * Gets the exception or error that was thrown while parsing the file.
+		 * @return the exception (e.g. an {@link java.io.IOException} if the
+		 * file could not be read, or a
+		 * {@link java.util.concurrent.RejectedExecutionException} if the
+		 * executor did not accept the file) or null if the file was parsed
+		 * successfully
+		 */
+		public Throwable getError() {
+			return error;
+		}
+	}
+}
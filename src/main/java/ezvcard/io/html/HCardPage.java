@@ -8,20 +8,16 @@ import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.regex.Pattern;
 
-import ezvcard.Ezvcard;
 import ezvcard.VCard;
-import ezvcard.io.scribe.ScribeIndex;
-import ezvcard.parameter.ImageType;
-import ezvcard.property.Photo;
+import ezvcard.parameter.MediaTypeParameter;
+import ezvcard.property.BinaryProperty;
 import ezvcard.util.DataUri;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
-import freemarker.template.TemplateException;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -76,18 +72,7 @@ import freemarker.template.TemplateException;
  * href="http://microformats.org/wiki/hcard">http://microformats.org/wiki/hcard</a>
  */
 public class HCardPage {
-	private static final Template template;
-	static {
-		Configuration cfg = new Configuration(Configuration.VERSION_2_3_23);
-		cfg.setClassForTemplateLoading(HCardPage.class, "");
-		cfg.setWhitespaceStripping(true);
-		try {
-			template = cfg.getTemplate("hcard-template.html");
-		} catch (IOException e) {
-			//should never be thrown because it's always on the classpath
-			throw new RuntimeException(e);
-		}
-	}
+	private static final HCardRenderer renderer = new HCardRenderer();
 
 	private final List<VCard> vcards = new ArrayList<VCard>();
 
@@ -143,46 +128,61 @@ public class HCardPage {
 	 * @throws IOException if there's a problem writing to the writer
 	 */
 	public void write(Writer writer) throws IOException {
-		Map<String, Object> map = new HashMap<String, Object>();
-		map.put("vcards", vcards);
-		map.put("utils", new TemplateUtils());
-		map.put("translucentBg", readImage("translucent-bg.png", ImageType.PNG));
-		map.put("noProfile", readImage("no-profile.png", ImageType.PNG));
-		map.put("ezVCardVersion", Ezvcard.VERSION);
-		map.put("ezVCardUrl", Ezvcard.URL);
-		map.put("scribeIndex", new ScribeIndex());
-		try {
-			template.process(map, writer);
-		} catch (TemplateException e) {
-			//this should never be thrown because we're always using the same template (it is hard-coded and cannot be changed by the user)
-			throw new RuntimeException(e);
-		}
-		writer.flush();
-	}
-
-	/**
-	 * Reads an image from the classpath.
-	 * @param name the file name, relative to this class
-	 * @param mediaType the media type of the image
-	 * @return the image
-	 * @throws IOException
-	 */
-	private Photo readImage(String name, ImageType mediaType) throws IOException {
-		return new Photo(getClass().getResourceAsStream(name), mediaType);
+		renderer.render(vcards, writer);
 	}
 
 	/**
-	 * Utility functions for the freemarker template.
+	 * Utility functions for the freemarker template. This class is
+	 * thread-safe.
 	 */
 	public static class TemplateUtils {
 		private final Pattern newlineRegex = Pattern.compile("\\r\\n|\\r|\\n");
 
+		/**
+		 * Caches the data URIs of binary properties. The keys are the
+		 * properties' byte arrays, which are compared by identity and are
+		 * weakly referenced, so entries go away along with their properties.
+		 */
+		private final Map<byte[], CachedDataUri> dataUris = Collections.synchronizedMap(new WeakHashMap<byte[], CachedDataUri>());
+
 		public String base64(String contentType, byte[] data) {
 			return new DataUri(contentType, data).toString();
 		}
 
+		/**
+		 * Gets the data URI of a binary property's data. The data URI is only
+		 * created the first time the property is passed into this method. The
+		 * property's byte array is assumed not to be modified in place.
+		 * @param property the property (must contain binary data)
+		 * @return the data URI
+		 */
+		public String dataUri(BinaryProperty<?> property) {
+			byte[] data = property.getData();
+			MediaTypeParameter contentType = property.getContentType();
+			String mediaType = (contentType == null) ? null : contentType.getMediaType();
+
+			CachedDataUri cached = dataUris.get(data);
+			if (cached != null && (mediaType == null ? cached.mediaType == null : mediaType.equals(cached.mediaType))) {
+				return cached.uri;
+			}
+
+			String uri = base64(mediaType, data);
+			dataUris.put(data, new CachedDataUri(mediaType, uri));
+			return uri;
+		}
+
 		public String lineBreaks(String value) {
 			return newlineRegex.matcher(value).replaceAll("<br />");
 		}
+
+		private static class CachedDataUri {
+			private final String mediaType;
+			private final String uri;
+
+			public CachedDataUri(String mediaType, String uri) {
+				this.mediaType = mediaType;
+				this.uri = uri;
+			}
+		}
 	}
 }
@@ -1,7 +1,5 @@
 package ezvcard.io.html;
 
-import static ezvcard.util.HtmlUtils.isChildOf;
-
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -9,6 +7,7 @@ import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -86,12 +85,10 @@ import ezvcard.util.IOUtils;
  */
 public class HCardParser extends StreamReader {
 	private final String pageUrl;
-	private final Elements vcardElements;
 	private final Iterator<Element> vcardElementsIt;
 	private final List<Label> labels = new ArrayList<Label>();
 
 	private VCard vcard;
-	private Elements embeddedVCards = new Elements();
 	private Nickname nickname;
 	private Categories categories;
 
@@ -222,18 +219,7 @@ public class HCardParser extends StreamReader {
 			searchUnder = document;
 		}
 
-		vcardElements = searchUnder.getElementsByClass("vcard");
-
-		//remove nested vcard elements
-		Iterator<Element> it = vcardElements.iterator();
-		while (it.hasNext()) {
-			Element element = it.next();
-			if (isChildOf(element, vcardElements)) {
-				it.remove();
-			}
-		}
-
-		vcardElementsIt = vcardElements.iterator();
+		vcardElementsIt = findVCardElements(searchUnder).iterator();
 	}
 
 	/**
@@ -243,8 +229,36 @@ public class HCardParser extends StreamReader {
 	 */
 	private HCardParser(Element embeddedVCard, String pageUrl) {
 		this.pageUrl = pageUrl;
-		vcardElements = new Elements(embeddedVCard);
-		vcardElementsIt = vcardElements.iterator();
+		vcardElementsIt = Collections.singletonList(embeddedVCard).iterator();
+	}
+
+	/**
+	 * Finds all "vcard" elements that are not nested inside of other "vcard"
+	 * elements. The tree is traversed only once, depth-first, and the
+	 * descendants of each "vcard" element that is found are skipped.
+	 * @param root the element to search under
+	 * @return the vcard elements, in document order
+	 */
+	private static List<Element> findVCardElements(Element root) {
+		List<Element> vcardElements = new ArrayList<Element>();
+		List<Element> stack = new ArrayList<Element>();
+		stack.add(root);
+
+		while (!stack.isEmpty()) {
+			Element element = stack.remove(stack.size() - 1);
+			if (element.hasClass("vcard")) {
+				vcardElements.add(element);
+				continue;
+			}
+
+			//push the children in reverse so they are popped in document order
+			Elements children = element.children();
+			for (int i = children.size() - 1; i >= 0; i--) {
+				stack.add(children.get(i));
+			}
+		}
+
+		return vcardElements;
 	}
 
 	@Override
@@ -279,16 +293,21 @@ public class HCardParser extends StreamReader {
 		}
 
 		//visit all descendant nodes, depth-first
-		for (Element child : vcardElement.children()) {
-			visit(child);
-		}
+		visitChildren(vcardElement);
 
 		//assign labels to their addresses
 		assignLabels(vcard, labels);
 	}
 
 	private void visit(Element element) {
+		//most elements do not have a "class" attribute
+		if (element.className().length() == 0) {
+			visitChildren(element);
+			return;
+		}
+
 		boolean visitChildren = true;
+		HCardElement hcardElement = null;
 		Set<String> classNames = element.classNames();
 		for (String className : classNames) {
 			className = className.toLowerCase();
@@ -297,15 +316,18 @@ public class HCardParser extends StreamReader {
 			if (urlPropertyName.equals(className)) {
 				String href = element.attr("href");
 				if (href.length() > 0) {
-					if (!classNames.contains(emailName) && href.matches("(?i)mailto:.*")) {
+					if (!classNames.contains(emailName) && startsWithIgnoreCase(href, "mailto:")) {
 						className = emailName;
-					} else if (!classNames.contains(telName) && href.matches("(?i)tel:.*")) {
+					} else if (!classNames.contains(telName) && startsWithIgnoreCase(href, "tel:")) {
 						className = telName;
 					} else {
 						//try parsing as IMPP
 						VCardPropertyScribe<? extends VCardProperty> scribe = index.getPropertyScribe(Impp.class);
+						if (hcardElement == null) {
+							hcardElement = new HCardElement(element);
+						}
 						try {
-							Result<? extends VCardProperty> result = scribe.parseHtml(new HCardElement(element));
+							Result<? extends VCardProperty> result = scribe.parseHtml(hcardElement);
 							vcard.addProperty(result.getProperty());
 							for (String warning : result.getWarnings()) {
 								warnings.add(null, scribe.getPropertyName(), warning);
@@ -334,9 +356,13 @@ public class HCardParser extends StreamReader {
 				scribe = new RawPropertyScribe(className);
 			}
 
+			if (hcardElement == null) {
+				hcardElement = new HCardElement(element);
+			}
+
 			VCardProperty property;
 			try {
-				Result<? extends VCardProperty> result = scribe.parseHtml(new HCardElement(element));
+				Result<? extends VCardProperty> result = scribe.parseHtml(hcardElement);
 
 				for (String warning : result.getWarnings()) {
 					warnings.add(null, className, warning);
@@ -381,14 +407,8 @@ public class HCardParser extends StreamReader {
 				warnings.add(null, className, 32, html, e.getMessage());
 				property = new RawProperty(className, html);
 			} catch (EmbeddedVCardException e) {
-				if (isChildOf(element, embeddedVCards)) {
-					//prevents multiple-nested embedded elements from overwriting each other
-					continue;
-				}
-
 				property = e.getProperty();
 
-				embeddedVCards.add(element);
 				HCardParser embeddedReader = new HCardParser(element, pageUrl);
 				try {
 					VCard embeddedVCard = embeddedReader.readNext();
@@ -406,12 +426,20 @@ public class HCardParser extends StreamReader {
 		}
 
 		if (visitChildren) {
-			for (Element child : element.children()) {
-				visit(child);
-			}
+			visitChildren(element);
+		}
+	}
+
+	private void visitChildren(Element element) {
+		for (Element child : element.children()) {
+			visit(child);
 		}
 	}
 
+	private static boolean startsWithIgnoreCase(String string, String prefix) {
+		return string.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+
 	public void close() {
 		//empty
 	}
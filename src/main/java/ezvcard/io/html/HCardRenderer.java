@@ -0,0 +1,182 @@
+package ezvcard.io.html;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import ezvcard.Ezvcard;
+import ezvcard.VCard;
+import ezvcard.io.html.HCardPage.TemplateUtils;
+import ezvcard.io.scribe.ScribeIndex;
+import ezvcard.parameter.ImageType;
+import ezvcard.util.DataUri;
+import ezvcard.util.IOUtils;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Renders vCards as HTML pages (hCard format). This is the class that
+ * {@link HCardPage} uses behind the scenes. Use it directly when many pages
+ * need to be rendered, such as in a web application.
+ * </p>
+ * <p>
+ * Everything that does not change between renders is created once: the
+ * template is loaded and compiled once, the data URIs of the page's built-in
+ * images are created once, and the template's helper objects are shared.
+ * The data URIs of the vCards' embedded photos, logos, and sounds are cached
+ * too, so a vCard that is rendered many times only has its binary data
+ * base64-encoded once (see {@link TemplateUtils#dataUri}).
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * //create once, share between threads
+ * HCardRenderer renderer = new HCardRenderer();
+ *
+ * //render a vCard on each request
+ * renderer.render(Arrays.asList(vcard), response.getWriter());
+ * </pre>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class HCardRenderer {
+	private static final Template template;
+	static {
+		Configuration cfg = new Configuration(Configuration.VERSION_2_3_23);
+		cfg.setClassForTemplateLoading(HCardPage.class, "");
+		cfg.setWhitespaceStripping(true);
+		try {
+			template = cfg.getTemplate("hcard-template.html");
+		} catch (IOException e) {
+			//should never be thrown because it's always on the classpath
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*
+	 * Data URIs of the images that are part of every page.
+	 */
+	private static final String translucentBgUri = readImage("translucent-bg.png", ImageType.PNG);
+	private static final String noProfileUri = readImage("no-profile.png", ImageType.PNG);
+
+	/**
+	 * The parts of the template's data model that are the same for every
+	 * render. It is never modified after it is created.
+	 */
+	private final Map<String, Object> sharedModel;
+
+	/**
+	 * Creates a renderer that uses the default scribes.
+	 */
+	public HCardRenderer() {
+		this(new ScribeIndex());
+	}
+
+	/**
+	 * @param index the scribe index to use. It must not be modified while
+	 * pages are being rendered.
+	 */
+	public HCardRenderer(ScribeIndex index) {
+		Map<String, Object> model = new HashMap<String, Object>();
+		model.put("utils", new TemplateUtils());
+		model.put("translucentBgUri", translucentBgUri);
+		model.put("noProfileUri", noProfileUri);
+		model.put("ezVCardVersion", Ezvcard.VERSION);
+		model.put("ezVCardUrl", Ezvcard.URL);
+		model.put("scribeIndex", index);
+		sharedModel = Collections.unmodifiableMap(model);
+	}
+
+	/**
+	 * Renders an HTML page.
+	 * @param vcards the vCards to include in the page
+	 * @return the HTML page
+	 */
+	public String render(Collection<VCard> vcards) {
+		StringWriter sw = new StringWriter();
+		try {
+			render(vcards, sw);
+		} catch (IOException e) {
+			//should never thrown because we're writing to a string
+			throw new RuntimeException(e);
+		}
+		return sw.toString();
+	}
+
+	/**
+	 * Renders an HTML page.
+	 * @param vcards the vCards to include in the page
+	 * @param writer the writer to write the page to
+	 * @throws IOException if there's a problem writing to the writer
+	 */
+	public void render(Collection<VCard> vcards, Writer writer) throws IOException {
+		Map<String, Object> model = new HashMap<String, Object>(sharedModel);
+		model.put("vcards", vcards);
+		try {
+			template.process(model, writer);
+		} catch (TemplateException e) {
+			//this should never be thrown because we're always using the same template (it is hard-coded and cannot be changed by the user)
+			throw new RuntimeException(e);
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Reads an image from the classpath and converts it to a data URI.
+	 * @param name the file name, relative to the {@link HCardPage} class
+	 * @param mediaType the media type of the image
+	 * @return the data URI
+	 */
+	private static String readImage(String name, ImageType mediaType) {
+		InputStream in = HCardPage.class.getResourceAsStream(name);
+		try {
+			byte[] data = IOUtils.toByteArray(in);
+			return new DataUri(mediaType.getMediaType(), data).toString();
+		} catch (IOException e) {
+			//should never be thrown because it's always on the classpath
+			throw new RuntimeException(e);
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package ezvcard.io.json;
 
 import java.io.IOException;
+import java.util.List;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -42,18 +43,78 @@ import ezvcard.property.VCardProperty;
  */
 
 /**
+ * <p>
  * Deserializes jCards within the jackson-databind framework.
+ * </p>
+ * <p>
+ * The parse warnings of each vCard can be retrieved by passing a list into
+ * the {@link #WARNINGS} attribute:
+ * </p>
+ *
+ * <pre class="brush:java">
+ * List&lt;List&lt;String&gt;&gt; warnings = new ArrayList&lt;List&lt;String&gt;&gt;();
+ * VCard vcard = mapper.readerFor(VCard.class).withAttribute(JCardDeserializer.WARNINGS, warnings).readValue(json);
+ * </pre>
  * @author Buddy Gorven
  */
 public class JCardDeserializer extends JsonDeserializer<VCard> {
+	/**
+	 * The name of the deserialization attribute that the parse warnings are
+	 * added to. If the attribute's value is a {@code List<List<String>>}, a
+	 * list of warnings will be added to it for each vCard that is
+	 * deserialized.
+	 * @see com.fasterxml.jackson.databind.ObjectReader#withAttribute
+	 */
+	public static final String WARNINGS = "ezvcard.jcard.warnings";
+
 	private ScribeIndex index = new ScribeIndex();
 
 	@Override
 	public VCard deserialize(JsonParser parser, DeserializationContext context) throws IOException, JsonProcessingException {
-		@SuppressWarnings("resource")
-		JCardReader reader = new JCardReader(parser);
-		reader.setScribeIndex(index);
-		return reader.readNext();
+		return read(getReader(parser, context), context);
+	}
+
+	/**
+	 * Gets the object that reads vCards from the given parser. The reader is
+	 * created the first time it is needed, and is then stored in the
+	 * deserialization call's attributes, so it can be reused for the rest of
+	 * the call. Attributes are not shared between calls, which means that
+	 * multiple threads can safely use the same deserializer.
+	 * @param parser the parser
+	 * @param context the context of the current call
+	 * @return the reader
+	 */
+	JCardReader getReader(JsonParser parser, DeserializationContext context) {
+		ReaderState state = (ReaderState) context.getAttribute(this);
+		if (state == null || state.parser != parser) {
+			JCardReader reader = new JCardReader(parser);
+			reader.setScribeIndex(index);
+
+			state = new ReaderState(parser, reader);
+			context.setAttribute(this, state);
+		}
+		return state.reader;
+	}
+
+	/**
+	 * Reads a vCard, adding its warnings to the {@link #WARNINGS} attribute if
+	 * the caller provided one.
+	 * @param reader the reader, positioned at the start of the jCard
+	 * @param context the context of the current call
+	 * @return the vCard
+	 * @throws IOException if there's a problem reading the vCard
+	 */
+	VCard read(JCardReader reader, DeserializationContext context) throws IOException {
+		VCard vcard = reader.readNext();
+
+		Object attribute = context.getAttribute(WARNINGS);
+		if (attribute instanceof List) {
+			@SuppressWarnings("unchecked")
+			List<List<String>> warnings = (List<List<String>>) attribute;
+			warnings.add(reader.getWarnings());
+		}
+
+		return vcard;
 	}
 
 	/**
@@ -84,4 +145,14 @@ public class JCardDeserializer extends JsonDeserializer<VCard> {
 	public void setScribeIndex(ScribeIndex index) {
 		this.index = index;
 	}
+
+	private static class ReaderState {
+		private final JsonParser parser;
+		private final JCardReader reader;
+
+		public ReaderState(JsonParser parser, JCardReader reader) {
+			this.parser = parser;
+			this.reader = reader;
+		}
+	}
 }
@@ -0,0 +1,95 @@
+package ezvcard.io.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import ezvcard.VCard;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * Deserializes JSON arrays of jCards within the jackson-databind framework.
+ * All of the jCards in the array are read by the same {@link JCardReader}.
+ * {@link JCardModule} uses this class automatically for any {@link List} or
+ * {@link java.util.Collection} whose element type is {@link VCard}. The parse
+ * warnings are reported in the same way as {@link JCardDeserializer} (see
+ * {@link JCardDeserializer#WARNINGS}).
+ * @author Michael Angstadt
+ */
+public class JCardListDeserializer extends JsonDeserializer<List<VCard>> {
+	private final JCardDeserializer deserializer;
+
+	/**
+	 * @param deserializer the deserializer whose settings will be used to read
+	 * each vCard
+	 */
+	public JCardListDeserializer(JCardDeserializer deserializer) {
+		this.deserializer = deserializer;
+	}
+
+	@Override
+	public List<VCard> deserialize(JsonParser parser, DeserializationContext context) throws IOException, JsonProcessingException {
+		if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+			throw new JCardParseException(JsonToken.START_ARRAY, parser.getCurrentToken());
+		}
+
+		JCardReader reader = deserializer.getReader(parser, context);
+		List<VCard> vcards = new ArrayList<VCard>();
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			if (token == null) {
+				throw new JCardParseException(JsonToken.END_ARRAY, null);
+			}
+
+			if (token == JsonToken.VALUE_NULL) {
+				vcards.add(null);
+				continue;
+			}
+
+			vcards.add(deserializer.read(reader, context));
+		}
+		return vcards;
+	}
+
+	/**
+	 * Gets the deserializer whose settings are used to read each vCard.
+	 * @return the deserializer
+	 */
+	public JCardDeserializer getDeserializer() {
+		return deserializer;
+	}
+}
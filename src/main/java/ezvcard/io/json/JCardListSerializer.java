@@ -0,0 +1,99 @@
+package ezvcard.io.json;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import ezvcard.VCard;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * Serializes collections of vCards within the jackson-databind framework. The
+ * collection is written as a JSON array of jCards, all of which are written by
+ * the same {@link JCardWriter}. {@link JCardModule} uses this class
+ * automatically for any collection whose element type is {@link VCard}.
+ * @author Michael Angstadt
+ */
+public class JCardListSerializer extends StdSerializer<Collection<VCard>> implements ContextualSerializer {
+	private static final long serialVersionUID = 2853745829436178104L;
+
+	private final JCardSerializer serializer;
+
+	/**
+	 * @param serializer the serializer whose settings will be used to write
+	 * each vCard
+	 */
+	@SuppressWarnings("unchecked")
+	public JCardListSerializer(JCardSerializer serializer) {
+		super((Class<Collection<VCard>>) (Class<?>) Collection.class);
+		this.serializer = serializer;
+	}
+
+	@Override
+	public void serialize(Collection<VCard> value, JsonGenerator gen, SerializerProvider serializers) throws IOException, JsonProcessingException {
+		JCardWriter writer = serializer.getWriter(gen, serializers);
+
+		gen.writeStartArray();
+		for (VCard vcard : value) {
+			if (vcard == null) {
+				gen.writeNull();
+			} else {
+				writer.write(vcard);
+			}
+		}
+		gen.writeEndArray();
+	}
+
+	@Override
+	public boolean isEmpty(SerializerProvider provider, Collection<VCard> value) {
+		return value == null || value.isEmpty();
+	}
+
+	public JCardListSerializer createContextual(SerializerProvider prov, BeanProperty property) throws JsonMappingException {
+		JCardSerializer contextual = serializer.createContextual(prov, property);
+		return (contextual == serializer) ? this : new JCardListSerializer(contextual);
+	}
+
+	/**
+	 * Gets the serializer whose settings are used to write each vCard.
+	 * @return the serializer
+	 */
+	public JCardSerializer getSerializer() {
+		return serializer;
+	}
+}
@@ -1,7 +1,20 @@
 package ezvcard.io.json;
 
+import java.util.ArrayList;
+
 import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import com.fasterxml.jackson.databind.type.CollectionType;
 
 import ezvcard.Ezvcard;
 import ezvcard.VCard;
@@ -52,6 +65,19 @@ import ezvcard.property.VCardProperty;
  * mapper.registerModule(new JCardModule());
  * VCard result = mapper.readValue(..., VCard.class);
  * </pre>
+ * <p>
+ * Collections of vCards (such as {@code List<VCard>}) are written and read as
+ * a single JSON array of jCards (see {@link JCardListSerializer} and
+ * {@link JCardListDeserializer}).
+ * </p>
+ * <p>
+ * An {@link com.fasterxml.jackson.databind.ObjectMapper ObjectMapper} that
+ * this module is registered with can be shared between threads. The state
+ * that is needed to read and write jCards is kept in the attributes of each
+ * serialization/deserialization call. However, the module's settings should
+ * not be changed, and no scribes should be registered, once the mapper is in
+ * use.
+ * </p>
  * @author Buddy Gorven
  */
 public class JCardModule extends SimpleModule {
@@ -75,6 +101,44 @@ public class JCardModule extends SimpleModule {
 		addDeserializer(VCard.class, deserializer);
 	}
 
+	@Override
+	public void setupModule(SetupContext context) {
+		super.setupModule(context);
+
+		context.addSerializers(new Serializers.Base() {
+			@Override
+			public JsonSerializer<?> findCollectionSerializer(SerializationConfig config, CollectionType type, BeanDescription beanDesc, TypeSerializer elementTypeSerializer, JsonSerializer<Object> elementValueSerializer) {
+				if (elementTypeSerializer != null || elementValueSerializer != null) {
+					//the user has customized how the elements are serialized
+					return null;
+				}
+
+				return isVCard(type.getContentType()) ? new JCardListSerializer(serializer) : null;
+			}
+		});
+
+		context.addDeserializers(new Deserializers.Base() {
+			@Override
+			public JsonDeserializer<?> findCollectionDeserializer(CollectionType type, DeserializationConfig config, BeanDescription beanDesc, TypeDeserializer elementTypeDeserializer, JsonDeserializer<?> elementDeserializer) {
+				if (elementTypeDeserializer != null || elementDeserializer != null) {
+					//the user has customized how the elements are deserialized
+					return null;
+				}
+
+				//the deserializer always returns an ArrayList
+				if (!type.getRawClass().isAssignableFrom(ArrayList.class)) {
+					return null;
+				}
+
+				return (type.getContentType().getRawClass() == VCard.class) ? new JCardListDeserializer(deserializer) : null;
+			}
+		});
+	}
+
+	private static boolean isVCard(JavaType type) {
+		return VCard.class.isAssignableFrom(type.getRawClass());
+	}
+
 	private static Version moduleVersion() {
 		String[] split = Ezvcard.VERSION.split("[.-]");
 		if (split.length < 3) {
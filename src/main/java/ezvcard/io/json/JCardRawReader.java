@@ -2,6 +2,7 @@ package ezvcard.io.json;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -48,6 +49,8 @@ import ezvcard.parameter.VCardParameters;
  */
 public class JCardRawReader implements Closeable {
 	private final Reader reader;
+	private final InputStream in;
+	private final JsonFactory factory;
 	private JsonParser parser;
 	private boolean eof = false;
 	private JCardDataStreamListener listener;
@@ -57,7 +60,33 @@ public class JCardRawReader implements Closeable {
 	 * @param reader the reader to wrap
 	 */
 	public JCardRawReader(Reader reader) {
+		this(reader, null);
+	}
+
+	/**
+	 * @param reader the reader to wrap
+	 * @param factory the factory to create the parser with (must be a factory
+	 * for a character-based format), or null to use a default
+	 * {@link JsonFactory}
+	 */
+	public JCardRawReader(Reader reader, JsonFactory factory) {
 		this.reader = reader;
+		this.in = null;
+		this.factory = factory;
+	}
+
+	/**
+	 * Creates a reader that reads from a byte stream. This allows jCards to be
+	 * read from any data format that Jackson supports, such as Smile or CBOR.
+	 * @param in the input stream to wrap
+	 * @param factory the factory to create the parser with, or null to use a
+	 * default {@link JsonFactory} (which will detect the character encoding
+	 * of the JSON data)
+	 */
+	public JCardRawReader(InputStream in, JsonFactory factory) {
+		this.reader = null;
+		this.in = in;
+		this.factory = factory;
 	}
 
 	/**
@@ -70,6 +99,8 @@ public class JCardRawReader implements Closeable {
 	 */
 	public JCardRawReader(JsonParser parser, boolean strict) {
 		reader = null;
+		in = null;
+		factory = null;
 		this.parser = parser;
 		this.strict = strict;
 	}
@@ -92,8 +123,8 @@ public class JCardRawReader implements Closeable {
 	 */
 	public void readNext(JCardDataStreamListener listener) throws IOException {
 		if (parser == null) {
-			JsonFactory factory = new JsonFactory();
-			parser = factory.createParser(reader);
+			JsonFactory factory = (this.factory == null) ? new JsonFactory() : this.factory;
+			parser = (reader == null) ? factory.createParser(in) : factory.createParser(reader);
 		} else if (parser.isClosed()) {
 			return;
 		}
@@ -310,5 +341,8 @@ public class JCardRawReader implements Closeable {
 		if (reader != null) {
 			reader.close();
 		}
+		if (in != null) {
+			in.close();
+		}
 	}
 }
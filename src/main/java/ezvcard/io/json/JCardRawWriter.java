@@ -3,6 +3,7 @@ package ezvcard.io.json;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +51,8 @@ import ezvcard.parameter.VCardParameters;
  */
 public class JCardRawWriter implements Closeable, Flushable {
 	private final Writer writer;
+	private final OutputStream out;
+	private final JsonFactory factory;
 	private final boolean wrapInArray;
 	private JsonGenerator generator;
 	private boolean prettyPrint = false;
@@ -63,7 +66,37 @@ public class JCardRawWriter implements Closeable, Flushable {
 	 * (useful when writing more than one vCard)
 	 */
 	public JCardRawWriter(Writer writer, boolean wrapInArray) {
+		this(writer, null, wrapInArray);
+	}
+
+	/**
+	 * @param writer the writer to wrap
+	 * @param factory the factory to create the generator with (must be a
+	 * factory for a character-based format), or null to use a default
+	 * {@link JsonFactory}
+	 * @param wrapInArray true to wrap everything in an array, false not to
+	 * (useful when writing more than one vCard)
+	 */
+	public JCardRawWriter(Writer writer, JsonFactory factory, boolean wrapInArray) {
 		this.writer = writer;
+		this.out = null;
+		this.factory = factory;
+		this.wrapInArray = wrapInArray;
+	}
+
+	/**
+	 * Creates a writer that writes to a byte stream. This allows jCards to be
+	 * written in any data format that Jackson supports, such as Smile or CBOR.
+	 * @param out the output stream to wrap
+	 * @param factory the factory to create the generator with, or null to use
+	 * a default {@link JsonFactory} (which will write UTF-8 encoded JSON)
+	 * @param wrapInArray true to wrap everything in an array, false not to
+	 * (useful when writing more than one vCard)
+	 */
+	public JCardRawWriter(OutputStream out, JsonFactory factory, boolean wrapInArray) {
+		this.writer = null;
+		this.out = out;
+		this.factory = factory;
 		this.wrapInArray = wrapInArray;
 	}
 
@@ -72,6 +105,8 @@ public class JCardRawWriter implements Closeable, Flushable {
 	 */
 	public JCardRawWriter(JsonGenerator generator) {
 		this.writer = null;
+		this.out = null;
+		this.factory = null;
 		this.generator = generator;
 		this.closeGenerator = false;
 		this.wrapInArray = false;
@@ -313,7 +348,7 @@ public class JCardRawWriter implements Closeable, Flushable {
 
 	/**
 	 * Finishes writing the JSON document and closes the underlying
-	 * {@link Writer}.
+	 * {@link Writer} or {@link OutputStream}.
 	 * @throws IOException if there's a problem closing the output stream
 	 */
 	public void close() throws IOException {
@@ -325,12 +360,17 @@ public class JCardRawWriter implements Closeable, Flushable {
 		if (writer != null) {
 			writer.close();
 		}
+		if (out != null) {
+			out.close();
+		}
 	}
 
 	private void init() throws IOException {
-		JsonFactory factory = new JsonFactory();
-		factory.configure(Feature.AUTO_CLOSE_TARGET, false);
-		generator = factory.createGenerator(writer);
+		JsonFactory factory = (this.factory == null) ? new JsonFactory() : this.factory;
+		generator = (writer == null) ? factory.createGenerator(out) : factory.createGenerator(writer);
+
+		//the generator is configured instead of the factory, since the factory may be shared
+		generator.disable(Feature.AUTO_CLOSE_TARGET);
 
 		if (prettyPrint) {
 			if (prettyPrinter == null) {
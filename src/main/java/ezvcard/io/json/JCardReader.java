@@ -2,14 +2,17 @@ package ezvcard.io.json;
 
 import static ezvcard.util.IOUtils.utf8Reader;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 
 import ezvcard.VCard;
@@ -97,6 +100,22 @@ public class JCardReader extends StreamReader {
 		this(utf8Reader(in));
 	}
 
+	/**
+	 * <p>
+	 * Creates a reader that parses jCards using a specific Jackson data format
+	 * backend. For example, to read jCards that were encoded in Smile format:
+	 * </p>
+	 * 
+	 * <pre class="brush:java">
+	 * JCardReader reader = new JCardReader(in, new SmileFactory());
+	 * </pre>
+	 * @param in the input stream to read from
+	 * @param factory the factory to create the parser with
+	 */
+	public JCardReader(InputStream in, JsonFactory factory) {
+		this.reader = new JCardRawReader(in, factory);
+	}
+
 	/**
 	 * @param file the file to read from
 	 * @throws FileNotFoundException if the file doesn't exist
@@ -105,6 +124,18 @@ public class JCardReader extends StreamReader {
 		this(new BufferedReader(utf8Reader(file)));
 	}
 
+	/**
+	 * Creates a reader that parses jCards using a specific Jackson data format
+	 * backend.
+	 * @param file the file to read from
+	 * @param factory the factory to create the parser with
+	 * @throws FileNotFoundException if the file doesn't exist
+	 * @see #JCardReader(InputStream, JsonFactory)
+	 */
+	public JCardReader(File file, JsonFactory factory) throws FileNotFoundException {
+		this(new BufferedInputStream(new FileInputStream(file)), factory);
+	}
+
 	/**
 	 * @param reader the reader to read from
 	 */
@@ -112,6 +143,15 @@ public class JCardReader extends StreamReader {
 		this.reader = new JCardRawReader(reader);
 	}
 
+	/**
+	 * @param reader the reader to read from
+	 * @param factory the factory to create the parser with (must be a factory
+	 * for a character-based format)
+	 */
+	public JCardReader(Reader reader, JsonFactory factory) {
+		this.reader = new JCardRawReader(reader, factory);
+	}
+
 	/**
 	 * @param parser the parser to read from
 	 */
@@ -64,13 +64,31 @@ public class JCardSerializer extends StdSerializer<VCard> implements ContextualS
 
 	@Override
 	public void serialize(VCard value, JsonGenerator gen, SerializerProvider serializers) throws IOException, JsonProcessingException {
-		@SuppressWarnings("resource")
-		JCardWriter writer = new JCardWriter(gen);
-		writer.setAddProdId(isAddProdId());
-		writer.setVersionStrict(isVersionStrict());
-		writer.setScribeIndex(getScribeIndex());
+		getWriter(gen, serializers).write(value);
+	}
 
-		writer.write(value);
+	/**
+	 * Gets the object that writes vCards to the given generator. The writer is
+	 * created the first time it is needed, and is then stored in the
+	 * serialization call's attributes, so it can be reused for the rest of
+	 * the call. Attributes are not shared between calls, which means that
+	 * multiple threads can safely use the same serializer.
+	 * @param gen the generator
+	 * @param serializers the serializer provider of the current call
+	 * @return the writer
+	 */
+	JCardWriter getWriter(JsonGenerator gen, SerializerProvider serializers) {
+		WriterState state = (WriterState) serializers.getAttribute(this);
+		if (state == null || state.generator != gen) {
+			JCardWriter writer = new JCardWriter(gen);
+			writer.setAddProdId(isAddProdId());
+			writer.setVersionStrict(isVersionStrict());
+			writer.setScribeIndex(getScribeIndex());
+
+			state = new WriterState(gen, writer);
+			serializers.setAttribute(this, state);
+		}
+		return state.writer;
 	}
 
 	public JCardSerializer createContextual(SerializerProvider prov, BeanProperty property) throws JsonMappingException {
@@ -160,4 +178,14 @@ public class JCardSerializer extends StdSerializer<VCard> implements ContextualS
 	public void setScribeIndex(ScribeIndex index) {
 		this.index = index;
 	}
+
+	private static class WriterState {
+		private final JsonGenerator generator;
+		private final JCardWriter writer;
+
+		public WriterState(JsonGenerator generator, JCardWriter writer) {
+			this.generator = generator;
+			this.writer = writer;
+		}
+	}
 }
@@ -2,13 +2,17 @@ package ezvcard.io.json;
 
 import static ezvcard.util.IOUtils.utf8Writer;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.PrettyPrinter;
 
@@ -19,8 +23,10 @@ import ezvcard.io.EmbeddedVCardException;
 import ezvcard.io.SkipMeException;
 import ezvcard.io.StreamWriter;
 import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.io.scribe.WritePlan;
 import ezvcard.parameter.VCardParameters;
 import ezvcard.property.VCardProperty;
+import ezvcard.util.ByteChannelWriter;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -97,6 +103,34 @@ public class JCardWriter extends StreamWriter implements Flushable {
 		this(utf8Writer(out), wrapInArray);
 	}
 
+	/**
+	 * <p>
+	 * Creates a writer that writes jCards using a specific Jackson data format
+	 * backend. For example, to write jCards in Smile format:
+	 * </p>
+	 * 
+	 * <pre class="brush:java">
+	 * JCardWriter writer = new JCardWriter(out, new SmileFactory(), true);
+	 * </pre>
+	 * @param out the output stream to write to
+	 * @param factory the factory to create the generator with
+	 * @param wrapInArray true to enclose all written vCards in a JSON array,
+	 * false not to
+	 */
+	public JCardWriter(OutputStream out, JsonFactory factory, boolean wrapInArray) {
+		this.writer = new JCardRawWriter(out, factory, wrapInArray);
+	}
+
+	/**
+	 * @param channel the channel to write to (UTF-8 encoding will be used,
+	 * see {@link ByteChannelWriter})
+	 * @param wrapInArray true to enclose all written vCards in a JSON array,
+	 * false not to
+	 */
+	public JCardWriter(WritableByteChannel channel, boolean wrapInArray) {
+		this(utf8Writer(channel), wrapInArray);
+	}
+
 	/**
 	 * @param file the file to write to (UTF-8 encoding will be used)
 	 * @throws IOException if there's a problem opening the file
@@ -115,6 +149,20 @@ public class JCardWriter extends StreamWriter implements Flushable {
 		this(utf8Writer(file), wrapInArray);
 	}
 
+	/**
+	 * Creates a writer that writes jCards using a specific Jackson data format
+	 * backend.
+	 * @param file the file to write to
+	 * @param factory the factory to create the generator with
+	 * @param wrapInArray true to enclose all written vCards in a JSON array,
+	 * false not to
+	 * @throws IOException if there's a problem opening the file
+	 * @see #JCardWriter(OutputStream, JsonFactory, boolean)
+	 */
+	public JCardWriter(File file, JsonFactory factory, boolean wrapInArray) throws IOException {
+		this(new BufferedOutputStream(new FileOutputStream(file)), factory, wrapInArray);
+	}
+
 	/**
 	 * @param writer the writer to write to
 	 */
@@ -131,6 +179,17 @@ public class JCardWriter extends StreamWriter implements Flushable {
 		this.writer = new JCardRawWriter(writer, wrapInArray);
 	}
 
+	/**
+	 * @param writer the writer to write to
+	 * @param factory the factory to create the generator with (must be a
+	 * factory for a character-based format)
+	 * @param wrapInArray true to enclose all written vCards in a JSON array,
+	 * false not to
+	 */
+	public JCardWriter(Writer writer, JsonFactory factory, boolean wrapInArray) {
+		this.writer = new JCardRawWriter(writer, factory, wrapInArray);
+	}
+
 	/**
 	 * @param generator the generator to write to
 	 */
@@ -156,7 +215,8 @@ public class JCardWriter extends StreamWriter implements Flushable {
 		writer.writeProperty("version", VCardDataType.TEXT, JCardValue.single(targetVersion.getVersion()));
 
 		for (VCardProperty property : properties) {
-			VCardPropertyScribe scribe = index.getPropertyScribe(property);
+			WritePlan plan = index.getWritePlan(property, targetVersion);
+			VCardPropertyScribe scribe = plan.getScribe();
 
 			//marshal the value
 			JCardValue value;
@@ -172,7 +232,7 @@ public class JCardWriter extends StreamWriter implements Flushable {
 
 			String group = property.getGroup();
 			String name = scribe.getPropertyName().toLowerCase();
-			VCardParameters parameters = scribe.prepareParameters(property, targetVersion, vcard);
+			VCardParameters parameters = plan.prepareParameters(property, vcard);
 			VCardDataType dataType = scribe.dataType(property, targetVersion);
 
 			writer.writeProperty(group, name, parameters, dataType, value);
@@ -11,8 +11,8 @@ import ezvcard.io.text.WriteContext;
 import ezvcard.io.xml.XCardElement;
 import ezvcard.parameter.VCardParameters;
 import ezvcard.property.Geo;
+import ezvcard.util.FixedDecimalFormat;
 import ezvcard.util.GeoUri;
-import ezvcard.util.VCardFloatFormatter;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -142,14 +142,14 @@ public class GeoScribe extends VCardPropertyScribe<Geo> {
 
 			Double latitude;
 			try {
-				latitude = Double.valueOf(latitudeStr);
+				latitude = FixedDecimalFormat.parse(latitudeStr);
 			} catch (NumberFormatException e) {
 				throw new CannotParseException(8, latitudeStr);
 			}
 
 			Double longitude;
 			try {
-				longitude = Double.valueOf(longitudeStr);
+				longitude = FixedDecimalFormat.parse(longitudeStr);
 			} catch (NumberFormatException e) {
 				throw new CannotParseException(10, longitudeStr);
 			}
@@ -173,8 +173,7 @@ public class GeoScribe extends VCardPropertyScribe<Geo> {
 		switch (version) {
 		case V2_1:
 		case V3_0:
-			VCardFloatFormatter formatter = new VCardFloatFormatter(6);
-			return structured(formatter.format(property.getLatitude()), formatter.format(property.getLongitude()));
+			return structured(FixedDecimalFormat.format(property.getLatitude(), 6), FixedDecimalFormat.format(property.getLongitude(), 6));
 		case V4_0:
 			return property.getGeoUri().toString(6);
 		}
@@ -2,11 +2,9 @@ package ezvcard.io.scribe;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 import ezvcard.VCard;
 import ezvcard.VCardDataType;
@@ -144,40 +142,99 @@ public class ImppScribe extends VCardPropertyScribe<Impp> {
 	}
 
 	/**
-	 * List of recognized IM protocols that can be parsed from an HTML link
-	 * (hCard).
+	 * The recognized IM protocols that can be parsed from and written to an
+	 * HTML link (hCard).
 	 */
-	private static final List<HtmlLinkFormat> htmlLinkFormats;
+	private static final HtmlLinkFormats defaultHtmlLinkFormats;
 	static {
-		List<HtmlLinkFormat> list = new ArrayList<HtmlLinkFormat>();
+		HtmlLinkFormats formats = new HtmlLinkFormats();
 
 		//http://en.wikipedia.org/wiki/AOL_Instant_Messenger#URI_scheme
-		list.add(new HtmlLinkFormat(AIM, "(goim|addbuddy)\\?.*?\\bscreenname=(.*?)(&|$)", 2, "goim?screenname=%s"));
+		formats.add(new HtmlLinkFormat(AIM, "goim?screenname=%s", "goim?", "addbuddy?") {
+			@Override
+			protected String parseHandle(String link, int start) {
+				return parseQueryParameter(link, start, "screenname=");
+			}
+		});
 
 		//http://en.wikipedia.org/wiki/Yahoo!_Messenger#URI_scheme
-		list.add(new HtmlLinkFormat(YAHOO, "(sendim|addfriend|sendfile|call)\\?(.*)", 2, "sendim?%s"));
+		formats.add(new HtmlLinkFormat(YAHOO, "sendim?%s", "sendim?", "addfriend?", "sendfile?", "call?"));
 
 		//http://developer.skype.com/skype-uri/skype-uri-ref-api
-		list.add(new HtmlLinkFormat(SKYPE, "(.*?)(\\?|$)", 1, "%s"));
+		formats.add(new HtmlLinkFormat(SKYPE, "%s", "") {
+			@Override
+			protected String parseHandle(String link, int start) {
+				return link.substring(start, indexOf(link, start, '?'));
+			}
+		});
 
 		//http://www.tech-recipes.com/rx/1157/msn-messenger-msnim-hyperlink-command-codes/
-		list.add(new HtmlLinkFormat(MSN, "(chat|add|voice|video)\\?contact=(.*?)(&|$)", 2, "chat?contact=%s"));
+		formats.add(new HtmlLinkFormat(MSN, "chat?contact=%s", "chat?contact=", "add?contact=", "voice?contact=", "video?contact=") {
+			@Override
+			protected String parseHandle(String link, int start) {
+				return link.substring(start, indexOf(link, start, '&'));
+			}
+		});
 
 		//http://www.tech-recipes.com/rx/1157/msn-messenger-msnim-hyperlink-command-codes/
-		list.add(new HtmlLinkFormat(XMPP, "(.*?)(\\?|$)", 1, "%s?message"));
+		formats.add(new HtmlLinkFormat(XMPP, "%s?message", "") {
+			@Override
+			protected String parseHandle(String link, int start) {
+				return link.substring(start, indexOf(link, start, '?'));
+			}
+		});
 
 		//http://forums.miranda-im.org/showthread.php?26589-Add-support-to-quot-icq-message-uin-12345-quot-web-links
-		list.add(new HtmlLinkFormat(ICQ, "message\\?uin=(\\d+)", 1, "message?uin=%s"));
+		formats.add(new HtmlLinkFormat(ICQ, "message?uin=%s", "message?uin=") {
+			@Override
+			protected String parseHandle(String link, int start) {
+				int end = start;
+				while (end < link.length() && link.charAt(end) >= '0' && link.charAt(end) <= '9') {
+					end++;
+				}
+				return (end == start) ? null : link.substring(start, end);
+			}
+		});
 
 		//SIP: http://en.wikipedia.org/wiki/Session_Initiation_Protocol
 		//leave as-is
-		list.add(new HtmlLinkFormat(SIP));
+		formats.add(new HtmlLinkFormat(SIP));
 
 		//IRC: http://stackoverflow.com/questions/11970897/how-do-i-open-a-query-window-using-the-irc-uri-scheme
 		//IRC handles are not globally unique, so leave as-is
-		list.add(new HtmlLinkFormat(IRC));
+		formats.add(new HtmlLinkFormat(IRC));
 
-		htmlLinkFormats = Collections.unmodifiableList(list);
+		defaultHtmlLinkFormats = formats;
+	}
+
+	/*
+	 * Starts out as the default formats, and is copied the first time a format
+	 * is registered.
+	 */
+	private volatile HtmlLinkFormats htmlLinkFormats = defaultHtmlLinkFormats;
+
+	/**
+	 * <p>
+	 * Registers an IM protocol, so that its HTML links (hCard) can be parsed
+	 * and written. If a format for the same protocol was already registered,
+	 * it will no longer be used to write links.
+	 * </p>
+	 * <p>
+	 * <b>Example:</b>
+	 * </p>
+	 * 
+	 * <pre class="brush:java">
+	 * //parses "gtalk:chat?jid=theuser" and writes "gtalk:chat?jid=theuser"
+	 * scribe.registerHtmlLinkFormat(new HtmlLinkFormat("gtalk", "chat?jid=%s", "chat?jid="));
+	 * </pre>
+	 * @param format the format
+	 */
+	public void registerHtmlLinkFormat(HtmlLinkFormat format) {
+		synchronized (this) {
+			HtmlLinkFormats copy = new HtmlLinkFormats(htmlLinkFormats);
+			copy.add(format);
+			htmlLinkFormats = copy;
+		}
 	}
 
 	/**
@@ -186,19 +243,33 @@ public class ImppScribe extends VCardPropertyScribe<Impp> {
 	 * @return the IM URI or null if not recognized
 	 */
 	public URI parseHtmlLink(String linkUri) {
-		for (HtmlLinkFormat format : htmlLinkFormats) {
-			String handle = format.parseHandle(linkUri);
-			if (handle == null) {
-				continue;
+		HtmlLinkFormats formats = htmlLinkFormats;
+		Node node = formats.root;
+		HtmlLinkFormat format = null;
+		int start = 0;
+		for (int i = 0; i < linkUri.length() && node != null; i++) {
+			node = node.child(linkUri.charAt(i));
+			if (node != null && node.format != null) {
+				//longest prefix wins
+				format = node.format;
+				start = i + 1;
 			}
+		}
 
-			try {
-				return new URI(format.getProtocol(), handle, null);
-			} catch (URISyntaxException e) {
-				throw new IllegalArgumentException(e);
-			}
+		if (format == null) {
+			return null;
+		}
+
+		String handle = format.parseHandle(linkUri, start);
+		if (handle == null) {
+			return null;
+		}
+
+		try {
+			return new URI(format.getProtocol(), handle, null);
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
 		}
-		return null;
 	}
 
 	/**
@@ -216,49 +287,121 @@ public class ImppScribe extends VCardPropertyScribe<Impp> {
 		String protocol = uri.getScheme();
 		String handle = uri.getSchemeSpecificPart();
 
-		for (HtmlLinkFormat format : htmlLinkFormats) {
-			if (protocol.equals(format.getProtocol())) {
-				return format.buildLink(handle);
+		HtmlLinkFormat format = htmlLinkFormats.byProtocol.get(protocol);
+		return (format == null) ? uri.toASCIIString() : format.buildLink(handle);
+	}
+
+	/**
+	 * Gets the position of the first occurrence of a character in a link, or
+	 * the end of the first line if the character is not found.
+	 */
+	private static int indexOf(String link, int start, char c) {
+		int end = lineEnd(link, start);
+		for (int i = start; i < end; i++) {
+			if (link.charAt(i) == c) {
+				return i;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Gets the position of the first line terminator in a link, or the length
+	 * of the link if there are none.
+	 */
+	private static int lineEnd(String link, int start) {
+		for (int i = start; i < link.length(); i++) {
+			switch (link.charAt(i)) {
+			case '\n':
+			case '\r':
+			case '\u0085':
+			case '\u2028':
+			case '\u2029':
+				return i;
+			}
+		}
+		return link.length();
+	}
+
+	/**
+	 * Gets the value of a query string parameter from a link.
+	 * @param link the link
+	 * @param start the position where the query string starts
+	 * @param prefix the parameter name, followed by "="
+	 * @return the parameter value or null if not found
+	 */
+	private static String parseQueryParameter(String link, int start, String prefix) {
+		int end = lineEnd(link, start);
+		for (int i = start; i + prefix.length() <= end; i++) {
+			if (!link.regionMatches(true, i, prefix, 0, prefix.length())) {
+				continue;
+			}
+
+			//the name must not be the end of a longer name
+			char prev = link.charAt(i - 1);
+			if (prev == '_' || (prev >= '0' && prev <= '9') || (prev >= 'a' && prev <= 'z') || (prev >= 'A' && prev <= 'Z')) {
+				continue;
 			}
+
+			int valueStart = i + prefix.length();
+			return link.substring(valueStart, indexOf(link, valueStart, '&'));
 		}
-		return uri.toASCIIString();
+		return null;
 	}
 
-	private static class HtmlLinkFormat {
-		private final Pattern parseRegex;
+	/**
+	 * Defines how the HTML links (hCard) of an IM protocol are parsed and
+	 * written. By default, the handle is everything that comes after the
+	 * matching link prefix. Override {@link #parseHandle} to change this.
+	 * @see ImppScribe#registerHtmlLinkFormat
+	 */
+	public static class HtmlLinkFormat {
 		private final String protocol;
-		private final int handleGroup;
-		private final String linkFormat;
+		private final String[] linkPrefixes;
+		private final String linkStart, linkEnd;
 
 		/**
-		 * @param protocol the IM protocol (e.g. "aim")
+		 * Creates a format where the link is the IM URI itself (e.g.
+		 * "sip:theuser").
+		 * @param protocol the IM protocol (e.g. "sip")
 		 */
 		public HtmlLinkFormat(String protocol) {
-			this(protocol, "(.*)", 1, "%s");
+			this(protocol, "%s", "");
 		}
 
 		/**
 		 * @param protocol the IM protocol (e.g. "aim")
-		 * @param linkRegex the regular expression used to parse a link
-		 * @param handleGroup the group number from the regular expression that
-		 * contains the IM handle
-		 * @param linkFormat the format string for building a link
+		 * @param linkTemplate the template for building a link, minus the
+		 * protocol (e.g. "goim?screenname=%s"). The "%s" placeholder is
+		 * replaced with the IM handle.
+		 * @param linkPrefixes the case-insensitive prefixes a link must start
+		 * with in order to be recognized, minus the protocol (e.g. "goim?").
+		 * An empty string matches all links of the protocol.
 		 */
-		public HtmlLinkFormat(String protocol, String linkRegex, int handleGroup, String linkFormat) {
-			this.parseRegex = Pattern.compile('^' + protocol + ':' + linkRegex, Pattern.CASE_INSENSITIVE);
+		public HtmlLinkFormat(String protocol, String linkTemplate, String... linkPrefixes) {
 			this.protocol = protocol;
-			this.handleGroup = handleGroup;
-			this.linkFormat = protocol + ':' + linkFormat;
+			this.linkPrefixes = linkPrefixes.clone();
+
+			String template = protocol + ':' + linkTemplate;
+			int placeholder = template.indexOf("%s");
+			if (placeholder < 0) {
+				linkStart = template;
+				linkEnd = "";
+			} else {
+				linkStart = template.substring(0, placeholder);
+				linkEnd = template.substring(placeholder + 2);
+			}
 		}
 
 		/**
 		 * Parses the IM handle out of a link.
-		 * @param linkUri the link
+		 * @param link the link
+		 * @param start the position in the link where the matching link prefix
+		 * ends
 		 * @return the IM handle or null if it can't be found
 		 */
-		public String parseHandle(String linkUri) {
-			Matcher m = parseRegex.matcher(linkUri);
-			return m.find() ? m.group(handleGroup) : null;
+		protected String parseHandle(String link, int start) {
+			return link.substring(start, lineEnd(link, start));
 		}
 
 		/**
@@ -267,7 +410,7 @@ public class ImppScribe extends VCardPropertyScribe<Impp> {
 		 * @return the link
 		 */
 		public String buildLink(String handle) {
-			return String.format(linkFormat, handle);
+			return new StringBuilder(linkStart.length() + handle.length() + linkEnd.length()).append(linkStart).append(handle).append(linkEnd).toString();
 		}
 
 		/**
@@ -278,4 +421,96 @@ public class ImppScribe extends VCardPropertyScribe<Impp> {
 			return protocol;
 		}
 	}
+
+	/**
+	 * A set of HTML link formats, indexed for fast lookup.
+	 */
+	private static class HtmlLinkFormats {
+		/*
+		 * Case-insensitive prefix trie containing each format's link
+		 * prefixes.
+		 */
+		private final Node root;
+		private final Map<String, HtmlLinkFormat> byProtocol;
+
+		public HtmlLinkFormats() {
+			root = new Node();
+			byProtocol = new HashMap<String, HtmlLinkFormat>();
+		}
+
+		public HtmlLinkFormats(HtmlLinkFormats original) {
+			root = new Node(original.root);
+			byProtocol = new HashMap<String, HtmlLinkFormat>(original.byProtocol);
+		}
+
+		public void add(HtmlLinkFormat format) {
+			for (String prefix : format.linkPrefixes) {
+				String key = format.protocol + ':' + prefix;
+				Node node = root;
+				for (int i = 0; i < key.length(); i++) {
+					node = node.getOrCreateChild(key.charAt(i));
+				}
+				node.format = format;
+			}
+			byProtocol.put(format.protocol, format);
+		}
+	}
+
+	/**
+	 * A node in the link prefix trie.
+	 */
+	private static class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private HtmlLinkFormat format;
+
+		public Node() {
+			//empty
+		}
+
+		public Node(Node original) {
+			keys = original.keys.clone();
+			children = new Node[original.children.length];
+			for (int i = 0; i < children.length; i++) {
+				children[i] = new Node(original.children[i]);
+			}
+			format = original.format;
+		}
+
+		public Node child(char c) {
+			c = toLowerCase(c);
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		public Node getOrCreateChild(char c) {
+			Node child = child(c);
+			if (child != null) {
+				return child;
+			}
+
+			int length = keys.length;
+			char[] newKeys = new char[length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, length);
+			newKeys[length] = toLowerCase(c);
+			Node[] newChildren = new Node[length + 1];
+			System.arraycopy(children, 0, newChildren, 0, length);
+			newChildren[length] = child = new Node();
+
+			keys = newKeys;
+			children = newChildren;
+			return child;
+		}
+
+		/**
+		 * Converts an ASCII character to lower case.
+		 */
+		private static char toLowerCase(char c) {
+			return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+		}
+	}
 }
@@ -2,6 +2,7 @@ package ezvcard.io.scribe;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.namespace.QName;
 
@@ -141,6 +142,20 @@ public class ScribeIndex {
 	private final Map<Class<? extends VCardProperty>, VCardPropertyScribe<? extends VCardProperty>> extendedByClass = new HashMap<Class<? extends VCardProperty>, VCardPropertyScribe<? extends VCardProperty>>(0);
 	private final Map<QName, VCardPropertyScribe<? extends VCardProperty>> extendedByQName = new HashMap<QName, VCardPropertyScribe<? extends VCardProperty>>(0);
 
+	/**
+	 * Caches the write plans of each property class (the array is indexed by
+	 * {@link VCardVersion#ordinal}).
+	 */
+	private final Map<Class<? extends VCardProperty>, WritePlan[]> writePlansByClass = new ConcurrentHashMap<Class<? extends VCardProperty>, WritePlan[]>();
+
+	/**
+	 * Caches the write plans of {@link RawProperty} objects by property name.
+	 * Raw property names come from the data being processed, so the size of
+	 * this cache is limited.
+	 */
+	private final Map<String, WritePlan[]> writePlansByRawName = new ConcurrentHashMap<String, WritePlan[]>();
+	private static final int MAX_RAW_WRITE_PLANS = 256;
+
 	/**
 	 * Gets a property scribe by name.
 	 * @param propertyName the property name (case-insensitive, e.g. "FN")
@@ -198,6 +213,50 @@ public class ScribeIndex {
 		return getPropertyScribe(property.getClass());
 	}
 
+	/**
+	 * Gets the information needed to write a given property instance. The
+	 * returned object is cached, so all properties of the same class (or all
+	 * {@link RawProperty} objects with the same name) share the same plan.
+	 * @param property the property instance
+	 * @param version the vCard version being written
+	 * @return the write plan or null if no scribe exists for the property
+	 */
+	public WritePlan getWritePlan(VCardProperty property, VCardVersion version) {
+		WritePlan[] plans;
+		if (property instanceof RawProperty) {
+			String name = ((RawProperty) property).getPropertyName();
+			plans = writePlansByRawName.get(name);
+			if (plans == null) {
+				plans = new WritePlan[VCardVersion.values().length];
+				if (writePlansByRawName.size() < MAX_RAW_WRITE_PLANS) {
+					writePlansByRawName.put(name, plans);
+				}
+			}
+		} else {
+			Class<? extends VCardProperty> clazz = property.getClass();
+			plans = writePlansByClass.get(clazz);
+			if (plans == null) {
+				if (getPropertyScribe(clazz) == null) {
+					return null;
+				}
+				plans = new WritePlan[VCardVersion.values().length];
+				writePlansByClass.put(clazz, plans);
+			}
+		}
+
+		/*
+		 * If two threads create the same plan at the same time, one will
+		 * overwrite the other. This is harmless because the plans are
+		 * immutable and equivalent.
+		 */
+		WritePlan plan = plans[version.ordinal()];
+		if (plan == null) {
+			plan = new WritePlan(getPropertyScribe(property), version, property.isSupportedBy(version));
+			plans[version.ordinal()] = plan;
+		}
+		return plan;
+	}
+
 	/**
 	 * Gets a property scribe by XML local name and namespace.
 	 * @param qname the XML local name and namespace
@@ -229,6 +288,7 @@ public class ScribeIndex {
 		extendedByName.put(scribe.getPropertyName().toUpperCase(), scribe);
 		extendedByClass.put(scribe.getPropertyClass(), scribe);
 		extendedByQName.put(scribe.getQName(), scribe);
+		clearWritePlans();
 	}
 
 	/**
@@ -239,6 +299,12 @@ public class ScribeIndex {
 		extendedByName.remove(scribe.getPropertyName().toUpperCase());
 		extendedByClass.remove(scribe.getPropertyClass());
 		extendedByQName.remove(scribe.getQName());
+		clearWritePlans();
+	}
+
+	private void clearWritePlans() {
+		writePlansByClass.clear();
+		writePlansByRawName.clear();
 	}
 
 	private static void registerStandard(VCardPropertyScribe<? extends VCardProperty> scribe) {
@@ -14,6 +14,7 @@ import ezvcard.io.xml.XCardElement;
 import ezvcard.parameter.VCardParameters;
 import ezvcard.property.Timezone;
 import ezvcard.util.UtcOffset;
+import ezvcard.util.VCardDateFormat;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -153,9 +154,9 @@ public class TimezoneScribe extends VCardPropertyScribe<Timezone> {
 
 			if (text != null) {
 				//attempt to find the offset by treating the text as a timezone ID, like "America/New_York"
-				TimeZone timezone = timezoneFromId(text);
+				TimeZone timezone = VCardDateFormat.parseTimeZoneId(text);
 				if (timezone != null) {
-					UtcOffset tzOffset = offsetFromTimezone(timezone);
+					UtcOffset tzOffset = UtcOffset.parse(timezone);
 					return tzOffset.toString(false);
 				}
 			}
@@ -278,14 +279,4 @@ public class TimezoneScribe extends VCardPropertyScribe<Timezone> {
 
 		return new Timezone((String) null);
 	}
-
-	private UtcOffset offsetFromTimezone(TimeZone timezone) {
-		long offsetMs = timezone.getOffset(System.currentTimeMillis());
-		return new UtcOffset(offsetMs);
-	}
-
-	private TimeZone timezoneFromId(String id) {
-		TimeZone timezone = TimeZone.getTimeZone(id);
-		return "GMT".equals(timezone.getID()) ? null : timezone;
-	}
 }
@@ -0,0 +1,179 @@
+package ezvcard.io.scribe;
+
+import java.lang.reflect.Method;
+
+import ezvcard.VCard;
+import ezvcard.VCardDataType;
+import ezvcard.VCardVersion;
+import ezvcard.parameter.VCardParameters;
+import ezvcard.property.VCardProperty;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Holds the information the vCard writers need in order to write a particular
+ * property class in a particular vCard version. This information does not
+ * change from one property instance to the next, so it is computed once and
+ * cached by the {@link ScribeIndex}.
+ * </p>
+ * <p>
+ * Instances of this class are immutable and can be shared across threads.
+ * </p>
+ * @author Michael Angstadt
+ * @see ScribeIndex#getWritePlan
+ */
+public class WritePlan {
+	private final VCardPropertyScribe<? extends VCardProperty> scribe;
+	private final VCardVersion version;
+	private final boolean supported;
+	private final VCardDataType defaultDataType;
+	private final boolean preparesParameters;
+
+	/**
+	 * @param scribe the property's scribe
+	 * @param version the vCard version being written
+	 * @param supported true if the property class supports the version, false
+	 * if not
+	 */
+	public WritePlan(VCardPropertyScribe<? extends VCardProperty> scribe, VCardVersion version, boolean supported) {
+		this.scribe = scribe;
+		this.version = version;
+		this.supported = supported;
+		defaultDataType = scribe.defaultDataType(version);
+		preparesParameters = overridesPrepareParameters(scribe.getClass());
+	}
+
+	/**
+	 * Gets the property's scribe.
+	 * @return the scribe
+	 */
+	public VCardPropertyScribe<? extends VCardProperty> getScribe() {
+		return scribe;
+	}
+
+	/**
+	 * Gets the vCard version being written.
+	 * @return the version
+	 */
+	public VCardVersion getVersion() {
+		return version;
+	}
+
+	/**
+	 * Determines if the property class supports the vCard version being
+	 * written.
+	 * @return true if the version is supported, false if not
+	 */
+	public boolean isSupported() {
+		return supported;
+	}
+
+	/**
+	 * Gets the property's default data type in the vCard version being written.
+	 * @return the default data type or null if unknown
+	 */
+	public VCardDataType getDefaultDataType() {
+		return defaultDataType;
+	}
+
+	/**
+	 * Gets the parameters to write. If the scribe does not modify the
+	 * parameters of the properties it writes, then the property's own parameter
+	 * object is returned instead of a copy. Therefore, the returned object
+	 * must NOT be modified.
+	 * @param property the property
+	 * @param vcard the vCard that the property belongs to
+	 * @return the parameters to write
+	 * @see VCardPropertyScribe#prepareParameters
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public VCardParameters prepareParameters(VCardProperty property, VCard vcard) {
+		if (!preparesParameters) {
+			return property.getParameters();
+		}
+		return ((VCardPropertyScribe) scribe).prepareParameters(property, version, vcard);
+	}
+
+	/**
+	 * Determines if the scribe modifies the parameters of the properties it
+	 * writes.
+	 * @return true if the scribe modifies the parameters, false if the
+	 * property's parameters are written as-is
+	 */
+	public boolean isPreparesParameters() {
+		return preparesParameters;
+	}
+
+	/**
+	 * Determines if a VALUE parameter must be written for a property instance
+	 * whose data type is the given data type. A VALUE parameter is not written
+	 * if the data type is: (1) unknown (2) the same as the property's default
+	 * data type (3) time-based when the default data type is
+	 * "date-and-or-time".
+	 * @param dataType the property instance's data type (may be null)
+	 * @return true if a VALUE parameter must be written, false if not
+	 */
+	public boolean isValueParameterNeeded(VCardDataType dataType) {
+		if (dataType == null || dataType == defaultDataType) {
+			return false;
+		}
+
+		//@formatter:off
+		boolean dateTimeSpecialCase =
+		defaultDataType == VCardDataType.DATE_AND_OR_TIME &&
+		(
+			dataType == VCardDataType.DATE ||
+			dataType == VCardDataType.DATE_TIME ||
+			dataType == VCardDataType.TIME
+		);
+		//@formatter:on
+
+		return !dateTimeSpecialCase;
+	}
+
+	/**
+	 * Determines if a scribe class, or any of its parent classes, overrides the
+	 * {@link VCardPropertyScribe#_prepareParameters} method.
+	 * @param clazz the scribe class
+	 * @return true if the method is overridden, false if not
+	 */
+	private static boolean overridesPrepareParameters(Class<?> clazz) {
+		while (clazz != null && clazz != VCardPropertyScribe.class) {
+			for (Method method : clazz.getDeclaredMethods()) {
+				if ("_prepareParameters".equals(method.getName())) {
+					return true;
+				}
+			}
+			clazz = clazz.getSuperclass();
+		}
+		return false;
+	}
+}
@@ -6,6 +6,7 @@ import java.io.Writer;
 import java.nio.charset.Charset;
 
 import ezvcard.Messages;
+import ezvcard.util.ByteChannelWriter;
 import ezvcard.util.org.apache.commons.codec.EncoderException;
 import ezvcard.util.org.apache.commons.codec.net.QuotedPrintableCodec;
 
@@ -49,6 +50,23 @@ public class FoldedLineWriter extends Writer {
 	private String indent = " ";
 	private String newline = "\r\n";
 
+	/**
+	 * Re-used when writing {@link CharSequence} objects so that a new character
+	 * array does not have to be created for every property value.
+	 */
+	private char[] scratch = new char[256];
+	private static final int MAX_SCRATCH_SIZE = 8192;
+
+	/*
+	 * The number of embedded vCards that are currently being written (see:
+	 * AGENT property). Each character of an embedded vCard is escaped once per
+	 * level, so that it can be included in the property value of the vCard
+	 * that contains it.
+	 */
+	private int embeddedDepth = 0;
+	private boolean embeddedCarriageReturn = false;
+	private char[] escaped = new char[0], escapedTemp = new char[0];
+
 	/**
 	 * Creates a folded line writer.
 	 * @param writer the writer object to wrap
@@ -64,7 +82,34 @@ public class FoldedLineWriter extends Writer {
 	 */
 	public void writeln(String str) throws IOException {
 		write(str);
-		write(newline);
+		writeNewline();
+	}
+
+	/**
+	 * Writes a newline. Inside of an embedded vCard, a "\n" character is
+	 * written instead of the newline sequence, which is then escaped.
+	 * @throws IOException if there's a problem writing to the output stream
+	 */
+	void writeNewline() throws IOException {
+		write((embeddedDepth > 0) ? "\n" : newline);
+	}
+
+	/**
+	 * Starts writing an embedded vCard (see: AGENT property). Everything that
+	 * is written until {@link #endEmbedded} is called is escaped as a property
+	 * value.
+	 */
+	void beginEmbedded() {
+		embeddedDepth++;
+		embeddedCarriageReturn = false;
+	}
+
+	/**
+	 * Finishes writing an embedded vCard.
+	 */
+	void endEmbedded() {
+		embeddedDepth--;
+		embeddedCarriageReturn = false;
 	}
 
 	/**
@@ -94,7 +139,19 @@ public class FoldedLineWriter extends Writer {
 	 * @throws IOException if there's a problem writing to the output stream
 	 */
 	public void write(CharSequence str, boolean quotedPrintable, Charset charset) throws IOException {
-		write(str.toString().toCharArray(), 0, str.length(), quotedPrintable, charset);
+		String string = str.toString();
+		int length = string.length();
+		if (length > MAX_SCRATCH_SIZE) {
+			//do not hold on to large buffers (e.g. embedded photos)
+			write(string.toCharArray(), 0, length, quotedPrintable, charset);
+			return;
+		}
+
+		if (length > scratch.length) {
+			scratch = new char[Math.min(Math.max(length, scratch.length * 2), MAX_SCRATCH_SIZE)];
+		}
+		string.getChars(0, length, scratch, 0);
+		write(scratch, 0, length, quotedPrintable, charset);
 	}
 
 	@Override
@@ -139,6 +196,15 @@ public class FoldedLineWriter extends Writer {
 			}
 		}
 
+		if (embeddedDepth > 0) {
+			len = escape(cbuf, off, len);
+			cbuf = escaped;
+			off = 0;
+
+			//the escaped value is a plain property value
+			quotedPrintable = false;
+		}
+
 		if (lineLength == null) {
 			/*
 			 * If line folding is disabled, then write directly to the Writer.
@@ -272,6 +338,78 @@ public class FoldedLineWriter extends Writer {
 		writer.write(cbuf, start, end - start);
 	}
 
+	/**
+	 * Escapes characters that are part of an embedded vCard. Backslashes,
+	 * commas, and semi-colons are escaped with a backslash, and newlines are
+	 * converted to "\\n" escape sequences. This is done once for each level
+	 * of nesting.
+	 * @param cbuf the characters to escape
+	 * @param off the offset of the first character
+	 * @param len the number of characters
+	 * @return the number of escaped characters (they are stored in the
+	 * "escaped" array)
+	 */
+	private int escape(char[] cbuf, int off, int len) {
+		char[] src = cbuf;
+		int srcOff = off;
+		int srcLen = len;
+		for (int level = 0; level < embeddedDepth; level++) {
+			char[] dest = (level % 2 == 0) ? escaped : escapedTemp;
+			if (dest.length < srcLen * 2) {
+				dest = new char[srcLen * 2];
+			}
+
+			int destLen = 0;
+			for (int i = srcOff; i < srcOff + srcLen; i++) {
+				char c = src[i];
+				switch (c) {
+				case '\n':
+					if (level == 0 && embeddedCarriageReturn) {
+						//"\r\n" sequence, which was already escaped
+						embeddedCarriageReturn = false;
+						continue;
+					}
+					dest[destLen++] = '\\';
+					dest[destLen++] = 'n';
+					break;
+				case '\r':
+					dest[destLen++] = '\\';
+					dest[destLen++] = 'n';
+					break;
+				case '\\':
+				case ',':
+				case ';':
+					dest[destLen++] = '\\';
+					dest[destLen++] = c;
+					break;
+				default:
+					dest[destLen++] = c;
+				}
+				if (level == 0) {
+					embeddedCarriageReturn = (c == '\r');
+				}
+			}
+
+			if (level % 2 == 0) {
+				escaped = dest;
+			} else {
+				escapedTemp = dest;
+			}
+			src = dest;
+			srcOff = 0;
+			srcLen = destLen;
+		}
+
+		if (src != escaped) {
+			//even number of levels
+			if (escaped.length < srcLen) {
+				escaped = new char[srcLen];
+			}
+			System.arraycopy(src, 0, escaped, 0, srcLen);
+		}
+		return srcLen;
+	}
+
 	/**
 	 * Closes the writer.
 	 */
@@ -365,6 +503,10 @@ public class FoldedLineWriter extends Writer {
 	 * @return the writer's character encoding or null if undefined
 	 */
 	public Charset getEncoding() {
+		if (writer instanceof ByteChannelWriter) {
+			return ((ByteChannelWriter) writer).getCharset();
+		}
+
 		if (!(writer instanceof OutputStreamWriter)) {
 			return null;
 		}
@@ -0,0 +1,413 @@
+package ezvcard.io.text;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ezvcard.VCard;
+import ezvcard.io.scribe.ScribeIndex;
+import ezvcard.util.IOUtils;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Re-imports a plain-text vCard file that was imported before, only parsing
+ * the vCards that were added or changed since the last import.
+ * </p>
+ * <p>
+ * Each vCard in the file is identified by a key and a fingerprint. The key is
+ * based on the vCard's UID. The fingerprint is the vCard's REV property value, or a
+ * hash of the vCard's raw text if it doesn't have a REV property. Both are
+ * extracted without fully parsing the vCard (see {@link VCardRawReader}). The
+ * keys and fingerprints of the previous import (the "snapshot") are compared
+ * against the current ones, and only the vCards whose fingerprints are
+ * different are fully parsed.
+ * </p>
+ * <p>
+ * The keys look like this:
+ * </p>
+ * <ul>
+ * <li>{@code UID:<uid>} - A vCard with a UID.</li>
+ * <li>{@code DUP:<hash>:<uid>} - A vCard whose UID is shared with a vCard that
+ * comes before it in the file. Because the UID is not unique, the vCard is
+ * identified by the hash of its raw text instead.</li>
+ * <li>{@code HASH:<hash>} - A vCard without a UID. This means that changing
+ * such a vCard is reported as a removal and an addition.</li>
+ * </ul>
+ * <p>
+ * If the file contains identical copies of the same vCard, a counter is
+ * appended to the hash of each copy after the first (e.g.
+ * {@code HASH:<hash>-2}).
+ * </p>
+ * <p>
+ * If the application that created the file does not update the REV property
+ * when a vCard changes, call {@link #setRevisionUsed setRevisionUsed(false)} to
+ * always use the hash.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * Map&lt;String, String&gt; snapshot = loadSnapshot(); //empty on the first import
+ *
+ * IncrementalVCardReader reader = new IncrementalVCardReader(snapshot);
+ * IncrementalVCardReader.Result result = reader.read(new File("export.vcf"));
+ *
+ * for (Map.Entry&lt;String, VCard&gt; entry : result.getVCards().entrySet()) {
+ *   //added or modified
+ *   saveContact(entry.getKey(), entry.getValue());
+ * }
+ * for (String key : result.getRemoved()) {
+ *   deleteContact(key);
+ * }
+ *
+ * saveSnapshot(result.getSnapshot());
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class IncrementalVCardReader {
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final String UID_PREFIX = "UID:";
+	private static final String DUPLICATE_PREFIX = "DUP:";
+	private static final String HASH_PREFIX = "HASH:";
+
+	private final Map<String, String> previous;
+	private final Set<String> previousDuplicateUids = new HashSet<String>();
+	private Charset charset = Charset.defaultCharset();
+	private boolean revisionUsed = true;
+	private ScribeIndex index;
+
+	/**
+	 * @param previous the snapshot of the previous import (see
+	 * {@link Result#getSnapshot}), or an empty map if this is the first import
+	 */
+	public IncrementalVCardReader(Map<String, String> previous) {
+		this.previous = previous;
+
+		for (String key : previous.keySet()) {
+			if (key.startsWith(DUPLICATE_PREFIX)) {
+				int colon = key.indexOf(':', DUPLICATE_PREFIX.length());
+				previousDuplicateUids.add(key.substring(colon + 1));
+			}
+		}
+	}
+
+	/**
+	 * Gets the character encoding of the vCard file.
+	 * @return the character encoding (defaults to the system's default
+	 * encoding)
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Sets the character encoding of the vCard file. It must be compatible
+	 * with ASCII, such as UTF-8 or ISO-8859-1.
+	 * @param charset the character encoding
+	 */
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Gets whether a vCard's REV property is used to determine if it has
+	 * changed.
+	 * @return true if the REV property is used when present, false if a hash
+	 * of the vCard's raw text is always used (defaults to true)
+	 */
+	public boolean isRevisionUsed() {
+		return revisionUsed;
+	}
+
+	/**
+	 * Sets whether a vCard's REV property is used to determine if it has
+	 * changed. Note that changing this setting will cause every vCard to be
+	 * reported as modified on the next import.
+	 * @param revisionUsed true to use the REV property when present, false to
+	 * always use a hash of the vCard's raw text
+	 */
+	public void setRevisionUsed(boolean revisionUsed) {
+		this.revisionUsed = revisionUsed;
+	}
+
+	/**
+	 * Gets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * @return the scribe index or null to use the default scribes
+	 */
+	public ScribeIndex getScribeIndex() {
+		return index;
+	}
+
+	/**
+	 * Sets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * @param index the scribe index or null to use the default scribes
+	 */
+	public void setScribeIndex(ScribeIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Reads a vCard file.
+	 * @param file the file to read
+	 * @return the result
+	 * @throws IOException if there's a problem reading from the file
+	 */
+	public Result read(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			return read(in);
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Reads a stream of vCards.
+	 * @param in the input stream to read from (it is not closed)
+	 * @return the result
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	public Result read(InputStream in) throws IOException {
+		final Result result = new Result();
+		final Set<String> uids = new HashSet<String>();
+
+		new VCardBlockScanner(charset) {
+			@Override
+			protected void block(Block block) throws IOException {
+				String uid = block.getUid();
+				String hash = null;
+				String key = null;
+				if (uid == null) {
+					hash = hash(block.getData());
+					key = unique(HASH_PREFIX + hash, "", result);
+				} else if (uids.add(uid)) {
+					/*
+					 * If this vCard was a duplicate in the previous import, and
+					 * the vCard it duplicated has since been removed, keep
+					 * using its old key so it is not reported as modified.
+					 */
+					if (previousDuplicateUids.contains(uid)) {
+						hash = hash(block.getData());
+						String duplicateKey = DUPLICATE_PREFIX + hash + ":" + uid;
+						if (previous.containsKey(duplicateKey) && !result.snapshot.containsKey(duplicateKey)) {
+							key = duplicateKey;
+						}
+					}
+					if (key == null) {
+						key = UID_PREFIX + uid;
+					}
+				} else {
+					//the UID is not unique, so use the hash to identify the vCard
+					hash = hash(block.getData());
+					key = unique(DUPLICATE_PREFIX + hash, ":" + uid, result);
+				}
+
+				String fingerprint;
+				if (revisionUsed && block.getRevision() != null) {
+					fingerprint = "REV:" + block.getRevision();
+				} else {
+					if (hash == null) {
+						hash = hash(block.getData());
+					}
+					fingerprint = HASH_PREFIX + hash;
+				}
+				result.snapshot.put(key, fingerprint);
+
+				String previousFingerprint = previous.get(key);
+				if (fingerprint.equals(previousFingerprint)) {
+					result.unchanged.add(key);
+					return;
+				}
+
+				if (previousFingerprint == null) {
+					result.added.add(key);
+				} else {
+					result.modified.add(key);
+				}
+				parse(key, block.getData(), result);
+			}
+		}.scan(in);
+
+		for (String key : previous.keySet()) {
+			if (!result.snapshot.containsKey(key)) {
+				result.removed.add(key);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Appends a counter to a key if the key is already in use, which only
+	 * happens if the file contains identical copies of the same vCard.
+	 * @param key the key, up to and including the hash
+	 * @param suffix the part of the key that comes after the hash
+	 * @param result the result
+	 * @return the unique key
+	 */
+	private static String unique(String key, String suffix, Result result) {
+		String unique = key + suffix;
+		for (int count = 2; result.snapshot.containsKey(unique); count++) {
+			unique = key + "-" + count + suffix;
+		}
+		return unique;
+	}
+
+	private void parse(String key, byte[] data, Result result) throws IOException {
+		String text = charset.decode(ByteBuffer.wrap(data)).toString();
+		VCardReader reader = new VCardReader(text);
+		try {
+			reader.setDefaultQuotedPrintableCharset(charset);
+			if (index != null) {
+				reader.setScribeIndex(index);
+			}
+
+			VCard vcard = reader.readNext();
+			if (vcard != null) {
+				result.vcards.put(key, vcard);
+				result.warnings.put(key, reader.getWarnings());
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Calculates the 64-bit FNV-1a hash of a vCard's raw text.
+	 * @param data the raw text
+	 * @return the hash, as a hex string
+	 */
+	private static String hash(byte[] data) {
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : data) {
+			hash ^= (b & 0xff);
+			hash *= FNV_PRIME;
+		}
+		return Long.toHexString(hash);
+	}
+
+	/**
+	 * The result of an incremental import.
+	 */
+	public static class Result {
+		private final Map<String, VCard> vcards = new LinkedHashMap<String, VCard>();
+		private final Map<String, List<String>> warnings = new HashMap<String, List<String>>();
+		private final List<String> added = new ArrayList<String>();
+		private final List<String> modified = new ArrayList<String>();
+		private final List<String> unchanged = new ArrayList<String>();
+		private final List<String> removed = new ArrayList<String>();
+		private final Map<String, String> snapshot = new LinkedHashMap<String, String>();
+
+		private Result() {
+			//hide
+		}
+
+		/**
+		 * Gets the vCards that were added or modified since the previous
+		 * import.
+		 * @return the parsed vCards, keyed by their keys, in the order they
+		 * appear in the file (this map is immutable)
+		 */
+		public Map<String, VCard> getVCards() {
+			return Collections.unmodifiableMap(vcards);
+		}
+
+		/**
+		 * Gets the warnings that were generated while parsing a vCard.
+		 * @param key the vCard's key
+		 * @return the warnings or empty list if the vCard was not parsed
+		 */
+		public List<String> getWarnings(String key) {
+			List<String> list = warnings.get(key);
+			return (list == null) ? Collections.<String> emptyList() : list;
+		}
+
+		/**
+		 * Gets the keys of the vCards that were not in the previous import.
+		 * @return the keys (this list is immutable)
+		 */
+		public List<String> getAdded() {
+			return Collections.unmodifiableList(added);
+		}
+
+		/**
+		 * Gets the keys of the vCards that changed since the previous import.
+		 * @return the keys (this list is immutable)
+		 */
+		public List<String> getModified() {
+			return Collections.unmodifiableList(modified);
+		}
+
+		/**
+		 * Gets the keys of the vCards that did not change since the previous
+		 * import. These vCards were not parsed.
+		 * @return the keys (this list is immutable)
+		 */
+		public List<String> getUnchanged() {
+			return Collections.unmodifiableList(unchanged);
+		}
+
+		/**
+		 * Gets the keys of the vCards that were in the previous import, but are
+		 * no longer in the file.
+		 * @return the keys (this list is immutable)
+		 */
+		public List<String> getRemoved() {
+			return Collections.unmodifiableList(removed);
+		}
+
+		/**
+		 * Gets the keys and fingerprints of all the vCards in the file. This
+		 * should be saved by the caller and passed into the next import.
+		 * @return the snapshot (this map is immutable)
+		 */
+		public Map<String, String> getSnapshot() {
+			return Collections.unmodifiableMap(snapshot);
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package ezvcard.io.text;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.HashMap;
+import java.util.Map;
+
+import ezvcard.util.org.apache.commons.codec.DecoderException;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Decodes quoted-printable property values. The octets of a value are
+ * collected into a re-usable buffer, and then decoded exactly once using the
+ * property's character set.
+ * </p>
+ * <p>
+ * Some vCards (such as those created by Outlook) include raw, non-ASCII
+ * characters in their quoted-printable values. These characters were decoded
+ * by the {@link java.io.Reader} using the stream's character encoding. To
+ * recover their original octets, they are re-encoded using that same
+ * encoding before the value is decoded.
+ * </p>
+ * <p>
+ * {@link Charset} lookups and {@link CharsetDecoder} instances are cached, so
+ * this class is not thread-safe. Each reader should have its own instance.
+ * </p>
+ * @author Michael Angstadt
+ */
+class QuotedPrintableDecoder {
+	private static final int MAX_CACHED_CHARSETS = 32;
+	private static final int MAX_BUFFER_SIZE = 8192;
+
+	private final Charset streamCharset;
+	private final Map<String, Charset> charsets = new HashMap<String, Charset>();
+	private final Map<Charset, CharsetDecoder> decoders = new HashMap<Charset, CharsetDecoder>();
+	private byte[] bytes = new byte[256];
+	private char[] chars = new char[256];
+
+	/**
+	 * @param streamCharset the character encoding that was used to decode the
+	 * vCard data stream, or null if unknown (for example, if the vCard is being
+	 * read from a string)
+	 */
+	public QuotedPrintableDecoder(Charset streamCharset) {
+		this.streamCharset = streamCharset;
+	}
+
+	/**
+	 * Looks up a character set by name. The results of previous lookups are
+	 * cached.
+	 * @param name the character set name (e.g. "UTF-8")
+	 * @return the character set or null if the name is invalid or the
+	 * character set is not supported by this system
+	 */
+	public Charset charset(String name) {
+		Charset charset = charsets.get(name);
+		if (charset != null || charsets.containsKey(name)) {
+			return charset;
+		}
+
+		try {
+			charset = Charset.forName(name);
+		} catch (IllegalCharsetNameException e) {
+			//bad charset name
+		} catch (UnsupportedCharsetException e) {
+			//bad charset name
+		}
+
+		if (charsets.size() < MAX_CACHED_CHARSETS) {
+			charsets.put(name, charset);
+		}
+		return charset;
+	}
+
+	/**
+	 * Decodes a quoted-printable value.
+	 * @param value the quoted-printable value
+	 * @param charset the character set the value's octets are in
+	 * @return the decoded value
+	 * @throws DecoderException if the value contains an invalid escape
+	 * sequence
+	 */
+	public String decode(String value, Charset charset) throws DecoderException {
+		int length = value.length();
+		ensureByteCapacity(length);
+
+		int byteCount = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+
+			if (c == '=') {
+				if (i + 2 >= length) {
+					throw new DecoderException("Invalid quoted-printable encoding");
+				}
+
+				int u = digit16(value.charAt(++i));
+				int l = digit16(value.charAt(++i));
+				bytes[byteCount++] = (byte) ((u << 4) + l);
+				continue;
+			}
+
+			if (c < 0x80) {
+				bytes[byteCount++] = (byte) c;
+				continue;
+			}
+
+			/*
+			 * Raw, non-ASCII characters. Convert them back into the octets
+			 * they were originally read as.
+			 */
+			int end = i + 1;
+			while (end < length && value.charAt(end) >= 0x80) {
+				end++;
+			}
+
+			Charset rawCharset = (streamCharset == null) ? charset : streamCharset;
+			ByteBuffer encoded = rawCharset.encode(CharBuffer.wrap(value, i, end));
+			ensureByteCapacity(byteCount + encoded.remaining() + (length - end));
+			int encodedLength = encoded.remaining();
+			encoded.get(bytes, byteCount, encodedLength);
+			byteCount += encodedLength;
+
+			i = end - 1;
+		}
+
+		CharsetDecoder decoder = decoder(charset);
+		int maxChars = (int) Math.ceil(byteCount * (double) decoder.maxCharsPerByte());
+		if (chars.length < maxChars) {
+			chars = new char[maxChars];
+		}
+
+		CharBuffer out = CharBuffer.wrap(chars);
+		decoder.reset();
+		decoder.decode(ByteBuffer.wrap(bytes, 0, byteCount), out, true);
+		decoder.flush(out);
+		String decoded = new String(chars, 0, out.position());
+
+		//don't hold on to the buffers if a large value was decoded
+		if (bytes.length > MAX_BUFFER_SIZE) {
+			bytes = new byte[256];
+		}
+		if (chars.length > MAX_BUFFER_SIZE) {
+			chars = new char[256];
+		}
+
+		return decoded;
+	}
+
+	/**
+	 * Gets a decoder for the given character set. Malformed and unmappable
+	 * input is replaced, just like {@link String#String(byte[], String)} does.
+	 * @param charset the character set
+	 * @return the decoder
+	 */
+	private CharsetDecoder decoder(Charset charset) {
+		CharsetDecoder decoder = decoders.get(charset);
+		if (decoder == null) {
+			decoder = charset.newDecoder();
+			decoder.onMalformedInput(CodingErrorAction.REPLACE);
+			decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			if (decoders.size() < MAX_CACHED_CHARSETS) {
+				decoders.put(charset, decoder);
+			}
+		}
+		return decoder;
+	}
+
+	private void ensureByteCapacity(int capacity) {
+		if (bytes.length < capacity) {
+			byte[] newBytes = new byte[Math.max(capacity, bytes.length * 2)];
+			System.arraycopy(bytes, 0, newBytes, 0, bytes.length);
+			bytes = newBytes;
+		}
+	}
+
+	private static int digit16(char c) throws DecoderException {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		throw new DecoderException("Invalid URL encoding: not a valid digit (radix 16): " + (int) c);
+	}
+}
@@ -0,0 +1,305 @@
+package ezvcard.io.text;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.parameter.Encoding;
+import ezvcard.parameter.VCardParameters;
+import ezvcard.util.org.apache.commons.codec.DecoderException;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * Finds the boundaries of each vCard in a plain-text vCard stream without
+ * fully parsing them. For each vCard, a handful of identifying property values
+ * are extracted with a {@link VCardRawReader}. Used by {@link VCardIndex} and
+ * {@link IncrementalVCardReader}.
+ * @author Michael Angstadt
+ */
+abstract class VCardBlockScanner {
+	private final Charset charset;
+	private final QuotedPrintableDecoder decoder;
+
+	/*
+	 * The bytes of the line that is currently being read.
+	 */
+	private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+	/*
+	 * The lines of the vCard that is currently being read.
+	 */
+	private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+
+	private long lineStart = 0, cardStart = -1;
+	private int depth = 0;
+
+	/**
+	 * @param charset the character encoding of the stream (must be compatible
+	 * with ASCII)
+	 */
+	public VCardBlockScanner(Charset charset) {
+		this.charset = charset;
+		decoder = new QuotedPrintableDecoder(charset);
+	}
+
+	/**
+	 * Scans the stream. {@link #block} is invoked for each vCard.
+	 * @param in the input stream (it is not closed)
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	public void scan(InputStream in) throws IOException {
+		byte[] buffer = new byte[8192];
+		long pos = 0;
+		int prev = -1;
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			for (int i = 0; i < read; i++, pos++) {
+				int b = buffer[i];
+				if (b == '\n' && prev == '\r') {
+					//the newline was already processed when the "\r" character was encountered
+					lineStart = pos + 1;
+				} else if (b == '\n' || b == '\r') {
+					endOfLine(pos);
+					lineStart = pos + 1;
+				} else {
+					line.write(b);
+				}
+				prev = b;
+			}
+		}
+
+		if (line.size() > 0) {
+			endOfLine(pos);
+		}
+	}
+
+	/**
+	 * Called when a complete vCard has been found.
+	 * @param block the vCard
+	 * @throws IOException if there's a problem processing the vCard
+	 */
+	protected abstract void block(Block block) throws IOException;
+
+	/**
+	 * Called when the end of a line is reached.
+	 * @param end the stream offset of the byte that ends the line
+	 */
+	private void endOfLine(long end) throws IOException {
+		byte[] bytes = line.toByteArray();
+		line.reset();
+
+		if (isLine(bytes, "BEGIN:VCARD")) {
+			if (depth == 0) {
+				cardStart = lineStart;
+				block.reset();
+			}
+			depth++;
+		}
+
+		if (depth == 0) {
+			return;
+		}
+
+		block.write(bytes);
+		block.write('\n');
+
+		if (isLine(bytes, "END:VCARD")) {
+			depth--;
+			if (depth == 0) {
+				block(createBlock(cardStart, end - cardStart));
+			}
+		}
+	}
+
+	private Block createBlock(long offset, long length) throws IOException {
+		Block result = new Block(offset, length, block.toByteArray());
+
+		String text = charset.decode(ByteBuffer.wrap(result.data)).toString();
+		VCardRawReader reader = new VCardRawReader(new StringReader(text));
+		int depth = 0;
+		while (true) {
+			VCardRawLine line;
+			try {
+				line = reader.readLine();
+			} catch (VCardParseException e) {
+				continue;
+			}
+
+			if (line == null) {
+				break;
+			}
+
+			String name = line.getName();
+			if ("BEGIN".equalsIgnoreCase(name) && "VCARD".equalsIgnoreCase(line.getValue())) {
+				depth++;
+				continue;
+			}
+			if ("END".equalsIgnoreCase(name) && "VCARD".equalsIgnoreCase(line.getValue())) {
+				depth--;
+				continue;
+			}
+			if (depth != 1) {
+				//ignore the properties of nested vCards (see: AGENT property)
+				continue;
+			}
+
+			if (result.uid == null && "UID".equalsIgnoreCase(name)) {
+				result.uid = value(line);
+			} else if (result.rev == null && "REV".equalsIgnoreCase(name)) {
+				result.rev = value(line);
+			} else if (result.formattedName == null && "FN".equalsIgnoreCase(name)) {
+				result.formattedName = value(line);
+			} else if ("EMAIL".equalsIgnoreCase(name)) {
+				result.emails.add(value(line));
+			}
+		}
+
+		return result;
+	}
+
+	private String value(VCardRawLine line) {
+		String value = line.getValue();
+		VCardParameters parameters = line.getParameters();
+		if (parameters.getEncoding() == Encoding.QUOTED_PRINTABLE) {
+			Charset qpCharset = null;
+			String charsetStr = parameters.getCharset();
+			if (charsetStr != null) {
+				qpCharset = decoder.charset(charsetStr);
+			}
+			if (qpCharset == null) {
+				qpCharset = charset;
+			}
+
+			try {
+				value = decoder.decode(value, qpCharset);
+			} catch (DecoderException e) {
+				//leave the value as-is
+			}
+		}
+
+		return VCardPropertyScribe.unescape(value.trim());
+	}
+
+	private static boolean isLine(byte[] bytes, String expected) {
+		int length = bytes.length;
+		while (length > 0 && (bytes[length - 1] == ' ' || bytes[length - 1] == '\t')) {
+			length--;
+		}
+		if (length != expected.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (Character.toUpperCase((char) bytes[i]) != expected.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A vCard that was found in the stream.
+	 */
+	static class Block {
+		private final long offset, length;
+		private final byte[] data;
+		private String uid, rev, formattedName;
+		private final List<String> emails = new ArrayList<String>(1);
+
+		private Block(long offset, long length, byte[] data) {
+			this.offset = offset;
+			this.length = length;
+			this.data = data;
+		}
+
+		/**
+		 * Gets the position in the stream where the vCard's "BEGIN:VCARD" line
+		 * starts.
+		 * @return the byte offset
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Gets the length of the vCard, from the start of its "BEGIN:VCARD"
+		 * line to the end of its "END:VCARD" line.
+		 * @return the length in bytes
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		/**
+		 * Gets the lines of the vCard. Each line ends with a "\n" character,
+		 * regardless of the newline sequence that the stream uses.
+		 * @return the raw bytes
+		 */
+		public byte[] getData() {
+			return data;
+		}
+
+		/**
+		 * @return the UID property value or null if not present
+		 */
+		public String getUid() {
+			return uid;
+		}
+
+		/**
+		 * @return the REV property value or null if not present
+		 */
+		public String getRevision() {
+			return rev;
+		}
+
+		/**
+		 * @return the FN property value or null if not present
+		 */
+		public String getFormattedName() {
+			return formattedName;
+		}
+
+		/**
+		 * @return the EMAIL property values (this list is immutable)
+		 */
+		public List<String> getEmails() {
+			return Collections.unmodifiableList(emails);
+		}
+	}
+}
@@ -0,0 +1,661 @@
+package ezvcard.io.text;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ezvcard.Messages;
+import ezvcard.VCard;
+import ezvcard.io.scribe.ScribeIndex;
+import ezvcard.util.IOUtils;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * An index of the vCards in a plain-text vCard file. For each vCard, the index
+ * records where the vCard is located in the file, along with a few of its
+ * property values (UID, REV, FN, and EMAIL). This allows individual vCards to
+ * be retrieved from large files without having to parse the entire file.
+ * </p>
+ * <p>
+ * The index is built in a single pass over the file. Only the property values
+ * that are indexed are parsed (using a {@link VCardRawReader}), so building the
+ * index is much faster than reading the file with a {@link VCardReader}. The
+ * index can be saved to a "sidecar" file, which is stored next to the vCard
+ * file, so that it does not have to be rebuilt every time the program runs.
+ * </p>
+ * <p>
+ * The vCard file must use a character encoding that is compatible with ASCII,
+ * such as UTF-8 or ISO-8859-1.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * File file = new File("contacts.vcf");
+ *
+ * //load the sidecar file, or build and save the index if it's missing or out of date
+ * VCardIndex index = VCardIndex.open(file);
+ *
+ * VCardIndex.Entry entry = index.findByUid("urn:uuid:03a0e51f-d1aa-4385-8a53-e29025acd8af");
+ * if (entry != null) {
+ *   VCard vcard = index.read(entry);
+ * }
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class VCardIndex {
+	private static final byte[] MAGIC = { 'V', 'C', 'F', 'I', 'D', 'X' };
+	private static final int FORMAT_VERSION = 1;
+
+	private final File file;
+	private final Charset charset;
+	private final long fileLength, fileLastModified;
+	private final List<Entry> entries;
+	private final Map<String, List<Entry>> byUid = new HashMap<String, List<Entry>>();
+	private final Map<String, List<Entry>> byFormattedName = new HashMap<String, List<Entry>>();
+	private final Map<String, List<Entry>> byEmail = new HashMap<String, List<Entry>>();
+	private ScribeIndex index;
+
+	private VCardIndex(File file, Charset charset, long fileLength, long fileLastModified, List<Entry> entries) {
+		this.file = file;
+		this.charset = charset;
+		this.fileLength = fileLength;
+		this.fileLastModified = fileLastModified;
+		this.entries = Collections.unmodifiableList(entries);
+
+		for (Entry entry : entries) {
+			put(byUid, entry.uid, entry);
+			put(byFormattedName, entry.formattedName, entry);
+			for (String email : entry.emails) {
+				put(byEmail, email.toLowerCase(), entry);
+			}
+		}
+	}
+
+	/**
+	 * Builds an index of a vCard file, assuming the file is in the system's
+	 * default character encoding.
+	 * @param file the vCard file
+	 * @return the index
+	 * @throws IOException if there's a problem reading the file
+	 */
+	public static VCardIndex build(File file) throws IOException {
+		return build(file, Charset.defaultCharset());
+	}
+
+	/**
+	 * Builds an index of a vCard file.
+	 * @param file the vCard file
+	 * @param charset the character encoding of the file
+	 * @return the index
+	 * @throws IOException if there's a problem reading the file
+	 */
+	public static VCardIndex build(File file, Charset charset) throws IOException {
+		long length = file.length();
+		long lastModified = file.lastModified();
+
+		InputStream in = new FileInputStream(file);
+		try {
+			final List<Entry> entries = new ArrayList<Entry>();
+			new VCardBlockScanner(charset) {
+				@Override
+				protected void block(Block block) {
+					entries.add(new Entry(block.getOffset(), block.getLength(), block.getUid(), block.getRevision(), block.getFormattedName(), block.getEmails()));
+				}
+			}.scan(in);
+			return new VCardIndex(file, charset, length, lastModified, entries);
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Loads the index of a vCard file from the vCard file's sidecar file.
+	 * @param file the vCard file
+	 * @return the index
+	 * @throws IOException if there's a problem reading the sidecar file or if
+	 * the sidecar file is not a valid index
+	 * @see #getSidecarFile
+	 */
+	public static VCardIndex load(File file) throws IOException {
+		return load(file, getSidecarFile(file));
+	}
+
+	/**
+	 * Loads the index of a vCard file.
+	 * @param file the vCard file
+	 * @param indexFile the file that the index was saved to
+	 * @return the index
+	 * @throws IOException if there's a problem reading the index file or if
+	 * the index file is not a valid index
+	 */
+	public static VCardIndex load(File file, File indexFile) throws IOException {
+		//read the whole file so the counts it contains can be checked against its size
+		byte[] data = IOUtils.toByteArray(new FileInputStream(indexFile), true);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if (!Arrays.equals(MAGIC, magic) || in.readUnsignedByte() != FORMAT_VERSION) {
+				throw new IOException(Messages.INSTANCE.getExceptionMessage(49, indexFile.getPath()));
+			}
+
+			Charset charset;
+			String charsetName = in.readUTF();
+			try {
+				charset = Charset.forName(charsetName);
+			} catch (IllegalCharsetNameException e) {
+				throw new IOException(Messages.INSTANCE.getExceptionMessage(49, indexFile.getPath()));
+			} catch (UnsupportedCharsetException e) {
+				throw new IOException(Messages.INSTANCE.getExceptionMessage(49, indexFile.getPath()));
+			}
+
+			long fileLength = in.readLong();
+			long fileLastModified = in.readLong();
+			//each entry takes up at least 6 bytes
+			int count = readCount(in, 6, indexFile);
+
+			List<Entry> entries = new ArrayList<Entry>(count);
+			long offset = 0;
+			for (int i = 0; i < count; i++) {
+				//offsets are stored as the distance from the end of the previous vCard
+				offset += readVarLong(in);
+				long length = readVarLong(in);
+				String uid = readString(in);
+				String rev = readString(in);
+				String formattedName = readString(in);
+
+				int emailCount = readCount(in, 1, indexFile);
+				List<String> emails = new ArrayList<String>(emailCount);
+				for (int j = 0; j < emailCount; j++) {
+					emails.add(readString(in));
+				}
+
+				entries.add(new Entry(offset, length, uid, rev, formattedName, emails));
+				offset += length;
+			}
+
+			return new VCardIndex(file, charset, fileLength, fileLastModified, entries);
+		} catch (EOFException e) {
+			throw new IOException(Messages.INSTANCE.getExceptionMessage(49, indexFile.getPath()));
+		}
+	}
+
+	/**
+	 * Loads the index of a vCard file from the vCard file's sidecar file. If
+	 * the sidecar file does not exist, cannot be read, or is out of date, the
+	 * index is rebuilt and saved to the sidecar file.
+	 * @param file the vCard file
+	 * @return the index
+	 * @throws IOException if there's a problem reading the vCard file or
+	 * writing the sidecar file
+	 */
+	public static VCardIndex open(File file) throws IOException {
+		return open(file, Charset.defaultCharset());
+	}
+
+	/**
+	 * Loads the index of a vCard file from the vCard file's sidecar file. If
+	 * the sidecar file does not exist, cannot be read, or is out of date, the
+	 * index is rebuilt and saved to the sidecar file.
+	 * @param file the vCard file
+	 * @param charset the character encoding of the vCard file (only used if
+	 * the index has to be rebuilt)
+	 * @return the index
+	 * @throws IOException if there's a problem reading the vCard file or
+	 * writing the sidecar file
+	 */
+	public static VCardIndex open(File file, Charset charset) throws IOException {
+		File sidecar = getSidecarFile(file);
+		if (sidecar.isFile()) {
+			try {
+				VCardIndex index = load(file, sidecar);
+				if (!index.isStale()) {
+					return index;
+				}
+			} catch (IOException e) {
+				//rebuild it
+			}
+		}
+
+		VCardIndex index = build(file, charset);
+		index.save(sidecar);
+		return index;
+	}
+
+	/**
+	 * Gets the sidecar file of a vCard file. This is the file that the index is
+	 * saved to by default. It is located in the same directory as the vCard
+	 * file, and its name is the vCard file's name with ".idx" appended to it.
+	 * @param file the vCard file
+	 * @return the sidecar file
+	 */
+	public static File getSidecarFile(File file) {
+		return new File(file.getPath() + ".idx");
+	}
+
+	/**
+	 * Saves the index to the vCard file's sidecar file.
+	 * @throws IOException if there's a problem writing to the file
+	 * @see #getSidecarFile
+	 */
+	public void save() throws IOException {
+		save(getSidecarFile(file));
+	}
+
+	/**
+	 * Saves the index to a file.
+	 * @param indexFile the file to save the index to
+	 * @throws IOException if there's a problem writing to the file
+	 */
+	public void save(File indexFile) throws IOException {
+		/*
+		 * Write to a temporary file first, so that the index file is never
+		 * left half-written if something goes wrong.
+		 */
+		File dir = indexFile.getAbsoluteFile().getParentFile();
+		File temp = File.createTempFile("." + indexFile.getName() + ".", ".tmp", dir);
+		boolean saved = false;
+		try {
+			write(temp);
+
+			if (!temp.renameTo(indexFile)) {
+				//File.renameTo() does not replace existing files on some platforms
+				if (!indexFile.delete() || !temp.renameTo(indexFile)) {
+					throw new IOException(Messages.INSTANCE.getExceptionMessage(52, temp.getPath(), indexFile.getPath()));
+				}
+			}
+			saved = true;
+		} finally {
+			if (!saved) {
+				temp.delete();
+			}
+		}
+	}
+
+	private void write(File indexFile) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+		try {
+			out.write(MAGIC);
+			out.writeByte(FORMAT_VERSION);
+			out.writeUTF(charset.name());
+			out.writeLong(fileLength);
+			out.writeLong(fileLastModified);
+			writeVarInt(out, entries.size());
+
+			long end = 0;
+			for (Entry entry : entries) {
+				writeVarLong(out, entry.offset - end);
+				writeVarLong(out, entry.length);
+				writeString(out, entry.uid);
+				writeString(out, entry.rev);
+				writeString(out, entry.formattedName);
+				writeVarInt(out, entry.emails.size());
+				for (String email : entry.emails) {
+					writeString(out, email);
+				}
+				end = entry.offset + entry.length;
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Determines if the vCard file has changed since the index was built.
+	 * @return true if the file's size or last-modified date are different
+	 * than when the index was built, false if not
+	 */
+	public boolean isStale() {
+		return file.length() != fileLength || file.lastModified() != fileLastModified;
+	}
+
+	/**
+	 * Gets the vCard file that this index belongs to.
+	 * @return the vCard file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the character encoding of the vCard file.
+	 * @return the character encoding
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Gets all of the vCards in the index, in the order in which they appear
+	 * in the file.
+	 * @return the index entries (this list is immutable)
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Gets the vCard with the given UID.
+	 * @param uid the UID
+	 * @return the vCard or null if not found. If more than one vCard has this
+	 * UID, the first one is returned.
+	 */
+	public Entry findByUid(String uid) {
+		List<Entry> found = byUid.get(uid);
+		return (found == null) ? null : found.get(0);
+	}
+
+	/**
+	 * Gets the vCards with the given formatted name.
+	 * @param formattedName the formatted name (case-sensitive)
+	 * @return the vCards (this list is immutable)
+	 */
+	public List<Entry> findByFormattedName(String formattedName) {
+		return get(byFormattedName, formattedName);
+	}
+
+	/**
+	 * Gets the vCards with the given email address.
+	 * @param email the email address (case-insensitive)
+	 * @return the vCards (this list is immutable)
+	 */
+	public List<Entry> findByEmail(String email) {
+		return get(byEmail, email.toLowerCase());
+	}
+
+	/**
+	 * <p>
+	 * Gets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * </p>
+	 * <p>
+	 * This is used when the vCards are read from the file.
+	 * </p>
+	 * @return the scribe index or null to use the default scribes
+	 */
+	public ScribeIndex getScribeIndex() {
+		return index;
+	}
+
+	/**
+	 * Sets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * @param index the scribe index or null to use the default scribes
+	 */
+	public void setScribeIndex(ScribeIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Reads a vCard from the file.
+	 * @param entry the index entry of the vCard
+	 * @return the vCard
+	 * @throws IOException if there's a problem reading from the file
+	 */
+	public VCard read(Entry entry) throws IOException {
+		return read(Collections.singletonList(entry)).get(0);
+	}
+
+	/**
+	 * Reads multiple vCards from the file.
+	 * @param entries the index entries of the vCards
+	 * @return the vCards, in the same order as the given entries
+	 * @throws IOException if there's a problem reading from the file
+	 */
+	public List<VCard> read(Collection<Entry> entries) throws IOException {
+		List<Entry> ordered = new ArrayList<Entry>(entries);
+
+		//read the vCards in the order they appear in the file to minimize seeking
+		List<Entry> sorted = new ArrayList<Entry>(ordered);
+		Collections.sort(sorted, new Comparator<Entry>() {
+			public int compare(Entry one, Entry two) {
+				return (one.offset < two.offset) ? -1 : ((one.offset == two.offset) ? 0 : 1);
+			}
+		});
+
+		Map<Entry, VCard> vcards = new HashMap<Entry, VCard>();
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			for (Entry entry : sorted) {
+				if (vcards.containsKey(entry)) {
+					continue;
+				}
+
+				byte[] data = new byte[(int) entry.length];
+				in.seek(entry.offset);
+				in.readFully(data);
+				vcards.put(entry, parse(data));
+			}
+		} finally {
+			in.close();
+		}
+
+		List<VCard> result = new ArrayList<VCard>(ordered.size());
+		for (Entry entry : ordered) {
+			result.add(vcards.get(entry));
+		}
+		return result;
+	}
+
+	private VCard parse(byte[] data) throws IOException {
+		String text = charset.decode(ByteBuffer.wrap(data)).toString();
+		VCardReader reader = new VCardReader(text);
+		try {
+			reader.setDefaultQuotedPrintableCharset(charset);
+			if (index != null) {
+				reader.setScribeIndex(index);
+			}
+			return reader.readNext();
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static void put(Map<String, List<Entry>> map, String key, Entry entry) {
+		if (key == null) {
+			return;
+		}
+
+		List<Entry> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<Entry>(1);
+			map.put(key, list);
+		}
+		list.add(entry);
+	}
+
+	private static List<Entry> get(Map<String, List<Entry>> map, String key) {
+		List<Entry> list = map.get(key);
+		return (list == null) ? Collections.<Entry> emptyList() : Collections.unmodifiableList(list);
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		writeVarLong(out, value);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		return (int) readVarLong(in);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+
+		//values are UTF-8 encoded, and the length is shifted by one so that zero can mean "null"
+		byte[] data = value.getBytes("UTF-8");
+		writeVarInt(out, data.length + 1);
+		out.write(data);
+	}
+
+	/**
+	 * Reads a count and makes sure that the rest of the file is big enough to
+	 * hold that many items.
+	 * @param in the input stream (must be backed by a byte array)
+	 * @param minBytes the minimum number of bytes each item takes up
+	 * @param indexFile the index file (for the error message)
+	 * @return the count
+	 * @throws IOException if the count is invalid
+	 */
+	private static int readCount(DataInputStream in, int minBytes, File indexFile) throws IOException {
+		long count = readVarLong(in);
+		if (count < 0 || count > in.available() / minBytes) {
+			throw new IOException(Messages.INSTANCE.getExceptionMessage(49, indexFile.getPath()));
+		}
+		return (int) count;
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = readVarInt(in);
+		if (length == 0) {
+			return null;
+		}
+		if (length < 0 || length - 1 > in.available()) {
+			throw new EOFException();
+		}
+
+		byte[] data = new byte[length - 1];
+		in.readFully(data);
+		return new String(data, "UTF-8");
+	}
+
+	/**
+	 * Describes the location and indexed property values of a single vCard.
+	 */
+	public static class Entry {
+		private final long offset, length;
+		private final String uid, rev, formattedName;
+		private final List<String> emails;
+
+		private Entry(long offset, long length, String uid, String rev, String formattedName, List<String> emails) {
+			this.offset = offset;
+			this.length = length;
+			this.uid = uid;
+			this.rev = rev;
+			this.formattedName = formattedName;
+			this.emails = Collections.unmodifiableList(emails);
+		}
+
+		/**
+		 * Gets the position in the file where the vCard's "BEGIN:VCARD" line
+		 * starts.
+		 * @return the byte offset
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Gets the length of the vCard, from the start of its "BEGIN:VCARD"
+		 * line to the end of its "END:VCARD" line.
+		 * @return the length in bytes
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		/**
+		 * Gets the vCard's UID property value.
+		 * @return the UID or null if the vCard doesn't have one
+		 */
+		public String getUid() {
+			return uid;
+		}
+
+		/**
+		 * Gets the vCard's REV property value.
+		 * @return the revision or null if the vCard doesn't have one
+		 */
+		public String getRevision() {
+			return rev;
+		}
+
+		/**
+		 * Gets the vCard's FN property value.
+		 * @return the formatted name or null if the vCard doesn't have one
+		 */
+		public String getFormattedName() {
+			return formattedName;
+		}
+
+		/**
+		 * Gets the vCard's EMAIL property values.
+		 * @return the email addresses (this list is immutable)
+		 */
+		public List<String> getEmails() {
+			return emails;
+		}
+	}
+}
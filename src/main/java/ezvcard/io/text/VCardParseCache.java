@@ -0,0 +1,283 @@
+package ezvcard.io.text;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ezvcard.VCard;
+import ezvcard.io.scribe.ScribeIndex;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Caches the results of parsing plain-text vCards, so that text that has
+ * already been parsed does not have to be parsed again. This is useful for
+ * applications that receive the same vCard text over and over again, such as
+ * CardDAV servers.
+ * </p>
+ * <p>
+ * The cache holds a bounded number of entries, and is also bounded by the
+ * total length of the text it has cached. When either limit is exceeded, the
+ * least recently used entries are evicted. Every call to {@link #parse} returns
+ * deep copies of the cached vCards, so callers are free to modify them.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * //create once, share between threads
+ * VCardParseCache cache = new VCardParseCache(10000, 50 * 1024 * 1024);
+ *
+ * //on each request
+ * List&lt;VCard&gt; vcards = cache.parse(requestBody);
+ *
+ * //periodically
+ * log.info("hits=" + cache.getHitCount() + " misses=" + cache.getMissCount() + " evictions=" + cache.getEvictionCount());
+ * </pre>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class VCardParseCache {
+	private final int maxEntries;
+	private final long maxWeight;
+	private final ScribeIndex index;
+
+	/*
+	 * Access-ordered, so the first entry is always the least recently used.
+	 */
+	private final Map<String, Result> cache = new LinkedHashMap<String, Result>(16, 0.75f, true);
+	private long weight = 0;
+	private long hits = 0, misses = 0, evictions = 0;
+
+	/**
+	 * Creates a cache that is only bounded by the number of entries.
+	 * @param maxEntries the maximum number of entries
+	 * @throws IllegalArgumentException if the maximum is not positive
+	 */
+	public VCardParseCache(int maxEntries) {
+		this(maxEntries, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a cache that uses the default scribes.
+	 * @param maxEntries the maximum number of entries
+	 * @param maxWeight the maximum total length (in characters) of the vCard
+	 * text that is cached
+	 * @throws IllegalArgumentException if either maximum is not positive
+	 */
+	public VCardParseCache(int maxEntries, long maxWeight) {
+		this(maxEntries, maxWeight, null);
+	}
+
+	/**
+	 * Creates a cache.
+	 * @param maxEntries the maximum number of entries
+	 * @param maxWeight the maximum total length (in characters) of the vCard
+	 * text that is cached
+	 * @param index the scribe index to parse the vCards with, or null to use
+	 * the default scribes. It must not be modified while the cache is in use.
+	 * @throws IllegalArgumentException if either maximum is not positive
+	 */
+	public VCardParseCache(int maxEntries, long maxWeight, ScribeIndex index) {
+		if (maxEntries <= 0 || maxWeight <= 0) {
+			throw new IllegalArgumentException("Cache limits must be positive.");
+		}
+
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.index = index;
+	}
+
+	/**
+	 * Parses all the vCards in a string, using the cached result if the
+	 * string has been parsed before.
+	 * @param text the vCard text
+	 * @return the parsed vCards (these are copies that can be freely modified)
+	 */
+	public List<VCard> parse(String text) {
+		return parse(text, null);
+	}
+
+	/**
+	 * Parses all the vCards in a string, using the cached result if the
+	 * string has been parsed before.
+	 * @param text the vCard text
+	 * @param warnings the list object that will be populated with the warnings
+	 * of each parsed vCard (each element is a list of warnings for one vCard),
+	 * or null to ignore the warnings
+	 * @return the parsed vCards (these are copies that can be freely modified)
+	 */
+	public List<VCard> parse(String text, List<List<String>> warnings) {
+		Result result;
+		synchronized (this) {
+			result = cache.get(text);
+			if (result == null) {
+				misses++;
+			} else {
+				hits++;
+			}
+		}
+
+		if (result == null) {
+			//parse outside of the lock so other threads are not blocked
+			result = read(text);
+
+			synchronized (this) {
+				if (!cache.containsKey(text)) {
+					cache.put(text, result);
+					weight += text.length();
+					evict();
+				}
+			}
+		}
+
+		List<VCard> vcards = new ArrayList<VCard>(result.vcards.size());
+		for (VCard vcard : result.vcards) {
+			vcards.add(new VCard(vcard));
+		}
+		if (warnings != null) {
+			for (List<String> list : result.warnings) {
+				warnings.add(new ArrayList<String>(list));
+			}
+		}
+		return vcards;
+	}
+
+	/**
+	 * Removes all entries from the cache. The statistics are not reset.
+	 */
+	public synchronized void clear() {
+		cache.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Gets the number of entries in the cache.
+	 * @return the number of entries
+	 */
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Gets the total length (in characters) of the vCard text that is cached.
+	 * @return the total length
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Gets the number of times a cached result was used.
+	 * @return the number of hits
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of times a string had to be parsed because it was not
+	 * in the cache.
+	 * @return the number of misses
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of entries that were removed from the cache to make room
+	 * for new ones.
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	private Result read(String text) {
+		List<VCard> vcards = new ArrayList<VCard>();
+		List<List<String>> warnings = new ArrayList<List<String>>();
+
+		VCardReader reader = new VCardReader(text);
+		if (index != null) {
+			reader.setScribeIndex(index);
+		}
+		try {
+			VCard vcard;
+			while ((vcard = reader.readNext()) != null) {
+				vcards.add(vcard);
+				warnings.add(reader.getWarnings());
+			}
+		} catch (IOException e) {
+			//should never be thrown because we're reading from a string
+			throw new RuntimeException(e);
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				//should never be thrown because we're reading from a string
+			}
+		}
+
+		return new Result(vcards, warnings);
+	}
+
+	/**
+	 * Removes the least recently used entries until the cache is within its
+	 * limits. The entry that was just added is never removed, even if it
+	 * exceeds the weight limit on its own.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, Result>> it = cache.entrySet().iterator();
+		while ((cache.size() > maxEntries || weight > maxWeight) && cache.size() > 1) {
+			Map.Entry<String, Result> eldest = it.next();
+			weight -= eldest.getKey().length();
+			it.remove();
+			evictions++;
+		}
+	}
+
+	private static class Result {
+		private final List<VCard> vcards;
+		private final List<List<String>> warnings;
+
+		public Result(List<VCard> vcards, List<List<String>> warnings) {
+			this.vcards = Collections.unmodifiableList(vcards);
+			this.warnings = Collections.unmodifiableList(warnings);
+		}
+	}
+}
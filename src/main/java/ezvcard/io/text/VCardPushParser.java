@@ -0,0 +1,599 @@
+package ezvcard.io.text;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import ezvcard.Messages;
+import ezvcard.VCard;
+import ezvcard.VCardVersion;
+import ezvcard.io.StreamReader;
+import ezvcard.util.StringPool;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Parses vCards from data that arrives in chunks, such as the body of an HTTP
+ * request that is read from a non-blocking socket. Instead of pulling data from
+ * a {@link java.io.Reader}, the data is pushed into the parser with the
+ * {@code feed} methods. Each vCard becomes available from {@link #readNext} as
+ * soon as its END:VCARD line has been fed to the parser.
+ * </p>
+ * <p>
+ * Chunks can be split anywhere, including in the middle of a line, a
+ * multi-byte character, or a nested vCard. Only the data of the vCard that is
+ * currently being received is held in memory.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * VCardPushParser parser = new VCardPushParser(Charset.forName("UTF-8"));
+ *
+ * //called each time a chunk of data arrives
+ * parser.feed(chunk);
+ * VCard vcard;
+ * while ((vcard = parser.readNext()) != null) {
+ *   //...
+ * }
+ *
+ * //called when there is no more data
+ * parser.close();
+ * List&lt;VCard&gt; last = parser.readAll();
+ * </pre>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class VCardPushParser extends StreamReader {
+	private final Charset charset;
+	private final CharsetDecoder decoder;
+	private final ByteBuffer leftoverBytes = ByteBuffer.allocate(16);
+	private final CharBuffer decoded = CharBuffer.allocate(1024);
+
+	private final Map<String, VCardVersion> versionAliases = new HashMap<String, VCardVersion>();
+	private StringPool stringPool = new StringPool();
+	private boolean caretDecodingEnabled = true;
+	private Charset defaultQuotedPrintableCharset;
+
+	private final LinkedList<Item> parsed = new LinkedList<Item>();
+	private boolean closed = false;
+
+	/**
+	 * The data of the vCard that is currently being received.
+	 */
+	private final StringBuilder segment = new StringBuilder();
+
+	/**
+	 * The line number of the first line in {@link #segment}.
+	 */
+	private int segmentLineNum = 1;
+
+	/**
+	 * The number of lines that have been fed to the parser.
+	 */
+	private int lineNum = 1;
+
+	/**
+	 * The index in {@link #segment} where the current line starts.
+	 */
+	private int lineStart = 0;
+
+	/**
+	 * How many vCards deep we are (greater than 1 if inside a nested 2.1
+	 * vCard).
+	 */
+	private int depth = 0;
+
+	/**
+	 * Has the END:VCARD line of the current vCard been reached?
+	 */
+	private boolean segmentComplete = false;
+
+	private char prevChar = 0;
+
+	/**
+	 * Is the current line a quoted-printable property, and did its last line
+	 * end with a "=" character? If so, the next line is part of the same
+	 * property, even though it doesn't start with whitespace.
+	 */
+	private boolean quotedPrintableLine = false;
+	private boolean softLineBreak = false;
+
+	/**
+	 * Creates a parser whose byte data is decoded using the system's default
+	 * character encoding.
+	 */
+	public VCardPushParser() {
+		this(Charset.defaultCharset());
+	}
+
+	/**
+	 * @param charset the character encoding to use to decode the data passed
+	 * into {@link #feed(ByteBuffer)}
+	 */
+	public VCardPushParser(Charset charset) {
+		this.charset = charset;
+		defaultQuotedPrintableCharset = charset;
+
+		decoder = charset.newDecoder();
+		decoder.onMalformedInput(CodingErrorAction.REPLACE);
+		decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * Gets the character encoding used to decode byte data.
+	 * @return the character encoding
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Passes a chunk of byte data to the parser. Any bytes at the end of the
+	 * chunk that make up part of a multi-byte character are held until the
+	 * next chunk arrives.
+	 * @param bytes the data (the buffer's position is advanced to its limit)
+	 * @throws IllegalStateException if the parser has been closed
+	 */
+	public void feed(ByteBuffer bytes) {
+		checkClosed();
+
+		//complete the character that was split across the previous chunk and this one
+		while (leftoverBytes.position() > 0 && bytes.hasRemaining()) {
+			leftoverBytes.put(bytes.get());
+			leftoverBytes.flip();
+			decode(leftoverBytes, false);
+			leftoverBytes.compact();
+		}
+
+		decode(bytes, false);
+		if (bytes.hasRemaining()) {
+			leftoverBytes.put(bytes);
+		}
+	}
+
+	/**
+	 * Passes a chunk of byte data to the parser.
+	 * @param bytes the data
+	 * @param off the index of the first byte
+	 * @param len the number of bytes
+	 * @throws IllegalStateException if the parser has been closed
+	 * @see #feed(ByteBuffer)
+	 */
+	public void feed(byte[] bytes, int off, int len) {
+		feed(ByteBuffer.wrap(bytes, off, len));
+	}
+
+	/**
+	 * Passes a chunk of character data to the parser.
+	 * @param chars the data
+	 * @param off the index of the first character
+	 * @param len the number of characters
+	 * @throws IllegalStateException if the parser has been closed
+	 */
+	public void feed(char[] chars, int off, int len) {
+		checkClosed();
+		for (int i = off; i < off + len; i++) {
+			process(chars[i]);
+		}
+	}
+
+	/**
+	 * Passes a chunk of character data to the parser.
+	 * @param chars the data
+	 * @throws IllegalStateException if the parser has been closed
+	 */
+	public void feed(CharSequence chars) {
+		checkClosed();
+		for (int i = 0; i < chars.length(); i++) {
+			process(chars.charAt(i));
+		}
+	}
+
+	private void decode(ByteBuffer in, boolean endOfInput) {
+		while (true) {
+			decoded.clear();
+			boolean overflow = decoder.decode(in, decoded, endOfInput).isOverflow();
+			decoded.flip();
+			while (decoded.hasRemaining()) {
+				process(decoded.get());
+			}
+
+			if (!overflow) {
+				break;
+			}
+		}
+	}
+
+	private void process(char ch) {
+		if (ch == '\n' && prevChar == '\r') {
+			prevChar = ch;
+			if (segment.length() == 0) {
+				//the "\r" character ended the last vCard
+				return;
+			}
+			segment.append(ch);
+			lineStart = segment.length();
+			return;
+		}
+
+		if (isNewline(ch)) {
+			endOfLine();
+			segment.append(ch);
+			lineStart = segment.length();
+			lineNum++;
+			prevChar = ch;
+
+			if (depth == 0) {
+				if (segmentComplete) {
+					parseSegment();
+				} else {
+					/*
+					 * The line is not part of a vCard, so VCardReader would
+					 * ignore it anyway. Discard it so that data which does
+					 * not contain any vCards is not held in memory.
+					 */
+					segment.setLength(0);
+					lineStart = 0;
+					segmentLineNum = lineNum;
+				}
+			}
+			return;
+		}
+
+		segment.append(ch);
+		prevChar = ch;
+	}
+
+	/**
+	 * Called when a newline character is reached.
+	 */
+	private void endOfLine() {
+		int end = segment.length();
+		if (end == lineStart) {
+			//empty line
+			return;
+		}
+
+		boolean folded = isWhitespace(segment.charAt(lineStart)) || (quotedPrintableLine && softLineBreak);
+		softLineBreak = segment.charAt(end - 1) == '=';
+		if (folded) {
+			return;
+		}
+
+		quotedPrintableLine = isQuotedPrintable(lineStart, end);
+
+		switch (componentType(lineStart, end)) {
+		case 1:
+			depth++;
+			break;
+		case -1:
+			if (depth > 0) {
+				depth--;
+				segmentComplete = (depth == 0);
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Determines if a line is a BEGIN:VCARD or END:VCARD line.
+	 * @param start the index of the start of the line
+	 * @param end the index of the end of the line (exclusive)
+	 * @return 1 for BEGIN, -1 for END, 0 for neither
+	 */
+	private int componentType(int start, int end) {
+		while (start < end && isWhitespace(segment.charAt(start))) {
+			start++;
+		}
+		while (end > start && isWhitespace(segment.charAt(end - 1))) {
+			end--;
+		}
+
+		if (!regionMatches(end - 6, end, ":VCARD")) {
+			return 0;
+		}
+		end -= 6;
+
+		//ignore the group
+		for (int i = end - 1; i >= start; i--) {
+			if (segment.charAt(i) == '.') {
+				start = i + 1;
+				break;
+			}
+		}
+
+		if (regionMatches(start, end, "BEGIN")) {
+			return 1;
+		}
+		if (regionMatches(start, end, "END")) {
+			return -1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Determines if a line's parameters contain "QUOTED-PRINTABLE".
+	 * @param start the index of the start of the line
+	 * @param end the index of the end of the line (exclusive)
+	 * @return true if the line is quoted-printable, false if not
+	 */
+	private boolean isQuotedPrintable(int start, int end) {
+		String qp = "QUOTED-PRINTABLE";
+		for (int i = start; i <= end - qp.length(); i++) {
+			char ch = segment.charAt(i);
+			if (ch == ':') {
+				break;
+			}
+			if (regionMatches(i, i + qp.length(), qp)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean regionMatches(int start, int end, String str) {
+		if (start < 0 || end - start != str.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < str.length(); i++) {
+			if (Character.toUpperCase(segment.charAt(start + i)) != str.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of characters that are currently buffered (for unit
+	 * testing).
+	 * @return the number of characters
+	 */
+	int getBufferedLength() {
+		return segment.length();
+	}
+
+	/**
+	 * Parses the vCard data that has been collected.
+	 */
+	private void parseSegment() {
+		String data = segment.toString();
+		int startLine = segmentLineNum;
+
+		segment.setLength(0);
+		lineStart = 0;
+		segmentLineNum = lineNum;
+		segmentComplete = false;
+		quotedPrintableLine = false;
+		softLineBreak = false;
+
+		if (data.trim().length() == 0) {
+			return;
+		}
+
+		VCardReader reader = new VCardReader(new StringReader(data), charset);
+		reader.getRawReader().setLineNumber(startLine);
+		reader.setScribeIndex(index);
+		reader.setStringPool(stringPool);
+		reader.setCaretDecodingEnabled(caretDecodingEnabled);
+		reader.setDefaultQuotedPrintableCharset(defaultQuotedPrintableCharset);
+		for (Map.Entry<String, VCardVersion> entry : versionAliases.entrySet()) {
+			reader.setVersionAlias(entry.getKey(), entry.getValue());
+		}
+
+		try {
+			VCard vcard;
+			while ((vcard = reader.readNext()) != null) {
+				parsed.add(new Item(vcard, reader.getWarnings()));
+			}
+		} catch (IOException e) {
+			//should never be thrown because we're reading from a string
+		}
+	}
+
+	/**
+	 * Gets whether the parser will decode parameter values that use
+	 * circumflex accent encoding (enabled by default).
+	 * @return true if circumflex accent decoding is enabled, false if not
+	 * @see VCardRawReader#isCaretDecodingEnabled()
+	 */
+	public boolean isCaretDecodingEnabled() {
+		return caretDecodingEnabled;
+	}
+
+	/**
+	 * Sets whether the parser will decode parameter values that use
+	 * circumflex accent encoding (enabled by default).
+	 * @param enable true to use circumflex accent decoding, false not to
+	 * @see VCardRawReader#setCaretDecodingEnabled(boolean)
+	 */
+	public void setCaretDecodingEnabled(boolean enable) {
+		caretDecodingEnabled = enable;
+	}
+
+	/**
+	 * Gets the character set to use when decoding quoted-printable values if
+	 * the property has no CHARSET parameter, or if the CHARSET parameter is not
+	 * a valid character set. Defaults to the parser's character encoding.
+	 * @return the character set
+	 */
+	public Charset getDefaultQuotedPrintableCharset() {
+		return defaultQuotedPrintableCharset;
+	}
+
+	/**
+	 * Sets the character set to use when decoding quoted-printable values if
+	 * the property has no CHARSET parameter, or if the CHARSET parameter is not
+	 * a valid character set. Defaults to the parser's character encoding.
+	 * @param charset the character set
+	 */
+	public void setDefaultQuotedPrintableCharset(Charset charset) {
+		defaultQuotedPrintableCharset = charset;
+	}
+
+	/**
+	 * Gets the pool that is used to de-duplicate groups, property names,
+	 * parameter names, and parameter values.
+	 * @return the string pool or null if strings are not being pooled
+	 */
+	public StringPool getStringPool() {
+		return stringPool;
+	}
+
+	/**
+	 * Sets the pool that is used to de-duplicate groups, property names,
+	 * parameter names, and parameter values. If the pool is set to null,
+	 * strings are not pooled.
+	 * @param stringPool the string pool or null not to pool strings
+	 */
+	public void setStringPool(StringPool stringPool) {
+		this.stringPool = stringPool;
+	}
+
+	/**
+	 * Defines how the parser should parse a vCard when it encounters a
+	 * non-standard version number.
+	 * @param version the version number
+	 * @param parseAccordingTo the parsing rules the parser should use when a
+	 * vCard with the given version number is encountered
+	 * @see VCardReader#setVersionAlias
+	 */
+	public void setVersionAlias(String version, VCardVersion parseAccordingTo) {
+		versionAliases.put(version, parseAccordingTo);
+	}
+
+	/**
+	 * Gets all the vCards that have been completely received.
+	 * @return the vCards
+	 */
+	@Override
+	public List<VCard> readAll() {
+		List<VCard> vcards = new ArrayList<VCard>();
+		VCard vcard;
+		while ((vcard = readNext()) != null) {
+			vcards.add(vcard);
+		}
+		return vcards;
+	}
+
+	/**
+	 * Gets the next vCard that has been completely received.
+	 * @return the next vCard or null if no complete vCards are available yet
+	 * (or if there are no more vCards, if the parser has been closed)
+	 */
+	@Override
+	public VCard readNext() {
+		warnings.clear();
+		return _readNext();
+	}
+
+	@Override
+	protected VCard _readNext() {
+		Item item = parsed.poll();
+		if (item == null) {
+			return null;
+		}
+
+		for (String warning : item.warnings) {
+			warnings.add(null, null, warning);
+		}
+		return item.vcard;
+	}
+
+	/**
+	 * Determines if the parser is in the middle of receiving a vCard.
+	 * @return true if a vCard has been started but not finished, false if not
+	 */
+	public boolean isPartial() {
+		return depth > 0;
+	}
+
+	/**
+	 * Signals that there is no more data. Any data that has been fed to the
+	 * parser, but that has not been parsed (such as a vCard that is missing
+	 * its END:VCARD line), is parsed.
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+
+		leftoverBytes.flip();
+		decode(leftoverBytes, true);
+		leftoverBytes.clear();
+		decoded.clear();
+		decoder.flush(decoded);
+		decoded.flip();
+		while (decoded.hasRemaining()) {
+			process(decoded.get());
+		}
+
+		parseSegment();
+		closed = true;
+	}
+
+	private void checkClosed() {
+		if (closed) {
+			throw new IllegalStateException(Messages.INSTANCE.getExceptionMessage(47));
+		}
+	}
+
+	private static boolean isNewline(char ch) {
+		return ch == '\n' || ch == '\r';
+	}
+
+	private static boolean isWhitespace(char ch) {
+		return ch == ' ' || ch == '\t';
+	}
+
+	private static class Item {
+		private final VCard vcard;
+		private final List<String> warnings;
+
+		public Item(VCard vcard, List<String> warnings) {
+			this.vcard = vcard;
+			this.warnings = warnings;
+		}
+	}
+}
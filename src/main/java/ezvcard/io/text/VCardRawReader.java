@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +17,7 @@ import ezvcard.VCardVersion;
 import ezvcard.parameter.Encoding;
 import ezvcard.parameter.VCardParameters;
 import ezvcard.util.ClearableStringBuilder;
+import ezvcard.util.StringPool;
 import ezvcard.util.StringUtils;
 
 /*
@@ -65,6 +67,7 @@ public class VCardRawReader implements Closeable {
 		}
 	}
 
+	private StringPool stringPool = new StringPool();
 	private boolean eos = false;
 	private boolean caretDecodingEnabled = true;
 	private VCardVersion version = VCardVersion.V2_1; //initialize to 2.1, since the VERSION property can exist anywhere in the file in this version
@@ -72,6 +75,12 @@ public class VCardRawReader implements Closeable {
 	private int propertyLineNum = 1;
 	private int lineNum = 1;
 
+	/*
+	 * The embedded vCards that are currently being read (see: AGENT property).
+	 * The last element is the one that is being read from.
+	 */
+	private final List<Embedded> embedded = new ArrayList<Embedded>(1);
+
 	/**
 	 * @param reader the reader to read from
 	 */
@@ -88,6 +97,55 @@ public class VCardRawReader implements Closeable {
 		return propertyLineNum;
 	}
 
+	/**
+	 * Sets the line number of the first line that will be read. Used when the
+	 * data being read is a section of a larger stream.
+	 * @param lineNumber the line number
+	 */
+	void setLineNumber(int lineNumber) {
+		lineNum = lineNumber;
+		propertyLineNum = lineNumber;
+	}
+
+	/**
+	 * <p>
+	 * Starts reading an embedded vCard (3.0 style AGENT property). All
+	 * subsequent calls to {@link #readLine} will read from the given property
+	 * value, which is unescaped as it is read, until {@link #endEmbedded} is
+	 * called.
+	 * </p>
+	 * <p>
+	 * The reader's state (line number, version, etc) is saved and restored
+	 * when the embedded vCard is finished. Embedded vCards may themselves
+	 * contain embedded vCards.
+	 * </p>
+	 * @param value the property value that contains the embedded vCard (it
+	 * should still be escaped)
+	 */
+	void beginEmbedded(String value) {
+		embedded.add(new Embedded(value));
+
+		eos = false;
+		version = VCardVersion.V2_1;
+		prevChar = -1;
+		lineNum = 1;
+		propertyLineNum = 1;
+	}
+
+	/**
+	 * Finishes reading an embedded vCard, and continues reading from where
+	 * the reader was before {@link #beginEmbedded} was called.
+	 */
+	void endEmbedded() {
+		Embedded e = embedded.remove(embedded.size() - 1);
+
+		eos = e.eos;
+		version = e.version;
+		prevChar = e.prevChar;
+		lineNum = e.lineNum;
+		propertyLineNum = e.propertyLineNum;
+	}
+
 	/**
 	 * Gets the vCard version that the reader is currently parsing with.
 	 * @return the vCard version
@@ -294,17 +352,17 @@ public class VCardRawReader implements Closeable {
 
 			if (ch == '.' && group == null && propertyName == null) {
 				//set the group
-				group = buffer.getAndClear();
+				group = buffer.getAndClear(stringPool);
 				continue;
 			}
 
 			if ((ch == ';' || ch == ':') && !inQuotes) {
 				if (propertyName == null) {
 					//property name
-					propertyName = buffer.getAndClear();
+					propertyName = buffer.getAndClear(stringPool);
 				} else {
 					//parameter value
-					String paramValue = buffer.getAndClear();
+					String paramValue = buffer.getAndClear(stringPool);
 					if (version == VCardVersion.V2_1) {
 						//2.1 allows whitespace to surround the "=", so remove it
 						paramValue = StringUtils.ltrim(paramValue);
@@ -322,13 +380,13 @@ public class VCardRawReader implements Closeable {
 
 			if (ch == ',' && !inQuotes && version != VCardVersion.V2_1) {
 				//multi-valued parameter
-				parameters.put(curParamName, buffer.getAndClear());
+				parameters.put(curParamName, buffer.getAndClear(stringPool));
 				continue;
 			}
 
 			if (ch == '=' && curParamName == null) {
 				//parameter name
-				String paramName = buffer.getAndClear();
+				String paramName = buffer.getAndClear(stringPool);
 				if (version == VCardVersion.V2_1) {
 					//2.1 allows whitespace to surround the "=", so remove it
 					paramName = StringUtils.rtrim(paramName);
@@ -454,6 +512,37 @@ public class VCardRawReader implements Closeable {
 		caretDecodingEnabled = enable;
 	}
 
+	/**
+	 * <p>
+	 * Gets the pool that is used to de-duplicate the strings that are
+	 * repeated many times in a vCard data stream (groups, property names,
+	 * parameter names, and parameter values).
+	 * </p>
+	 * <p>
+	 * Property values are never added to the pool.
+	 * </p>
+	 * @return the string pool or null if strings are not being pooled
+	 */
+	public StringPool getStringPool() {
+		return stringPool;
+	}
+
+	/**
+	 * <p>
+	 * Sets the pool that is used to de-duplicate the strings that are
+	 * repeated many times in a vCard data stream (groups, property names,
+	 * parameter names, and parameter values).
+	 * </p>
+	 * <p>
+	 * The same pool can be shared across multiple readers. If the pool is set
+	 * to null, strings are not pooled, and each one is a new instance.
+	 * </p>
+	 * @param stringPool the string pool or null not to pool strings
+	 */
+	public void setStringPool(StringPool stringPool) {
+		this.stringPool = stringPool;
+	}
+
 	/**
 	 * Defines how the reader should parse a vCard when it encounters a
 	 * non-standard version number. By default, the reader throws a
@@ -491,7 +580,32 @@ public class VCardRawReader implements Closeable {
 			return ch;
 		}
 
-		return reader.read();
+		if (embedded.isEmpty()) {
+			return reader.read();
+		}
+
+		Embedded e = embedded.get(embedded.size() - 1);
+		String value = e.value;
+		if (e.pos >= value.length()) {
+			return -1;
+		}
+
+		char ch = value.charAt(e.pos++);
+		if (ch != '\\') {
+			return ch;
+		}
+
+		if (e.pos >= value.length()) {
+			//a trailing backslash is ignored
+			return -1;
+		}
+
+		ch = value.charAt(e.pos++);
+		if (ch == 'n' || ch == 'N') {
+			//newlines appear as "\n" or "\N" (see RFC 5545 p.46)
+			return '\n';
+		}
+		return ch;
 	}
 
 	private boolean isNewline(char ch) {
@@ -530,4 +644,29 @@ public class VCardRawReader implements Closeable {
 	public void close() throws IOException {
 		reader.close();
 	}
+
+	/**
+	 * An embedded vCard that is being read, along with the state of the reader
+	 * before the embedded vCard was started.
+	 */
+	private class Embedded {
+		private final String value;
+		private int pos = 0;
+
+		private final boolean eos;
+		private final VCardVersion version;
+		private final int prevChar;
+		private final int lineNum;
+		private final int propertyLineNum;
+
+		public Embedded(String value) {
+			this.value = value;
+
+			eos = VCardRawReader.this.eos;
+			version = VCardRawReader.this.version;
+			prevChar = VCardRawReader.this.prevChar;
+			lineNum = VCardRawReader.this.lineNum;
+			propertyLineNum = VCardRawReader.this.propertyLineNum;
+		}
+	}
 }
@@ -313,23 +313,7 @@ public class VCardRawWriter implements Closeable, Flushable {
 	 * @throws IOException if there's a problem writing to the data stream
 	 */
 	public void writeProperty(String group, String propertyName, VCardParameters parameters, String value) throws IOException {
-		//validate the group name
-		if (group != null) {
-			if (invalidGroupNameCharacters.containsAny(group)) {
-				throw Messages.INSTANCE.getIllegalArgumentException(7, propertyName, group, printableCharacterList(invalidGroupNameCharacters.characters()));
-			}
-			if (beginsWithWhitespace(group)) {
-				throw Messages.INSTANCE.getIllegalArgumentException(8, propertyName, group);
-			}
-		}
-
-		//validate the property name
-		if (invalidPropertyNameCharacters.containsAny(propertyName)) {
-			throw Messages.INSTANCE.getIllegalArgumentException(9, propertyName, printableCharacterList(invalidPropertyNameCharacters.characters()));
-		}
-		if (beginsWithWhitespace(propertyName)) {
-			throw Messages.INSTANCE.getIllegalArgumentException(10, propertyName);
-		}
+		validateNames(group, propertyName);
 
 		value = sanitizePropertyValue(value, parameters);
 
@@ -353,6 +337,86 @@ public class VCardRawWriter implements Closeable, Flushable {
 			parameters.setCharset(quotedPrintableCharset.name());
 		}
 
+		writeNameAndParameters(group, propertyName, parameters);
+		writer.append(value, useQuotedPrintable, quotedPrintableCharset);
+		writer.writeNewline();
+	}
+
+	/**
+	 * <p>
+	 * Starts writing a property whose value is an embedded vCard (3.0 style
+	 * AGENT property). Everything that is written until
+	 * {@link #endEmbeddedVCardProperty} is called is escaped as it is written,
+	 * and becomes the property's value.
+	 * </p>
+	 * <p>
+	 * 2.1 vCards do not support embedded vCards. Nested vCards should be
+	 * written after the property instead.
+	 * </p>
+	 * @param group the group or null if there is no group
+	 * @param propertyName the property name (e.g. "AGENT")
+	 * @param parameters the property parameters
+	 * @throws IllegalArgumentException if the property data contains one or
+	 * more characters which break the vCard syntax and which cannot be escaped
+	 * or encoded
+	 * @throws IOException if there's a problem writing to the data stream
+	 */
+	void beginEmbeddedVCardProperty(String group, String propertyName, VCardParameters parameters) throws IOException {
+		validateNames(group, propertyName);
+
+		//the escaped vCard is never encoded
+		parameters.setEncoding(null);
+
+		writeNameAndParameters(group, propertyName, parameters);
+		writer.beginEmbedded();
+	}
+
+	/**
+	 * Finishes writing a property whose value is an embedded vCard.
+	 * @throws IOException if there's a problem writing to the data stream
+	 * @see #beginEmbeddedVCardProperty
+	 */
+	void endEmbeddedVCardProperty() throws IOException {
+		writer.endEmbedded();
+		writer.writeNewline();
+	}
+
+	/**
+	 * Checks the group and property name for invalid characters.
+	 * @param group the group or null if there is no group
+	 * @param propertyName the property name
+	 * @throws IllegalArgumentException if either contains invalid characters
+	 */
+	private void validateNames(String group, String propertyName) {
+		//validate the group name
+		if (group != null) {
+			if (invalidGroupNameCharacters.containsAny(group)) {
+				throw Messages.INSTANCE.getIllegalArgumentException(7, propertyName, group, printableCharacterList(invalidGroupNameCharacters.characters()));
+			}
+			if (beginsWithWhitespace(group)) {
+				throw Messages.INSTANCE.getIllegalArgumentException(8, propertyName, group);
+			}
+		}
+
+		//validate the property name
+		if (invalidPropertyNameCharacters.containsAny(propertyName)) {
+			throw Messages.INSTANCE.getIllegalArgumentException(9, propertyName, printableCharacterList(invalidPropertyNameCharacters.characters()));
+		}
+		if (beginsWithWhitespace(propertyName)) {
+			throw Messages.INSTANCE.getIllegalArgumentException(10, propertyName);
+		}
+	}
+
+	/**
+	 * Writes everything in a property that comes before its value.
+	 * @param group the group or null if there is no group
+	 * @param propertyName the property name
+	 * @param parameters the property parameters
+	 * @throws IllegalArgumentException if a parameter contains invalid
+	 * characters
+	 * @throws IOException if there's a problem writing to the data stream
+	 */
+	private void writeNameAndParameters(String group, String propertyName, VCardParameters parameters) throws IOException {
 		//write the group
 		if (group != null) {
 			writer.append(group).append('.');
@@ -410,8 +474,6 @@ public class VCardRawWriter implements Closeable, Flushable {
 		}
 
 		writer.append(':');
-		writer.append(value, useQuotedPrintable, quotedPrintableCharset);
-		writer.append(writer.getNewline());
 	}
 
 	/**
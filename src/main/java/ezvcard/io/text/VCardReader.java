@@ -10,8 +10,6 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.nio.charset.Charset;
-import java.nio.charset.IllegalCharsetNameException;
-import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,6 +18,7 @@ import ezvcard.VCardDataType;
 import ezvcard.VCardVersion;
 import ezvcard.io.CannotParseException;
 import ezvcard.io.EmbeddedVCardException;
+import ezvcard.io.ParseWarnings;
 import ezvcard.io.SkipMeException;
 import ezvcard.io.StreamReader;
 import ezvcard.io.scribe.RawPropertyScribe;
@@ -29,9 +28,8 @@ import ezvcard.parameter.Encoding;
 import ezvcard.parameter.VCardParameters;
 import ezvcard.property.Label;
 import ezvcard.property.VCardProperty;
-import ezvcard.util.IOUtils;
+import ezvcard.util.StringPool;
 import ezvcard.util.org.apache.commons.codec.DecoderException;
-import ezvcard.util.org.apache.commons.codec.net.QuotedPrintableCodec;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -90,6 +88,7 @@ import ezvcard.util.org.apache.commons.codec.net.QuotedPrintableCodec;
  */
 public class VCardReader extends StreamReader {
 	private final VCardRawReader reader;
+	private final QuotedPrintableDecoder quotedPrintableDecoder;
 	private Charset defaultQuotedPrintableCharset;
 
 	/**
@@ -122,11 +121,30 @@ public class VCardReader extends StreamReader {
 	 * @param reader the reader to read from
 	 */
 	public VCardReader(Reader reader) {
+		this(reader, null);
+	}
+
+	/**
+	 * Creates a new vCard reader.
+	 * @param reader the reader to read from
+	 * @param streamCharset the character encoding that was used to decode the
+	 * data that the reader is reading from, or null to get it from the reader
+	 * itself (if possible). This is used to decode quoted-printable values that
+	 * contain raw, non-ASCII characters.
+	 */
+	VCardReader(Reader reader, Charset streamCharset) {
 		this.reader = new VCardRawReader(reader);
-		defaultQuotedPrintableCharset = this.reader.getEncoding();
-		if (defaultQuotedPrintableCharset == null) {
-			defaultQuotedPrintableCharset = Charset.defaultCharset();
-		}
+		Charset encoding = (streamCharset == null) ? this.reader.getEncoding() : streamCharset;
+		quotedPrintableDecoder = new QuotedPrintableDecoder(encoding);
+		defaultQuotedPrintableCharset = (encoding == null) ? Charset.defaultCharset() : encoding;
+	}
+
+	/**
+	 * Gets the object that parses the individual lines of the vCard.
+	 * @return the raw reader
+	 */
+	VCardRawReader getRawReader() {
+		return reader;
 	}
 
 	/**
@@ -185,6 +203,28 @@ public class VCardReader extends StreamReader {
 		defaultQuotedPrintableCharset = charset;
 	}
 
+	/**
+	 * Gets the pool that is used to de-duplicate groups, property names,
+	 * parameter names, and parameter values.
+	 * @return the string pool or null if strings are not being pooled
+	 * @see VCardRawReader#getStringPool()
+	 */
+	public StringPool getStringPool() {
+		return reader.getStringPool();
+	}
+
+	/**
+	 * Sets the pool that is used to de-duplicate groups, property names,
+	 * parameter names, and parameter values. The same pool can be shared
+	 * across multiple readers. If the pool is set to null, strings are not
+	 * pooled.
+	 * @param stringPool the string pool or null not to pool strings
+	 * @see VCardRawReader#setStringPool(StringPool)
+	 */
+	public void setStringPool(StringPool stringPool) {
+		reader.setStringPool(stringPool);
+	}
+
 	/**
 	 * Defines how the reader should parse a vCard when it encounters a
 	 * non-standard version number. By default, a warning is logged and the
@@ -199,6 +239,16 @@ public class VCardReader extends StreamReader {
 
 	@Override
 	protected VCard _readNext() throws IOException {
+		return read(warnings);
+	}
+
+	/**
+	 * Reads the next vCard from the data stream.
+	 * @param warnings the object to add the parse warnings to
+	 * @return the next vCard or null if there are no more
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	private VCard read(ParseWarnings warnings) throws IOException {
 		/*
 		 * Although this almost never happens, vCards can be nested inside of
 		 * each other (see: AGENT property).
@@ -287,7 +337,7 @@ public class VCardReader extends StreamReader {
 
 				//decode property value from quoted-printable
 				try {
-					value = decodeQuotedPrintableValue(name, parameters, value);
+					value = decodeQuotedPrintableValue(name, parameters, value, warnings);
 				} catch (DecoderException e) {
 					warnings.add(reader.getLineNumber(), name, 38, e.getMessage());
 				}
@@ -344,22 +394,19 @@ public class VCardReader extends StreamReader {
 						embeddedVCardException = e;
 					} else {
 						//the property value should be an embedded vCard (3.0 style)
-						value = VCardPropertyScribe.unescape(value);
-
-						VCardReader agentReader = new VCardReader(value);
-						agentReader.setScribeIndex(index);
+						ParseWarnings agentWarnings = new ParseWarnings();
+						reader.beginEmbedded(value);
 						try {
-							VCard nestedVCard = agentReader.readNext();
+							VCard nestedVCard = read(agentWarnings);
 							if (nestedVCard != null) {
 								e.injectVCard(nestedVCard);
 							}
-						} catch (IOException e2) {
-							//shouldn't be thrown because we're reading from a string
 						} finally {
-							for (String w : agentReader.getWarnings()) {
-								warnings.add(reader.getLineNumber(), name, 26, w);
-							}
-							IOUtils.closeQuietly(agentReader);
+							reader.endEmbedded();
+						}
+
+						for (String w : agentWarnings.copy()) {
+							warnings.add(reader.getLineNumber(), name, 26, w);
 						}
 					}
 
@@ -376,7 +423,7 @@ public class VCardReader extends StreamReader {
 	 * parameters to have names, but v2.1 does not.
 	 * @param parameters the parameters
 	 */
-	private void processNamelessParameters(VCardParameters parameters) {
+	static void processNamelessParameters(VCardParameters parameters) {
 		List<String> namelessParamValues = parameters.removeAll(null);
 		for (String paramValue : namelessParamValues) {
 			String paramName = guessParameterName(paramValue);
@@ -389,7 +436,7 @@ public class VCardReader extends StreamReader {
 	 * @param value the parameter value
 	 * @return the guessed name
 	 */
-	private String guessParameterName(String value) {
+	private static String guessParameterName(String value) {
 		if (VCardDataType.find(value) != null) {
 			return VCardParameters.VALUE;
 		}
@@ -415,7 +462,7 @@ public class VCardReader extends StreamReader {
 	 * </p>
 	 * @param parameters the parameters
 	 */
-	private void processQuotedMultivaluedTypeParams(VCardParameters parameters) {
+	static void processQuotedMultivaluedTypeParams(VCardParameters parameters) {
 		List<String> types = parameters.getTypes();
 		String valueWithComma = null;
 		for (String value : types) {
@@ -444,11 +491,12 @@ public class VCardReader extends StreamReader {
 	 * @param parameters the property parameters
 	 * @param value the property value (may or may not be encoded in
 	 * quoted-printable
+	 * @param warnings the object to add the parse warnings to
 	 * @return the decoded property value or the untouched property value if it
 	 * is not encoded in quoted-printable encoding
 	 * @throws DecoderException if the value couldn't be decoded
 	 */
-	private String decodeQuotedPrintableValue(String name, VCardParameters parameters, String value) throws DecoderException {
+	private String decodeQuotedPrintableValue(String name, VCardParameters parameters, String value, ParseWarnings warnings) throws DecoderException {
 		if (parameters.getEncoding() != Encoding.QUOTED_PRINTABLE) {
 			//the property value is not encoded in quoted-printable encoding
 			return value;
@@ -458,19 +506,12 @@ public class VCardReader extends StreamReader {
 		parameters.setEncoding(null);
 
 		//determine the character set
-		Charset charset = null;
+		Charset charset;
 		String charsetStr = parameters.getCharset();
 		if (charsetStr == null) {
 			charset = defaultQuotedPrintableCharset;
 		} else {
-			try {
-				charset = Charset.forName(charsetStr);
-			} catch (IllegalCharsetNameException e) {
-				//bad charset name
-			} catch (UnsupportedCharsetException e) {
-				//bad charset name
-			}
-
+			charset = quotedPrintableDecoder.charset(charsetStr);
 			if (charset == null) {
 				charset = defaultQuotedPrintableCharset;
 
@@ -479,8 +520,7 @@ public class VCardReader extends StreamReader {
 			}
 		}
 
-		QuotedPrintableCodec codec = new QuotedPrintableCodec(charset.name());
-		return codec.decode(value);
+		return quotedPrintableDecoder.decode(value, charset);
 	}
 
 	/**
@@ -0,0 +1,746 @@
+package ezvcard.io.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ezvcard.Messages;
+import ezvcard.SupportedVersions;
+import ezvcard.VCard;
+import ezvcard.VCardDataType;
+import ezvcard.VCardVersion;
+import ezvcard.io.CannotParseException;
+import ezvcard.io.EmbeddedVCardException;
+import ezvcard.io.ParseWarnings;
+import ezvcard.io.SkipMeException;
+import ezvcard.io.json.JCardRawReader;
+import ezvcard.io.json.JCardRawReader.JCardDataStreamListener;
+import ezvcard.io.json.JCardRawWriter;
+import ezvcard.io.json.JCardValue;
+import ezvcard.io.scribe.ListPropertyScribe;
+import ezvcard.io.scribe.RawPropertyScribe;
+import ezvcard.io.scribe.ScribeIndex;
+import ezvcard.io.scribe.StringPropertyScribe;
+import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.io.scribe.VCardPropertyScribe.Result;
+import ezvcard.io.scribe.WritePlan;
+import ezvcard.parameter.Encoding;
+import ezvcard.parameter.VCardParameters;
+import ezvcard.property.RawProperty;
+import ezvcard.property.VCardProperty;
+import ezvcard.util.org.apache.commons.codec.DecoderException;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Converts between plain-text vCards and jCards without building {@link VCard}
+ * objects. Properties are read by a raw reader ({@link VCardRawReader} or
+ * {@link JCardRawReader}) and written directly to a raw writer
+ * ({@link JCardRawWriter} or {@link VCardRawWriter}), one property at a time,
+ * so memory usage stays flat no matter how large the input is.
+ * </p>
+ * <p>
+ * Only the minimal amount of conversion is done for each property:
+ * </p>
+ * <ul>
+ * <li>Text properties (such as FN and NOTE) and extended properties are
+ * unescaped or escaped and written as-is.</li>
+ * <li>List properties (such as CATEGORIES and NICKNAME) are split or joined on
+ * their commas.</li>
+ * <li>All other properties (such as N, ADR, and BDAY), whose values are
+ * represented differently in the two formats, are passed through their
+ * scribes. Properties that belong to custom scribes are always passed through
+ * their scribes.</li>
+ * </ul>
+ * <p>
+ * The output of {@link #toJCard} is the same as reading the vCards with
+ * {@link VCardReader} and writing them with a
+ * {@link ezvcard.io.json.JCardWriter JCardWriter} that does not add a PRODID
+ * property, with one exception: LABEL properties are not merged into the ADR
+ * properties they belong to, because doing so would require the entire vCard
+ * to be held in memory. Properties that are not supported by vCard version 4.0
+ * are not written, and nested vCards (see: AGENT property) are ignored.
+ * </p>
+ * <p>
+ * The output of {@link #toText} is the same as reading the jCards with
+ * {@link ezvcard.io.json.JCardReader JCardReader} and writing them with a
+ * version 4.0 {@link VCardWriter} that does not add a PRODID property, except
+ * that the properties are written in the order they were read in (the typed
+ * API groups them by class and moves PRODID to the top).
+ * </p>
+ * <p>
+ * xCard is not supported. The scribes parse xCard values from DOM elements,
+ * so an xCard property cannot be read without building a DOM element for it.
+ * {@link ezvcard.io.xml.XCardReader XCardReader} and
+ * {@link ezvcard.io.xml.XCardStreamWriter XCardStreamWriter} already process
+ * xCards one vCard at a time, so a transcoder would not save much memory over
+ * them.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * Reader reader = new FileReader("contacts.vcf");
+ * JCardRawWriter writer = new JCardRawWriter(new FileWriter("contacts.json"), true);
+ * VCardTranscoder transcoder = new VCardTranscoder();
+ * try {
+ *   transcoder.toJCard(reader, writer);
+ * } finally {
+ *   reader.close();
+ *   writer.close();
+ * }
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class VCardTranscoder {
+	private static final VCardVersion TARGET_VERSION = VCardVersion.V4_0;
+
+	private final ParseWarnings warnings = new ParseWarnings();
+	private ScribeIndex index = new ScribeIndex();
+	private Charset defaultQuotedPrintableCharset = Charset.defaultCharset();
+
+	/*
+	 * Each scribe's mode never changes, so it is only determined once.
+	 */
+	private final Map<VCardPropertyScribe<? extends VCardProperty>, Mode> modes = new HashMap<VCardPropertyScribe<? extends VCardProperty>, Mode>();
+
+	/*
+	 * Passed into the scribes, which expect the vCard that a property belongs
+	 * to. None of the default scribes use it when writing version 4.0.
+	 */
+	private final VCard emptyVCard = new VCard();
+
+	private final WriteContext writeContext = new WriteContext(TARGET_VERSION, null, true);
+
+	/**
+	 * Gets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * @return the scribe index
+	 */
+	public ScribeIndex getScribeIndex() {
+		return index;
+	}
+
+	/**
+	 * Sets the object that manages the component marshallers and unmarshallers
+	 * for each property.
+	 * @param index the scribe index
+	 */
+	public void setScribeIndex(ScribeIndex index) {
+		this.index = index;
+		modes.clear();
+	}
+
+	/**
+	 * Gets the character set to use when decoding quoted-printable values if
+	 * the property has no CHARSET parameter, or if the CHARSET parameter is
+	 * not a valid character set.
+	 * @return the character set (defaults to the system's default encoding)
+	 */
+	public Charset getDefaultQuotedPrintableCharset() {
+		return defaultQuotedPrintableCharset;
+	}
+
+	/**
+	 * Sets the character set to use when decoding quoted-printable values if
+	 * the property has no CHARSET parameter, or if the CHARSET parameter is
+	 * not a valid character set.
+	 * @param charset the character set
+	 */
+	public void setDefaultQuotedPrintableCharset(Charset charset) {
+		defaultQuotedPrintableCharset = charset;
+	}
+
+	/**
+	 * Gets the warnings from the last conversion.
+	 * @return the warnings or empty list if there were no warnings
+	 */
+	public List<String> getWarnings() {
+		return warnings.copy();
+	}
+
+	/**
+	 * Converts plain-text vCards to a jCard string.
+	 * @param text the plain-text vCards
+	 * @return the jCards (enclosed in a JSON array) or an empty string if the
+	 * text does not contain any vCards
+	 */
+	public String toJCard(String text) {
+		StringWriter sw = new StringWriter();
+		JCardRawWriter writer = new JCardRawWriter(sw, true);
+		try {
+			toJCard(new StringReader(text), writer);
+			writer.close();
+		} catch (IOException e) {
+			//should never be thrown because we're reading from and writing to strings
+			throw new RuntimeException(e);
+		}
+		return sw.toString();
+	}
+
+	/**
+	 * Converts a stream of plain-text vCards to jCards.
+	 * @param reader the plain-text vCards (this is not closed)
+	 * @param writer the jCard writer (this is not closed)
+	 * @return the number of vCards that were converted
+	 * @throws IOException if there's a problem reading from or writing to the
+	 * streams
+	 */
+	public int toJCard(Reader reader, JCardRawWriter writer) throws IOException {
+		warnings.clear();
+
+		VCardRawReader rawReader = new VCardRawReader(reader);
+		QuotedPrintableDecoder decoder = new QuotedPrintableDecoder(rawReader.getEncoding());
+		int count = 0;
+		int depth = 0;
+		while (true) {
+			VCardRawLine line;
+			try {
+				line = rawReader.readLine();
+			} catch (VCardParseException e) {
+				if (depth > 0) {
+					warnings.add(e.getLineNumber(), null, 27, e.getMessage(), e.getLine());
+				}
+				continue;
+			}
+
+			//EOF
+			if (line == null) {
+				break;
+			}
+
+			String name = line.getName();
+			if ("BEGIN".equalsIgnoreCase(name) && "VCARD".equalsIgnoreCase(line.getValue())) {
+				if (depth == 0) {
+					writer.writeStartVCard();
+					writer.writeProperty("version", VCardDataType.TEXT, JCardValue.single(TARGET_VERSION.getVersion()));
+				}
+				depth++;
+				continue;
+			}
+
+			if (depth == 0) {
+				//BEGIN component hasn't been encountered yet, so skip this line
+				continue;
+			}
+
+			if ("END".equalsIgnoreCase(name) && "VCARD".equalsIgnoreCase(line.getValue())) {
+				depth--;
+				if (depth == 0) {
+					writer.writeEndVCard();
+					count++;
+				}
+				continue;
+			}
+
+			if (depth > 1) {
+				//jCard does not support embedded vCards
+				continue;
+			}
+
+			if ("VERSION".equalsIgnoreCase(name)) {
+				//the version is written when the vCard starts
+				continue;
+			}
+
+			writeProperty(line, rawReader, decoder, writer);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Converts jCards to a plain-text string.
+	 * @param json the jCards
+	 * @return the plain-text vCards (version 4.0) or an empty string if the
+	 * JSON does not contain any jCards
+	 */
+	public String toText(String json) {
+		StringWriter sw = new StringWriter();
+		VCardRawWriter writer = new VCardRawWriter(sw, TARGET_VERSION);
+		try {
+			toText(new JCardRawReader(new StringReader(json)), writer);
+			writer.close();
+		} catch (IOException e) {
+			//should never be thrown because we're reading from and writing to strings
+			throw new RuntimeException(e);
+		}
+		return sw.toString();
+	}
+
+	/**
+	 * Converts a stream of jCards to plain-text vCards.
+	 * @param reader the jCard reader (this is not closed)
+	 * @param writer the plain-text writer (this is not closed, and its version
+	 * must be set to 4.0)
+	 * @return the number of vCards that were converted
+	 * @throws IllegalArgumentException if the writer's version is not 4.0
+	 * @throws IOException if there's a problem reading from or writing to the
+	 * streams, or if the jCard data is malformed
+	 */
+	public int toText(JCardRawReader reader, VCardRawWriter writer) throws IOException {
+		if (writer.getVersion() != TARGET_VERSION) {
+			throw Messages.INSTANCE.getIllegalArgumentException(51, TARGET_VERSION.getVersion());
+		}
+
+		warnings.clear();
+
+		int count = 0;
+		while (!reader.eof()) {
+			TextWriterListener listener = new TextWriterListener(reader, writer);
+			reader.readNext(listener);
+			if (listener.error != null) {
+				throw listener.error;
+			}
+			if (!listener.vcardFound) {
+				continue;
+			}
+
+			if (!listener.versionFound) {
+				warnings.add(reader.getLineNum(), null, 29);
+			}
+			writer.writeEndComponent("VCARD");
+			count++;
+		}
+
+		return count;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void writeProperty(VCardRawLine line, VCardRawReader rawReader, QuotedPrintableDecoder decoder, JCardRawWriter writer) throws IOException {
+		String group = line.getGroup();
+		String name = line.getName();
+		VCardParameters parameters = line.getParameters();
+		String value = line.getValue();
+		VCardVersion version = rawReader.getVersion();
+
+		//sanitize the parameters
+		VCardReader.processNamelessParameters(parameters);
+		VCardReader.processQuotedMultivaluedTypeParams(parameters);
+
+		//decode property value from quoted-printable
+		try {
+			value = decodeQuotedPrintableValue(name, parameters, value, rawReader, decoder);
+		} catch (DecoderException e) {
+			warnings.add(rawReader.getLineNumber(), name, 38, e.getMessage());
+		}
+
+		VCardDataType dataType = parameters.getValue();
+		parameters.setValue(null);
+
+		VCardPropertyScribe scribe = index.getPropertyScribe(name);
+		if (scribe == null) {
+			//extended property: write the raw value
+			writer.writeProperty(group, name.toLowerCase(), parameters, dataType, JCardValue.single(value));
+			return;
+		}
+
+		Mode mode = getMode(scribe);
+		if (mode == Mode.UNSUPPORTED) {
+			return;
+		}
+
+		if (dataType == null || dataType == scribe.defaultDataType(version)) {
+			String jcardName = scribe.getPropertyName().toLowerCase();
+			VCardDataType jcardDataType = scribe.defaultDataType(TARGET_VERSION);
+
+			switch (mode) {
+			case TEXT:
+				writer.writeProperty(group, jcardName, parameters, jcardDataType, JCardValue.single(VCardPropertyScribe.unescape(value)));
+				return;
+			case LIST:
+				List<String> values = splitList(value);
+				JCardValue jcardValue = values.isEmpty() ? JCardValue.single("") : JCardValue.multi(values);
+				writer.writeProperty(group, jcardName, parameters, jcardDataType, jcardValue);
+				return;
+			default:
+				break;
+			}
+		}
+		if (dataType == null) {
+			dataType = scribe.defaultDataType(version);
+		}
+
+		//the value is represented differently in jCard, so let the scribe convert it
+		VCardProperty property;
+		try {
+			Result<? extends VCardProperty> result = scribe.parseText(value, dataType, version, parameters);
+			for (String warning : result.getWarnings()) {
+				warnings.add(rawReader.getLineNumber(), name, warning);
+			}
+			property = result.getProperty();
+		} catch (SkipMeException e) {
+			warnings.add(rawReader.getLineNumber(), name, 22, e.getMessage());
+			return;
+		} catch (CannotParseException e) {
+			warnings.add(rawReader.getLineNumber(), name, 25, value, e.getMessage());
+			writer.writeProperty(group, name.toLowerCase(), parameters, dataType, JCardValue.single(value));
+			return;
+		} catch (EmbeddedVCardException e) {
+			//jCard does not support embedded vCards
+			return;
+		}
+
+		WritePlan plan = index.getWritePlan(property, TARGET_VERSION);
+		JCardValue jcardValue;
+		try {
+			jcardValue = scribe.writeJson(property);
+		} catch (SkipMeException e) {
+			return;
+		} catch (EmbeddedVCardException e) {
+			return;
+		}
+
+		VCardParameters jcardParameters = plan.prepareParameters(property, emptyVCard);
+		VCardDataType jcardDataType = scribe.dataType(property, TARGET_VERSION);
+		writer.writeProperty(group, scribe.getPropertyName().toLowerCase(), jcardParameters, jcardDataType, jcardValue);
+	}
+
+	/**
+	 * Writes a jCard property to a plain-text vCard.
+	 * @param group the group or null if there is no group
+	 * @param name the property name
+	 * @param parameters the parameters
+	 * @param dataType the data type or null for "unknown"
+	 * @param value the property value
+	 * @param lineNumber the line number of the property (for warnings)
+	 * @param writer the plain-text writer
+	 * @throws IOException if there's a problem writing to the stream
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void writeProperty(String group, String name, VCardParameters parameters, VCardDataType dataType, JCardValue value, int lineNumber, VCardRawWriter writer) throws IOException {
+		VCardPropertyScribe scribe = index.getPropertyScribe(name);
+		if (scribe == null) {
+			scribe = new RawPropertyScribe(name);
+		} else {
+			Mode mode = getMode(scribe);
+			if (mode == Mode.UNSUPPORTED) {
+				return;
+			}
+
+			switch (mode) {
+			case TEXT:
+				writer.writeProperty(group, scribe.getPropertyName(), parameters, VCardPropertyScribe.escape(value.asSingle()));
+				return;
+			case LIST:
+				writer.writeProperty(group, scribe.getPropertyName(), parameters, joinList(value.asMulti()));
+				return;
+			default:
+				break;
+			}
+		}
+
+		//the value is represented differently in plain-text, so let the scribe convert it
+		VCardProperty property;
+		try {
+			Result<? extends VCardProperty> result = scribe.parseJson(value, dataType, parameters);
+			for (String warning : result.getWarnings()) {
+				warnings.add(lineNumber, name, warning);
+			}
+			property = result.getProperty();
+		} catch (SkipMeException e) {
+			warnings.add(lineNumber, name, 22, e.getMessage());
+			return;
+		} catch (CannotParseException e) {
+			scribe = new RawPropertyScribe(name);
+			Result<? extends VCardProperty> result = scribe.parseJson(value, dataType, parameters);
+			property = result.getProperty();
+			warnings.add(lineNumber, name, 25, ((RawProperty) property).getValue(), e.getMessage());
+		} catch (EmbeddedVCardException e) {
+			warnings.add(lineNumber, name, 31);
+			return;
+		}
+		property.setGroup(group);
+
+		String textValue;
+		try {
+			textValue = scribe.writeText(property, writeContext);
+		} catch (SkipMeException e) {
+			return;
+		} catch (EmbeddedVCardException e) {
+			return;
+		}
+
+		WritePlan plan = index.getWritePlan(property, TARGET_VERSION);
+		VCardDataType textDataType = scribe.dataType(property, TARGET_VERSION);
+		VCardParameters textParameters = plan.prepareParameters(property, emptyVCard);
+		if (plan.isValueParameterNeeded(textDataType)) {
+			if (textParameters == property.getParameters()) {
+				textParameters = new VCardParameters(textParameters);
+			}
+			textParameters.setValue(textDataType);
+		}
+
+		writer.writeProperty(group, scribe.getPropertyName(), textParameters, textValue);
+	}
+
+	/**
+	 * Determines how the properties of a given scribe are converted.
+	 * @param scribe the scribe
+	 * @return the mode
+	 */
+	private Mode getMode(VCardPropertyScribe<? extends VCardProperty> scribe) {
+		Mode mode = modes.get(scribe);
+		if (mode != null) {
+			return mode;
+		}
+
+		SupportedVersions supportedVersions = scribe.getPropertyClass().getAnnotation(SupportedVersions.class);
+		boolean supported = (supportedVersions == null);
+		if (!supported) {
+			for (VCardVersion version : supportedVersions.value()) {
+				if (version == TARGET_VERSION) {
+					supported = true;
+					break;
+				}
+			}
+		}
+
+		if (!supported) {
+			mode = Mode.UNSUPPORTED;
+		} else {
+			/*
+			 * Only the built-in scribes are trusted to behave like their
+			 * parent classes. Custom scribes can change how values are
+			 * converted in ways that cannot be detected (for example, by
+			 * overriding "_parseValue"), so they are always used directly.
+			 */
+			WritePlan plan = new WritePlan(scribe, TARGET_VERSION, true);
+			Class<?> clazz = scribe.getClass();
+			if (plan.isPreparesParameters() || !isBuiltIn(clazz)) {
+				mode = Mode.TYPED;
+			} else if (scribe instanceof StringPropertyScribe && !overridesMarshalling(clazz, StringPropertyScribe.class)) {
+				mode = Mode.TEXT;
+			} else if (scribe instanceof ListPropertyScribe && !overridesMarshalling(clazz, ListPropertyScribe.class)) {
+				mode = Mode.LIST;
+			} else {
+				mode = Mode.TYPED;
+			}
+		}
+
+		modes.put(scribe, mode);
+		return mode;
+	}
+
+	/**
+	 * Determines if a scribe class is one of the scribes that come with this
+	 * library.
+	 * @param clazz the scribe class
+	 * @return true if it is a built-in scribe, false if it is a custom scribe
+	 */
+	private static boolean isBuiltIn(Class<?> clazz) {
+		String packageName = VCardPropertyScribe.class.getPackage().getName();
+		String className = clazz.getName();
+
+		//exclude nested and anonymous classes
+		return className.startsWith(packageName + ".") && className.indexOf('.', packageName.length() + 1) < 0 && className.indexOf('$') < 0;
+	}
+
+	/**
+	 * Determines if a scribe class overrides any of the methods that are
+	 * involved in converting values between plain-text and jCard.
+	 * @param clazz the scribe class
+	 * @param base the base class whose behavior the transcoder replicates
+	 * @return true if one of the methods is overridden, false if not
+	 */
+	private static boolean overridesMarshalling(Class<?> clazz, Class<?> base) {
+		while (clazz != null && clazz != base) {
+			for (Method method : clazz.getDeclaredMethods()) {
+				String name = method.getName();
+				if ("_parseText".equals(name) || "_writeText".equals(name) || "_parseJson".equals(name) || "_writeJson".equals(name) || "_writeValue".equals(name) || "_dataType".equals(name) || "_defaultDataType".equals(name)) {
+					return true;
+				}
+			}
+			clazz = clazz.getSuperclass();
+		}
+		return false;
+	}
+
+	/**
+	 * Splits a plain-text list value (e.g. "one,two,three\,four") into its
+	 * unescaped items.
+	 * @param value the list value
+	 * @return the items
+	 */
+	private static List<String> splitList(String value) {
+		List<String> values = new ArrayList<String>();
+		if (value.length() == 0) {
+			return values;
+		}
+
+		boolean escaped = false;
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			if (escaped) {
+				escaped = false;
+				continue;
+			}
+
+			if (c == '\\') {
+				escaped = true;
+			} else if (c == ',') {
+				values.add(VCardPropertyScribe.unescape(value.substring(start, i).trim()));
+				start = i + 1;
+			}
+		}
+		values.add(VCardPropertyScribe.unescape(value.substring(start).trim()));
+
+		return values;
+	}
+
+	/**
+	 * Joins the items of a list value into a plain-text list value (e.g.
+	 * ["one", "two", "three,four"] becomes "one,two,three\,four").
+	 * @param values the items
+	 * @return the list value
+	 */
+	private static String joinList(List<String> values) {
+		StringBuilder sb = new StringBuilder();
+		boolean first = true;
+		for (String value : values) {
+			if (!first) {
+				sb.append(',');
+			}
+			sb.append(VCardPropertyScribe.escape(value));
+			first = false;
+		}
+		return sb.toString();
+	}
+
+	private String decodeQuotedPrintableValue(String name, VCardParameters parameters, String value, VCardRawReader rawReader, QuotedPrintableDecoder decoder) throws DecoderException {
+		if (parameters.getEncoding() != Encoding.QUOTED_PRINTABLE) {
+			return value;
+		}
+
+		parameters.setEncoding(null);
+
+		Charset charset;
+		String charsetStr = parameters.getCharset();
+		if (charsetStr == null) {
+			charset = defaultQuotedPrintableCharset;
+		} else {
+			charset = decoder.charset(charsetStr);
+			if (charset == null) {
+				charset = defaultQuotedPrintableCharset;
+				warnings.add(rawReader.getLineNumber(), name, 23, charsetStr, charset.name());
+			}
+		}
+
+		return decoder.decode(value, charset);
+	}
+
+	/**
+	 * Writes each jCard property to the plain-text writer as soon as it is
+	 * read.
+	 */
+	private class TextWriterListener implements JCardDataStreamListener {
+		private final JCardRawReader reader;
+		private final VCardRawWriter writer;
+		private boolean vcardFound = false;
+		private boolean versionFound = false;
+
+		/*
+		 * The listener methods cannot throw checked exceptions, so the first
+		 * one is saved and re-thrown after the vCard is read.
+		 */
+		private IOException error;
+
+		public TextWriterListener(JCardRawReader reader, VCardRawWriter writer) {
+			this.reader = reader;
+			this.writer = writer;
+		}
+
+		public void beginVCard() {
+			vcardFound = true;
+			try {
+				writer.writeBeginComponent("VCARD");
+				writer.writeVersion();
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		public void readProperty(String group, String propertyName, VCardParameters parameters, VCardDataType dataType, JCardValue value) {
+			if (error != null) {
+				return;
+			}
+
+			if ("version".equalsIgnoreCase(propertyName)) {
+				//the version is written when the vCard starts
+				versionFound = true;
+
+				VCardVersion version = VCardVersion.valueOfByStr(value.asSingle());
+				if (version != TARGET_VERSION) {
+					warnings.add(reader.getLineNum(), propertyName, 30);
+				}
+				return;
+			}
+
+			try {
+				writeProperty(group, propertyName, parameters, dataType, value, reader.getLineNum(), writer);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+	}
+
+	private enum Mode {
+		/**
+		 * The value is unescaped and written as a single string.
+		 */
+		TEXT,
+
+		/**
+		 * The value is split into a list of strings.
+		 */
+		LIST,
+
+		/**
+		 * The value is converted by the scribe.
+		 */
+		TYPED,
+
+		/**
+		 * The property is not supported by version 4.0 and is not written.
+		 */
+		UNSUPPORTED
+	}
+}
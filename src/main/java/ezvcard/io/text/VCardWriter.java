@@ -8,8 +8,9 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -20,12 +21,13 @@ import ezvcard.io.EmbeddedVCardException;
 import ezvcard.io.SkipMeException;
 import ezvcard.io.StreamWriter;
 import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.io.scribe.WritePlan;
 import ezvcard.parameter.VCardParameters;
 import ezvcard.property.Address;
 import ezvcard.property.BinaryProperty;
 import ezvcard.property.StructuredName;
 import ezvcard.property.VCardProperty;
-import ezvcard.util.IOUtils;
+import ezvcard.util.ByteChannelWriter;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -108,6 +110,11 @@ public class VCardWriter extends StreamWriter implements Flushable {
 	private TargetApplication targetApplication;
 	private Boolean includeTrailingSemicolons;
 
+	/*
+	 * This object is re-used from one vCard to the next.
+	 */
+	private WriteContext context;
+
 	/**
 	 * @param out the output stream to write to
 	 * @param targetVersion the version that the vCards should conform to (if
@@ -117,6 +124,15 @@ public class VCardWriter extends StreamWriter implements Flushable {
 		this((targetVersion == VCardVersion.V4_0) ? utf8Writer(out) : new OutputStreamWriter(out), targetVersion);
 	}
 
+	/**
+	 * @param channel the channel to write to (see {@link ByteChannelWriter})
+	 * @param targetVersion the version that the vCards should conform to (if
+	 * set to "4.0", vCards will be written in UTF-8 encoding)
+	 */
+	public VCardWriter(WritableByteChannel channel, VCardVersion targetVersion) {
+		this((targetVersion == VCardVersion.V4_0) ? utf8Writer(channel) : new ByteChannelWriter(channel, Charset.defaultCharset()), targetVersion);
+	}
+
 	/**
 	 * @param file the file to write to
 	 * @param targetVersion the version that the vCards should conform to (if
@@ -294,13 +310,14 @@ public class VCardWriter extends StreamWriter implements Flushable {
 			includeTrailingSemicolons = (targetVersion == VCardVersion.V4_0);
 		}
 
-		WriteContext context = new WriteContext(targetVersion, getTargetApplication(), includeTrailingSemicolons);
+		WriteContext context = getWriteContext(targetVersion, includeTrailingSemicolons);
 
 		writer.writeBeginComponent("VCARD");
 		writer.writeVersion();
 
 		for (VCardProperty property : propertiesToAdd) {
-			VCardPropertyScribe scribe = index.getPropertyScribe(property);
+			WritePlan plan = index.getWritePlan(property, targetVersion);
+			VCardPropertyScribe scribe = plan.getScribe();
 
 			//marshal the value
 			String value = null;
@@ -313,11 +330,9 @@ public class VCardWriter extends StreamWriter implements Flushable {
 				nestedVCard = e.getVCard();
 			}
 
-			//marshal the parameters
-			VCardParameters parameters = scribe.prepareParameters(property, targetVersion, vcard);
-
 			//is the value a nested vCard?
 			if (nestedVCard != null) {
+				VCardParameters parameters = scribe.prepareParameters(property, targetVersion, vcard);
 				if (targetVersion == VCardVersion.V2_1) {
 					//write a nested vCard (2.1 style)
 					writer.writeProperty(property.getGroup(), scribe.getPropertyName(), parameters, value);
@@ -327,25 +342,15 @@ public class VCardWriter extends StreamWriter implements Flushable {
 					addProdId = prodIdStack.removeLast();
 				} else {
 					//write an embedded vCard (3.0 style)
-					StringWriter sw = new StringWriter();
-					VCardWriter agentWriter = new VCardWriter(sw, targetVersion);
-					agentWriter.getRawWriter().getFoldedLineWriter().setLineLength(null);
-					agentWriter.getRawWriter().getFoldedLineWriter().setNewline("\n");
-					agentWriter.setAddProdId(false);
-					agentWriter.setIncludeTrailingSemicolons(includeTrailingSemicolons);
-					agentWriter.setTargetApplication(getTargetApplication());
-					agentWriter.setVersionStrict(versionStrict);
+					writer.beginEmbeddedVCardProperty(property.getGroup(), scribe.getPropertyName(), parameters);
+					prodIdStack.add(addProdId);
+					addProdId = false;
 					try {
-						agentWriter.write(nestedVCard);
-					} catch (IOException e) {
-						//should never be thrown because we're writing to a string
+						write(nestedVCard);
 					} finally {
-						IOUtils.closeQuietly(agentWriter);
+						addProdId = prodIdStack.removeLast();
+						writer.endEmbeddedVCardProperty();
 					}
-
-					String vcardStr = sw.toString();
-					vcardStr = VCardPropertyScribe.escape(vcardStr);
-					writer.writeProperty(property.getGroup(), scribe.getPropertyName(), parameters, vcardStr);
 				}
 				continue;
 			}
@@ -355,14 +360,23 @@ public class VCardWriter extends StreamWriter implements Flushable {
 			 * 
 			 * Only add a VALUE parameter if the data type is: (1) not "unknown"
 			 * (2) different from the property's default data type (3) not the
-			 * date/time special case (see code)
+			 * date/time special case (see WritePlan)
 			 */
 			VCardDataType dataType = scribe.dataType(property, targetVersion);
-			if (dataType != null) {
-				VCardDataType defaultDataType = scribe.defaultDataType(targetVersion);
-				if (dataType != defaultDataType && !isDateTimeValueParameterSpecialCase(defaultDataType, dataType)) {
-					parameters.setValue(dataType);
-				}
+			boolean valueParameterNeeded = plan.isValueParameterNeeded(dataType);
+
+			/*
+			 * Only copy the parameters if they are going to be modified. The
+			 * raw writer modifies the ENCODING and CHARSET parameters of 2.1
+			 * properties and of quoted-printable properties.
+			 */
+			VCardParameters parameters = plan.prepareParameters(property, vcard);
+			if (parameters == property.getParameters() && (valueParameterNeeded || targetVersion == VCardVersion.V2_1 || parameters.getEncoding() != null)) {
+				parameters = new VCardParameters(parameters);
+			}
+
+			if (valueParameterNeeded) {
+				parameters.setValue(dataType);
 			}
 
 			//write the property
@@ -374,6 +388,21 @@ public class VCardWriter extends StreamWriter implements Flushable {
 		writer.writeEndComponent("VCARD");
 	}
 
+	/**
+	 * Gets the context object to pass into the scribes. The same object is
+	 * re-used until one of the writer's settings changes.
+	 * @param targetVersion the version being written
+	 * @param includeTrailingSemicolons whether to include trailing semicolons
+	 * @return the context
+	 */
+	private WriteContext getWriteContext(VCardVersion targetVersion, boolean includeTrailingSemicolons) {
+		TargetApplication targetApplication = getTargetApplication();
+		if (context == null || context.getVersion() != targetVersion || context.getTargetApplication() != targetApplication || context.isIncludeTrailingSemicolons() != includeTrailingSemicolons) {
+			context = new WriteContext(targetVersion, targetApplication, includeTrailingSemicolons);
+		}
+		return context;
+	}
+
 	/**
 	 * @see TargetApplication#OUTLOOK
 	 */
@@ -401,27 +430,6 @@ public class VCardWriter extends StreamWriter implements Flushable {
 		writer.getFoldedLineWriter().writeln("");
 	}
 
-	/**
-	 * Determines if the given default data type is "date-and-or-time" and the
-	 * given data type is time-based. Properties that meet this criteria should
-	 * NOT be given a VALUE parameter.
-	 * @param defaultDataType the property's default data type
-	 * @param dataType the current property instance's data type
-	 * @return true if the default data type is "date-and-or-time" and the data
-	 * type is time-based, false otherwise
-	 */
-	private boolean isDateTimeValueParameterSpecialCase(VCardDataType defaultDataType, VCardDataType dataType) {
-		//@formatter:off
-		return
-		defaultDataType == VCardDataType.DATE_AND_OR_TIME &&
-		(
-			dataType == VCardDataType.DATE ||
-			dataType == VCardDataType.DATE_TIME ||
-			dataType == VCardDataType.TIME
-		);
-		//@formatter:on
-	}
-
 	/**
 	 * Flushes the underlying {@link Writer} object.
 	 * @throws IOException if there's a problem flushing the writer
@@ -21,16 +21,12 @@ import java.util.Map;
 
 import javax.xml.namespace.QName;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -46,6 +42,7 @@ import ezvcard.io.SkipMeException;
 import ezvcard.io.StreamReader;
 import ezvcard.io.StreamWriter;
 import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.io.scribe.WritePlan;
 import ezvcard.io.scribe.VCardPropertyScribe.Result;
 import ezvcard.parameter.VCardParameters;
 import ezvcard.property.VCardProperty;
@@ -203,7 +200,7 @@ public class XCardDocument {
 		this.document = document;
 
 		XCardNamespaceContext nsContext = new XCardNamespaceContext(version4, "v");
-		XPath xpath = XPathFactory.newInstance().newXPath();
+		XPath xpath = XmlUtils.newXPath();
 		xpath.setNamespaceContext(nsContext);
 
 		try {
@@ -466,16 +463,7 @@ public class XCardDocument {
 	 * @throws TransformerException if there's a problem writing to the writer
 	 */
 	public void write(Writer writer, Map<String, String> outputProperties) throws TransformerException {
-		Transformer transformer;
-		try {
-			transformer = TransformerFactory.newInstance().newTransformer();
-		} catch (TransformerConfigurationException e) {
-			//should never be thrown because we're not doing anything fancy with the configuration
-			throw new RuntimeException(e);
-		} catch (TransformerFactoryConfigurationError e) {
-			//should never be thrown because we're not doing anything fancy with the configuration
-			throw new RuntimeException(e);
-		}
+		Transformer transformer = XmlUtils.newTransformer();
 
 		/*
 		 * Using Transformer#setOutputProperties(Properties) doesn't work for
@@ -627,6 +615,8 @@ public class XCardDocument {
 	}
 
 	public class XCardDocumentStreamWriter extends XCardWriterBase {
+		private final ListMultimap<String, VCardProperty> propertiesByGroup = new ListMultimap<String, VCardProperty>();
+
 		@Override
 		public void write(VCard vcard) {
 			try {
@@ -636,10 +626,19 @@ public class XCardDocument {
 			}
 		}
 
+		@Override
+		public void writeAll(Iterable<VCard> vcards) {
+			try {
+				super.writeAll(vcards);
+			} catch (IOException e) {
+				//won't be thrown because we're writing to a DOM
+			}
+		}
+
 		@Override
 		protected void _write(VCard vcard, List<VCardProperty> properties) throws IOException {
 			//group properties by group name (null = no group name)
-			ListMultimap<String, VCardProperty> propertiesByGroup = new ListMultimap<String, VCardProperty>();
+			propertiesByGroup.clear();
 			for (VCardProperty property : properties) {
 				propertiesByGroup.put(property.getGroup(), property);
 			}
@@ -694,7 +693,8 @@ public class XCardDocument {
 		 */
 		@SuppressWarnings({ "rawtypes", "unchecked" })
 		private Element marshalProperty(VCardProperty property, VCard vcard) {
-			VCardPropertyScribe scribe = index.getPropertyScribe(property);
+			WritePlan plan = index.getWritePlan(property, targetVersion);
+			VCardPropertyScribe scribe = plan.getScribe();
 
 			Element propertyElement;
 			if (property instanceof Xml) {
@@ -712,7 +712,7 @@ public class XCardDocument {
 			}
 
 			//marshal the parameters
-			VCardParameters parameters = scribe.prepareParameters(property, targetVersion, vcard);
+			VCardParameters parameters = plan.prepareParameters(property, vcard);
 			if (!parameters.isEmpty()) {
 				Element parametersElement = marshalParameters(parameters);
 				Node firstChild = propertyElement.getFirstChild();
@@ -23,9 +23,7 @@ import javax.xml.namespace.QName;
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.stream.StreamSource;
@@ -200,16 +198,12 @@ public class XCardReader extends StreamReader {
 		public ReadThread() {
 			setName(getClass().getSimpleName());
 
-			//create the transformer
-			try {
-				TransformerFactory factory = TransformerFactory.newInstance();
-				XmlUtils.applyXXEProtection(factory);
-
-				transformer = factory.newTransformer();
-			} catch (TransformerConfigurationException e) {
-				//shouldn't be thrown because it's a simple configuration
-				throw new RuntimeException(e);
-			}
+			/*
+			 * Create a new transformer instead of using the thread-local one
+			 * in XmlUtils, since the SAX callbacks may call into XmlUtils while
+			 * the document is being transformed.
+			 */
+			transformer = XmlUtils.newTransformer();
 
 			//prevent error messages from being printed to stderr
 			transformer.setErrorListener(new NoOpErrorListener());
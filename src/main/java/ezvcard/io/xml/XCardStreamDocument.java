@@ -0,0 +1,452 @@
+package ezvcard.io.xml;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import ezvcard.Messages;
+import ezvcard.VCard;
+import ezvcard.VCardDataType;
+import ezvcard.io.StreamReader;
+import ezvcard.util.IOUtils;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+//@formatter:off
+/**
+ * <p>
+ * Represents an xCard document without loading it into memory. It is the
+ * streaming counterpart of {@link XCardDocument}. Use it when the document is
+ * too large to hold as a DOM.
+ * </p>
+ * <p>
+ * The vCards are parsed one at a time as the document is iterated over. When
+ * the document is written, the existing vCards are copied to the output one at
+ * a time. New vCards can then be appended.
+ * </p>
+ * <p>
+ * <b>Examples:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * //iterating over the vCards in a large xCard document
+ * XCardStreamDocument xcard = new XCardStreamDocument(new File("contacts.xml"));
+ * XCardStreamDocument.VCards vcards = xcard.getVCards();
+ * try {
+ *   for (VCard vcard : vcards) {
+ *     ...
+ *   }
+ * } finally {
+ *   vcards.close();
+ * }
+ *
+ * //appending vCards to the document
+ * XCardStreamWriter writer = xcard.writer(new File("contacts-new.xml"));
+ * try {
+ *   writer.write(vcard);
+ * } finally {
+ *   writer.close();
+ * }
+ * </pre>
+ * <p>
+ * If the document was created from an {@link InputStream} or {@link Reader},
+ * its vCards can only be read once. Documents that were created from a
+ * {@link File} or a string can be read any number of times.
+ * </p>
+ * @author Michael Angstadt
+ * @see <a href="http://tools.ietf.org/html/rfc6351">RFC 6351</a>
+ */
+//@formatter:on
+public class XCardStreamDocument {
+	private final String xml;
+	private final File file;
+	private final InputStream in;
+	private final Reader reader;
+	private boolean consumed = false;
+
+	private final Map<String, VCardDataType> parameterDataTypes = new HashMap<String, VCardDataType>(0);
+
+	/**
+	 * Creates an empty xCard document.
+	 */
+	public XCardStreamDocument() {
+		this(null, null, null, null);
+	}
+
+	/**
+	 * @param xml the XML string to read the vCards from
+	 */
+	public XCardStreamDocument(String xml) {
+		this(xml, null, null, null);
+	}
+
+	/**
+	 * @param file the file to read the vCards from
+	 */
+	public XCardStreamDocument(File file) {
+		this(null, file, null, null);
+	}
+
+	/**
+	 * @param in the input stream to read the vCards from (it is closed once
+	 * all of the vCards have been read)
+	 */
+	public XCardStreamDocument(InputStream in) {
+		this(null, null, in, null);
+	}
+
+	/**
+	 * <p>
+	 * Creates an xCard document that reads from a reader.
+	 * </p>
+	 * <p>
+	 * Note that use of this constructor is discouraged. It ignores the
+	 * character encoding that is defined within the XML document itself. The
+	 * {@link #XCardStreamDocument(InputStream)} constructor is preferred.
+	 * </p>
+	 * @param reader the reader to read the vCards from (it is closed once all
+	 * of the vCards have been read)
+	 */
+	public XCardStreamDocument(Reader reader) {
+		this(null, null, null, reader);
+	}
+
+	private XCardStreamDocument(String xml, File file, InputStream in, Reader reader) {
+		this.xml = xml;
+		this.file = file;
+		this.in = in;
+		this.reader = reader;
+	}
+
+	/**
+	 * Registers the data type of an experimental parameter. Experimental
+	 * parameters use the "unknown" data type by default. The data types are
+	 * applied to the writers that are created by this document.
+	 * @param parameterName the parameter name (e.g. "x-foo")
+	 * @param dataType the data type or null to remove
+	 */
+	public void registerParameterDataType(String parameterName, VCardDataType dataType) {
+		parameterDataTypes.put(parameterName, dataType);
+	}
+
+	/**
+	 * Creates a {@link StreamReader} object that reads the vCards from this
+	 * document. The reader must be closed when it is no longer needed.
+	 * @return the reader
+	 * @throws IOException if there's a problem opening the document's file
+	 * @throws IllegalStateException if the document was created from a stream
+	 * and its vCards have already been read
+	 */
+	public StreamReader reader() throws IOException {
+		if (xml != null) {
+			return new XCardReader(xml);
+		}
+		if (file != null) {
+			return new XCardReader(file);
+		}
+		if (in == null && reader == null) {
+			return new XCardReader("<vcards xmlns=\"" + XCardQNames.VCARDS.getNamespaceURI() + "\"/>");
+		}
+
+		if (consumed) {
+			throw new IllegalStateException(Messages.INSTANCE.getExceptionMessage(48));
+		}
+		consumed = true;
+		return (in == null) ? new XCardReader(reader) : new XCardReader(in);
+	}
+
+	/**
+	 * <p>
+	 * Gets the vCards in this document. The vCards are parsed as the returned
+	 * object is iterated over. If there is a problem reading the document
+	 * during iteration, a {@link RuntimeException} is thrown that wraps the
+	 * {@link IOException}.
+	 * </p>
+	 * <p>
+	 * Each iterator opens its own reader, which is only closed automatically
+	 * once all of the vCards have been read, or if an error occurs. The
+	 * returned object must be closed if iteration may stop early (for
+	 * example, if the loop contains a {@code break} statement or throws an
+	 * exception). Otherwise, the document's file or stream will remain open
+	 * and the reader's background thread will never finish.
+	 * </p>
+	 * @return the vCards
+	 */
+	public VCards getVCards() {
+		return new VCards();
+	}
+
+	/**
+	 * Creates a writer that writes this document to an output stream. The
+	 * document's existing vCards are written first. More vCards can then be
+	 * appended to the document by calling the writer's
+	 * {@link XCardStreamWriter#write write} method. The writer must be closed
+	 * when finished.
+	 * @param out the output stream to write to (UTF-8 encoding will be used)
+	 * @return the writer
+	 * @throws IOException if there's a problem reading the existing vCards or
+	 * writing them to the output stream
+	 */
+	public XCardStreamWriter writer(OutputStream out) throws IOException {
+		return writer(out, new XCardOutputProperties());
+	}
+
+	/**
+	 * Creates a writer that writes this document to an output stream. The
+	 * document's existing vCards are written first. More vCards can then be
+	 * appended to the document by calling the writer's
+	 * {@link XCardStreamWriter#write write} method. The writer must be closed
+	 * when finished.
+	 * @param out the output stream to write to (UTF-8 encoding will be used)
+	 * @param outputProperties the indentation and XML version to use
+	 * @return the writer
+	 * @throws IOException if there's a problem reading the existing vCards or
+	 * writing them to the output stream
+	 */
+	public XCardStreamWriter writer(OutputStream out, XCardOutputProperties outputProperties) throws IOException {
+		return init(new XCardStreamWriter(out, outputProperties));
+	}
+
+	/**
+	 * Creates a writer that writes this document to a file. The document's
+	 * existing vCards are written first. More vCards can then be appended to
+	 * the document by calling the writer's {@link XCardStreamWriter#write
+	 * write} method. The writer must be closed when finished.
+	 * @param file the file to write to (UTF-8 encoding will be used). This must
+	 * not be the file that the document is being read from.
+	 * @return the writer
+	 * @throws IOException if there's a problem reading the existing vCards or
+	 * writing them to the file
+	 */
+	public XCardStreamWriter writer(File file) throws IOException {
+		return writer(file, new XCardOutputProperties());
+	}
+
+	/**
+	 * Creates a writer that writes this document to a file. The document's
+	 * existing vCards are written first. More vCards can then be appended to
+	 * the document by calling the writer's {@link XCardStreamWriter#write
+	 * write} method. The writer must be closed when finished.
+	 * @param file the file to write to (UTF-8 encoding will be used). This must
+	 * not be the file that the document is being read from.
+	 * @param outputProperties the indentation and XML version to use
+	 * @return the writer
+	 * @throws IOException if there's a problem reading the existing vCards or
+	 * writing them to the file
+	 */
+	public XCardStreamWriter writer(File file, XCardOutputProperties outputProperties) throws IOException {
+		return init(new XCardStreamWriter(file, outputProperties));
+	}
+
+	/**
+	 * Creates a writer that writes this document to a writer. The document's
+	 * existing vCards are written first. More vCards can then be appended to
+	 * the document by calling the writer's {@link XCardStreamWriter#write
+	 * write} method. The writer must be closed when finished.
+	 * @param writer the writer to write to
+	 * @return the writer
+	 * @throws IOException if there's a problem reading the existing vCards or
+	 * writing them to the writer
+	 */
+	public XCardStreamWriter writer(Writer writer) throws IOException {
+		return writer(writer, new XCardOutputProperties());
+	}
+
+	/**
+	 * Creates a writer that writes this document to a writer. The document's
+	 * existing vCards are written first. More vCards can then be appended to
+	 * the document by calling the writer's {@link XCardStreamWriter#write
+	 * write} method. The writer must be closed when finished.
+	 * @param writer the writer to write to
+	 * @param outputProperties the indentation and XML version to use
+	 * @return the writer
+	 * @throws IOException if there's a problem reading the existing vCards or
+	 * writing them to the writer
+	 */
+	public XCardStreamWriter writer(Writer writer, XCardOutputProperties outputProperties) throws IOException {
+		return init(new XCardStreamWriter(writer, outputProperties));
+	}
+
+	private XCardStreamWriter init(XCardStreamWriter writer) throws IOException {
+		for (Map.Entry<String, VCardDataType> entry : parameterDataTypes.entrySet()) {
+			writer.registerParameterDataType(entry.getKey(), entry.getValue());
+		}
+
+		//copy the existing vCards as-is
+		boolean addProdId = writer.isAddProdId();
+		writer.setAddProdId(false);
+		StreamReader reader = reader();
+		try {
+			VCard vcard;
+			while ((vcard = reader.readNext()) != null) {
+				writer.write(vcard);
+			}
+		} finally {
+			reader.close();
+			writer.setAddProdId(addProdId);
+		}
+
+		return writer;
+	}
+
+	/**
+	 * The vCards in an xCard document. Closing this object closes all of the
+	 * iterators that it created.
+	 */
+	public class VCards implements Iterable<VCard>, Closeable {
+		/**
+		 * The iterators that are still open. Iterators remove themselves from
+		 * this list when they are closed.
+		 */
+		private final List<VCardIterator> iterators = new ArrayList<VCardIterator>(1);
+
+		private VCards() {
+			//hide
+		}
+
+		/**
+		 * Creates an iterator that parses the vCards in the document.
+		 * @return the iterator
+		 */
+		public Iterator<VCard> iterator() {
+			StreamReader reader;
+			try {
+				reader = reader();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+
+			VCardIterator it = new VCardIterator(reader);
+			iterators.add(it);
+			return it;
+		}
+
+		/**
+		 * Closes the readers of all the iterators that were created by this
+		 * object. Iterators that have already finished are unaffected.
+		 * @throws IOException if there's a problem closing a reader
+		 */
+		public void close() throws IOException {
+			//copy the list, since closing an iterator removes it from the list
+			List<VCardIterator> open = new ArrayList<VCardIterator>(iterators);
+
+			IOException thrown = null;
+			for (VCardIterator it : open) {
+				try {
+					it.close();
+				} catch (IOException e) {
+					thrown = e;
+				}
+			}
+			iterators.clear();
+
+			if (thrown != null) {
+				throw thrown;
+			}
+		}
+
+		/**
+		 * Gets the number of iterators that have not been closed yet (for unit
+		 * testing).
+		 * @return the number of open iterators
+		 */
+		int getOpenIteratorCount() {
+			return iterators.size();
+		}
+
+		private class VCardIterator implements Iterator<VCard>, Closeable {
+			private final StreamReader reader;
+			private VCard next;
+			private boolean done = false;
+
+			public VCardIterator(StreamReader reader) {
+				this.reader = reader;
+			}
+
+			public boolean hasNext() {
+				if (next == null && !done) {
+					try {
+						next = reader.readNext();
+					} catch (IOException e) {
+						IOUtils.closeQuietly(this);
+						throw new RuntimeException(e);
+					} catch (RuntimeException e) {
+						IOUtils.closeQuietly(this);
+						throw e;
+					}
+
+					if (next == null) {
+						try {
+							close();
+						} catch (IOException e) {
+							throw new RuntimeException(e);
+						}
+					}
+				}
+				return next != null;
+			}
+
+			public VCard next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				VCard vcard = next;
+				next = null;
+				return vcard;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+			public void close() throws IOException {
+				if (done) {
+					return;
+				}
+
+				done = true;
+				next = null;
+				iterators.remove(this);
+				reader.close();
+			}
+		}
+	}
+}
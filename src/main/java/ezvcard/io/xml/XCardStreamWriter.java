@@ -0,0 +1,687 @@
+package ezvcard.io.xml;
+
+import static ezvcard.io.xml.XCardQNames.GROUP;
+import static ezvcard.io.xml.XCardQNames.PARAMETERS;
+import static ezvcard.io.xml.XCardQNames.VCARD;
+import static ezvcard.io.xml.XCardQNames.VCARDS;
+import static ezvcard.util.IOUtils.utf8Writer;
+
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.Text;
+
+import ezvcard.VCard;
+import ezvcard.VCardDataType;
+import ezvcard.io.EmbeddedVCardException;
+import ezvcard.io.SkipMeException;
+import ezvcard.io.scribe.ListPropertyScribe;
+import ezvcard.io.scribe.StringPropertyScribe;
+import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.io.scribe.WritePlan;
+import ezvcard.parameter.VCardParameters;
+import ezvcard.property.TextListProperty;
+import ezvcard.property.TextProperty;
+import ezvcard.property.VCardProperty;
+import ezvcard.property.Xml;
+import ezvcard.util.ByteChannelWriter;
+import ezvcard.util.ListMultimap;
+import ezvcard.util.XmlUtils;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Writes xCards (XML-encoded vCards) directly to a character stream. Unlike
+ * {@link XCardWriter}, this class does not use the JAXP transformer API. The
+ * XML is escaped and written by the class itself, which makes it much faster
+ * when writing a large number of vCards. The values of simple text, URI, and
+ * list properties are written without creating any DOM elements.
+ * </p>
+ * <p>
+ * The output is equivalent to that of {@link XCardWriter}, though it may
+ * differ in insignificant ways (for example, the way in which XML namespaces
+ * are declared).
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * VCard vcard1 = ...
+ * VCard vcard2 = ...
+ * File file = new File("vcards.xml");
+ * XCardStreamWriter writer = null;
+ * try {
+ *   writer = new XCardStreamWriter(file);
+ *   writer.write(vcard1);
+ *   writer.write(vcard2);
+ * } finally {
+ *   if (writer != null) writer.close();
+ * }
+ * </pre>
+ * @author Michael Angstadt
+ * @see <a href="http://tools.ietf.org/html/rfc6351">RFC 6351</a>
+ */
+public class XCardStreamWriter extends XCardWriterBase implements Flushable {
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	/*
+	 * Scribes write their XML to DOM elements, so a document is needed to
+	 * create them.
+	 */
+	private final Document document = XmlUtils.createDocument();
+
+	/*
+	 * Whether the properties of each scribe can be written without creating
+	 * a DOM element. This never changes, so it is only determined once.
+	 */
+	private final Map<VCardPropertyScribe<? extends VCardProperty>, ValueType> valueTypes = new HashMap<VCardPropertyScribe<? extends VCardProperty>, ValueType>();
+
+	private final Writer writer;
+	private final String encoding;
+	private final CharsetEncoder encoder;
+	private final String xmlVersion;
+	private final String indent;
+	private boolean started = false;
+
+	/**
+	 * Re-used for each vCard that is written.
+	 */
+	private final ListMultimap<String, VCardProperty> propertiesByGroup = new ListMultimap<String, VCardProperty>();
+
+	/**
+	 * The elements that are currently open.
+	 */
+	private final List<OpenElement> elements = new ArrayList<OpenElement>();
+	private int depth = 0;
+	private boolean startTagOpen = false;
+
+	/**
+	 * @param out the output stream to write to (UTF-8 encoding will be used)
+	 */
+	public XCardStreamWriter(OutputStream out) {
+		this(out, new XCardOutputProperties());
+	}
+
+	/**
+	 * @param out the output stream to write to (UTF-8 encoding will be used)
+	 * @param outputProperties the indentation and XML version to use
+	 */
+	public XCardStreamWriter(OutputStream out, XCardOutputProperties outputProperties) {
+		this(utf8Writer(out), outputProperties);
+	}
+
+	/**
+	 * @param file the file to write to (UTF-8 encoding will be used)
+	 * @throws IOException if there's a problem opening the file
+	 */
+	public XCardStreamWriter(File file) throws IOException {
+		this(file, new XCardOutputProperties());
+	}
+
+	/**
+	 * @param file the file to write to (UTF-8 encoding will be used)
+	 * @param outputProperties the indentation and XML version to use
+	 * @throws IOException if there's a problem opening the file
+	 */
+	public XCardStreamWriter(File file, XCardOutputProperties outputProperties) throws IOException {
+		this(utf8Writer(file), outputProperties);
+	}
+
+	/**
+	 * @param writer the writer to write to
+	 */
+	public XCardStreamWriter(Writer writer) {
+		this(writer, new XCardOutputProperties());
+	}
+
+	/**
+	 * @param writer the writer to write to
+	 * @param outputProperties the indentation and XML version to use
+	 */
+	public XCardStreamWriter(Writer writer, XCardOutputProperties outputProperties) {
+		this.writer = writer;
+
+		Charset charset = getCharset(writer);
+		if (charset == null || charset.name().startsWith("UTF-")) {
+			encoding = (charset == null) ? "UTF-8" : charset.name();
+			encoder = null;
+		} else {
+			//characters that the encoding does not support will be written as character references
+			encoding = charset.name();
+			encoder = charset.newEncoder();
+		}
+
+		String xmlVersion = outputProperties.getXmlVersion();
+		this.xmlVersion = "1.1".equals(xmlVersion) ? xmlVersion : "1.0";
+
+		Integer indent = outputProperties.getIndent();
+		if (indent == null) {
+			this.indent = null;
+		} else {
+			StringBuilder sb = new StringBuilder(indent);
+			for (int i = 0; i < indent; i++) {
+				sb.append(' ');
+			}
+			this.indent = sb.toString();
+		}
+	}
+
+	private static Charset getCharset(Writer writer) {
+		if (writer instanceof ByteChannelWriter) {
+			return ((ByteChannelWriter) writer).getCharset();
+		}
+
+		if (writer instanceof OutputStreamWriter) {
+			String encoding = ((OutputStreamWriter) writer).getEncoding();
+			return (encoding == null) ? null : Charset.forName(encoding);
+		}
+
+		return null;
+	}
+
+	@Override
+	protected void _write(VCard vcard, List<VCardProperty> properties) throws IOException {
+		if (!started) {
+			startDocument();
+		}
+
+		propertiesByGroup.clear(); //group the types by group name (null = no group name)
+		for (VCardProperty property : properties) {
+			propertiesByGroup.put(property.getGroup(), property);
+		}
+
+		start(VCARD);
+
+		for (Map.Entry<String, List<VCardProperty>> entry : propertiesByGroup) {
+			String groupName = entry.getKey();
+			if (groupName != null) {
+				start(GROUP);
+				attribute("name", groupName);
+			}
+
+			for (VCardProperty property : entry.getValue()) {
+				write(property, vcard);
+			}
+
+			if (groupName != null) {
+				end();
+			}
+		}
+
+		end();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void write(VCardProperty property, VCard vcard) throws IOException {
+		WritePlan plan = index.getWritePlan(property, targetVersion);
+		VCardPropertyScribe scribe = plan.getScribe();
+		VCardParameters parameters = plan.prepareParameters(property, vcard);
+
+		//simple values are written directly
+		ValueType valueType = getValueType(scribe);
+		if (valueType != ValueType.DOM) {
+			QName qname = scribe.getQName();
+			String namespace = qname.getNamespaceURI();
+			start(namespace, null, qname.getLocalPart());
+			write(parameters);
+
+			if (valueType == ValueType.TEXT) {
+				VCardDataType dataType = scribe.defaultDataType(targetVersion);
+				String dataTypeElementName = (dataType == null) ? "unknown" : dataType.getName().toLowerCase();
+				simpleElement(namespace, dataTypeElementName, ((TextProperty) property).getValue());
+			} else {
+				List<String> values = ((TextListProperty) property).getValues();
+				if (values.isEmpty()) {
+					simpleElement(namespace, "text", null);
+				}
+				for (String value : values) {
+					simpleElement(namespace, "text", value);
+				}
+			}
+
+			end();
+			return;
+		}
+
+		//get the property element to write
+		Element propertyElement;
+		if (property instanceof Xml) {
+			Xml xml = (Xml) property;
+			Document value = xml.getValue();
+			if (value == null) {
+				return;
+			}
+			propertyElement = value.getDocumentElement();
+		} else {
+			QName qname = scribe.getQName();
+			propertyElement = document.createElementNS(qname.getNamespaceURI(), qname.getLocalPart());
+			try {
+				scribe.writeXml(property, propertyElement);
+			} catch (SkipMeException e) {
+				return;
+			} catch (EmbeddedVCardException e) {
+				return;
+			}
+		}
+
+		start(propertyElement);
+		write(parameters);
+		writeChildren(propertyElement);
+		end();
+	}
+
+	/**
+	 * Writes an element that contains nothing but text.
+	 * @param namespace the namespace
+	 * @param localName the element name
+	 * @param text the text or null to write an empty element
+	 * @throws IOException if there's a problem writing to the output stream
+	 */
+	private void simpleElement(String namespace, String localName, String text) throws IOException {
+		start(namespace, null, localName);
+		if (text != null && text.length() > 0) {
+			text(text);
+		}
+		end();
+	}
+
+	/**
+	 * Determines how the values of a scribe's properties are written.
+	 * @param scribe the scribe
+	 * @return the value type
+	 */
+	private ValueType getValueType(VCardPropertyScribe<? extends VCardProperty> scribe) {
+		ValueType valueType = valueTypes.get(scribe);
+		if (valueType != null) {
+			return valueType;
+		}
+
+		Class<?> clazz = scribe.getClass();
+		if (scribe instanceof StringPropertyScribe && !overridesXmlMarshalling(clazz, StringPropertyScribe.class)) {
+			valueType = ValueType.TEXT;
+		} else if (scribe instanceof ListPropertyScribe && !overridesXmlMarshalling(clazz, ListPropertyScribe.class)) {
+			valueType = ValueType.LIST;
+		} else {
+			valueType = ValueType.DOM;
+		}
+
+		valueTypes.put(scribe, valueType);
+		return valueType;
+	}
+
+	/**
+	 * Determines if a scribe class overrides any of the methods that are
+	 * involved in writing a property's xCard value.
+	 * @param clazz the scribe class
+	 * @param base the base class whose behavior is replicated
+	 * @return true if one of the methods is overridden, false if not
+	 */
+	private static boolean overridesXmlMarshalling(Class<?> clazz, Class<?> base) {
+		while (clazz != null && clazz != base) {
+			for (Method method : clazz.getDeclaredMethods()) {
+				String name = method.getName();
+				if ("_writeXml".equals(name) || "_writeValue".equals(name) || "_defaultDataType".equals(name)) {
+					return true;
+				}
+			}
+			clazz = clazz.getSuperclass();
+		}
+		return false;
+	}
+
+	private void write(VCardParameters parameters) throws IOException {
+		if (parameters.isEmpty()) {
+			return;
+		}
+
+		start(PARAMETERS);
+
+		for (Map.Entry<String, List<String>> parameter : parameters) {
+			String parameterName = parameter.getKey().toLowerCase();
+			start(parameterName);
+
+			for (String parameterValue : parameter.getValue()) {
+				VCardDataType dataType = parameterDataTypes.get(parameterName);
+				String dataTypeElementName = (dataType == null) ? "unknown" : dataType.getName().toLowerCase();
+
+				start(dataTypeElementName);
+				text(parameterValue);
+				end();
+			}
+
+			end();
+		}
+
+		end();
+	}
+
+	private void writeChildren(Element parent) throws IOException {
+		NodeList children = parent.getChildNodes();
+		for (int i = 0; i < children.getLength(); i++) {
+			Node child = children.item(i);
+
+			if (child instanceof Element) {
+				Element element = (Element) child;
+				start(element);
+				writeChildren(element);
+				end();
+				continue;
+			}
+
+			if (child instanceof Text) {
+				Text text = (Text) child;
+				text(text.getData());
+				continue;
+			}
+		}
+	}
+
+	private void startDocument() throws IOException {
+		writer.write("<?xml version=\"");
+		writer.write(xmlVersion);
+		writer.write("\" encoding=\"");
+		writer.write(encoding);
+		writer.write("\"?>");
+
+		start(VCARDS);
+		started = true;
+	}
+
+	private void start(QName qname) throws IOException {
+		start(qname.getNamespaceURI(), null, qname.getLocalPart());
+	}
+
+	private void start(String localName) throws IOException {
+		start(targetVersion.getXmlNamespace(), null, localName);
+	}
+
+	private void start(Element element) throws IOException {
+		String prefix = element.getPrefix();
+		start(element.getNamespaceURI(), prefix, element.getLocalName());
+
+		boolean prefixDeclared = false;
+		NamedNodeMap attributes = element.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Node attribute = attributes.item(i);
+			String name = attribute.getNodeName();
+			if ("xmlns".equals(name)) {
+				//the default namespace is declared by the start() method
+				continue;
+			}
+			if (prefix != null && name.equals("xmlns:" + prefix)) {
+				prefixDeclared = true;
+			}
+
+			attribute(name, attribute.getNodeValue());
+		}
+
+		if (prefix != null && !prefixDeclared) {
+			attribute("xmlns:" + prefix, element.getNamespaceURI());
+		}
+	}
+
+	private void start(String namespace, String prefix, String localName) throws IOException {
+		if (namespace == null) {
+			namespace = "";
+		}
+
+		OpenElement parent = (depth == 0) ? null : elements.get(depth - 1);
+		if (parent != null) {
+			closeStartTag();
+			parent.childElements = true;
+			if (!parent.text) {
+				indent(depth);
+			}
+		}
+
+		String parentNamespace = (parent == null) ? "" : parent.defaultNamespace;
+		String name = (prefix == null) ? localName : prefix + ":" + localName;
+
+		OpenElement element;
+		if (depth < elements.size()) {
+			element = elements.get(depth);
+		} else {
+			element = new OpenElement();
+			elements.add(element);
+		}
+		element.name = name;
+		element.childElements = false;
+		element.text = false;
+		element.defaultNamespace = (prefix == null) ? namespace : parentNamespace;
+		depth++;
+
+		writer.write('<');
+		writer.write(name);
+		startTagOpen = true;
+
+		if (prefix == null && !namespace.equals(parentNamespace)) {
+			attribute("xmlns", namespace);
+		}
+	}
+
+	private void attribute(String name, String value) throws IOException {
+		writer.write(' ');
+		writer.write(name);
+		writer.write("=\"");
+		escape(value, true);
+		writer.write('"');
+	}
+
+	private void text(String text) throws IOException {
+		closeStartTag();
+		elements.get(depth - 1).text = true;
+		escape(text, false);
+	}
+
+	private void end() throws IOException {
+		OpenElement element = elements.get(--depth);
+
+		if (startTagOpen) {
+			writer.write("/>");
+			startTagOpen = false;
+			return;
+		}
+
+		if (element.childElements && !element.text) {
+			indent(depth);
+		}
+
+		writer.write("</");
+		writer.write(element.name);
+		writer.write('>');
+	}
+
+	private void closeStartTag() throws IOException {
+		if (startTagOpen) {
+			writer.write('>');
+			startTagOpen = false;
+		}
+	}
+
+	private void indent(int level) throws IOException {
+		if (indent == null) {
+			return;
+		}
+
+		writer.write(NEWLINE);
+		for (int i = 0; i < level; i++) {
+			writer.write(indent);
+		}
+	}
+
+	/**
+	 * Writes a string, escaping the characters that have special meaning in
+	 * XML.
+	 * @param value the string to write
+	 * @param attribute true if the string is an attribute value, false if it is
+	 * element text
+	 * @throws IOException if there's a problem writing to the output stream
+	 */
+	private void escape(String value, boolean attribute) throws IOException {
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char ch = value.charAt(i);
+
+			//the number of chars being replaced (surrogate pairs are replaced as a whole)
+			int length = 1;
+
+			String replacement;
+			switch (ch) {
+			case '&':
+				replacement = "&amp;";
+				break;
+			case '<':
+				replacement = "&lt;";
+				break;
+			case '>':
+				replacement = "&gt;";
+				break;
+			case '"':
+				replacement = attribute ? "&quot;" : null;
+				break;
+			case '\r':
+				replacement = "&#13;";
+				break;
+			case '\n':
+				replacement = attribute ? "&#10;" : null;
+				break;
+			case '\t':
+				replacement = attribute ? "&#9;" : null;
+				break;
+			default:
+				replacement = null;
+				if (encoder == null || ch < 0x80) {
+					break;
+				}
+
+				boolean canEncode;
+				if (Character.isHighSurrogate(ch) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+					length = 2;
+					canEncode = encoder.canEncode(value.substring(i, i + 2));
+				} else if (Character.isHighSurrogate(ch) || Character.isLowSurrogate(ch)) {
+					//unpaired surrogates cannot be represented as character references
+					canEncode = true;
+				} else {
+					canEncode = encoder.canEncode(ch);
+				}
+
+				if (!canEncode) {
+					replacement = "&#x" + Integer.toHexString(value.codePointAt(i)) + ";";
+				}
+				break;
+			}
+
+			if (replacement == null) {
+				i += length - 1;
+				continue;
+			}
+
+			writer.write(value, start, i - start);
+			writer.write(replacement);
+			i += length - 1;
+			start = i + 1;
+		}
+
+		writer.write(value, start, value.length() - start);
+	}
+
+	/**
+	 * Flushes the output stream.
+	 * @throws IOException if there's a problem flushing the output stream
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * Terminates the XML document and closes the output stream.
+	 * @throws IOException if there's a problem closing the output stream
+	 */
+	public void close() throws IOException {
+		if (!started) {
+			startDocument();
+		}
+
+		while (depth > 0) {
+			end();
+		}
+
+		if (indent != null) {
+			writer.write(NEWLINE);
+		}
+		writer.close();
+	}
+
+	private enum ValueType {
+		/**
+		 * The value is written as a single element (see:
+		 * {@link StringPropertyScribe}).
+		 */
+		TEXT,
+
+		/**
+		 * The value is written as a list of "text" elements (see:
+		 * {@link ListPropertyScribe}).
+		 */
+		LIST,
+
+		/**
+		 * The scribe writes the value to a DOM element.
+		 */
+		DOM
+	}
+
+	private static class OpenElement {
+		private String name;
+		private String defaultNamespace;
+		private boolean childElements;
+		private boolean text;
+	}
+}
@@ -10,6 +10,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -17,10 +18,7 @@ import java.util.Map;
 import javax.xml.namespace.QName;
 import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 
@@ -39,9 +37,11 @@ import ezvcard.VCardDataType;
 import ezvcard.io.EmbeddedVCardException;
 import ezvcard.io.SkipMeException;
 import ezvcard.io.scribe.VCardPropertyScribe;
+import ezvcard.io.scribe.WritePlan;
 import ezvcard.parameter.VCardParameters;
 import ezvcard.property.VCardProperty;
 import ezvcard.property.Xml;
+import ezvcard.util.ByteChannelWriter;
 import ezvcard.util.ListMultimap;
 import ezvcard.util.XmlUtils;
 
@@ -108,6 +108,11 @@ public class XCardWriter extends XCardWriterBase {
 	private final boolean vcardsElementExists;
 	private boolean started = false;
 
+	/**
+	 * Re-used for each vCard that is written.
+	 */
+	private final ListMultimap<String, VCardProperty> propertiesByGroup = new ListMultimap<String, VCardProperty>();
+
 	/**
 	 * @param out the output stream to write to (UTF-8 encoding will be used)
 	 */
@@ -147,6 +152,16 @@ public class XCardWriter extends XCardWriterBase {
 		this(utf8Writer(out), outputProperties);
 	}
 
+	/**
+	 * @param channel the channel to write to (UTF-8 encoding will be used, see
+	 * {@link ByteChannelWriter})
+	 * @param outputProperties properties to assign to the JAXP transformer (see
+	 * {@link Transformer#setOutputProperty})
+	 */
+	public XCardWriter(WritableByteChannel channel, Map<String, String> outputProperties) {
+		this(utf8Writer(channel), outputProperties);
+	}
+
 	/**
 	 * @param file the file to write to (UTF-8 encoding will be used)
 	 * @throws IOException if there's a problem opening the file
@@ -247,12 +262,7 @@ public class XCardWriter extends XCardWriterBase {
 		}
 		this.vcardsElementExists = isVCardsElement(parent);
 
-		try {
-			SAXTransformerFactory factory = (SAXTransformerFactory) TransformerFactory.newInstance();
-			handler = factory.newTransformerHandler();
-		} catch (TransformerConfigurationException e) {
-			throw new RuntimeException(e);
-		}
+		handler = XmlUtils.newTransformerHandler();
 
 		Transformer transformer = handler.getTransformer();
 
@@ -296,7 +306,7 @@ public class XCardWriter extends XCardWriterBase {
 				started = true;
 			}
 
-			ListMultimap<String, VCardProperty> propertiesByGroup = new ListMultimap<String, VCardProperty>(); //group the types by group name (null = no group name)
+			propertiesByGroup.clear(); //group the types by group name (null = no group name)
 			for (VCardProperty property : properties) {
 				propertiesByGroup.put(property.getGroup(), property);
 			}
@@ -356,8 +366,9 @@ public class XCardWriter extends XCardWriterBase {
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private void write(VCardProperty property, VCard vcard) throws SAXException {
-		VCardPropertyScribe scribe = index.getPropertyScribe(property);
-		VCardParameters parameters = scribe.prepareParameters(property, targetVersion, vcard);
+		WritePlan plan = index.getWritePlan(property, targetVersion);
+		VCardPropertyScribe scribe = plan.getScribe();
+		VCardParameters parameters = plan.prepareParameters(property, vcard);
 
 		//get the property element to write
 		Element propertyElement;
@@ -366,6 +366,32 @@ public class VCardParameters extends ListMultimap<String, String> {
 		supportedVersions = Collections.unmodifiableMap(m);
 	}
 
+	/**
+	 * The characters that are not allowed in parameter values, by version.
+	 * These objects are never modified after they are created.
+	 */
+	private static final BitSet invalidValueCharsDefault, invalidValueChars21;
+	static {
+		BitSet chars = new BitSet(128);
+		chars.set(0, 31);
+		chars.set(127);
+		chars.set('\t', false); //allow
+		chars.set('\n', false); //allow
+		chars.set('\r', false); //allow
+		invalidValueCharsDefault = chars;
+
+		chars = (BitSet) chars.clone();
+		chars.set(',');
+		chars.set('.');
+		chars.set(':');
+		chars.set('=');
+		chars.set('[');
+		chars.set(']');
+		invalidValueChars21 = chars;
+	}
+
+	private static final CharacterBitSet validNameChars = new CharacterBitSet("-a-zA-Z0-9");
+
 	/**
 	 * Creates a list of parameters.
 	 */
@@ -1319,6 +1345,9 @@ public class VCardParameters extends ListMultimap<String, String> {
 	 */
 	public List<Warning> validate(VCardVersion version) {
 		List<Warning> warnings = new ArrayList<Warning>(0);
+		if (isEmpty()) {
+			return warnings;
+		}
 
 		/*
 		 * Check for invalid characters in names and values.
@@ -1327,22 +1356,7 @@ public class VCardParameters extends ListMultimap<String, String> {
 			final int invalidCharsInParamValueCode = 25;
 			final int invalidCharsInParamNameCode = 26;
 
-			BitSet invalidValueChars = new BitSet(128);
-			invalidValueChars.set(0, 31);
-			invalidValueChars.set(127);
-			invalidValueChars.set('\t', false); //allow
-			invalidValueChars.set('\n', false); //allow
-			invalidValueChars.set('\r', false); //allow
-			if (version == VCardVersion.V2_1) {
-				invalidValueChars.set(',');
-				invalidValueChars.set('.');
-				invalidValueChars.set(':');
-				invalidValueChars.set('=');
-				invalidValueChars.set('[');
-				invalidValueChars.set(']');
-			}
-
-			CharacterBitSet validNameChars = new CharacterBitSet("-a-zA-Z0-9");
+			BitSet invalidValueChars = (version == VCardVersion.V2_1) ? invalidValueChars21 : invalidValueCharsDefault;
 			for (Map.Entry<String, List<String>> entry : this) {
 				String name = entry.getKey();
 
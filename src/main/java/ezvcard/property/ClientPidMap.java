@@ -3,12 +3,12 @@ package ezvcard.property;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 import ezvcard.SupportedVersions;
 import ezvcard.VCard;
 import ezvcard.VCardVersion;
 import ezvcard.Warning;
+import ezvcard.util.UidGenerator;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -120,10 +120,10 @@ public class ClientPidMap extends VCardProperty {
 	 * Generates a CLIENTPIDMAP type that contains a random UID URI.
 	 * @param pid the PID
 	 * @return a CLIENTPIDMAP type with a random UID URI
+	 * @see UidGenerator#setDefault
 	 */
 	public static ClientPidMap random(Integer pid) {
-		String uuid = UUID.randomUUID().toString();
-		return new ClientPidMap(pid, "urn:uuid:" + uuid);
+		return new ClientPidMap(pid, UidGenerator.getDefault().generate());
 	}
 
 	/**
@@ -1,6 +1,6 @@
 package ezvcard.property;
 
-import java.util.UUID;
+import ezvcard.util.UidGenerator;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -82,10 +82,10 @@ public class Uid extends UriProperty {
 	/**
 	 * Creates a UID property that contains a random UUID URI.
 	 * @return the property
+	 * @see UidGenerator#setDefault
 	 */
 	public static Uid random() {
-		String uuid = UUID.randomUUID().toString();
-		return new Uid("urn:uuid:" + uuid);
+		return new Uid(UidGenerator.getDefault().generate());
 	}
 
 	@Override
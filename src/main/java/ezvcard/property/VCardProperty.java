@@ -6,6 +6,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import ezvcard.Messages;
 import ezvcard.SupportedVersions;
@@ -50,6 +51,14 @@ import ezvcard.util.CharacterBitSet;
  * @author Michael Angstadt
  */
 public abstract class VCardProperty implements Comparable<VCardProperty> {
+	/**
+	 * Caches the versions that each property class supports, so that the
+	 * {@link SupportedVersions} annotation only has to be read once per class.
+	 */
+	private static final Map<Class<?>, VCardVersion[]> supportedVersionsCache = new ConcurrentHashMap<Class<?>, VCardVersion[]>();
+
+	private static final CharacterBitSet validGroupChars = new CharacterBitSet("-a-zA-Z0-9");
+
 	/**
 	 * The group that this property belongs to or null if it doesn't belong to a
 	 * group.
@@ -87,8 +96,18 @@ public abstract class VCardProperty implements Comparable<VCardProperty> {
 	 * @return the vCard versions that support this property.
 	 */
 	public final VCardVersion[] getSupportedVersions() {
-		SupportedVersions supportedVersionsAnnotation = getClass().getAnnotation(SupportedVersions.class);
-		return (supportedVersionsAnnotation == null) ? VCardVersion.values() : supportedVersionsAnnotation.value();
+		return supportedVersions().clone();
+	}
+
+	private VCardVersion[] supportedVersions() {
+		Class<?> clazz = getClass();
+		VCardVersion[] versions = supportedVersionsCache.get(clazz);
+		if (versions == null) {
+			SupportedVersions supportedVersionsAnnotation = clazz.getAnnotation(SupportedVersions.class);
+			versions = (supportedVersionsAnnotation == null) ? VCardVersion.values() : supportedVersionsAnnotation.value();
+			supportedVersionsCache.put(clazz, versions);
+		}
+		return versions;
 	}
 
 	/**
@@ -105,8 +124,7 @@ public abstract class VCardProperty implements Comparable<VCardProperty> {
 	 * @return true if it is supported, false if not
 	 */
 	public final boolean isSupportedBy(VCardVersion version) {
-		VCardVersion supportedVersions[] = getSupportedVersions();
-		for (VCardVersion supportedVersion : supportedVersions) {
+		for (VCardVersion supportedVersion : supportedVersions()) {
 			if (supportedVersion == version) {
 				return true;
 			}
@@ -140,8 +158,7 @@ public abstract class VCardProperty implements Comparable<VCardProperty> {
 
 		//check group
 		if (group != null) {
-			CharacterBitSet validCharacters = new CharacterBitSet("-a-zA-Z0-9");
-			if (!validCharacters.containsOnly(group)) {
+			if (!validGroupChars.containsOnly(group)) {
 				warnings.add(new Warning(23, group));
 			}
 		}
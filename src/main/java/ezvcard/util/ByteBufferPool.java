@@ -0,0 +1,135 @@
+package ezvcard.util;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * A pool of fixed-size {@link ByteBuffer} objects. It is used by
+ * {@link ByteChannelWriter} so that new buffers do not have to be allocated
+ * every time a vCard is written to a channel.
+ * </p>
+ * <p>
+ * If the pool is empty, {@link #acquire} creates a new buffer. The pool only
+ * holds on to a limited number of released buffers. Extra buffers are left for
+ * the garbage collector.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class ByteBufferPool {
+	private final int bufferSize;
+	private final int maxPooled;
+	private final boolean direct;
+	private final LinkedList<ByteBuffer> buffers = new LinkedList<ByteBuffer>();
+
+	/**
+	 * Creates a pool of 8 KB direct buffers that holds on to at most 16
+	 * released buffers.
+	 */
+	public ByteBufferPool() {
+		this(8192, 16, true);
+	}
+
+	/**
+	 * @param bufferSize the size of each buffer in bytes
+	 * @param maxPooled the maximum number of released buffers to hold on to
+	 * @param direct true to allocate direct buffers, false to allocate heap
+	 * buffers
+	 * @throws IllegalArgumentException if the buffer size is not positive
+	 */
+	public ByteBufferPool(int bufferSize, int maxPooled, boolean direct) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size must be positive.");
+		}
+
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+		this.direct = direct;
+	}
+
+	/**
+	 * Gets a buffer from the pool, or creates a new one if the pool is empty.
+	 * @return the buffer (cleared and ready for writing)
+	 */
+	public ByteBuffer acquire() {
+		ByteBuffer buffer;
+		synchronized (buffers) {
+			buffer = buffers.poll();
+		}
+
+		if (buffer == null) {
+			return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+		}
+
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer to the pool. The buffer must not be used after it is
+	 * released.
+	 * @param buffer the buffer (buffers that were not created by this pool are
+	 * ignored)
+	 */
+	public void release(ByteBuffer buffer) {
+		if (buffer.capacity() != bufferSize || buffer.isDirect() != direct) {
+			return;
+		}
+
+		synchronized (buffers) {
+			if (buffers.size() < maxPooled) {
+				buffers.add(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Gets the size of each buffer.
+	 * @return the buffer size in bytes
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Gets the number of released buffers that are waiting in the pool.
+	 * @return the number of buffers
+	 */
+	public int size() {
+		synchronized (buffers) {
+			return buffers.size();
+		}
+	}
+}
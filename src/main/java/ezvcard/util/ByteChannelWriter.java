@@ -0,0 +1,327 @@
+package ezvcard.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.LinkedList;
+
+import ezvcard.Messages;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * A {@link Writer} that encodes characters into pooled {@link ByteBuffer}
+ * objects and writes them to a {@link WritableByteChannel}. It can be passed
+ * into the constructors of the vCard writers that accept a {@link Writer}
+ * object.
+ * </p>
+ * <p>
+ * <b>Blocking channels</b>
+ * </p>
+ * <p>
+ * Each buffer is written to the channel as soon as it fills up, so memory use
+ * stays constant no matter how much data is written.
+ * </p>
+ * <p>
+ * <b>Non-blocking channels</b>
+ * </p>
+ * <p>
+ * If the channel does not accept all of the data, the rest is queued in memory
+ * and this writer never blocks. Use {@link #isWritable} to find out when to
+ * stop writing vCards, and call {@link #drain} when the channel becomes
+ * writable again.
+ * </p>
+ *
+ * <pre class="brush:java">
+ * ByteChannelWriter out = new ByteChannelWriter(channel, Charset.forName("UTF-8"));
+ * VCardWriter writer = new VCardWriter(out, VCardVersion.V4_0);
+ *
+ * //called each time the channel becomes writable
+ * if (out.drain()) {
+ *   while (out.isWritable() &amp;&amp; it.hasNext()) {
+ *     writer.write(it.next());
+ *   }
+ *   writer.flush();
+ * }
+ * </pre>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class ByteChannelWriter extends Writer {
+	private static final ByteBufferPool defaultPool = new ByteBufferPool();
+
+	private final WritableByteChannel channel;
+	private final Charset charset;
+	private final CharsetEncoder encoder;
+	private final ByteBufferPool pool;
+	private final int highWaterMark;
+
+	/**
+	 * Full buffers that are waiting to be written to the channel (in read
+	 * mode).
+	 */
+	private final LinkedList<ByteBuffer> pending = new LinkedList<ByteBuffer>();
+
+	/**
+	 * The buffer that characters are currently being encoded into (in write
+	 * mode).
+	 */
+	private ByteBuffer current;
+
+	/**
+	 * Holds a high surrogate character that was at the end of the last write,
+	 * so that it can be encoded along with its low surrogate.
+	 */
+	private final CharBuffer surrogatePair = CharBuffer.allocate(2);
+	private char leftover;
+	private boolean hasLeftover = false;
+
+	private boolean closed = false;
+
+	/**
+	 * Creates a writer that uses a shared pool of 8 KB direct buffers and
+	 * reports itself as not writable once 64 KB are waiting to be written.
+	 * @param channel the channel to write to
+	 * @param charset the character encoding to use
+	 */
+	public ByteChannelWriter(WritableByteChannel channel, Charset charset) {
+		this(channel, charset, defaultPool, 64 * 1024);
+	}
+
+	/**
+	 * @param channel the channel to write to
+	 * @param charset the character encoding to use
+	 * @param pool the buffer pool
+	 * @param highWaterMark the number of waiting bytes at which
+	 * {@link #isWritable} starts returning false
+	 */
+	public ByteChannelWriter(WritableByteChannel channel, Charset charset, ByteBufferPool pool, int highWaterMark) {
+		this.channel = channel;
+		this.charset = charset;
+		this.pool = pool;
+		this.highWaterMark = highWaterMark;
+
+		//same behavior as OutputStreamWriter
+		encoder = charset.newEncoder();
+		encoder.onMalformedInput(CodingErrorAction.REPLACE);
+		encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * Gets the character encoding of this writer.
+	 * @return the character encoding
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		write(CharBuffer.wrap(cbuf, off, len));
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		write(CharBuffer.wrap(str, off, off + len));
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		write(CharBuffer.wrap(new char[] { (char) c }));
+	}
+
+	private void write(CharBuffer in) throws IOException {
+		checkClosed();
+
+		while (hasLeftover && in.hasRemaining()) {
+			surrogatePair.clear();
+			surrogatePair.put(leftover).put(in.get());
+			surrogatePair.flip();
+			hasLeftover = false;
+
+			encode(surrogatePair, false);
+			if (surrogatePair.hasRemaining()) {
+				leftover = surrogatePair.get();
+				hasLeftover = true;
+			}
+		}
+
+		if (hasLeftover) {
+			return;
+		}
+
+		encode(in, false);
+		if (in.hasRemaining()) {
+			//the input ended with a high surrogate
+			leftover = in.get();
+			hasLeftover = true;
+		}
+	}
+
+	private void encode(CharBuffer in, boolean endOfInput) throws IOException {
+		if (current == null) {
+			current = pool.acquire();
+		}
+
+		while (true) {
+			CoderResult result = encoder.encode(in, current, endOfInput);
+			if (result.isOverflow()) {
+				nextBuffer();
+				continue;
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Queues the current buffer and tries to write it to the channel.
+	 * @throws IOException if there's a problem writing to the channel
+	 */
+	private void nextBuffer() throws IOException {
+		if (current != null && current.position() > 0) {
+			current.flip();
+			pending.add(current);
+			current = pool.acquire();
+		}
+		drain();
+	}
+
+	/**
+	 * Writes as much of the waiting data to the channel as the channel will
+	 * accept.
+	 * @return true if all the data was written, false if there is still data
+	 * waiting to be written
+	 * @throws IOException if there's a problem writing to the channel
+	 */
+	public boolean drain() throws IOException {
+		while (!pending.isEmpty()) {
+			ByteBuffer buffer = pending.getFirst();
+			channel.write(buffer);
+			if (buffer.hasRemaining()) {
+				return false;
+			}
+
+			pending.removeFirst();
+			pool.release(buffer);
+		}
+		return true;
+	}
+
+	/**
+	 * Determines if more data should be written to this writer. Returns false
+	 * when the channel is not keeping up with the data being written.
+	 * @return true if the number of waiting bytes is below the high water
+	 * mark, false if not
+	 */
+	public boolean isWritable() {
+		return getPendingBytes() < highWaterMark;
+	}
+
+	/**
+	 * Gets the number of bytes that have not been written to the channel yet.
+	 * @return the number of bytes
+	 */
+	public int getPendingBytes() {
+		int count = (current == null) ? 0 : current.position();
+		for (ByteBuffer buffer : pending) {
+			count += buffer.remaining();
+		}
+		return count;
+	}
+
+	/**
+	 * Writes all encoded data to the channel. If the channel is non-blocking,
+	 * some of the data may still be waiting afterwards (see {@link #drain}).
+	 * @throws IOException if there's a problem writing to the channel
+	 */
+	@Override
+	public void flush() throws IOException {
+		checkClosed();
+		nextBuffer();
+	}
+
+	/**
+	 * Writes all remaining data to the channel and closes the channel.
+	 * @throws IOException if there's a problem writing to the channel, or if
+	 * the channel did not accept all of the data
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		try {
+			CharBuffer in = hasLeftover ? CharBuffer.wrap(new char[] { leftover }) : CharBuffer.allocate(0);
+			hasLeftover = false;
+			encode(in, true);
+			while (encoder.flush(current).isOverflow()) {
+				nextBuffer();
+			}
+			nextBuffer();
+
+			int unwritten = getPendingBytes();
+			if (unwritten > 0) {
+				throw new IOException(Messages.INSTANCE.getExceptionMessage(46, unwritten));
+			}
+		} finally {
+			closed = true;
+			release();
+			channel.close();
+		}
+	}
+
+	private void release() {
+		for (ByteBuffer buffer : pending) {
+			pool.release(buffer);
+		}
+		pending.clear();
+
+		if (current != null) {
+			pool.release(current);
+			current = null;
+		}
+	}
+
+	private void checkClosed() throws IOException {
+		if (closed) {
+			throw new IOException(Messages.INSTANCE.getExceptionMessage(45));
+		}
+	}
+}
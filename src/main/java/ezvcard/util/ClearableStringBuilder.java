@@ -63,6 +63,22 @@ public class ClearableStringBuilder {
 		return string;
 	}
 
+	/**
+	 * Gets the buffer's contents, then clears it. If the pool already contains
+	 * a string with the same contents, that string instance is returned.
+	 * @param pool the string pool or null not to use a pool
+	 * @return the buffer's contents
+	 */
+	public String getAndClear(StringPool pool) {
+		if (pool == null) {
+			return getAndClear();
+		}
+
+		String string = pool.get(sb);
+		clear();
+		return string;
+	}
+
 	/**
 	 * Appends a character to the buffer.
 	 * @param ch the character to append
@@ -0,0 +1,274 @@
+package ezvcard.util;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Formats and parses floating-point values for vCards without allocating
+ * {@link java.text.DecimalFormat} objects. The exact binary value is rounded
+ * using "half even" rounding, trailing zeros are removed, and at least one
+ * decimal place is kept.
+ * </p>
+ * <p>
+ * The output is usually the same as {@link VCardFloatFormatter}'s, but not
+ * always. {@link java.text.DecimalFormat} treats a value as a tie when its
+ * shortest decimal representation is a tie, while this class looks at the
+ * exact binary value. For example, 0.0005 is stored as a value slightly larger
+ * than 0.0005, so it is formatted as "0.001" with three decimal places, whereas
+ * {@link VCardFloatFormatter} formats it as "0.0".
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * StringBuilder sb = new StringBuilder();
+ * FixedDecimalFormat.append(sb, 40.7146234, 6); //"40.714623"
+ * double d = FixedDecimalFormat.parse("40.714623");
+ * </pre>
+ * @author Michael Angstadt
+ */
+public final class FixedDecimalFormat {
+	/**
+	 * Powers of ten that can be represented exactly as a double.
+	 */
+	private static final double[] POWERS = new double[23];
+	static {
+		double p = 1;
+		for (int i = 0; i < POWERS.length; i++) {
+			POWERS[i] = p;
+			p *= 10;
+		}
+	}
+
+	/**
+	 * The max number of decimals the fast formatting algorithm can handle.
+	 */
+	private static final int MAX_DECIMALS = 15;
+
+	/**
+	 * Scaled values must be smaller than this in order to be rounded exactly
+	 * by the fast formatting algorithm (2^51).
+	 */
+	private static final double MAX_SCALED = 2251799813685248.0;
+
+	/**
+	 * Used to split a double into two halves for exact multiplication (2^27 +
+	 * 1).
+	 */
+	private static final double SPLITTER = 134217729.0;
+
+	/**
+	 * The max number of significant digits the fast parsing algorithm can
+	 * handle.
+	 */
+	private static final int MAX_PARSE_DIGITS = 15;
+
+	private FixedDecimalFormat() {
+		//hide
+	}
+
+	/**
+	 * Formats a floating-point value.
+	 * @param value the value
+	 * @param decimals the max number of decimal places
+	 * @return the formatted value
+	 */
+	public static String format(double value, int decimals) {
+		return append(new StringBuilder(24), value, decimals).toString();
+	}
+
+	/**
+	 * Formats a floating-point value and appends it to a string builder.
+	 * @param sb the string builder
+	 * @param value the value
+	 * @param decimals the max number of decimal places
+	 * @return the string builder
+	 */
+	public static StringBuilder append(StringBuilder sb, double value, int decimals) {
+		if (decimals < 0) {
+			decimals = 0;
+		}
+
+		double abs = Math.abs(value);
+		double scaled = (decimals > MAX_DECIMALS) ? Double.NaN : abs * POWERS[decimals];
+		if (!(scaled < MAX_SCALED)) {
+			//NaN, infinity, or too big to be rounded exactly
+			return sb.append(new VCardFloatFormatter(decimals).format(value));
+		}
+
+		long rounded = round(abs, POWERS[decimals], scaled);
+
+		boolean negative = value < 0 || (value == 0 && 1 / value < 0);
+		if (negative) {
+			sb.append('-');
+		}
+
+		if (decimals == 0) {
+			return sb.append(rounded);
+		}
+
+		long factor = (long) POWERS[decimals];
+		sb.append(rounded / factor).append('.');
+
+		long fraction = rounded % factor;
+		if (fraction == 0) {
+			return sb.append('0');
+		}
+
+		int digits = decimals;
+		while (fraction % 10 == 0) {
+			fraction /= 10;
+			digits--;
+		}
+
+		for (long p = (long) POWERS[digits - 1]; p > fraction; p /= 10) {
+			sb.append('0');
+		}
+		return sb.append(fraction);
+	}
+
+	/**
+	 * Rounds the exact product of a non-negative value and a power of ten to
+	 * the nearest integer, using "half even" rounding. The rounding error of
+	 * the floating-point multiplication is calculated exactly (Dekker's
+	 * algorithm) so that values that are very close to a tie are rounded
+	 * according to their exact binary value.
+	 * @param value the value
+	 * @param power the power of ten
+	 * @param product the rounded product of the value and the power of ten
+	 * (must be less than 2^51)
+	 * @return the rounded product
+	 */
+	private static long round(double value, double power, double product) {
+		double floor = Math.floor(product);
+		double fraction = product - floor;
+
+		//calculate the rounding error of the multiplication
+		double c = SPLITTER * value;
+		double valueHi = c - (c - value);
+		double valueLo = value - valueHi;
+		c = SPLITTER * power;
+		double powerHi = c - (c - power);
+		double powerLo = power - powerHi;
+		double error = ((valueHi * powerHi - product) + valueHi * powerLo + valueLo * powerHi) + valueLo * powerLo;
+
+		long result = (long) floor;
+		double diff = (fraction - 0.5) + error;
+		if (diff > 0 || (diff == 0 && (result & 1) == 1)) {
+			result++;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a floating-point value.
+	 * @param value the string to parse
+	 * @return the parsed value
+	 * @throws NumberFormatException if the string cannot be parsed
+	 */
+	public static double parse(String value) {
+		return parse(value, 0, value.length());
+	}
+
+	/**
+	 * <p>
+	 * Parses a floating-point value from a portion of a string. The result is
+	 * identical to {@link Double#parseDouble}.
+	 * </p>
+	 * <p>
+	 * Plain decimal numbers with up to 15 significant digits (such as
+	 * "-74.006605") are parsed directly, without creating any objects.
+	 * Anything else is passed to {@link Double#parseDouble}.
+	 * </p>
+	 * @param value the string
+	 * @param start the index of the first character to parse
+	 * @param end the index after the last character to parse
+	 * @return the parsed value
+	 * @throws NumberFormatException if the string cannot be parsed
+	 */
+	public static double parse(CharSequence value, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end) {
+			char c = value.charAt(i);
+			if (c == '-' || c == '+') {
+				negative = (c == '-');
+				i++;
+			}
+		}
+
+		long mantissa = 0;
+		int significantDigits = 0, digits = 0, decimals = -1;
+		boolean fast = true;
+		for (; i < end; i++) {
+			char c = value.charAt(i);
+			if (c == '.' && decimals < 0) {
+				decimals = 0;
+				continue;
+			}
+
+			if (c < '0' || c > '9') {
+				fast = false;
+				break;
+			}
+
+			digits++;
+			if (decimals >= 0) {
+				decimals++;
+			}
+
+			if (mantissa == 0 && c == '0') {
+				continue;
+			}
+
+			if (++significantDigits > MAX_PARSE_DIGITS) {
+				fast = false;
+				break;
+			}
+			mantissa = mantissa * 10 + (c - '0');
+		}
+
+		if (fast && digits > 0 && decimals < POWERS.length) {
+			/*
+			 * Both the mantissa and the power of ten are represented exactly,
+			 * so the division is correctly rounded, just like
+			 * Double.parseDouble.
+			 */
+			double result = (decimals <= 0) ? mantissa : mantissa / POWERS[decimals];
+			return negative ? -result : result;
+		}
+
+		return Double.parseDouble(value.subSequence(start, end).toString());
+	}
+}
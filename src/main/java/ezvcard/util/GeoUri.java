@@ -4,8 +4,6 @@ import java.net.URI;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import ezvcard.Messages;
 
@@ -89,11 +87,6 @@ public final class GeoUri {
 		}
 	}
 
-	/**
-	 * Finds hex values in a parameter value.
-	 */
-	private static final Pattern hexPattern = Pattern.compile("(?i)%([0-9a-f]{2})");
-
 	private static final String PARAM_CRS = "crs";
 	private static final String PARAM_UNCERTAINTY = "u";
 
@@ -129,43 +122,44 @@ public final class GeoUri {
 		}
 
 		Builder builder = new Builder(null, null);
-		ClearableStringBuilder buffer = new ClearableStringBuilder();
+		int start = scheme.length();
 		String paramName = null;
 		boolean coordinatesDone = false;
-		for (int i = scheme.length(); i < uri.length(); i++) {
+		for (int i = start; i < uri.length(); i++) {
 			char c = uri.charAt(i);
 
 			if (c == ',' && !coordinatesDone) {
-				handleEndOfCoordinate(buffer, builder);
+				handleEndOfCoordinate(uri, start, i, builder);
+				start = i + 1;
 				continue;
 			}
 
 			if (c == ';') {
 				if (coordinatesDone) {
-					handleEndOfParameter(buffer, paramName, builder);
+					handleEndOfParameter(uri, start, i, paramName, builder);
 					paramName = null;
 				} else {
-					handleEndOfCoordinate(buffer, builder);
+					handleEndOfCoordinate(uri, start, i, builder);
 					if (builder.coordB == null) {
 						throw Messages.INSTANCE.getIllegalArgumentException(21);
 					}
 					coordinatesDone = true;
 				}
+				start = i + 1;
 				continue;
 			}
 
 			if (c == '=' && coordinatesDone && paramName == null) {
-				paramName = buffer.getAndClear();
+				paramName = uri.substring(start, i);
+				start = i + 1;
 				continue;
 			}
-
-			buffer.append(c);
 		}
 
 		if (coordinatesDone) {
-			handleEndOfParameter(buffer, paramName, builder);
+			handleEndOfParameter(uri, start, uri.length(), paramName, builder);
 		} else {
-			handleEndOfCoordinate(buffer, builder);
+			handleEndOfCoordinate(uri, start, uri.length(), builder);
 			if (builder.coordB == null) {
 				throw Messages.INSTANCE.getIllegalArgumentException(21);
 			}
@@ -174,37 +168,31 @@ public final class GeoUri {
 		return builder.build();
 	}
 
-	private static void handleEndOfCoordinate(ClearableStringBuilder buffer, Builder builder) {
-		String s = buffer.getAndClear();
-
+	private static void handleEndOfCoordinate(String uri, int start, int end, Builder builder) {
 		if (builder.coordA == null) {
-			try {
-				builder.coordA = Double.parseDouble(s);
-			} catch (NumberFormatException e) {
-				throw new IllegalArgumentException(Messages.INSTANCE.getExceptionMessage(22, "A"), e);
-			}
+			builder.coordA = parseCoordinate(uri, start, end, "A");
 			return;
 		}
 
 		if (builder.coordB == null) {
-			try {
-				builder.coordB = Double.parseDouble(s);
-			} catch (NumberFormatException e) {
-				throw new IllegalArgumentException(Messages.INSTANCE.getExceptionMessage(22, "B"), e);
-			}
+			builder.coordB = parseCoordinate(uri, start, end, "B");
 			return;
 		}
 
 		if (builder.coordC == null) {
-			try {
-				builder.coordC = Double.parseDouble(s);
-			} catch (NumberFormatException e) {
-				throw new IllegalArgumentException(Messages.INSTANCE.getExceptionMessage(22, "C"), e);
-			}
+			builder.coordC = parseCoordinate(uri, start, end, "C");
 			return;
 		}
 	}
 
+	private static Double parseCoordinate(String uri, int start, int end, String name) {
+		try {
+			return FixedDecimalFormat.parse(uri, start, end);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(Messages.INSTANCE.getExceptionMessage(22, name), e);
+		}
+	}
+
 	private static void addParameter(String name, String value, Builder builder) {
 		value = decodeParameterValue(value);
 
@@ -225,17 +213,15 @@ public final class GeoUri {
 		builder.parameters.put(name, value);
 	}
 
-	private static void handleEndOfParameter(ClearableStringBuilder buffer, String paramName, Builder builder) {
-		String s = buffer.getAndClear();
-
+	private static void handleEndOfParameter(String uri, int start, int end, String paramName, Builder builder) {
 		if (paramName == null) {
-			if (s.length() > 0) {
-				addParameter(s, "", builder);
+			if (end > start) {
+				addParameter(uri.substring(start, end), "", builder);
 			}
 			return;
 		}
 
-		addParameter(paramName, s, builder);
+		addParameter(paramName, uri.substring(start, end), builder);
 	}
 
 	/**
@@ -320,12 +306,12 @@ public final class GeoUri {
 	 * @return the geo URI's string representation
 	 */
 	public String toString(int decimals) {
-		VCardFloatFormatter formatter = new VCardFloatFormatter(decimals);
-		StringBuilder sb = new StringBuilder("geo:");
+		StringBuilder sb = new StringBuilder(32);
+		sb.append("geo:");
 
-		sb.append(formatter.format(coordA));
+		FixedDecimalFormat.append(sb, coordA, decimals);
 		sb.append(',');
-		sb.append(formatter.format(coordB));
+		FixedDecimalFormat.append(sb, coordB, decimals);
 
 		if (coordC != null) {
 			sb.append(',');
@@ -338,7 +324,7 @@ public final class GeoUri {
 		}
 
 		if (uncertainty != null) {
-			writeParameter(PARAM_UNCERTAINTY, formatter.format(uncertainty), sb);
+			writeParameter(PARAM_UNCERTAINTY, FixedDecimalFormat.format(uncertainty, decimals), sb);
 		}
 
 		for (Map.Entry<String, String> entry : parameters.entrySet()) {
@@ -391,26 +377,48 @@ public final class GeoUri {
 	 * @return the decoded value
 	 */
 	private static String decodeParameterValue(String value) {
-		Matcher m = hexPattern.matcher(value);
-		StringBuffer sb = null;
+		StringBuilder sb = null;
+		int start = 0;
+		for (int i = 0; i + 2 < value.length(); i++) {
+			if (value.charAt(i) != '%') {
+				continue;
+			}
 
-		while (m.find()) {
-			if (sb == null) {
-				sb = new StringBuffer(value.length());
+			int hi = hexDigit(value.charAt(i + 1));
+			int lo = hexDigit(value.charAt(i + 2));
+			if (hi < 0 || lo < 0) {
+				continue;
 			}
 
-			int hex = Integer.parseInt(m.group(1), 16);
-			m.appendReplacement(sb, Character.toString((char) hex));
+			if (sb == null) {
+				sb = new StringBuilder(value.length());
+			}
+			sb.append(value, start, i).append((char) (hi * 16 + lo));
+			i += 2;
+			start = i + 1;
 		}
 
 		if (sb == null) {
 			return value;
 		}
 
-		m.appendTail(sb);
+		sb.append(value, start, value.length());
 		return sb.toString();
 	}
 
+	private static int hexDigit(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -13,6 +13,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 
 /*
@@ -145,6 +146,15 @@ public final class IOUtils {
 		return new OutputStreamWriter(out, UTF8);
 	}
 
+	/**
+	 * Creates a writer whose character encoding is set to "UTF-8".
+	 * @param channel the channel to write to
+	 * @return the writer
+	 */
+	public static ByteChannelWriter utf8Writer(WritableByteChannel channel) {
+		return new ByteChannelWriter(channel, UTF8);
+	}
+
 	/**
 	 * Creates a writer whose character encoding is set to "UTF-8".
 	 * @param file the file to write to
@@ -0,0 +1,191 @@
+package ezvcard.util;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * A fixed-size cache of short, frequently repeated strings, such as property
+ * names, parameter names, and parameter values. It is used by the parsers to
+ * prevent a new {@link String} object from being created each time the same
+ * token is read.
+ * </p>
+ * <p>
+ * Lookups are done directly against the characters in a buffer, so no
+ * {@link String} object is created when the token is already in the cache.
+ * Each slot in the cache holds one string. If two tokens map to the same slot,
+ * the most recent one replaces the older one. Strings that are longer than the
+ * maximum token length are never cached.
+ * </p>
+ * <p>
+ * This class is thread-safe and lock-free. Because strings are immutable, a
+ * thread that sees a stale slot value will simply create a new string.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class StringPool {
+	private final String[] slots;
+	private final int mask;
+	private final int maxTokenLength;
+
+	/**
+	 * Creates a pool with 1024 slots that caches strings up to 32 characters
+	 * long.
+	 */
+	public StringPool() {
+		this(1024, 32);
+	}
+
+	/**
+	 * @param size the number of slots in the pool (will be rounded up to the
+	 * nearest power of two)
+	 * @param maxTokenLength the maximum length of a string that can be cached
+	 * @throws IllegalArgumentException if the size is not positive
+	 */
+	public StringPool(int size, int maxTokenLength) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Pool size must be positive.");
+		}
+
+		int capacity = 1;
+		while (capacity < size) {
+			capacity <<= 1;
+		}
+
+		slots = new String[capacity];
+		mask = capacity - 1;
+		this.maxTokenLength = maxTokenLength;
+	}
+
+	/**
+	 * Gets a string whose contents are equal to the given range of characters.
+	 * @param buffer the character buffer
+	 * @param start the index of the first character
+	 * @param length the number of characters
+	 * @return the pooled string (or a new string if the pool does not contain
+	 * it)
+	 */
+	public String get(char[] buffer, int start, int length) {
+		if (length > maxTokenLength) {
+			return new String(buffer, start, length);
+		}
+
+		int hash = 0;
+		for (int i = start; i < start + length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+
+		int index = slot(hash);
+		String cached = slots[index];
+		if (cached != null && matches(cached, buffer, start, length)) {
+			return cached;
+		}
+
+		String string = new String(buffer, start, length);
+		slots[index] = string;
+		return string;
+	}
+
+	/**
+	 * Gets a string whose contents are equal to the given character sequence.
+	 * @param chars the character sequence (e.g. a {@link StringBuilder})
+	 * @return the pooled string (or a new string if the pool does not contain
+	 * it)
+	 */
+	public String get(CharSequence chars) {
+		int length = chars.length();
+		if (length > maxTokenLength) {
+			return chars.toString();
+		}
+
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + chars.charAt(i);
+		}
+
+		int index = slot(hash);
+		String cached = slots[index];
+		if (cached != null && matches(cached, chars)) {
+			return cached;
+		}
+
+		String string = chars.toString();
+		slots[index] = string;
+		return string;
+	}
+
+	/**
+	 * Removes all strings from the pool.
+	 */
+	public void clear() {
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = null;
+		}
+	}
+
+	/**
+	 * Gets the number of slots in the pool.
+	 * @return the number of slots
+	 */
+	public int size() {
+		return slots.length;
+	}
+
+	private int slot(int hash) {
+		//spread the higher bits, since short tokens have poor low-bit distribution
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private static boolean matches(String cached, char[] buffer, int start, int length) {
+		if (cached.length() != length) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (cached.charAt(i) != buffer[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean matches(String cached, CharSequence chars) {
+		int length = chars.length();
+		if (cached.length() != length) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (cached.charAt(i) != chars.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,213 @@
+package ezvcard.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * <p>
+ * Generates the globally unique URIs that are used by {@link ezvcard.property.Uid#random} and
+ * {@link ezvcard.property.ClientPidMap#random}.
+ * </p>
+ * <p>
+ * The following implementations are included:
+ * </p>
+ * <ul>
+ * <li>{@link #SECURE_RANDOM} - Random (version 4) UUIDs generated by
+ * {@link UUID#randomUUID}. This is the default. All threads share the same
+ * {@link SecureRandom} instance, so it does not scale well when many threads
+ * generate UIDs at once.</li>
+ * <li>{@link #THREAD_LOCAL_RANDOM} - Random (version 4) UUIDs generated by a
+ * fast, per-thread random number generator. Each generator is seeded by a
+ * {@link SecureRandom}, but its output is not cryptographically secure.</li>
+ * <li>{@link #TIME_ORDERED} - Time-ordered (version 7) UUIDs. They start with a
+ * millisecond timestamp, so they are much friendlier to database indexes than
+ * random UUIDs. UUIDs generated by the same JVM are strictly increasing.</li>
+ * </ul>
+ * <p>
+ * All implementations are thread-safe. Custom implementations must be too.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * //affects all threads
+ * UidGenerator.setDefault(UidGenerator.TIME_ORDERED);
+ * Uid uid = Uid.random(); //"urn:uuid:0190b6e8-3c1a-7c2e-9b4f-0d2a51c6e8f3"
+ * </pre>
+ * @author Michael Angstadt
+ * @see <a href="https://tools.ietf.org/html/rfc4122">RFC 4122</a>
+ * @see <a href="https://tools.ietf.org/html/rfc9562#section-5.7">RFC 9562
+ * (UUID version 7)</a>
+ */
+public abstract class UidGenerator {
+	/**
+	 * Generates random UUIDs using {@link UUID#randomUUID}.
+	 */
+	public static final UidGenerator SECURE_RANDOM = new UidGenerator() {
+		@Override
+		public String generate() {
+			UUID uuid = UUID.randomUUID();
+			return toUri(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		}
+	};
+
+	/**
+	 * Generates random UUIDs using a per-thread random number generator.
+	 */
+	public static final UidGenerator THREAD_LOCAL_RANDOM = new UidGenerator() {
+		@Override
+		public String generate() {
+			FastRandom random = randoms.get();
+			long msb = (random.nextLong() & ~0xf000L) | 0x4000L;
+			long lsb = (random.nextLong() & ~(0xc000000000000000L)) | 0x8000000000000000L;
+			return toUri(msb, lsb);
+		}
+	};
+
+	/**
+	 * Generates time-ordered (version 7) UUIDs.
+	 */
+	public static final UidGenerator TIME_ORDERED = new UidGenerator() {
+		/*
+		 * The most recently used timestamp (48 bits) and sequence counter (12
+		 * bits). The counter is incremented when more than one UUID is
+		 * generated in the same millisecond. If it overflows, or if the system
+		 * clock goes backwards, the timestamp is advanced past the current
+		 * time so that UUIDs keep increasing.
+		 */
+		private final AtomicLong last = new AtomicLong();
+
+		@Override
+		public String generate() {
+			long next;
+			while (true) {
+				long prev = last.get();
+				long now = System.currentTimeMillis() << 12;
+				next = (now > prev) ? now : prev + 1;
+				if (last.compareAndSet(prev, next)) {
+					break;
+				}
+			}
+
+			long timestamp = next >>> 12;
+			long counter = next & 0xfffL;
+			long msb = (timestamp << 16) | 0x7000L | counter;
+			long lsb = (randoms.get().nextLong() & ~(0xc000000000000000L)) | 0x8000000000000000L;
+			return toUri(msb, lsb);
+		}
+	};
+
+	private static final ThreadLocal<FastRandom> randoms = new ThreadLocal<FastRandom>() {
+		@Override
+		protected FastRandom initialValue() {
+			return new FastRandom();
+		}
+	};
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static volatile UidGenerator defaultGenerator = SECURE_RANDOM;
+
+	/**
+	 * Gets the generator that is used by {@link ezvcard.property.Uid#random} and
+	 * {@link ezvcard.property.ClientPidMap#random}.
+	 * @return the default generator (defaults to {@link #SECURE_RANDOM})
+	 */
+	public static UidGenerator getDefault() {
+		return defaultGenerator;
+	}
+
+	/**
+	 * Sets the generator that is used by {@link ezvcard.property.Uid#random} and
+	 * {@link ezvcard.property.ClientPidMap#random}. This affects all threads.
+	 * @param generator the default generator or null to use
+	 * {@link #SECURE_RANDOM}
+	 */
+	public static void setDefault(UidGenerator generator) {
+		defaultGenerator = (generator == null) ? SECURE_RANDOM : generator;
+	}
+
+	/**
+	 * Generates a new globally unique URI.
+	 * @return the URI (e.g. "urn:uuid:b8767877-b4a1-4c70-9acc-505d3819e519")
+	 */
+	public abstract String generate();
+
+	/**
+	 * Converts a UUID to a "urn:uuid:" URI.
+	 * @param msb the most significant 64 bits of the UUID
+	 * @param lsb the least significant 64 bits of the UUID
+	 * @return the URI
+	 */
+	protected static String toUri(long msb, long lsb) {
+		char[] chars = "urn:uuid:xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx".toCharArray();
+		hex(chars, 9, msb >>> 32, 8);
+		hex(chars, 18, msb >>> 16, 4);
+		hex(chars, 23, msb, 4);
+		hex(chars, 28, lsb >>> 48, 4);
+		hex(chars, 33, lsb, 12);
+		return new String(chars);
+	}
+
+	private static void hex(char[] chars, int offset, long value, int digits) {
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			chars[i] = HEX[(int) (value & 0xf)];
+			value >>>= 4;
+		}
+	}
+
+	/**
+	 * A fast, non-thread-safe random number generator (xorshift128+).
+	 */
+	private static class FastRandom {
+		private long s0, s1;
+
+		public FastRandom() {
+			SecureRandom seeder = new SecureRandom();
+			do {
+				s0 = seeder.nextLong();
+				s1 = seeder.nextLong();
+			} while (s0 == 0 && s1 == 0);
+		}
+
+		public long nextLong() {
+			long x = s0;
+			long y = s1;
+			s0 = y;
+			x ^= x << 23;
+			s1 = x ^ y ^ (x >>> 17) ^ (y >>> 26);
+			return s1 + y;
+		}
+	}
+}
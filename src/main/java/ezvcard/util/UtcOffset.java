@@ -34,6 +34,21 @@ import ezvcard.Messages;
  * @author Michael Angstadt
  */
 public final class UtcOffset {
+	/**
+	 * Shared instances of the offsets that are used around the world (whole
+	 * hours, half hours, and quarter hours), indexed by sign, hour, and
+	 * quarter hour.
+	 */
+	private static final UtcOffset[] commonOffsets = new UtcOffset[2 * 24 * 4];
+	static {
+		for (int hour = 0; hour < 24; hour++) {
+			for (int quarter = 0; quarter < 4; quarter++) {
+				commonOffsets[commonOffsetIndex(true, hour, quarter * 15)] = new UtcOffset(true, hour, quarter * 15);
+				commonOffsets[commonOffsetIndex(false, hour, quarter * 15)] = new UtcOffset(false, hour, quarter * 15);
+			}
+		}
+	}
+
 	private final long millis;
 
 	/**
@@ -69,6 +84,11 @@ public final class UtcOffset {
 	 * @throws IllegalArgumentException if the text cannot be parsed
 	 */
 	public static UtcOffset parse(String text) {
+		UtcOffset offset = parseCommonFormat(text);
+		if (offset != null) {
+			return offset;
+		}
+
 		int i = 0;
 		char sign = text.charAt(i);
 		boolean positive = true;
@@ -111,9 +131,81 @@ public final class UtcOffset {
 			throw Messages.INSTANCE.getIllegalArgumentException(40, text);
 		}
 
+		return valueOf(positive, hour, minute);
+	}
+
+	/**
+	 * Parses a UTC offset that is in one of the formats used by vCards (e.g.
+	 * "-0500" or "-05:00") without creating any objects.
+	 * @param text the text to parse
+	 * @return the parsed UTC offset or null if the text is not in one of these
+	 * formats
+	 */
+	private static UtcOffset parseCommonFormat(String text) {
+		int length = text.length();
+		if (length != 5 && length != 6) {
+			return null;
+		}
+
+		char sign = text.charAt(0);
+		if (sign != '+' && sign != '-') {
+			return null;
+		}
+
+		int minutePos = 3;
+		if (length == 6) {
+			if (text.charAt(3) != ':') {
+				return null;
+			}
+			minutePos = 4;
+		}
+
+		int hour = twoDigits(text, 1);
+		int minute = twoDigits(text, minutePos);
+		if (hour < 0 || minute < 0) {
+			return null;
+		}
+
+		return valueOf(sign == '+', hour, minute);
+	}
+
+	/**
+	 * Parses a two-digit number.
+	 * @param text the text
+	 * @param pos the position of the first digit
+	 * @return the number or -1 if the characters are not digits
+	 */
+	private static int twoDigits(String text, int pos) {
+		char tens = text.charAt(pos);
+		char ones = text.charAt(pos + 1);
+		if (tens < '0' || tens > '9' || ones < '0' || ones > '9') {
+			return -1;
+		}
+		return (tens - '0') * 10 + (ones - '0');
+	}
+
+	/**
+	 * Gets a UTC offset, using a shared instance if possible.
+	 * @param positive true if the offset is positive, false if it is negative
+	 * @param hour the hour component of the offset (the sign of this integer is
+	 * ignored)
+	 * @param minute the minute component of the offset (the sign of this
+	 * integer is ignored)
+	 * @return the UTC offset
+	 */
+	private static UtcOffset valueOf(boolean positive, int hour, int minute) {
+		hour = Math.abs(hour);
+		minute = Math.abs(minute);
+		if (hour < 24 && minute < 60 && minute % 15 == 0) {
+			return commonOffsets[commonOffsetIndex(positive, hour, minute)];
+		}
 		return new UtcOffset(positive, hour, minute);
 	}
 
+	private static int commonOffsetIndex(boolean positive, int hour, int minute) {
+		return (positive ? 0 : 24 * 4) + hour * 4 + minute / 15;
+	}
+
 	/**
 	 * Creates a UTC offset from a {@link TimeZone} object.
 	 * @param timezone the timezone
@@ -121,6 +213,11 @@ public final class UtcOffset {
 	 */
 	public static UtcOffset parse(TimeZone timezone) {
 		long offset = timezone.getOffset(System.currentTimeMillis());
+
+		long minutes = Math.abs(offset) / (60 * 1000);
+		if (minutes * 60 * 1000 == Math.abs(offset)) {
+			return valueOf(offset >= 0, (int) (minutes / 60), (int) (minutes % 60));
+		}
 		return new UtcOffset(offset);
 	}
 
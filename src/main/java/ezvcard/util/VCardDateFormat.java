@@ -5,7 +5,10 @@ import java.text.FieldPosition;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.SimpleTimeZone;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import ezvcard.Messages;
@@ -116,7 +119,6 @@ public enum VCardDateFormat {
 		@Override
 		public DateFormat getDateFormat(TimeZone timezone) {
 			//always use the UTC timezone
-			TimeZone utc = TimeZone.getTimeZone("UTC");
 			return super.getDateFormat(utc);
 		}
 	},
@@ -130,7 +132,6 @@ public enum VCardDateFormat {
 		@Override
 		public DateFormat getDateFormat(TimeZone timezone) {
 			//always use the UTC timezone
-			TimeZone utc = TimeZone.getTimeZone("UTC");
 			return super.getDateFormat(utc);
 		}
 	},
@@ -164,6 +165,28 @@ public enum VCardDateFormat {
 	};
 	//@formatter:on
 
+	/**
+	 * The UTC timezone. It is shared by the {@link DateFormat} objects that this
+	 * class creates, which never modify it.
+	 */
+	private static final TimeZone utc = TimeZone.getTimeZone("UTC");
+
+	/**
+	 * Caches the results of {@link #parseTimeZoneId}, since
+	 * {@link TimeZone#getTimeZone(String)} is synchronized. Unknown IDs are
+	 * mapped to {@link #unknownTimezone}.
+	 */
+	private static final ConcurrentMap<String, TimeZone> timezoneCache = new ConcurrentHashMap<String, TimeZone>();
+
+	/**
+	 * Once the cache reaches this size, timezone IDs that are not in the cache
+	 * are no longer added to it, so that vCards with many bogus IDs cannot
+	 * grow the cache indefinitely.
+	 */
+	private static final int MAX_CACHED_TIMEZONES = 1000;
+
+	private static final TimeZone unknownTimezone = new SimpleTimeZone(0, "");
+
 	/**
 	 * The regular expression pattern for the date format.
 	 */
@@ -301,7 +324,18 @@ public enum VCardDateFormat {
 	 * @return the timezone object or null if not found
 	 */
 	public static TimeZone parseTimeZoneId(String timezoneId) {
-		TimeZone timezone = TimeZone.getTimeZone(timezoneId);
-		return "GMT".equals(timezone.getID()) ? null : timezone;
+		TimeZone timezone = timezoneCache.get(timezoneId);
+		if (timezone == null) {
+			timezone = TimeZone.getTimeZone(timezoneId);
+			if ("GMT".equals(timezone.getID())) {
+				timezone = unknownTimezone;
+			}
+			if (timezoneCache.size() < MAX_CACHED_TIMEZONES) {
+				timezoneCache.put(timezoneId, timezone);
+			}
+		}
+
+		//TimeZone objects are mutable, so the cached instance is never returned
+		return (timezone == unknownTimezone) ? null : (TimeZone) timezone.clone();
 	}
 }
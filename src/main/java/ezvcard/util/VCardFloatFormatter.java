@@ -57,5 +57,8 @@ public class VCardFloatFormatter extends DecimalFormat {
 		symbols.setDecimalSeparator('.');
 		symbols.setMinusSign('-');
 		setDecimalFormatSymbols(symbols);
+
+		//grouping separators are not allowed (e.g. "1,000.0")
+		setGroupingUsed(false);
 	}
 }
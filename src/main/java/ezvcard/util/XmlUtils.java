@@ -24,7 +24,11 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -63,23 +67,44 @@ import org.xml.sax.SAXException;
  */
 
 /**
+ * <p>
  * Generic XML utility methods.
+ * </p>
+ * <p>
+ * The JAXP factories are expensive to look up, so they are created once,
+ * protected against XML External Entity attacks, and shared. Because JAXP
+ * factories, parsers, and transformers are not thread-safe, access to each
+ * factory is synchronized, and the {@link DocumentBuilder} and
+ * {@link Transformer} objects that are used by this class are kept on a
+ * per-thread basis and reset before each use.
+ * </p>
  * @author Michael Angstadt
  */
 public final class XmlUtils {
+	private static DocumentBuilderFactory documentBuilderFactory;
+	private static TransformerFactory transformerFactory;
+	private static XPathFactory xpathFactory;
+
+	private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>() {
+		@Override
+		protected DocumentBuilder initialValue() {
+			return newDocumentBuilder();
+		}
+	};
+
+	private static final ThreadLocal<CachedTransformer> transformers = new ThreadLocal<CachedTransformer>() {
+		@Override
+		protected CachedTransformer initialValue() {
+			return new CachedTransformer();
+		}
+	};
+
 	/**
 	 * Creates a new XML document.
 	 * @return the XML document
 	 */
 	public static Document createDocument() {
-		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			return builder.newDocument();
-		} catch (ParserConfigurationException e) {
-			//should never be thrown because we're not doing anything fancy with the configuration
-			throw new RuntimeException(e);
-		}
+		return documentBuilders.get().newDocument();
 	}
 
 	/**
@@ -148,20 +173,105 @@ public final class XmlUtils {
 	}
 
 	private static Document toDocument(InputSource in) throws SAXException, IOException {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware(true);
-		factory.setIgnoringComments(true);
-		applyXXEProtection(factory);
+		DocumentBuilder builder = documentBuilders.get();
+		builder.reset();
+		return builder.parse(in);
+	}
 
-		DocumentBuilder builder;
-		try {
-			builder = factory.newDocumentBuilder();
-		} catch (ParserConfigurationException e) {
-			//should never be thrown because we're not doing anything fancy with the configuration
-			throw new RuntimeException(e);
+	/**
+	 * Creates a new {@link DocumentBuilder} from a shared factory that is
+	 * namespace-aware, ignores comments, and is protected against XML External
+	 * Entity attacks.
+	 * @return the document builder
+	 */
+	public static DocumentBuilder newDocumentBuilder() {
+		DocumentBuilderFactory factory = getDocumentBuilderFactory();
+		synchronized (factory) {
+			try {
+				return factory.newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				//should never be thrown because we're not doing anything fancy with the configuration
+				throw new RuntimeException(e);
+			}
 		}
+	}
 
-		return builder.parse(in);
+	/**
+	 * Creates a new {@link Transformer} from a shared factory that is
+	 * protected against XML External Entity attacks.
+	 * @return the transformer
+	 */
+	public static Transformer newTransformer() {
+		TransformerFactory factory = getTransformerFactory();
+		synchronized (factory) {
+			try {
+				return factory.newTransformer();
+			} catch (TransformerConfigurationException e) {
+				//should never be thrown because we're not doing anything fancy with the configuration
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Creates a new {@link TransformerHandler} from a shared factory that is
+	 * protected against XML External Entity attacks.
+	 * @return the transformer handler
+	 */
+	public static TransformerHandler newTransformerHandler() {
+		TransformerFactory factory = getTransformerFactory();
+		synchronized (factory) {
+			try {
+				return ((SAXTransformerFactory) factory).newTransformerHandler();
+			} catch (TransformerConfigurationException e) {
+				//should never be thrown because we're not doing anything fancy with the configuration
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Creates a new {@link XPath} object from a shared factory.
+	 * @return the XPath object
+	 */
+	public static XPath newXPath() {
+		XPathFactory factory = getXPathFactory();
+		synchronized (factory) {
+			return factory.newXPath();
+		}
+	}
+
+	private static synchronized DocumentBuilderFactory getDocumentBuilderFactory() {
+		if (documentBuilderFactory == null) {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			factory.setIgnoringComments(true);
+			applyXXEProtection(factory);
+			documentBuilderFactory = factory;
+		}
+		return documentBuilderFactory;
+	}
+
+	private static synchronized TransformerFactory getTransformerFactory() {
+		if (transformerFactory == null) {
+			TransformerFactory factory;
+			try {
+				factory = TransformerFactory.newInstance();
+			} catch (TransformerFactoryConfigurationError e) {
+				//should never be thrown because we're not doing anything fancy with the configuration
+				throw new RuntimeException(e);
+			}
+			applyXXEProtection(factory);
+			transformerFactory = factory;
+		}
+		return transformerFactory;
+	}
+
+	private static synchronized XPathFactory getXPathFactory() {
+		if (xpathFactory == null) {
+			xpathFactory = XPathFactory.newInstance();
+		}
+		return xpathFactory;
 	}
 
 	/**
@@ -265,22 +375,33 @@ public final class XmlUtils {
 	 * @throws TransformerException if there's a problem writing to the writer
 	 */
 	public static void toWriter(Node node, Writer writer, Map<String, String> outputProperties) throws TransformerException {
+		CachedTransformer cached = transformers.get();
+
+		/*
+		 * If this method is called while the thread's transformer is busy
+		 * (for example, from a SAX callback), use a new transformer.
+		 */
+		boolean reuse = !cached.inUse;
 		Transformer transformer;
-		try {
-			transformer = TransformerFactory.newInstance().newTransformer();
-		} catch (TransformerConfigurationException e) {
-			//should never be thrown because we're not doing anything fancy with the configuration
-			throw new RuntimeException(e);
-		} catch (TransformerFactoryConfigurationError e) {
-			//should never be thrown because we're not doing anything fancy with the configuration
-			throw new RuntimeException(e);
+		if (reuse) {
+			transformer = cached.transformer;
+			transformer.reset();
+			cached.inUse = true;
+		} else {
+			transformer = newTransformer();
 		}
 
-		assignOutputProperties(transformer, outputProperties);
+		try {
+			assignOutputProperties(transformer, outputProperties);
 
-		DOMSource source = new DOMSource(node);
-		StreamResult result = new StreamResult(writer);
-		transformer.transform(source, result);
+			DOMSource source = new DOMSource(node);
+			StreamResult result = new StreamResult(writer);
+			transformer.transform(source, result);
+		} finally {
+			if (reuse) {
+				cached.inUse = false;
+			}
+		}
 	}
 
 	/**
@@ -350,6 +471,11 @@ public final class XmlUtils {
 		return qname.getNamespaceURI().equals(node.getNamespaceURI()) && qname.getLocalPart().equals(node.getLocalName());
 	}
 
+	private static class CachedTransformer {
+		private final Transformer transformer = newTransformer();
+		private boolean inUse = false;
+	}
+
 	private XmlUtils() {
 		//hide
 	}
@@ -9,12 +9,21 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
@@ -650,6 +659,38 @@ public class EzvcardTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void writeJson_parseJson_factory() throws Throwable {
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+
+		CountingJsonFactory factory = new CountingJsonFactory();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Ezvcard.writeJson(vcard).factory(factory).go(out);
+		assertEquals(1, factory.generators);
+
+		VCard parsed = Ezvcard.parseJson(new ByteArrayInputStream(out.toByteArray())).factory(factory).first();
+		assertEquals(1, factory.parsers);
+		assertEquals("John Doe", parsed.getFormattedName().getValue());
+	}
+
+	private static class CountingJsonFactory extends JsonFactory {
+		private static final long serialVersionUID = 1L;
+		private int parsers = 0, generators = 0;
+
+		@Override
+		public JsonParser createParser(InputStream in) throws IOException {
+			parsers++;
+			return super.createParser(in);
+		}
+
+		@Override
+		public JsonGenerator createGenerator(OutputStream out) throws IOException {
+			generators++;
+			return super.createGenerator(out);
+		}
+	}
+
 	@Test
 	public void writeJson_multiple() {
 		VCard vcard1 = new VCard();
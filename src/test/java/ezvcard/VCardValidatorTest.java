@@ -0,0 +1,164 @@
+package ezvcard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ezvcard.property.Gender;
+import ezvcard.property.StructuredName;
+import ezvcard.property.VCardProperty;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class VCardValidatorTest {
+	private ExecutorService executor;
+
+	@Before
+	public void before() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void validate() {
+		VCard vcard = new VCard();
+		vcard.setGender(Gender.male());
+
+		for (VCardVersion version : VCardVersion.values()) {
+			VCardValidator validator = new VCardValidator(version);
+			assertEquals(version, validator.getVersion());
+			assertSameWarnings(vcard.validate(version), validator.validate(vcard));
+		}
+	}
+
+	@Test
+	public void warning_message() {
+		VCard vcard = new VCard();
+		ValidationWarnings warnings = new VCardValidator(VCardVersion.V4_0).validate(vcard);
+
+		Warning warning = warnings.getByProperty(null).get(0);
+		assertEquals(Integer.valueOf(1), warning.getCode());
+		assertEquals(Messages.INSTANCE.getValidationWarning(1), warning.getMessage());
+		assertEquals("(1) " + warning.getMessage(), warning.toString());
+	}
+
+	@Test
+	public void validateAll() throws Exception {
+		List<VCard> vcards = createVCards(1000);
+		VCardValidator validator = new VCardValidator(VCardVersion.V3_0);
+
+		List<ValidationWarnings> serial = validator.validateAll(vcards);
+		List<ValidationWarnings> parallel = validator.validateAll(vcards, executor);
+		assertEquals(vcards.size(), serial.size());
+		assertEquals(vcards.size(), parallel.size());
+
+		for (int i = 0; i < vcards.size(); i++) {
+			ValidationWarnings expected = vcards.get(i).validate(VCardVersion.V3_0);
+			assertSameWarnings(expected, serial.get(i));
+			assertSameWarnings(expected, parallel.get(i));
+		}
+	}
+
+	@Test
+	public void validateAll_empty() throws Exception {
+		VCardValidator validator = new VCardValidator(VCardVersion.V4_0);
+		assertTrue(validator.validateAll(new ArrayList<VCard>()).isEmpty());
+		assertTrue(validator.validateAll(new ArrayList<VCard>(), executor).isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void validateAll_exception() throws Exception {
+		VCard vcard = new VCard();
+		vcard.addProperty(new VCardProperty() {
+			@Override
+			protected void _validate(List<Warning> warnings, VCardVersion version, VCard vcard) {
+				throw new IllegalStateException();
+			}
+		});
+
+		List<VCard> vcards = createVCards(10);
+		vcards.add(vcard);
+
+		new VCardValidator(VCardVersion.V4_0).validateAll(vcards, executor);
+	}
+
+	/**
+	 * Creates vCards that alternate between being valid and invalid.
+	 */
+	private static List<VCard> createVCards(int count) {
+		List<VCard> vcards = new ArrayList<VCard>(count);
+		for (int i = 0; i < count; i++) {
+			VCard vcard = new VCard();
+			vcard.setFormattedName("Person " + i);
+			if (i % 2 == 0) {
+				vcard.setStructuredName(new StructuredName());
+			}
+			if (i % 3 == 0) {
+				vcard.setGender(Gender.female());
+			}
+			vcards.add(vcard);
+		}
+		return vcards;
+	}
+
+	private static void assertSameWarnings(ValidationWarnings expected, ValidationWarnings actual) {
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(toString(expected), toString(actual));
+	}
+
+	private static String toString(ValidationWarnings warnings) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<VCardProperty, List<Warning>> entry : warnings) {
+			VCardProperty property = entry.getKey();
+			sb.append(property == null ? null : property.getClass().getSimpleName()).append(':');
+			for (Warning warning : entry.getValue()) {
+				sb.append(warning.getCode()).append(',');
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
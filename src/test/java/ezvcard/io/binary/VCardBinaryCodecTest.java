@@ -0,0 +1,265 @@
+package ezvcard.io.binary;
+
+import static ezvcard.util.TestUtils.date;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import ezvcard.Ezvcard;
+import ezvcard.VCard;
+import ezvcard.VCardDataType;
+import ezvcard.VCardVersion;
+import ezvcard.io.text.VCardReader;
+import ezvcard.parameter.ImageType;
+import ezvcard.parameter.KeyType;
+import ezvcard.property.Address;
+import ezvcard.property.Agent;
+import ezvcard.property.Anniversary;
+import ezvcard.property.Birthday;
+import ezvcard.property.FavoriteColors;
+import ezvcard.property.FavoriteColors.FavoriteColorsScribe;
+import ezvcard.property.Geo;
+import ezvcard.property.Key;
+import ezvcard.property.Photo;
+import ezvcard.property.RawProperty;
+import ezvcard.property.Revision;
+import ezvcard.property.StructuredName;
+import ezvcard.property.Telephone;
+import ezvcard.property.Timezone;
+import ezvcard.util.GeoUri;
+import ezvcard.util.UtcOffset;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class VCardBinaryCodecTest {
+	private final VCardBinaryCodec codec = new VCardBinaryCodec();
+
+	@Test
+	public void round_trip() {
+		VCard vcard = new VCard();
+		vcard.setVersion(VCardVersion.V3_0);
+		vcard.setFormattedName("John Doe").setGroup("item1");
+
+		StructuredName n = new StructuredName();
+		n.setFamily("Doe");
+		n.setGiven("John");
+		n.getPrefixes().add("Mr.");
+		vcard.setStructuredName(n);
+
+		Address adr = new Address();
+		adr.setStreetAddress("123 Main St");
+		adr.setLocality("Austin");
+		adr.getParameters().put("TYPE", "home");
+		adr.getParameters().put("TYPE", "pref");
+		vcard.addAddress(adr);
+
+		vcard.addTelephoneNumber("+1 555 555 1234").getParameters().put("TYPE", "cell");
+		vcard.addEmail("john@example.com").getParameters().put("X-CUSTOM", "caf\u00e9");
+		vcard.setCategories("one", "two,three");
+		vcard.addNote("line one\nline two");
+		vcard.setGeo(12.34, -56.78);
+		vcard.addProperty(new Geo(new GeoUri.Builder(1.123456789, -2.000000049).coordC(3.5).crs("test").uncertainty(0.25).parameter("x-foo", "a;b").build()));
+		vcard.setTimezone(new Timezone(new UtcOffset(true, 5, 0), "America/New_York"));
+		vcard.addExtendedProperty("X-FOO", "bar\\,baz", VCardDataType.TEXT);
+		vcard.addExtendedProperty("X-BAR", "value");
+		vcard.addProperty(new Photo("http://example.com/photo.jpg", ImageType.JPEG));
+		vcard.addProperty(new Photo(new byte[] { 1, 2, 3, -1 }, ImageType.PNG));
+
+		Key key = new Key();
+		key.setText("abc", KeyType.PGP);
+		vcard.addKey(key);
+
+		byte[] data = codec.encode(vcard);
+		VCard copy = codec.decode(data);
+		assertEquals(vcard, copy);
+
+		//should be smaller than the jCard
+		String json = Ezvcard.writeJson(vcard).prodId(false).go();
+		assertTrue(data.length < json.length());
+
+		assertEquals("item1", copy.getFormattedName().getGroup());
+		assertArrayEquals(new byte[] { 1, 2, 3, -1 }, copy.getPhotos().get(1).getData());
+		assertEquals(new UtcOffset(true, 5, 0), copy.getTimezone().getOffset());
+		assertEquals("America/New_York", copy.getTimezone().getText());
+		assertEquals(Double.valueOf(1.123456789), copy.getProperties(Geo.class).get(1).getLatitude());
+		assertEquals(Double.valueOf(-2.000000049), copy.getProperties(Geo.class).get(1).getLongitude());
+		assertEquals(ImageType.PNG, copy.getPhotos().get(1).getContentType());
+	}
+
+	@Test
+	public void dates_keep_milliseconds() {
+		VCard vcard = new VCard();
+		Date date = new Date(1234567890123L);
+		vcard.setBirthday(new Birthday(date, true));
+		vcard.setRevision(new Revision(date));
+		vcard.setAnniversary(new Anniversary(date("1980-03-22")));
+
+		VCard copy = codec.decode(codec.encode(vcard));
+		assertEquals(date, copy.getBirthday().getDate());
+		assertTrue(copy.getBirthday().hasTime());
+		assertEquals(date, copy.getRevision().getValue());
+		assertEquals(vcard.getAnniversary(), copy.getAnniversary());
+	}
+
+	@Test
+	public void nested_vcard() {
+		VCard agentVCard = new VCard();
+		agentVCard.setFormattedName("Jane Doe");
+
+		VCard vcard = new VCard();
+		vcard.setVersion(VCardVersion.V2_1);
+		vcard.setFormattedName("John Doe");
+		vcard.setAgent(new Agent(agentVCard));
+		vcard.addNote("after");
+
+		VCard copy = codec.decode(codec.encode(vcard));
+		assertEquals("Jane Doe", copy.getAgent().getVCard().getFormattedName().getValue());
+		assertEquals("after", copy.getNotes().get(0).getValue());
+		assertEquals(vcard, copy);
+	}
+
+	@Test
+	public void sample_vcards() throws Throwable {
+		//@formatter:off
+		String files[] = {
+			"John_Doe_ANDROID.vcf",
+			"John_Doe_BLACK_BERRY.vcf",
+			"John_Doe_EVOLUTION.vcf",
+			"John_Doe_GMAIL.vcf",
+			"John_Doe_IPHONE.vcf",
+			"John_Doe_LOTUS_NOTES.vcf",
+			"John_Doe_MAC_ADDRESS_BOOK.vcf",
+			"John_Doe_MS_OUTLOOK.vcf",
+			"gmail-list.vcf",
+			"outlook-2003.vcf",
+			"outlook-2007.vcf",
+			"rfc2426-example.vcf",
+			"rfc6350-example.vcf",
+			"thunderbird-MoreFunctionsForAddressBook-extension.vcf"
+		};
+		//@formatter:on
+
+		for (String file : files) {
+			VCardReader reader = new VCardReader(VCardReader.class.getResourceAsStream(file));
+			List<VCard> vcards;
+			try {
+				vcards = reader.readAll();
+			} finally {
+				reader.close();
+			}
+
+			for (VCard vcard : vcards) {
+				byte[] data = codec.encode(vcard);
+				assertEquals(file, vcard, codec.decode(data));
+			}
+		}
+	}
+
+	@Test
+	public void custom_scribe() {
+		VCard vcard = new VCard();
+		FavoriteColors colors = new FavoriteColors();
+		colors.addColor("red");
+		colors.addColor("green");
+		vcard.addProperty(colors);
+
+		VCardBinaryCodec codec = new VCardBinaryCodec();
+		codec.registerScribe(new FavoriteColorsScribe());
+		byte[] data = codec.encode(vcard);
+
+		VCard copy = codec.decode(data);
+		FavoriteColors copyColors = copy.getProperty(FavoriteColors.class);
+		assertEquals(Arrays.asList("red", "green"), copyColors.getColors());
+
+		//without the scribe, it is decoded as an extended property
+		copy = new VCardBinaryCodec().decode(data);
+		assertNull(copy.getProperty(FavoriteColors.class));
+		RawProperty raw = copy.getExtendedProperty("X-FAV-COLORS");
+		assertEquals("red,green", raw.getValue());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void encode_unregistered_property() {
+		VCard vcard = new VCard();
+		vcard.addProperty(new FavoriteColors());
+		codec.encode(vcard);
+	}
+
+	@Test
+	public void decode_invalid() {
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+		vcard.addTelephoneNumber(new Telephone("555-1234"));
+		byte[] data = codec.encode(vcard);
+
+		//@formatter:off
+		byte[][] invalid = {
+			{},
+			{ 'V', 'C', 'B' },
+			{ 'V', 'C', 'B', 99 },
+			{ 'X', 'C', 'B', 1 },
+			Arrays.copyOf(data, data.length - 1),
+			Arrays.copyOf(data, data.length + 1),
+
+			//huge property count
+			{ 'V', 'C', 'B', 1, 0, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 },
+
+			//huge parameter value count
+			{ 'V', 'C', 'B', 1, 0, 1, 1, 1, 2, 'X', 0, 1, 1, 2, 'P', (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 },
+
+			//huge jCard value count
+			{ 'V', 'C', 'B', 1, 0, 1, 0, 1, 2, 'X', 0, 0, 0, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 },
+
+			//huge jCard array size
+			{ 'V', 'C', 'B', 1, 0, 1, 0, 1, 2, 'X', 0, 0, 0, 1, 6, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 }
+		};
+		//@formatter:on
+
+		for (byte[] bytes : invalid) {
+			try {
+				codec.decode(bytes);
+				fail(Arrays.toString(bytes));
+			} catch (IllegalArgumentException e) {
+				//expected
+			}
+		}
+	}
+}
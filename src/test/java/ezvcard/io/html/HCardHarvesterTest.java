@@ -0,0 +1,276 @@
+package ezvcard.io.html;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ezvcard.VCard;
+import ezvcard.io.scribe.FormattedNameScribe;
+import ezvcard.io.scribe.ScribeIndex;
+import ezvcard.property.FormattedName;
+import ezvcard.util.IOUtils;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class HCardHarvesterTest {
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private ExecutorService executor;
+
+	@Before
+	public void before() {
+		executor = Executors.newFixedThreadPool(3);
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_invalid_max() {
+		new HCardHarvester(executor, 0);
+	}
+
+	@Test
+	public void harvest() throws Exception {
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 20; i++) {
+			files.add(html("<div class=\"vcard\"><span class=\"fn\">Person " + i + "</span></div><div class=\"vcard\"><span class=\"fn\">Other " + i + "</span></div>"));
+		}
+
+		HCardHarvester harvester = new HCardHarvester(executor, 4);
+		HCardHarvester.Harvest harvest = harvester.harvest(files);
+
+		List<String> names = new ArrayList<String>();
+		HCardHarvester.Page page;
+		while ((page = harvest.next()) != null) {
+			assertNull(page.getError());
+			assertNull(page.getPageUrl());
+			assertTrue(files.contains(page.getFile()));
+			assertEquals(2, page.getVCards().size());
+			assertEquals(2, page.getWarnings().size());
+			for (VCard vcard : page.getVCards()) {
+				names.add(vcard.getFormattedName().getValue());
+			}
+		}
+		assertNull(harvest.next());
+
+		assertEquals(40, names.size());
+		Collections.sort(names);
+		assertEquals("Other 0", names.get(0));
+		assertEquals("Person 9", names.get(39));
+	}
+
+	@Test
+	public void harvest_page_url() throws Exception {
+		File file = html("<div class=\"vcard\"><a class=\"url\" href=\"/jdoe\">John Doe</a></div>");
+		Map<File, String> pages = new HashMap<File, String>();
+		pages.put(file, "http://example.com/index.html");
+
+		HCardHarvester harvester = new HCardHarvester(executor, 1);
+		HCardHarvester.Harvest harvest = harvester.harvest(pages);
+
+		HCardHarvester.Page page = harvest.next();
+		assertEquals("http://example.com/index.html", page.getPageUrl());
+		VCard vcard = page.getVCards().get(0);
+		assertEquals("http://example.com/index.html", vcard.getSources().get(0).getValue());
+		assertEquals("http://example.com/jdoe", vcard.getUrls().get(0).getValue());
+
+		assertNull(harvest.next());
+	}
+
+	@Test
+	public void harvest_error() throws Exception {
+		File missing = new File(tempFolder.getRoot(), "missing.html");
+		File file = html("<div class=\"vcard\"><span class=\"fn\">John Doe</span></div>");
+
+		HCardHarvester harvester = new HCardHarvester(executor, 2);
+		HCardHarvester.Harvest harvest = harvester.harvest(Arrays.asList(missing, file));
+
+		int count = 0;
+		HCardHarvester.Page page;
+		while ((page = harvest.next()) != null) {
+			count++;
+			if (page.getFile().equals(missing)) {
+				assertTrue(page.getError() instanceof IOException);
+				assertEquals(0, page.getVCards().size());
+			} else {
+				assertNull(page.getError());
+				assertEquals(1, page.getVCards().size());
+			}
+		}
+		assertEquals(2, count);
+	}
+
+	@Test
+	public void harvest_error_thrown() throws Exception {
+		File file = html("<div class=\"vcard\"><span class=\"nickname\">Johnny</span><span class=\"fn\">John Doe</span></div>");
+
+		ScribeIndex index = new ScribeIndex();
+		index.register(new FormattedNameScribe() {
+			@Override
+			protected FormattedName _parseHtml(HCardElement element, List<String> warnings) {
+				throw new StackOverflowError();
+			}
+		});
+
+		HCardHarvester harvester = new HCardHarvester(executor, 1);
+		harvester.setScribeIndex(index);
+		HCardHarvester.Harvest harvest = harvester.harvest(Arrays.asList(file));
+
+		HCardHarvester.Page page = harvest.next();
+		assertTrue(page.getError() instanceof StackOverflowError);
+		assertEquals(0, page.getVCards().size());
+		assertEquals(0, page.getWarnings().size());
+		assertNull(harvest.next());
+	}
+
+	@Test
+	public void harvest_rejected() throws Exception {
+		final List<Runnable> submitted = new ArrayList<Runnable>();
+		Executor rejecting = new Executor() {
+			public void execute(Runnable command) {
+				if (!submitted.isEmpty()) {
+					throw new RejectedExecutionException();
+				}
+				submitted.add(command);
+			}
+		};
+
+		File file1 = html("<div class=\"vcard\"><span class=\"fn\">John Doe</span></div>");
+		File file2 = html("<div class=\"vcard\"><span class=\"fn\">Jane Doe</span></div>");
+		File file3 = html("<div class=\"vcard\"><span class=\"fn\">Joe Doe</span></div>");
+
+		HCardHarvester harvester = new HCardHarvester(rejecting, 1);
+		HCardHarvester.Harvest harvest = harvester.harvest(Arrays.asList(file1, file2, file3));
+		submitted.get(0).run();
+
+		HCardHarvester.Page page = harvest.next();
+		assertEquals(file1, page.getFile());
+		assertNull(page.getError());
+
+		page = harvest.next();
+		assertEquals(file2, page.getFile());
+		assertTrue(page.getError() instanceof RejectedExecutionException);
+
+		page = harvest.next();
+		assertEquals(file3, page.getFile());
+		assertTrue(page.getError() instanceof RejectedExecutionException);
+
+		assertNull(harvest.next());
+	}
+
+	@Test
+	public void harvest_duplicate_files() throws Exception {
+		File file = html("<div class=\"vcard\"><span class=\"fn\">John Doe</span></div>");
+
+		HCardHarvester harvester = new HCardHarvester(executor, 2);
+		HCardHarvester.Harvest harvest = harvester.harvest(Arrays.asList(file, file));
+
+		int count = 0;
+		while (harvest.next() != null) {
+			count++;
+		}
+		assertEquals(2, count);
+	}
+
+	@Test
+	public void harvest_bounded() throws Exception {
+		final List<Runnable> submitted = new ArrayList<Runnable>();
+		Executor recording = new Executor() {
+			public void execute(Runnable command) {
+				submitted.add(command);
+			}
+		};
+
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 5; i++) {
+			files.add(html("<div class=\"vcard\"></div>"));
+		}
+
+		HCardHarvester harvester = new HCardHarvester(recording, 2);
+		HCardHarvester.Harvest harvest = harvester.harvest(files);
+		assertEquals(2, submitted.size());
+
+		submitted.get(0).run();
+		assertNotNull(harvest.next());
+		assertEquals(3, submitted.size());
+
+		submitted.get(1).run();
+		submitted.get(2).run();
+		assertNotNull(harvest.next());
+		assertEquals(4, submitted.size());
+		assertNotNull(harvest.next());
+		assertEquals(5, submitted.size());
+
+		submitted.get(3).run();
+		submitted.get(4).run();
+		assertNotNull(harvest.next());
+		assertNotNull(harvest.next());
+		assertNull(harvest.next());
+	}
+
+	private File html(String body) throws Exception {
+		File file = tempFolder.newFile();
+		Writer writer = IOUtils.utf8Writer(file);
+		try {
+			writer.write("<html><body>" + body + "</body></html>");
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+}
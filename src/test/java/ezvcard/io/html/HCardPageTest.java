@@ -5,12 +5,14 @@ import static ezvcard.util.TestUtils.date;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -230,6 +232,45 @@ public class HCardPageTest {
 		assertEquals("one" + NEWLINE + "two" + NEWLINE + "three" + NEWLINE + "four", vcard.getNotes().get(0).getValue());
 	}
 
+	@Test
+	public void renderer() throws Exception {
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+		vcard.addPhoto(new Photo(new byte[] { 1, 2, 3 }, ImageType.PNG));
+
+		HCardPage page = new HCardPage();
+		page.add(vcard);
+
+		HCardRenderer renderer = new HCardRenderer();
+		String html = renderer.render(Arrays.asList(vcard));
+		assertEquals(page.write(), html);
+		assertEquals(html, renderer.render(Arrays.asList(vcard)));
+		assertTrue(html.contains("src=\"data:image/png;base64,AQID\""));
+	}
+
+	@Test
+	public void templateUtils_dataUri() {
+		HCardPage.TemplateUtils utils = new HCardPage.TemplateUtils();
+		byte[] data = new byte[] { 1, 2, 3 };
+
+		Photo photo = new Photo(data, ImageType.PNG);
+		String uri = utils.dataUri(photo);
+		assertEquals("data:image/png;base64,AQID", uri);
+		assertSame(uri, utils.dataUri(photo));
+
+		//cached by data, so other properties that share the data use it too
+		Photo copy = new Photo(data, ImageType.PNG);
+		assertSame(uri, utils.dataUri(copy));
+
+		//content type changed
+		photo.setData(data, ImageType.JPEG);
+		assertEquals("data:image/jpeg;base64,AQID", utils.dataUri(photo));
+
+		//data changed
+		photo.setData(new byte[] { 1, 2, 3 }, ImageType.JPEG);
+		assertEquals("data:image/jpeg;base64,AQID", utils.dataUri(photo));
+	}
+
 	@Test
 	public void create_then_parse() throws Exception {
 		//create template
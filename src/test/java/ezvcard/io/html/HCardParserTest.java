@@ -265,6 +265,52 @@ public class HCardParserTest {
 		//@formatter:on
 	}
 
+	@Test
+	public void read_multiple_nested_and_at_different_depths() throws Exception {
+		//@formatter:off
+		VCardAsserter asserter = readHtml(
+		"<html>" +
+			"<body>" +
+				"<div>" +
+					"<div class=\"vcard\">" +
+						"<span class=\"fn\">John Doe</span>" +
+						"<div class=\"vcard\">" +
+							"<span class=\"nickname\">Johnny</span>" +
+						"</div>" +
+					"</div>" +
+				"</div>" +
+				"<div class=\"VCARD\">" +
+					"<span class=\"fn\">Jane Doe</span>" +
+				"</div>" +
+				"<ul><li><p class=\"vcard\">" +
+					"<a class=\"url\" href=\"MAILTO:jdoe@hotmail.com\">Email me</a>" +
+				"</p></li></ul>" +
+			"</body>" +
+		"</html>"
+		);
+
+		asserter.next(V3_0);
+		asserter.simpleProperty(FormattedName.class)
+			.value("John Doe")
+		.noMore();
+		asserter.listProperty(Nickname.class)
+			.values("Johnny")
+		.noMore();
+
+		asserter.next(V3_0);
+		asserter.simpleProperty(FormattedName.class)
+			.value("Jane Doe")
+		.noMore();
+
+		asserter.next(V3_0);
+		asserter.email()
+			.value("jdoe@hotmail.com")
+		.noMore();
+
+		asserter.done();
+		//@formatter:on
+	}
+
 	@Test
 	public void embedded_vcards() {
 		//@formatter:off
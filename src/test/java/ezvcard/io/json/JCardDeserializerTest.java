@@ -3,6 +3,7 @@ package ezvcard.io.json;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -161,6 +162,103 @@ public class JCardDeserializerTest {
 		assertNull(actual);
 	}
 
+	@Test
+	public void deserialize_list() throws Exception {
+		//@formatter:off
+		String json =
+		"[" +
+		  "[\"vcard\"," +
+		    "[" +
+		      "[\"fn\", {}, \"text\", \"John Doe\"]" +
+		    "]" +
+		  "]," +
+		  "null," +
+		  "[\"vcard\"," +
+		    "[" +
+		      "[\"version\", {}, \"text\", \"4.0\"]," +
+		      "[\"fn\", {}, \"text\", \"Jane Doe\"]" +
+		    "]" +
+		  "]" +
+		"]";
+		//@formatter:on
+
+		mapper.registerModule(new JCardModule());
+
+		List<List<String>> warnings = new ArrayList<List<String>>();
+		List<VCard> actual = mapper.readerFor(new TypeReference<List<VCard>>() {
+		}).withAttribute(JCardDeserializer.WARNINGS, warnings).readValue(json);
+
+		assertEquals(3, actual.size());
+		assertEquals("John Doe", actual.get(0).getFormattedName().getValue());
+		assertNull(actual.get(1));
+		assertEquals("Jane Doe", actual.get(2).getFormattedName().getValue());
+
+		//the first vCard is missing the "version" property
+		assertEquals(2, warnings.size());
+		assertEquals(1, warnings.get(0).size());
+		assertEquals(0, warnings.get(1).size());
+	}
+
+	@Test(expected = IOException.class)
+	public void deserialize_list_not_array() throws Exception {
+		mapper.registerModule(new JCardModule());
+		mapper.readValue("{}", new TypeReference<List<VCard>>() {
+		});
+	}
+
+	@Test
+	public void deserialize_warnings() throws Exception {
+		//@formatter:off
+		String json =
+		"[\"vcard\"," +
+			"[" +
+				"[\"fn\", {}, \"text\", \"John Doe\"]" +
+			"]" +
+		"]";
+		//@formatter:on
+
+		mapper.registerModule(new JCardModule());
+
+		List<List<String>> warnings = new ArrayList<List<String>>();
+		VCard vcard = mapper.readerFor(VCard.class).withAttribute(JCardDeserializer.WARNINGS, warnings).readValue(json);
+		assertEquals("John Doe", vcard.getFormattedName().getValue());
+		assertEquals(1, warnings.size());
+		assertEquals(1, warnings.get(0).size());
+
+		//warnings are not collected if the attribute is not set
+		mapper.readValue(json, VCard.class);
+		assertEquals(1, warnings.size());
+	}
+
+	@Test
+	public void container_list() throws Exception {
+		//@formatter:off
+		String json =
+		"{" +
+			"\"contacts\": [" +
+				"[\"vcard\", [[\"fn\", {}, \"text\", \"John Doe\"]]]," +
+				"[\"vcard\", [[\"fn\", {}, \"text\", \"Jane Doe\"]]]" +
+			"]" +
+		"}";
+		//@formatter:on
+
+		mapper.registerModule(new JCardModule());
+		ContainerList container = mapper.readValue(json, ContainerList.class);
+
+		assertEquals(2, container.contacts.size());
+		assertEquals("John Doe", container.contacts.get(0).getFormattedName().getValue());
+		assertEquals("Jane Doe", container.contacts.get(1).getFormattedName().getValue());
+	}
+
+	private static class ContainerList {
+		private List<VCard> contacts;
+
+		@SuppressWarnings("unused")
+		public void setContacts(List<VCard> contacts) {
+			this.contacts = contacts;
+		}
+	}
+
 	private static class Container {
 		private VCard contact;
 
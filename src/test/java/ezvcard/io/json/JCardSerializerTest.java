@@ -5,12 +5,19 @@ import static org.junit.Assert.assertEquals;
 
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
@@ -256,6 +263,110 @@ public class JCardSerializerTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void serialize_list() throws Exception {
+		List<VCard> vcards = new ArrayList<VCard>();
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+		vcards.add(vcard);
+		vcards.add(null);
+
+		JCardModule module = new JCardModule();
+		module.setAddProdId(false);
+		mapper.registerModule(module);
+
+		String actual = mapper.writerFor(new TypeReference<List<VCard>>() {
+		}).writeValueAsString(vcards);
+
+		//@formatter:off
+		String expected =
+		"[" +
+			"[\"vcard\"," +
+				"[" +
+					"[\"version\",{},\"text\",\"4.0\"]," +
+					"[\"fn\",{},\"text\",\"John Doe\"]" +
+				"]" +
+			"]," +
+			"null" +
+		"]";
+		//@formatter:on
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void container_list_annotation() throws Exception {
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+		vcard.setMailer("mailer");
+		ContainerListAnnotation container = new ContainerListAnnotation(Arrays.asList(vcard, vcard));
+
+		mapper.registerModule(new JCardModule());
+		String actual = mapper.writeValueAsString(container);
+
+		//@formatter:off
+		String card =
+		"[\"vcard\"," +
+			"[" +
+				"[\"version\",{},\"text\",\"4.0\"]," +
+				"[\"fn\",{},\"text\",\"John Doe\"]," +
+				"[\"mailer\",{},\"text\",\"mailer\"]" +
+			"]" +
+		"]";
+		String expected =
+		"{" +
+			"\"contacts\":[" + card + "," + card + "]" +
+		"}";
+		//@formatter:on
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void multiple_threads() throws Exception {
+		JCardModule module = new JCardModule();
+		module.setAddProdId(false);
+		mapper.registerModule(module);
+
+		final List<VCard> vcards = new ArrayList<VCard>();
+		for (int i = 0; i < 100; i++) {
+			VCard vcard = new VCard();
+			vcard.setFormattedName("Person " + i);
+			vcards.add(vcard);
+		}
+		final ObjectWriter writer = mapper.writerFor(new TypeReference<List<VCard>>() {
+		});
+		final String expected = writer.writeValueAsString(vcards);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+			for (int i = 0; i < 20; i++) {
+				futures.add(executor.submit(new Callable<String>() {
+					public String call() throws Exception {
+						return writer.writeValueAsString(vcards);
+					}
+				}));
+			}
+			for (Future<String> future : futures) {
+				assertEquals(expected, future.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static class ContainerListAnnotation {
+		private final List<VCard> contacts;
+
+		public ContainerListAnnotation(List<VCard> contacts) {
+			this.contacts = contacts;
+		}
+
+		@JCardFormat(addProdId = false, versionStrict = false)
+		public List<VCard> getContacts() {
+			return contacts;
+		}
+	}
+
 	private static class Container {
 		private final VCard contact;
 
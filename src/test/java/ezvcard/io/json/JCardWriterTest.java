@@ -4,11 +4,18 @@ import static ezvcard.util.StringUtils.NEWLINE;
 import static ezvcard.util.TestUtils.assertValidate;
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -99,6 +106,48 @@ public class JCardWriterTest {
 		assertEquals(expected, sw.toString());
 	}
 
+	@Test
+	public void write_factory() throws Throwable {
+		final List<OutputStream> streams = new ArrayList<OutputStream>();
+		JsonFactory factory = new JsonFactory() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public JsonGenerator createGenerator(OutputStream out) throws IOException {
+				streams.add(out);
+				return super.createGenerator(out);
+			}
+		};
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JCardWriter writer = new JCardWriter(out, factory, false);
+		writer.setAddProdId(false);
+
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+		writer.write(vcard);
+
+		writer.close();
+
+		assertEquals(1, streams.size());
+
+		//@formatter:off
+		String expected =
+		"[\"vcard\"," +
+			"[" +
+				"[\"version\",{},\"text\",\"4.0\"]," +
+				"[\"fn\",{},\"text\",\"John Doe\"]" +
+			"]" +
+		"]";
+		//@formatter:on
+		assertEquals(expected, new String(out.toByteArray(), "UTF-8"));
+
+		JCardReader reader = new JCardReader(new ByteArrayInputStream(out.toByteArray()), factory);
+		vcard = reader.readNext();
+		assertEquals("John Doe", vcard.getFormattedName().getValue());
+		reader.close();
+	}
+
 	@Test
 	public void write_multiple_vcards() throws Throwable {
 		StringWriter sw = new StringWriter();
@@ -1,6 +1,7 @@
 package ezvcard.io.scribe;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.net.URI;
 
@@ -8,6 +9,7 @@ import org.junit.Test;
 
 import ezvcard.VCard;
 import ezvcard.VCardVersion;
+import ezvcard.io.scribe.ImppScribe.HtmlLinkFormat;
 import ezvcard.property.Impp;
 
 /*
@@ -165,14 +167,49 @@ public class ImppScribeTest {
 			"irc://foobar.org/theuser,isnick"
 		);
 		
+		assertParseHtmlLink("aim:theuser",
+			"AIM:GoIm?ScreenName=theuser",
+			"aim:goim?message=hello&screenname=theuser",
+			"aim:goim?myscreenname=foo&screenname=theuser"
+		);
+
 		assertParseHtmlLink(null,
 			"foo:theuser",
 			"theuser",
-			"aim:invalid?screenname=theuser"
+			"aim:invalid?screenname=theuser",
+			"aim:goim?myscreenname=theuser",
+			"icq:message?uin=theuser"
 		);
 		//@formatter:on
 	}
 
+	@Test
+	public void registerHtmlLinkFormat() {
+		ImppScribe scribe = new ImppScribe();
+		scribe.registerHtmlLinkFormat(new HtmlLinkFormat("gtalk", "chat?jid=%s", "chat?jid="));
+
+		//a longer prefix of an existing protocol
+		scribe.registerHtmlLinkFormat(new HtmlLinkFormat(ImppScribe.SKYPE, "%s?chat", "", "chat?user=") {
+			@Override
+			protected String parseHandle(String link, int start) {
+				String handle = super.parseHandle(link, start);
+				int pos = handle.indexOf('?');
+				return (pos < 0) ? handle : handle.substring(0, pos);
+			}
+		});
+
+		assertEquals(URI.create("gtalk:theuser"), scribe.parseHtmlLink("gtalk:chat?jid=theuser"));
+		assertEquals("gtalk:chat?jid=theuser", scribe.writeHtmlLink(new Impp("gtalk", "theuser")));
+
+		assertEquals(URI.create("skype:theuser"), scribe.parseHtmlLink("skype:chat?user=theuser"));
+		assertEquals(URI.create("skype:theuser"), scribe.parseHtmlLink("skype:theuser?call"));
+		assertEquals("skype:theuser?chat", scribe.writeHtmlLink(Impp.skype("theuser")));
+
+		//other scribe instances are not affected
+		assertNull(this.scribe.parseHtmlLink("gtalk:chat?jid=theuser"));
+		assertEquals("skype:theuser", this.scribe.writeHtmlLink(Impp.skype("theuser")));
+	}
+
 	private void assertParseHtmlLink(String expectedUri, String... linksToTest) {
 		URI expected = (expectedUri == null) ? null : URI.create(expectedUri);
 		for (String link : linksToTest) {
@@ -0,0 +1,146 @@
+package ezvcard.io.scribe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ezvcard.VCard;
+import ezvcard.VCardDataType;
+import ezvcard.VCardVersion;
+import ezvcard.io.SalaryProperty;
+import ezvcard.io.SalaryProperty.SalaryScribe;
+import ezvcard.parameter.VCardParameters;
+import ezvcard.property.Birthday;
+import ezvcard.property.Email;
+import ezvcard.property.Kind;
+import ezvcard.property.Note;
+import ezvcard.property.RawProperty;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class WritePlanTest {
+	@Test
+	public void getWritePlan() {
+		ScribeIndex index = new ScribeIndex();
+
+		WritePlan plan = index.getWritePlan(new Note("one"), VCardVersion.V3_0);
+		assertTrue(plan.getScribe() instanceof NoteScribe);
+		assertEquals(VCardVersion.V3_0, plan.getVersion());
+		assertTrue(plan.isSupported());
+		assertEquals(VCardDataType.TEXT, plan.getDefaultDataType());
+
+		assertSame(plan, index.getWritePlan(new Note("two"), VCardVersion.V3_0));
+		assertNotSame(plan, index.getWritePlan(new Note("two"), VCardVersion.V4_0));
+	}
+
+	@Test
+	public void getWritePlan_unsupported_version() {
+		ScribeIndex index = new ScribeIndex();
+		assertFalse(index.getWritePlan(new Kind("individual"), VCardVersion.V3_0).isSupported());
+		assertTrue(index.getWritePlan(new Kind("individual"), VCardVersion.V4_0).isSupported());
+	}
+
+	@Test
+	public void getWritePlan_no_scribe() {
+		ScribeIndex index = new ScribeIndex();
+		assertNull(index.getWritePlan(new SalaryProperty(1000), VCardVersion.V4_0));
+
+		index.register(new SalaryScribe());
+		assertTrue(index.getWritePlan(new SalaryProperty(1000), VCardVersion.V4_0).getScribe() instanceof SalaryScribe);
+	}
+
+	@Test
+	public void getWritePlan_raw_property() {
+		ScribeIndex index = new ScribeIndex();
+
+		WritePlan foo = index.getWritePlan(new RawProperty("X-FOO", "value"), VCardVersion.V4_0);
+		assertEquals("X-FOO", foo.getScribe().getPropertyName());
+		assertSame(foo, index.getWritePlan(new RawProperty("X-FOO", "value2"), VCardVersion.V4_0));
+
+		WritePlan bar = index.getWritePlan(new RawProperty("X-BAR", "value"), VCardVersion.V4_0);
+		assertEquals("X-BAR", bar.getScribe().getPropertyName());
+	}
+
+	@Test
+	public void register_clears_cache() {
+		ScribeIndex index = new ScribeIndex();
+		WritePlan plan = index.getWritePlan(new Note("one"), VCardVersion.V4_0);
+
+		index.register(new SalaryScribe());
+		assertNotSame(plan, index.getWritePlan(new Note("one"), VCardVersion.V4_0));
+	}
+
+	@Test
+	public void prepareParameters() {
+		ScribeIndex index = new ScribeIndex();
+		VCard vcard = new VCard();
+
+		//scribe does not modify the parameters
+		Note note = new Note("one");
+		WritePlan plan = index.getWritePlan(note, VCardVersion.V4_0);
+		assertFalse(plan.isPreparesParameters());
+		assertSame(note.getParameters(), plan.prepareParameters(note, vcard));
+
+		//scribe modifies the parameters
+		Email email = new Email("johndoe@example.com");
+		email.setPref(1);
+		plan = index.getWritePlan(email, VCardVersion.V3_0);
+		assertTrue(plan.isPreparesParameters());
+		VCardParameters parameters = plan.prepareParameters(email, vcard);
+		assertNotSame(email.getParameters(), parameters);
+		assertEquals(Integer.valueOf(1), email.getParameters().getPref());
+		assertNull(parameters.getPref());
+	}
+
+	@Test
+	public void isValueParameterNeeded() {
+		ScribeIndex index = new ScribeIndex();
+
+		WritePlan plan = index.getWritePlan(new Note("one"), VCardVersion.V4_0);
+		assertFalse(plan.isValueParameterNeeded(null));
+		assertFalse(plan.isValueParameterNeeded(VCardDataType.TEXT));
+		assertTrue(plan.isValueParameterNeeded(VCardDataType.URI));
+
+		plan = index.getWritePlan(new Birthday("text"), VCardVersion.V4_0);
+		assertFalse(plan.isValueParameterNeeded(VCardDataType.DATE_AND_OR_TIME));
+		assertFalse(plan.isValueParameterNeeded(VCardDataType.DATE));
+		assertFalse(plan.isValueParameterNeeded(VCardDataType.DATE_TIME));
+		assertFalse(plan.isValueParameterNeeded(VCardDataType.TIME));
+		assertTrue(plan.isValueParameterNeeded(VCardDataType.TEXT));
+	}
+}
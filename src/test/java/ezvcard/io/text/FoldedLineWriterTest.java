@@ -139,6 +139,26 @@ public class FoldedLineWriterTest {
 		assertEquals("test\n\u00e4\u00f6\u00fc\u00df\ntest", codec.decode("test=0A=E4=F6=FC=DF=0Atest"));
 	}
 
+	@Test
+	public void write_char_sequences_of_different_lengths() throws Exception {
+		StringWriter sw = new StringWriter();
+		FoldedLineWriter writer = new FoldedLineWriter(sw);
+		writer.setLineLength(null);
+
+		StringBuilder expected = new StringBuilder();
+		for (int length : new int[] { 500, 3, 10000, 20 }) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < length; i++) {
+				sb.append((char) ('a' + (i % 26)));
+			}
+			writer.write(sb, false, null);
+			expected.append(sb);
+		}
+		writer.close();
+
+		assertEquals(expected.toString(), sw.toString());
+	}
+
 	@Test
 	public void write_surrogate_pair() throws Exception {
 		StringWriter sw = new StringWriter();
@@ -0,0 +1,318 @@
+package ezvcard.io.text;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ezvcard.VCard;
+import ezvcard.io.scribe.ScribeIndex;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class IncrementalVCardReaderTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void first_import() throws Exception {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"UID:1\r\n" +
+		"REV:20160101T000000Z\r\n" +
+		"FN:John Doe\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"FN:No UID\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		IncrementalVCardReader.Result result = read(new HashMap<String, String>(), str);
+		assertEquals(2, result.getAdded().size());
+		assertEquals("UID:1", result.getAdded().get(0));
+		assertTrue(result.getAdded().get(1).startsWith("HASH:"));
+		assertEquals(0, result.getModified().size());
+		assertEquals(0, result.getUnchanged().size());
+		assertEquals(0, result.getRemoved().size());
+
+		assertEquals(2, result.getVCards().size());
+		assertEquals("John Doe", result.getVCards().get("UID:1").getFormattedName().getValue());
+		assertEquals(0, result.getWarnings("UID:1").size());
+
+		Map<String, String> snapshot = result.getSnapshot();
+		assertEquals(2, snapshot.size());
+		assertEquals("REV:20160101T000000Z", snapshot.get("UID:1"));
+		String noUidKey = result.getAdded().get(1);
+		assertEquals(noUidKey, snapshot.get(noUidKey));
+	}
+
+	@Test
+	public void changes() throws Exception {
+		//@formatter:off
+		String before =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"UID:1\r\n" +
+		"REV:20160101T000000Z\r\n" +
+		"FN:John Doe\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"UID:2\r\n" +
+		"FN:Jane Doe\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"UID:3\r\n" +
+		"FN:Removed\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"UID:4\r\n" +
+		"FN:Unchanged\r\n" +
+		"END:VCARD\r\n";
+
+		//line endings are not significant
+		String after =
+		"BEGIN:VCARD\n" +
+		"VERSION:4.0\n" +
+		"UID:1\n" +
+		"REV:20160202T000000Z\n" +
+		"FN:John Doe\n" +
+		"END:VCARD\n" +
+		"BEGIN:VCARD\n" +
+		"VERSION:4.0\n" +
+		"UID:2\n" +
+		"FN:Jane Smith\n" +
+		"END:VCARD\n" +
+		"BEGIN:VCARD\n" +
+		"VERSION:4.0\n" +
+		"UID:4\n" +
+		"FN:Unchanged\n" +
+		"END:VCARD\n" +
+		"BEGIN:VCARD\n" +
+		"VERSION:4.0\n" +
+		"UID:5\n" +
+		"FN:New\n" +
+		"END:VCARD\n";
+		//@formatter:on
+
+		Map<String, String> snapshot = read(new HashMap<String, String>(), before).getSnapshot();
+		IncrementalVCardReader.Result result = read(snapshot, after);
+
+		assertEquals(asList("UID:5"), result.getAdded());
+		assertEquals(asList("UID:1", "UID:2"), result.getModified());
+		assertEquals(asList("UID:4"), result.getUnchanged());
+		assertEquals(asList("UID:3"), result.getRemoved());
+
+		assertEquals(asList("UID:1", "UID:2", "UID:5"), new ArrayList<String>(result.getVCards().keySet()));
+		assertEquals("Jane Smith", result.getVCards().get("UID:2").getFormattedName().getValue());
+		assertEquals(4, result.getSnapshot().size());
+
+		//nothing changed
+		result = read(result.getSnapshot(), after);
+		assertEquals(asList("UID:1", "UID:2", "UID:4", "UID:5"), result.getUnchanged());
+		assertEquals(0, result.getVCards().size());
+	}
+
+	@Test
+	public void revision_not_used() throws Exception {
+		//@formatter:off
+		String before =
+		"BEGIN:VCARD\r\n" +
+		"UID:1\r\n" +
+		"REV:20160101T000000Z\r\n" +
+		"FN:John Doe\r\n" +
+		"END:VCARD\r\n";
+		String after =
+		"BEGIN:VCARD\r\n" +
+		"UID:1\r\n" +
+		"REV:20160101T000000Z\r\n" +
+		"FN:Johnny Doe\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		Map<String, String> snapshot = read(new HashMap<String, String>(), before).getSnapshot();
+		assertEquals(asList("UID:1"), read(snapshot, after).getUnchanged());
+
+		IncrementalVCardReader reader = new IncrementalVCardReader(new HashMap<String, String>());
+		reader.setRevisionUsed(false);
+		snapshot = reader.read(new ByteArrayInputStream(before.getBytes("UTF-8"))).getSnapshot();
+
+		reader = new IncrementalVCardReader(snapshot);
+		reader.setRevisionUsed(false);
+		IncrementalVCardReader.Result result = reader.read(new ByteArrayInputStream(after.getBytes("UTF-8")));
+		assertEquals(asList("UID:1"), result.getModified());
+		VCard vcard = result.getVCards().get("UID:1");
+		assertEquals("Johnny Doe", vcard.getFormattedName().getValue());
+	}
+
+	@Test
+	public void duplicate_keys() throws Exception {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+		"UID:1\r\n" +
+		"FN:One\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"UID:1\r\n" +
+		"FN:Two\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"UID:1\r\n" +
+		"FN:Two\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"FN:No UID\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"FN:No UID\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		IncrementalVCardReader.Result result = read(new HashMap<String, String>(), str);
+		List<String> added = result.getAdded();
+		assertEquals(5, added.size());
+		assertEquals(5, result.getSnapshot().size());
+
+		assertEquals("UID:1", added.get(0));
+		assertTrue(added.get(1).matches("DUP:[0-9a-f]+:1"));
+		assertTrue(added.get(2).matches("DUP:[0-9a-f]+-2:1"));
+		assertTrue(added.get(3).matches("HASH:[0-9a-f]+"));
+		assertTrue(added.get(4).matches("HASH:[0-9a-f]+-2"));
+	}
+
+	/**
+	 * Keys that were generated for duplicate UIDs must not collide with other
+	 * UIDs.
+	 */
+	@Test
+	public void duplicate_keys_do_not_collide_with_uids() throws Exception {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+		"UID:foo\r\n" +
+		"FN:One\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"UID:foo\r\n" +
+		"FN:Two\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"FN:No UID\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		IncrementalVCardReader.Result result = read(new HashMap<String, String>(), str);
+		List<String> keys = result.getAdded();
+		assertEquals(3, keys.size());
+
+		/*
+		 * Add vCards whose UIDs are the same as the keys that were just
+		 * generated.
+		 */
+		StringBuilder sb = new StringBuilder(str);
+		sb.append("BEGIN:VCARD\r\nUID:foo#2\r\nEND:VCARD\r\n");
+		for (String key : keys) {
+			sb.append("BEGIN:VCARD\r\nUID:").append(key).append("\r\nEND:VCARD\r\n");
+		}
+
+		result = read(new HashMap<String, String>(), sb.toString());
+		assertEquals(7, result.getAdded().size());
+		assertEquals(7, result.getSnapshot().size());
+		assertEquals(7, result.getVCards().size());
+		assertEquals(keys, result.getAdded().subList(0, 3));
+	}
+
+	@Test
+	public void duplicate_keys_first_removed() throws Exception {
+		//@formatter:off
+		String first =
+		"BEGIN:VCARD\r\n" +
+		"UID:foo\r\n" +
+		"FN:One\r\n" +
+		"END:VCARD\r\n";
+		String second =
+		"BEGIN:VCARD\r\n" +
+		"UID:foo\r\n" +
+		"FN:Two\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		IncrementalVCardReader.Result result = read(new HashMap<String, String>(), first + second);
+		String firstKey = result.getAdded().get(0);
+		String secondKey = result.getAdded().get(1);
+
+		result = read(result.getSnapshot(), second);
+		assertEquals(0, result.getAdded().size());
+		assertEquals(0, result.getModified().size());
+		assertEquals(asList(secondKey), result.getUnchanged());
+		assertEquals(asList(firstKey), result.getRemoved());
+		assertEquals(0, result.getVCards().size());
+
+		//nothing changed
+		result = read(result.getSnapshot(), second);
+		assertEquals(asList(secondKey), result.getUnchanged());
+	}
+
+	@Test
+	public void settings() {
+		IncrementalVCardReader reader = new IncrementalVCardReader(new HashMap<String, String>());
+		assertEquals(Charset.defaultCharset(), reader.getCharset());
+		assertTrue(reader.isRevisionUsed());
+
+		reader.setCharset(UTF8);
+		assertEquals(UTF8, reader.getCharset());
+
+		ScribeIndex index = new ScribeIndex();
+		reader.setScribeIndex(index);
+		assertEquals(index, reader.getScribeIndex());
+	}
+
+	private static IncrementalVCardReader.Result read(Map<String, String> snapshot, String str) throws Exception {
+		IncrementalVCardReader reader = new IncrementalVCardReader(snapshot);
+		reader.setCharset(UTF8);
+		return reader.read(new ByteArrayInputStream(str.getBytes("UTF-8")));
+	}
+}
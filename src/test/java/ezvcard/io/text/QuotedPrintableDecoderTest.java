@@ -0,0 +1,131 @@
+package ezvcard.io.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import ezvcard.util.org.apache.commons.codec.DecoderException;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class QuotedPrintableDecoderTest {
+	private final Charset utf8 = Charset.forName("UTF-8");
+	private final Charset latin1 = Charset.forName("ISO-8859-1");
+
+	@Test
+	public void decode() throws Exception {
+		QuotedPrintableDecoder decoder = new QuotedPrintableDecoder(null);
+
+		assertEquals("", decoder.decode("", utf8));
+		assertEquals("plain text", decoder.decode("plain text", utf8));
+		assertEquals("a\r\nb", decoder.decode("a=0D=0Ab", utf8));
+		assertEquals("\u00e4\u00f6\u00fc\u00df", decoder.decode("=C3=A4=C3=B6=c3=bc=C3=9F", utf8));
+		assertEquals("\u00e4\u00f6\u00fc\u00df", decoder.decode("=E4=F6=FC=DF", latin1));
+	}
+
+	@Test
+	public void decode_malformed_octets() throws Exception {
+		QuotedPrintableDecoder decoder = new QuotedPrintableDecoder(null);
+		assertEquals("a\ufffdb", decoder.decode("a=C3b", utf8));
+	}
+
+	@Test
+	public void decode_large_value() throws Exception {
+		QuotedPrintableDecoder decoder = new QuotedPrintableDecoder(null);
+
+		StringBuilder encoded = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			encoded.append("=C3=A4");
+			expected.append('\u00e4');
+		}
+
+		assertEquals(expected.toString(), decoder.decode(encoded.toString(), utf8));
+
+		//buffers are re-created
+		assertEquals("\u00e4", decoder.decode("=C3=A4", utf8));
+	}
+
+	@Test
+	public void decode_raw_octets() throws Exception {
+		//the raw UTF-8 octets were read using ISO-8859-1
+		QuotedPrintableDecoder decoder = new QuotedPrintableDecoder(latin1);
+		assertEquals("a\u00e4\u00f6\u00fc\u00df", decoder.decode("a\u00c3\u00a4\u00c3\u00b6=C3=BC=C3=9F", utf8));
+
+		//stream encoding unknown, so the characters are kept as-is
+		decoder = new QuotedPrintableDecoder(null);
+		assertEquals("a\u00e4\u00f6\u00fc\u00df", decoder.decode("a\u00e4\u00f6=C3=BC=C3=9F", utf8));
+	}
+
+	@Test
+	public void decode_invalid() throws Exception {
+		QuotedPrintableDecoder decoder = new QuotedPrintableDecoder(null);
+
+		//@formatter:off
+		String values[] = {
+			"test=nnnn",
+			"test=",
+			"test=A",
+			"test=\u0661\u0662" //non-ASCII digits
+		};
+		//@formatter:on
+
+		for (String value : values) {
+			try {
+				decoder.decode(value, utf8);
+				fail("Expected DecoderException for: " + value);
+			} catch (DecoderException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test
+	public void charset() {
+		QuotedPrintableDecoder decoder = new QuotedPrintableDecoder(null);
+
+		Charset charset = decoder.charset("UTF-8");
+		assertEquals(utf8, charset);
+		assertSame(charset, decoder.charset("UTF-8"));
+		assertEquals(latin1, decoder.charset("iso-8859-1"));
+
+		assertNull(decoder.charset("invalid name!"));
+		assertNull(decoder.charset("unsupported"));
+		assertNull(decoder.charset("unsupported"));
+	}
+}
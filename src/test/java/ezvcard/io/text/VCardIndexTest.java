@@ -0,0 +1,296 @@
+package ezvcard.io.text;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ezvcard.VCard;
+import ezvcard.VCardVersion;
+import ezvcard.util.IOUtils;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class VCardIndexTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private File file;
+
+	//@formatter:off
+	private final String str =
+	"garbage before the first vCard\r\n" +
+	"BEGIN:VCARD\r\n" +
+	"VERSION:4.0\r\n" +
+	"UID:urn:uuid:1\r\n" +
+	"REV:20160101T000000Z\r\n" +
+	"FN:Doe\\, John\r\n" +
+	"EMAIL:jdoe@example.com\r\n" +
+	"EMAIL:John.Doe@Example.org\r\n" +
+	"END:VCARD\r\n" +
+	"BEGIN:VCARD\n" +
+	"VERSION:2.1\n" +
+	"UID:urn:uuid:2\n" +
+	"FN;ENCODING=QUOTED-PRINTABLE;CHARSET=UTF-8:Jos=C3=A9\n" +
+	"AGENT:\n" +
+	"BEGIN:VCARD\n" +
+	"VERSION:2.1\n" +
+	"UID:urn:uuid:agent\n" +
+	"FN:Agent\n" +
+	"EMAIL:agent@example.com\n" +
+	"END:VCARD\n" +
+	"END:VCARD\n" +
+	"BEGIN:VCARD\r\n" +
+	"VERSION:3.0\r\n" +
+	"N:Doe;Jane;;;\r\n" +
+	"FN:Jané\r\n" +
+	" Doe\r\n" +
+	"end:vcard";
+	//@formatter:on
+
+	@Before
+	public void before() throws Exception {
+		file = tempFolder.newFile("contacts.vcf");
+		write(file, str);
+	}
+
+	@Test
+	public void build() throws Exception {
+		VCardIndex index = VCardIndex.build(file, UTF8);
+		assertEquals(file, index.getFile());
+		assertEquals(UTF8, index.getCharset());
+		assertFalse(index.isStale());
+
+		List<VCardIndex.Entry> entries = index.getEntries();
+		assertEquals(3, entries.size());
+
+		VCardIndex.Entry entry = entries.get(0);
+		assertEquals("urn:uuid:1", entry.getUid());
+		assertEquals("20160101T000000Z", entry.getRevision());
+		assertEquals("Doe, John", entry.getFormattedName());
+		assertEquals(asList("jdoe@example.com", "John.Doe@Example.org"), entry.getEmails());
+		assertBlock(entry, "BEGIN:VCARD\r\nVERSION:4.0", "END:VCARD");
+
+		entry = entries.get(1);
+		assertEquals("urn:uuid:2", entry.getUid());
+		assertNull(entry.getRevision());
+		assertEquals("José", entry.getFormattedName());
+		assertEquals(asList(), entry.getEmails());
+		assertBlock(entry, "BEGIN:VCARD\nVERSION:2.1\nUID:urn:uuid:2", "END:VCARD\nEND:VCARD");
+
+		entry = entries.get(2);
+		assertNull(entry.getUid());
+		assertEquals("JanéDoe", entry.getFormattedName());
+		assertBlock(entry, "BEGIN:VCARD\r\nVERSION:3.0", "end:vcard");
+	}
+
+	@Test
+	public void find() throws Exception {
+		VCardIndex index = VCardIndex.build(file, UTF8);
+
+		assertEquals("Doe, John", index.findByUid("urn:uuid:1").getFormattedName());
+		assertNull(index.findByUid("urn:uuid:agent"));
+		assertNull(index.findByUid("urn:uuid:3"));
+
+		assertEquals(1, index.findByFormattedName("José").size());
+		assertEquals(0, index.findByFormattedName("Agent").size());
+
+		assertEquals("urn:uuid:1", index.findByEmail("john.doe@example.ORG").get(0).getUid());
+		assertEquals(0, index.findByEmail("agent@example.com").size());
+	}
+
+	@Test
+	public void read() throws Exception {
+		VCardIndex index = VCardIndex.build(file, UTF8);
+
+		VCard vcard = index.read(index.findByUid("urn:uuid:2"));
+		assertEquals(VCardVersion.V2_1, vcard.getVersion());
+		assertEquals("José", vcard.getFormattedName().getValue());
+		assertEquals("Agent", vcard.getAgent().getVCard().getFormattedName().getValue());
+
+		List<VCardIndex.Entry> entries = index.getEntries();
+		List<VCard> vcards = index.read(asList(entries.get(2), entries.get(0), entries.get(2)));
+		assertEquals(3, vcards.size());
+		assertEquals("JanéDoe", vcards.get(0).getFormattedName().getValue());
+		assertEquals("Doe, John", vcards.get(1).getFormattedName().getValue());
+		assertEquals("JanéDoe", vcards.get(2).getFormattedName().getValue());
+	}
+
+	@Test
+	public void save_load() throws Exception {
+		VCardIndex index = VCardIndex.build(file, UTF8);
+		index.save();
+		assertTrue(VCardIndex.getSidecarFile(file).isFile());
+
+		VCardIndex loaded = VCardIndex.load(file);
+		assertEquals(UTF8, loaded.getCharset());
+		assertFalse(loaded.isStale());
+		assertEquals(index.getEntries().size(), loaded.getEntries().size());
+		for (int i = 0; i < index.getEntries().size(); i++) {
+			VCardIndex.Entry expected = index.getEntries().get(i);
+			VCardIndex.Entry actual = loaded.getEntries().get(i);
+			assertEquals(expected.getOffset(), actual.getOffset());
+			assertEquals(expected.getLength(), actual.getLength());
+			assertEquals(expected.getUid(), actual.getUid());
+			assertEquals(expected.getRevision(), actual.getRevision());
+			assertEquals(expected.getFormattedName(), actual.getFormattedName());
+			assertEquals(expected.getEmails(), actual.getEmails());
+		}
+
+		assertEquals("Doe, John", loaded.read(loaded.findByEmail("jdoe@example.com").get(0)).getFormattedName().getValue());
+	}
+
+	@Test
+	public void load_invalid() throws Exception {
+		File indexFile = tempFolder.newFile();
+		write(indexFile, "not an index");
+		try {
+			VCardIndex.load(file, indexFile);
+			fail();
+		} catch (IOException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void load_huge_count() throws Exception {
+		VCardIndex.build(file, UTF8).save();
+		File sidecar = VCardIndex.getSidecarFile(file);
+		byte[] data = IOUtils.toByteArray(new FileInputStream(sidecar), true);
+
+		//replace the entry count, which comes right after the header, with a count that's larger than the file
+		int header = 6 + 1 + 2 + "UTF-8".length() + 8 + 8;
+		assertEquals(3, data[header]);
+		byte[] count = { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 };
+		OutputStream out = new FileOutputStream(sidecar);
+		try {
+			out.write(data, 0, header);
+			out.write(count);
+			out.write(data, header + 1, data.length - header - 1);
+		} finally {
+			out.close();
+		}
+
+		try {
+			VCardIndex.load(file);
+			fail();
+		} catch (IOException e) {
+			//expected
+		}
+
+		//index is rebuilt
+		VCardIndex index = VCardIndex.open(file, UTF8);
+		assertEquals(3, index.getEntries().size());
+		assertEquals(3, VCardIndex.load(file).getEntries().size());
+	}
+
+	@Test
+	public void save_replaces_file() throws Exception {
+		File sidecar = VCardIndex.getSidecarFile(file);
+		write(sidecar, "garbage");
+
+		VCardIndex.build(file, UTF8).save();
+		assertEquals(3, VCardIndex.load(file).getEntries().size());
+
+		//temporary file is not left behind
+		List<String> files = asList(tempFolder.getRoot().list());
+		assertEquals(2, files.size());
+		assertTrue(files.contains(file.getName()));
+		assertTrue(files.contains(sidecar.getName()));
+	}
+
+	@Test
+	public void open() throws Exception {
+		File sidecar = VCardIndex.getSidecarFile(file);
+		assertFalse(sidecar.exists());
+
+		VCardIndex index = VCardIndex.open(file, UTF8);
+		assertEquals(3, index.getEntries().size());
+		assertTrue(sidecar.isFile());
+
+		//file changes, so the index is rebuilt
+		write(file, "BEGIN:VCARD\r\nUID:urn:uuid:4\r\nEND:VCARD\r\n");
+		file.setLastModified(file.lastModified() + 2000);
+		assertTrue(index.isStale());
+
+		index = VCardIndex.open(file, UTF8);
+		assertEquals(1, index.getEntries().size());
+		assertEquals("urn:uuid:4", index.getEntries().get(0).getUid());
+		assertEquals(1, VCardIndex.load(file).getEntries().size());
+
+		//corrupt sidecar file is rebuilt
+		write(sidecar, "garbage");
+		index = VCardIndex.open(file, UTF8);
+		assertEquals(1, index.getEntries().size());
+	}
+
+	@Test
+	public void empty() throws Exception {
+		write(file, "");
+		VCardIndex index = VCardIndex.build(file, UTF8);
+		assertEquals(0, index.getEntries().size());
+	}
+
+	private void assertBlock(VCardIndex.Entry entry, String start, String end) throws Exception {
+		byte[] all = str.getBytes("UTF-8");
+		String block = new String(all, (int) entry.getOffset(), (int) entry.getLength(), "UTF-8");
+		assertTrue(block, block.startsWith(start));
+		assertTrue(block, block.endsWith(end));
+	}
+
+	private static void write(File file, String text) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package ezvcard.io.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ezvcard.VCard;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class VCardParseCacheTest {
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_invalid_entries() {
+		new VCardParseCache(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_invalid_weight() {
+		new VCardParseCache(10, 0);
+	}
+
+	@Test
+	public void parse() {
+		VCardParseCache cache = new VCardParseCache(10);
+		String text = vcard("John Doe");
+
+		List<VCard> first = cache.parse(text);
+		assertEquals(1, first.size());
+		assertEquals("John Doe", first.get(0).getFormattedName().getValue());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.size());
+		assertEquals(text.length(), cache.getWeight());
+
+		//modifying the returned vCard does not affect the cache
+		first.get(0).setFormattedName("Changed");
+
+		List<VCard> second = cache.parse(text);
+		assertEquals("John Doe", second.get(0).getFormattedName().getValue());
+		assertNotSame(first.get(0), second.get(0));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void warnings() {
+		VCardParseCache cache = new VCardParseCache(10);
+		String text = "BEGIN:VCARD\r\nVERSION:4.0\r\nBDAY:invalid\r\nEND:VCARD\r\n";
+
+		List<List<String>> warnings = new ArrayList<List<String>>();
+		cache.parse(text, warnings);
+		assertEquals(1, warnings.size());
+		assertEquals(1, warnings.get(0).size());
+
+		warnings = new ArrayList<List<String>>();
+		cache.parse(text, warnings);
+		assertEquals(1, warnings.size());
+		assertEquals(1, warnings.get(0).size());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void evict_entries() {
+		VCardParseCache cache = new VCardParseCache(2);
+		String one = vcard("One"), two = vcard("Two"), three = vcard("Three");
+
+		cache.parse(one);
+		cache.parse(two);
+		cache.parse(one); //"two" is now the least recently used
+		cache.parse(three);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+
+		cache.parse(one);
+		assertEquals(2, cache.getHitCount());
+		cache.parse(two);
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	public void evict_weight() {
+		String one = vcard("One"), two = vcard("Two");
+		VCardParseCache cache = new VCardParseCache(100, one.length() + two.length() - 1);
+
+		cache.parse(one);
+		cache.parse(two);
+		assertEquals(1, cache.size());
+		assertEquals(two.length(), cache.getWeight());
+		assertEquals(1, cache.getEvictionCount());
+
+		//an entry that is bigger than the limit on its own is still cached
+		cache = new VCardParseCache(100, 1);
+		cache.parse(one);
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void clear() {
+		VCardParseCache cache = new VCardParseCache(10);
+		cache.parse(vcard("One"));
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void empty() {
+		VCardParseCache cache = new VCardParseCache(10);
+		assertEquals(0, cache.parse("").size());
+		assertEquals(0, cache.parse("").size());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	private static String vcard(String fn) {
+		return "BEGIN:VCARD\r\nVERSION:4.0\r\nFN:" + fn + "\r\nEND:VCARD\r\n";
+	}
+}
@@ -0,0 +1,263 @@
+package ezvcard.io.text;
+
+import static ezvcard.util.TestUtils.assertWarnings;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Test;
+
+import ezvcard.VCard;
+import ezvcard.VCardVersion;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class VCardPushParserTest {
+	private final Charset utf8 = Charset.forName("UTF-8");
+
+	@Test
+	public void feed_one_character_at_a_time() throws Exception {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"FN:John\r\n" +
+		" Doe\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:3.0\r\n" +
+		"FN:Jane Doe\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		VCardPushParser parser = new VCardPushParser(utf8);
+		for (int i = 0; i < str.length(); i++) {
+			parser.feed(str.substring(i, i + 1));
+		}
+
+		VCard vcard = parser.readNext();
+		assertEquals(VCardVersion.V4_0, vcard.getVersion());
+		assertEquals("JohnDoe", vcard.getFormattedName().getValue());
+
+		vcard = parser.readNext();
+		assertEquals(VCardVersion.V3_0, vcard.getVersion());
+		assertEquals("Jane Doe", vcard.getFormattedName().getValue());
+
+		assertNull(parser.readNext());
+	}
+
+	@Test
+	public void vcard_available_after_end_line() {
+		VCardPushParser parser = new VCardPushParser(utf8);
+
+		parser.feed("BEGIN:VCARD\r\nVERSION:4.0\r\nFN:John Doe\r\nEND:VC");
+		assertTrue(parser.isPartial());
+		assertNull(parser.readNext());
+
+		parser.feed("ARD\r");
+		assertFalse(parser.isPartial());
+		assertEquals("John Doe", parser.readNext().getFormattedName().getValue());
+
+		parser.feed("\nBEGIN:VCARD\r\nVERSION:4.0\r\nFN:Jane Doe\r\nEND:VCARD\r\n");
+		assertEquals("Jane Doe", parser.readNext().getFormattedName().getValue());
+		assertNull(parser.readNext());
+	}
+
+	@Test
+	public void feed_bytes_split_character() throws Exception {
+		byte[] data = "BEGIN:VCARD\r\nVERSION:4.0\r\nFN:Jöhn Doe\r\nEND:VCARD\r\n".getBytes("UTF-8");
+
+		VCardPushParser parser = new VCardPushParser(utf8);
+		for (int i = 0; i < data.length; i++) {
+			parser.feed(data, i, 1);
+		}
+
+		assertEquals("Jöhn Doe", parser.readNext().getFormattedName().getValue());
+		assertNull(parser.readNext());
+	}
+
+	@Test
+	public void nested_vcard() {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:2.1\r\n" +
+		"FN:John Doe\r\n" +
+		"AGENT:\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:2.1\r\n" +
+		"FN:Agent 007\r\n" +
+		"END:VCARD\r\n" +
+		"NOTE:note\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		VCardPushParser parser = new VCardPushParser(utf8);
+		int split = str.indexOf("END:VCARD") + 5;
+		parser.feed(str.substring(0, split));
+		assertNull(parser.readNext());
+		parser.feed(str.substring(split, split + 10));
+		assertNull(parser.readNext());
+		parser.feed(str.substring(split + 10));
+
+		VCard vcard = parser.readNext();
+		assertEquals("John Doe", vcard.getFormattedName().getValue());
+		assertEquals("Agent 007", vcard.getAgent().getVCard().getFormattedName().getValue());
+		assertEquals("note", vcard.getNotes().get(0).getValue());
+		assertNull(parser.readNext());
+	}
+
+	@Test
+	public void quoted_printable_soft_line_break() {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:2.1\r\n" +
+		"NOTE;ENCODING=QUOTED-PRINTABLE:one=\r\n" +
+		"END:VCARD=0D=0Atwo\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		VCardPushParser parser = new VCardPushParser(utf8);
+		parser.feed(str.substring(0, 55));
+		assertNull(parser.readNext());
+		parser.feed(str.substring(55));
+
+		VCard vcard = parser.readNext();
+		assertEquals("oneEND:VCARD\r\ntwo", vcard.getNotes().get(0).getValue());
+		assertNull(parser.readNext());
+	}
+
+	@Test
+	public void quoted_printable_raw_octets() throws Exception {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:2.1\r\n" +
+		"NOTE;ENCODING=QUOTED-PRINTABLE;CHARSET=UTF-8:caf\u00e9 =C3=BC\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		//the raw UTF-8 octets are decoded using ISO-8859-1
+		byte[] data = str.getBytes("UTF-8");
+		VCardPushParser parser = new VCardPushParser(Charset.forName("ISO-8859-1"));
+		parser.feed(data, 0, data.length);
+
+		VCard vcard = parser.readNext();
+		assertEquals("caf\u00e9 \u00fc", vcard.getNotes().get(0).getValue());
+		assertNull(parser.readNext());
+	}
+
+	@Test
+	public void lines_outside_of_vcards_are_not_buffered() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		VCardPushParser parser = new VCardPushParser(utf8);
+		for (int i = 0; i < 200000; i++) {
+			String line = "junk line " + i + "\r\n";
+			sb.append(line);
+			parser.feed(line);
+			assertTrue(parser.getBufferedLength() < 32);
+		}
+
+		String str = "folded junk\r\n line\r\n";
+		sb.append(str);
+		parser.feed(str);
+		assertTrue(parser.getBufferedLength() < 32);
+		assertFalse(parser.isPartial());
+
+		str = "BEGIN:VCARD\r\nVERSION:4.0\r\nBDAY:invalid\r\nEND:VCARD\r\n";
+		sb.append(str);
+		parser.feed(str);
+		VCard vcard = parser.readNext();
+		assertEquals("invalid", vcard.getBirthday().getText());
+		assertEquals(0, parser.getBufferedLength());
+
+		//line numbers are still correct
+		VCardReader reader = new VCardReader(sb.toString());
+		reader.readNext();
+		assertEquals(1, reader.getWarnings().size());
+		assertEquals(reader.getWarnings(), parser.getWarnings());
+	}
+
+	@Test
+	public void close_incomplete_vcard() {
+		VCardPushParser parser = new VCardPushParser(utf8);
+		parser.feed("BEGIN:VCARD\r\nVERSION:4.0\r\nFN:John Doe\r\n");
+		assertNull(parser.readNext());
+
+		parser.close();
+		List<VCard> vcards = parser.readAll();
+		assertEquals(1, vcards.size());
+		assertEquals("John Doe", vcards.get(0).getFormattedName().getValue());
+	}
+
+	@Test
+	public void warnings_line_numbers() throws Exception {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"ADR:;;\r\n" +
+		" ;\r\n" +
+		"BDAY:invalid\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		VCardReader reader = new VCardReader(str);
+		reader.readNext();
+		reader.readNext();
+		List<String> expected = reader.getWarnings();
+		assertWarnings(1, expected);
+
+		VCardPushParser parser = new VCardPushParser(utf8);
+		parser.feed(str);
+		parser.readNext();
+		assertWarnings(0, parser.getWarnings());
+		parser.readNext();
+		assertEquals(expected, parser.getWarnings());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void feed_after_close() {
+		VCardPushParser parser = new VCardPushParser(utf8);
+		parser.close();
+		parser.feed("BEGIN:VCARD");
+	}
+}
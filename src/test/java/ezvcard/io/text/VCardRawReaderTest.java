@@ -6,7 +6,9 @@ import static ezvcard.VCardVersion.V4_0;
 import static ezvcard.util.StringUtils.NEWLINE;
 import static ezvcard.util.TestUtils.each;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import java.io.StringReader;
@@ -14,6 +16,7 @@ import java.io.StringReader;
 import org.junit.Test;
 
 import ezvcard.VCardVersion;
+import ezvcard.util.StringPool;
 
 /*
  Copyright (c) 2012-2016, Michael Angstadt
@@ -845,6 +848,52 @@ public class VCardRawReaderTest {
 		assertNull(reader.readLine());
 	}
 
+	@Test
+	public void string_pool() throws Throwable {
+		//@formatter:off
+		String vcard =
+		"item1.TEL;TYPE=home:555-1234\r\n" +
+		"item1.TEL;TYPE=home:555-5678\r\n";
+		//@formatter:on
+		VCardRawReader reader = create(vcard);
+
+		VCardRawLine line1 = reader.readLine();
+		VCardRawLine line2 = reader.readLine();
+		assertEquals(line("TEL").group("item1").param("TYPE", "home").value("555-5678").build(), line2);
+
+		assertSame(line1.getGroup(), line2.getGroup());
+		assertSame(line1.getName(), line2.getName());
+		assertSame(line1.getParameters().first("TYPE"), line2.getParameters().first("TYPE"));
+		assertNotSame(line1.getValue(), line2.getValue());
+	}
+
+	@Test
+	public void setStringPool() throws Throwable {
+		StringPool pool = new StringPool();
+		VCardRawReader reader1 = create("NOTE:one");
+		reader1.setStringPool(pool);
+		VCardRawReader reader2 = create("NOTE:two");
+		reader2.setStringPool(pool);
+
+		assertSame(pool, reader1.getStringPool());
+		assertSame(reader1.readLine().getName(), reader2.readLine().getName());
+	}
+
+	@Test
+	public void setStringPool_null() throws Throwable {
+		VCardRawReader reader = create("item1.NOTE;TYPE=home:one\r\nitem1.NOTE;TYPE=home:two");
+		reader.setStringPool(null);
+		assertNull(reader.getStringPool());
+
+		VCardRawLine line1 = reader.readLine();
+		assertEquals(line("NOTE").group("item1").param("TYPE", "home").value("one").build(), line1);
+		VCardRawLine line2 = reader.readLine();
+		assertEquals(line("NOTE").group("item1").param("TYPE", "home").value("two").build(), line2);
+
+		assertNotSame(line1.getGroup(), line2.getGroup());
+		assertNotSame(line1.getName(), line2.getName());
+	}
+
 	private static VCardRawReader create(String vcard) {
 		return new VCardRawReader(new StringReader(vcard));
 	}
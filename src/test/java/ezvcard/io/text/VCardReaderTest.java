@@ -14,6 +14,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -388,6 +391,37 @@ public class VCardReaderTest {
 		}
 	}
 
+	@Test
+	public void decodeQuotedPrintable_raw_octets() throws Exception {
+		/*
+		 * Some vCards include raw, non-ASCII octets in their quoted-printable
+		 * values. These must be decoded using the CHARSET parameter, not the
+		 * stream's character encoding.
+		 */
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+			"VERSION:2.1\r\n" +
+			"NOTE;ENCODING=QUOTED-PRINTABLE;CHARSET=UTF-8:\u00c3\u00a4\u00c3\u00b6=C3=BC=C3=9F\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+		Reader in = new InputStreamReader(new ByteArrayInputStream(str.getBytes("ISO-8859-1")), "ISO-8859-1");
+
+		VCardReader reader = new VCardReader(in);
+		VCardAsserter asserter = new VCardAsserter(reader);
+
+		asserter.next(V2_1);
+
+		//@formatter:off
+		asserter.simpleProperty(Note.class)
+			.param("CHARSET", "UTF-8")
+			.value("\u00e4\u00f6\u00fc\u00df")
+		.noMore();
+		//@formatter:on
+
+		asserter.done();
+	}
+
 	@Test
 	public void unfold() throws Exception {
 		//@formatter:off
@@ -942,6 +976,43 @@ public class VCardReaderTest {
 		assertNoMoreVCards(reader);
 	}
 
+	@Test
+	public void embedded_vcard_state_restored() throws Exception {
+		//@formatter:off
+		String str =
+		"BEGIN:VCARD\r\n" +
+			"VERSION:3.0\r\n" +
+			"AGENT:BEGIN:VCARD\\nVERSION:2.1\\nFN:Agent\\n 007\\nEND:VCARD\\n\r\n" +
+			"WARNINGS:value\r\n" +
+			"NOTE:one\r\n" +
+			" two\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+			"VERSION:3.0\r\n" +
+			"FN:John Doe\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		VCardReader reader = new VCardReader(str);
+		reader.registerScribe(new WarningsScribe());
+
+		VCard vcard = reader.readNext();
+		assertVersion(V3_0, vcard);
+		assertEquals("onetwo", vcard.getNotes().get(0).getValue());
+		{
+			VCard agentVCard = vcard.getAgent().getVCard();
+			assertVersion(V2_1, agentVCard);
+			assertEquals("Agent007", agentVCard.getFormattedName().getValue());
+		}
+		assertEquals(Arrays.asList("Line 4 (WARNINGS property): one"), reader.getWarnings());
+
+		vcard = reader.readNext();
+		assertVersion(V3_0, vcard);
+		assertEquals("John Doe", vcard.getFormattedName().getValue());
+
+		assertNoMoreVCards(reader);
+	}
+
 	@Test
 	public void value_parameter() throws Exception {
 		//@formatter:off
@@ -0,0 +1,410 @@
+package ezvcard.io.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Test;
+
+import ezvcard.Ezvcard;
+import ezvcard.VCard;
+import ezvcard.VCardVersion;
+import ezvcard.io.json.JCardRawReader;
+import ezvcard.io.json.JCardRawWriter;
+import ezvcard.io.json.JCardWriter;
+import ezvcard.io.scribe.FormattedNameScribe;
+import ezvcard.io.scribe.ScribeIndex;
+import ezvcard.property.FormattedName;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class VCardTranscoderTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void toJCard() {
+		//@formatter:off
+		String text =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:3.0\r\n" +
+		"FN:John\\, Doe\r\n" +
+		"NICKNAME:Johnny,J\\,D\r\n" +
+		"N:Doe;John;;;\r\n" +
+		"item1.X-CUSTOM;X-PARAM=one:raw\\,value\r\n" +
+		"NOTE;ENCODING=QUOTED-PRINTABLE;CHARSET=UTF-8:caf=C3=A9\r\n" +
+		"MAILER:Outlook\r\n" +
+		"EMAIL;TYPE=internet,pref:john@example.com\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		VCardTranscoder transcoder = new VCardTranscoder();
+		String actual = transcoder.toJCard(text);
+
+		//@formatter:off
+		String expected =
+		"[[\"vcard\",[" +
+			"[\"version\",{},\"text\",\"4.0\"]," +
+			"[\"fn\",{},\"text\",\"John, Doe\"]," +
+			"[\"nickname\",{},\"text\",\"Johnny\",\"J,D\"]," +
+			"[\"n\",{},\"text\",[\"Doe\",\"John\",\"\",\"\",\"\"]]," +
+			"[\"x-custom\",{\"x-param\":\"one\",\"group\":\"item1\"},\"unknown\",\"raw\\\\,value\"]," +
+			"[\"note\",{\"charset\":\"UTF-8\"},\"text\",\"caf\u00e9\"]," +
+			"[\"email\",{\"type\":\"internet\",\"pref\":\"1\"},\"text\",\"john@example.com\"]" +
+		"]]]";
+		//@formatter:on
+
+		assertEquals(expected, actual);
+		assertEquals(0, transcoder.getWarnings().size());
+	}
+
+	@Test
+	public void nested_vcards() throws Throwable {
+		//@formatter:off
+		String text =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:2.1\r\n" +
+		"FN:John Doe\r\n" +
+		"AGENT:\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:2.1\r\n" +
+		"FN:Jane Doe\r\n" +
+		"END:VCARD\r\n" +
+		"NOTE:note\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"FN:Second\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		StringWriter sw = new StringWriter();
+		JCardRawWriter writer = new JCardRawWriter(sw, true);
+		VCardTranscoder transcoder = new VCardTranscoder();
+		int count = transcoder.toJCard(new StringReader(text), writer);
+		writer.close();
+
+		assertEquals(2, count);
+
+		//@formatter:off
+		String expected =
+		"[" +
+			"[\"vcard\",[" +
+				"[\"version\",{},\"text\",\"4.0\"]," +
+				"[\"fn\",{},\"text\",\"John Doe\"]," +
+				"[\"note\",{},\"text\",\"note\"]" +
+			"]]," +
+			"[\"vcard\",[" +
+				"[\"version\",{},\"text\",\"4.0\"]," +
+				"[\"fn\",{},\"text\",\"Second\"]" +
+			"]]" +
+		"]";
+		//@formatter:on
+		assertEquals(expected, sw.toString());
+	}
+
+	@Test
+	public void warnings() {
+		//@formatter:off
+		String text =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"BDAY:invalid\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		VCardTranscoder transcoder = new VCardTranscoder();
+		String actual = transcoder.toJCard(text);
+		assertEquals("[[\"vcard\",[[\"version\",{},\"text\",\"4.0\"],[\"bday\",{},\"text\",\"invalid\"]]]]", actual);
+		assertEquals(1, transcoder.getWarnings().size());
+	}
+
+	@Test
+	public void custom_scribe() {
+		//@formatter:off
+		String text =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"FN:John Doe\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		ScribeIndex index = new ScribeIndex();
+		index.register(new FormattedNameScribe() {
+			@Override
+			protected String _writeValue(FormattedName property) {
+				return property.getValue().toUpperCase();
+			}
+		});
+
+		VCardTranscoder transcoder = new VCardTranscoder();
+		transcoder.setScribeIndex(index);
+		String actual = transcoder.toJCard(text);
+		assertEquals("[[\"vcard\",[[\"version\",{},\"text\",\"4.0\"],[\"fn\",{},\"text\",\"JOHN DOE\"]]]]", actual);
+	}
+
+	@Test
+	public void no_vcards() {
+		VCardTranscoder transcoder = new VCardTranscoder();
+		assertEquals("", transcoder.toJCard("not a vCard"));
+	}
+
+	/**
+	 * Checks the output against what the typed API produces. The vCards are
+	 * compared instead of the JSON because the typed API groups the properties
+	 * by class.
+	 */
+	@Test
+	public void same_as_typed_api() throws Throwable {
+		//@formatter:off
+		String files[] = {
+			"John_Doe_ANDROID.vcf",
+			"John_Doe_BLACK_BERRY.vcf",
+			"John_Doe_EVOLUTION.vcf",
+			"John_Doe_GMAIL.vcf",
+			"John_Doe_IPHONE.vcf",
+			"John_Doe_MAC_ADDRESS_BOOK.vcf",
+			"gmail-list.vcf",
+			"rfc2426-example.vcf",
+			"rfc6350-example.vcf",
+			"thunderbird-MoreFunctionsForAddressBook-extension.vcf"
+		};
+		//@formatter:on
+
+		for (String file : files) {
+			List<VCard> expected;
+			{
+				StringWriter sw = new StringWriter();
+				JCardWriter writer = new JCardWriter(sw, true);
+				writer.setAddProdId(false);
+				VCardReader reader = new VCardReader(open(file));
+				reader.setDefaultQuotedPrintableCharset(UTF8);
+				try {
+					for (VCard vcard : reader.readAll()) {
+						writer.write(vcard);
+					}
+				} finally {
+					reader.close();
+					writer.close();
+				}
+				expected = Ezvcard.parseJson(sw.toString()).all();
+			}
+
+			List<VCard> actual;
+			{
+				StringWriter sw = new StringWriter();
+				JCardRawWriter writer = new JCardRawWriter(sw, true);
+				VCardTranscoder transcoder = new VCardTranscoder();
+				transcoder.setDefaultQuotedPrintableCharset(UTF8);
+				Reader reader = open(file);
+				try {
+					transcoder.toJCard(reader, writer);
+				} finally {
+					reader.close();
+					writer.close();
+				}
+				actual = Ezvcard.parseJson(sw.toString()).all();
+			}
+
+			assertFalse(file, actual.isEmpty());
+			assertEquals(file, expected, actual);
+		}
+	}
+
+	@Test
+	public void toText() {
+		//@formatter:off
+		String json =
+		"[\"vcard\",[" +
+			"[\"version\",{},\"text\",\"4.0\"]," +
+			"[\"fn\",{},\"text\",\"John, Doe\"]," +
+			"[\"nickname\",{},\"text\",\"Johnny\",\"J,D\"]," +
+			"[\"n\",{},\"text\",[\"Doe\",\"John\",\"\",\"\",\"\"]]," +
+			"[\"x-custom\",{\"x-param\":\"one\",\"group\":\"item1\"},\"unknown\",\"raw\\\\,value\"]," +
+			"[\"note\",{},\"text\",\"line\\nbreak\"]," +
+			"[\"email\",{\"type\":\"work\"},\"text\",\"john@example.com\"]," +
+			"[\"bday\",{},\"date\",\"1980-03-22\"]" +
+		"]]";
+		//@formatter:on
+
+		VCardTranscoder transcoder = new VCardTranscoder();
+		String actual = transcoder.toText(json);
+
+		//@formatter:off
+		String expected =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"FN:John\\, Doe\r\n" +
+		"NICKNAME:Johnny,J\\,D\r\n" +
+		"N:Doe;John;;;\r\n" +
+		"item1.x-custom;X-PARAM=one:raw\\,value\r\n" +
+		"NOTE:line\\nbreak\r\n" +
+		"EMAIL;TYPE=work:john@example.com\r\n" +
+		"BDAY:19800322\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		assertEquals(expected, actual);
+		assertEquals(0, transcoder.getWarnings().size());
+	}
+
+	@Test
+	public void toText_warnings() {
+		//@formatter:off
+		String json =
+		"[" +
+			"[\"vcard\",[" +
+				"[\"fn\",{},\"text\",\"John\"]" +
+			"]]," +
+			"[\"vcard\",[" +
+				"[\"version\",{},\"text\",\"3.0\"]," +
+				"[\"fn\",{},\"text\",\"Jane\"]" +
+			"]]" +
+		"]";
+		//@formatter:on
+
+		VCardTranscoder transcoder = new VCardTranscoder();
+		String actual = transcoder.toText(json);
+
+		//@formatter:off
+		String expected =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"FN:John\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"FN:Jane\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		assertEquals(expected, actual);
+		assertEquals(2, transcoder.getWarnings().size());
+	}
+
+	@Test
+	public void toText_custom_scribe() {
+		ScribeIndex index = new ScribeIndex();
+		index.register(new FormattedNameScribe() {
+			@Override
+			protected String _writeValue(FormattedName property) {
+				return property.getValue().toUpperCase();
+			}
+		});
+
+		VCardTranscoder transcoder = new VCardTranscoder();
+		transcoder.setScribeIndex(index);
+		String actual = transcoder.toText("[\"vcard\",[[\"version\",{},\"text\",\"4.0\"],[\"fn\",{},\"text\",\"John Doe\"]]]");
+		assertEquals("BEGIN:VCARD\r\nVERSION:4.0\r\nFN:JOHN DOE\r\nEND:VCARD\r\n", actual);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void toText_wrong_version() throws Throwable {
+		VCardTranscoder transcoder = new VCardTranscoder();
+		transcoder.toText(new JCardRawReader(new StringReader("")), new VCardRawWriter(new StringWriter(), VCardVersion.V3_0));
+	}
+
+	/**
+	 * Checks the output against what the typed API produces. The vCards are
+	 * compared instead of the text because the typed API groups the
+	 * properties by class.
+	 */
+	@Test
+	public void toText_same_as_typed_api() throws Throwable {
+		//@formatter:off
+		String files[] = {
+			"John_Doe_ANDROID.vcf",
+			"John_Doe_BLACK_BERRY.vcf",
+			"John_Doe_EVOLUTION.vcf",
+			"John_Doe_GMAIL.vcf",
+			"John_Doe_IPHONE.vcf",
+			"John_Doe_MAC_ADDRESS_BOOK.vcf",
+			"gmail-list.vcf",
+			"rfc2426-example.vcf",
+			"rfc6350-example.vcf",
+			"thunderbird-MoreFunctionsForAddressBook-extension.vcf"
+		};
+		//@formatter:on
+
+		for (String file : files) {
+			String json;
+			{
+				StringWriter sw = new StringWriter();
+				JCardWriter writer = new JCardWriter(sw, true);
+				writer.setAddProdId(false);
+				VCardReader reader = new VCardReader(open(file));
+				reader.setDefaultQuotedPrintableCharset(UTF8);
+				try {
+					for (VCard vcard : reader.readAll()) {
+						writer.write(vcard);
+					}
+				} finally {
+					reader.close();
+					writer.close();
+				}
+				json = sw.toString();
+			}
+
+			List<VCard> expected;
+			{
+				StringWriter sw = new StringWriter();
+				VCardWriter writer = new VCardWriter(sw, VCardVersion.V4_0);
+				writer.setAddProdId(false);
+				for (VCard vcard : Ezvcard.parseJson(json).all()) {
+					writer.write(vcard);
+				}
+				writer.close();
+				expected = Ezvcard.parse(sw.toString()).all();
+			}
+
+			List<VCard> actual;
+			{
+				VCardTranscoder transcoder = new VCardTranscoder();
+				actual = Ezvcard.parse(transcoder.toText(json)).all();
+			}
+
+			assertFalse(file, actual.isEmpty());
+			assertEquals(file, expected, actual);
+		}
+	}
+
+	private static Reader open(String file) throws IOException {
+		return new InputStreamReader(VCardTranscoderTest.class.getResourceAsStream(file), UTF8);
+	}
+}
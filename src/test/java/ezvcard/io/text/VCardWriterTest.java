@@ -6,6 +6,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.File;
 import java.io.StringWriter;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Rule;
@@ -205,6 +206,103 @@ public class VCardWriterTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void embeddedVCard_folded() throws Throwable {
+		VCard vcard = new VCard();
+		VCard agentVcard = new VCard();
+		agentVcard.addNote("Make sure that it properly folds long lines, which are part of an embedded AGENT; a version 3.0 vCard.");
+		vcard.setAgent(new Agent(agentVcard));
+
+		StringWriter sw = new StringWriter();
+		VCardWriter vcw = new VCardWriter(sw, VCardVersion.V3_0);
+		vcw.setAddProdId(false);
+		vcw.getRawWriter().getFoldedLineWriter().setNewline("\n");
+		vcw.write(vcard);
+		String actual = sw.toString();
+
+		//@formatter:off
+		String expected =
+		"BEGIN:VCARD\n" +
+			"VERSION:3.0\n" +
+			"AGENT:BEGIN:VCARD\\nVERSION:3.0\\nNOTE:Make sure that it properly folds long \n" +
+			" lines\\\\\\, which are part of an embedded AGENT\\\\\\; a version 3.0 vCard.\\nEN\n" +
+			" D:VCARD\\n\n" +
+		"END:VCARD\n";
+		//@formatter:on
+
+		assertEquals(expected, actual);
+
+		VCardReader reader = new VCardReader(actual);
+		VCard parsed = reader.readNext();
+		assertEquals(agentVcard.getNotes().get(0).getValue(), parsed.getAgent().getVCard().getNotes().get(0).getValue());
+	}
+
+	@Test
+	public void embeddedVCard_multiple() throws Throwable {
+		VCard vcard1 = new VCard();
+		VCard agentVcard = new VCard();
+		agentVcard.setFormattedName("Agent 007");
+		vcard1.setAgent(new Agent(agentVcard));
+
+		VCard vcard2 = new VCard();
+		agentVcard = new VCard();
+		agentVcard.setFormattedName("Agent 009");
+		vcard2.setAgent(new Agent(agentVcard));
+
+		StringWriter sw = new StringWriter();
+		VCardWriter vcw = new VCardWriter(sw, VCardVersion.V3_0);
+		vcw.setAddProdId(false);
+		vcw.write(vcard1);
+		vcw.write(vcard2);
+		String actual = sw.toString();
+
+		//@formatter:off
+		String expected =
+		"BEGIN:VCARD\r\n" +
+			"VERSION:3.0\r\n" +
+			"AGENT:BEGIN:VCARD\\nVERSION:3.0\\nFN:Agent 007\\nEND:VCARD\\n\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+			"VERSION:3.0\r\n" +
+			"AGENT:BEGIN:VCARD\\nVERSION:3.0\\nFN:Agent 009\\nEND:VCARD\\n\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void writeAll() throws Throwable {
+		VCard vcard1 = new VCard();
+		vcard1.setFormattedName("John Doe");
+		vcard1.addNote("one");
+
+		VCard vcard2 = new VCard();
+		vcard2.setFormattedName("Jane Doe");
+
+		StringWriter sw = new StringWriter();
+		VCardWriter vcw = new VCardWriter(sw, VCardVersion.V4_0);
+		vcw.setAddProdId(false);
+		vcw.writeAll(Arrays.asList(vcard1, vcard2));
+		vcw.flush();
+		String actual = sw.toString();
+
+		//@formatter:off
+		String expected =
+		"BEGIN:VCARD\r\n" +
+			"VERSION:4.0\r\n" +
+			"FN:John Doe\r\n" +
+			"NOTE:one\r\n" +
+		"END:VCARD\r\n" +
+		"BEGIN:VCARD\r\n" +
+			"VERSION:4.0\r\n" +
+			"FN:Jane Doe\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		assertEquals(expected, actual);
+	}
+
 	@Test
 	public void skipMeException() throws Throwable {
 		VCard vcard = new VCard();
@@ -0,0 +1,267 @@
+package ezvcard.io.xml;
+
+import static ezvcard.VCardVersion.V4_0;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ezvcard.VCard;
+import ezvcard.VCardDataType;
+import ezvcard.property.RawProperty;
+import ezvcard.util.IOUtils;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class XCardStreamDocumentTest {
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	//@formatter:off
+	private final String xml =
+	"<vcards xmlns=\"" + V4_0.getXmlNamespace() + "\">" +
+		"<vcard><fn><text>John Doe</text></fn></vcard>" +
+		"<vcard><fn><text>Jane Doe</text></fn></vcard>" +
+	"</vcards>";
+	//@formatter:on
+
+	@Test
+	public void getVCards_string() throws Exception {
+		XCardStreamDocument xcard = new XCardStreamDocument(xml);
+		assertNames(xcard.getVCards(), "John Doe", "Jane Doe");
+
+		//can be read again
+		assertNames(xcard.getVCards(), "John Doe", "Jane Doe");
+	}
+
+	@Test
+	public void getVCards_file() throws Exception {
+		File file = tempFolder.newFile();
+		Writer writer = IOUtils.utf8Writer(file);
+		writer.write(xml);
+		writer.close();
+
+		XCardStreamDocument xcard = new XCardStreamDocument(file);
+		assertNames(xcard.getVCards(), "John Doe", "Jane Doe");
+		assertNames(xcard.getVCards(), "John Doe", "Jane Doe");
+	}
+
+	@Test
+	public void getVCards_input_stream() throws Exception {
+		XCardStreamDocument xcard = new XCardStreamDocument(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+		assertNames(xcard.getVCards(), "John Doe", "Jane Doe");
+
+		try {
+			xcard.getVCards().iterator();
+			fail();
+		} catch (IllegalStateException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void getVCards_lazy() throws Exception {
+		XCardStreamDocument xcard = new XCardStreamDocument(xml);
+		Iterator<VCard> it = xcard.getVCards().iterator();
+
+		assertTrue(it.hasNext());
+		assertTrue(it.hasNext());
+		assertEquals("John Doe", it.next().getFormattedName().getValue());
+		assertEquals("Jane Doe", it.next().getFormattedName().getValue());
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void getVCards_close_early() throws Exception {
+		final boolean[] streamClosed = { false };
+		InputStream in = new ByteArrayInputStream(xml.getBytes("UTF-8")) {
+			@Override
+			public void close() throws IOException {
+				streamClosed[0] = true;
+				super.close();
+			}
+		};
+
+		Set<Thread> before = readThreads();
+
+		XCardStreamDocument xcard = new XCardStreamDocument(in);
+		XCardStreamDocument.VCards vcards = xcard.getVCards();
+		try {
+			for (VCard vcard : vcards) {
+				assertEquals("John Doe", vcard.getFormattedName().getValue());
+				break;
+			}
+
+			Set<Thread> started = readThreads();
+			started.removeAll(before);
+			assertEquals(1, started.size());
+		} finally {
+			vcards.close();
+		}
+
+		assertTrue(streamClosed[0]);
+
+		Set<Thread> after = readThreads();
+		after.removeAll(before);
+		for (Thread thread : after) {
+			thread.join(5000);
+			assertFalse(thread.isAlive());
+		}
+	}
+
+	@Test
+	public void getVCards_finished_iterators_are_released() throws Exception {
+		XCardStreamDocument xcard = new XCardStreamDocument(xml);
+		XCardStreamDocument.VCards vcards = xcard.getVCards();
+
+		for (int i = 0; i < 3; i++) {
+			assertNames(vcards, "John Doe", "Jane Doe");
+			assertEquals(0, vcards.getOpenIteratorCount());
+		}
+
+		Iterator<VCard> it = vcards.iterator();
+		it.next();
+		assertEquals(1, vcards.getOpenIteratorCount());
+		it.next();
+		assertFalse(it.hasNext());
+		assertEquals(0, vcards.getOpenIteratorCount());
+
+		vcards.iterator().next();
+		vcards.iterator().next();
+		assertEquals(2, vcards.getOpenIteratorCount());
+		vcards.close();
+		assertEquals(0, vcards.getOpenIteratorCount());
+	}
+
+	/**
+	 * Gets the background threads of all the {@link XCardReader} objects that
+	 * are currently running.
+	 * @return the threads
+	 */
+	private static Set<Thread> readThreads() {
+		Set<Thread> threads = new HashSet<Thread>();
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if ("ReadThread".equals(thread.getName()) && thread.isAlive()) {
+				threads.add(thread);
+			}
+		}
+		return threads;
+	}
+
+	@Test
+	public void getVCards_empty() throws Exception {
+		XCardStreamDocument xcard = new XCardStreamDocument();
+		assertNames(xcard.getVCards());
+	}
+
+	@Test
+	public void writer() throws Exception {
+		XCardStreamDocument xcard = new XCardStreamDocument(xml);
+
+		StringWriter sw = new StringWriter();
+		XCardStreamWriter writer = xcard.writer(sw);
+		writer.setAddProdId(false);
+		VCard vcard = new VCard();
+		vcard.setFormattedName("Jim Doe");
+		writer.write(vcard);
+		writer.close();
+
+		//@formatter:off
+		String expected =
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+		"<vcards xmlns=\"" + V4_0.getXmlNamespace() + "\">" +
+			"<vcard><fn><text>John Doe</text></fn></vcard>" +
+			"<vcard><fn><text>Jane Doe</text></fn></vcard>" +
+			"<vcard><fn><text>Jim Doe</text></fn></vcard>" +
+		"</vcards>";
+		//@formatter:on
+		assertEquals(expected, sw.toString());
+	}
+
+	@Test
+	public void writer_empty() throws Exception {
+		XCardStreamDocument xcard = new XCardStreamDocument();
+
+		StringWriter sw = new StringWriter();
+		xcard.writer(sw).close();
+
+		String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><vcards xmlns=\"" + V4_0.getXmlNamespace() + "\"/>";
+		assertEquals(expected, sw.toString());
+	}
+
+	@Test
+	public void registerParameterDataType() throws Exception {
+		XCardStreamDocument xcard = new XCardStreamDocument();
+		xcard.registerParameterDataType("X-ONE", VCardDataType.INTEGER);
+
+		StringWriter sw = new StringWriter();
+		XCardStreamWriter writer = xcard.writer(sw);
+		writer.setAddProdId(false);
+		VCard vcard = new VCard();
+		RawProperty property = vcard.addExtendedProperty("X-FOO", "value");
+		property.getParameters().put("X-ONE", "1");
+		writer.write(vcard);
+		writer.close();
+
+		assertTrue(sw.toString().contains("<x-one><integer>1</integer></x-one>"));
+	}
+
+	private static void assertNames(Iterable<VCard> vcards, String... expected) {
+		List<String> actual = new ArrayList<String>();
+		for (VCard vcard : vcards) {
+			actual.add(vcard.getFormattedName().getValue());
+		}
+
+		List<String> expectedList = new ArrayList<String>();
+		for (String name : expected) {
+			expectedList.add(name);
+		}
+		assertEquals(expectedList, actual);
+	}
+}
@@ -0,0 +1,335 @@
+package ezvcard.io.xml;
+
+import static ezvcard.VCardVersion.V4_0;
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ezvcard.VCard;
+import ezvcard.io.LuckyNumProperty;
+import ezvcard.io.LuckyNumProperty.LuckyNumScribe;
+import ezvcard.io.SalaryProperty;
+import ezvcard.io.SalaryProperty.SalaryScribe;
+import ezvcard.io.scribe.FormattedNameScribe;
+import ezvcard.parameter.AddressType;
+import ezvcard.parameter.TelephoneType;
+import ezvcard.property.Address;
+import ezvcard.property.Categories;
+import ezvcard.property.FormattedName;
+import ezvcard.property.Note;
+import ezvcard.property.Telephone;
+import ezvcard.property.Xml;
+import ezvcard.util.TelUri;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class XCardStreamWriterTest {
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	private StringWriter sw;
+	private XCardStreamWriter writer;
+
+	@BeforeClass
+	public static void beforeClass() {
+		XMLUnit.setIgnoreAttributeOrder(true);
+		XMLUnit.setIgnoreWhitespace(true);
+	}
+
+	@Before
+	public void before() {
+		sw = new StringWriter();
+		writer = new XCardStreamWriter(sw);
+		writer.setAddProdId(false);
+	}
+
+	@Test
+	public void write_single() throws Exception {
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+		writer.write(vcard);
+		writer.close();
+
+		//@formatter:off
+		String expected =
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+		"<vcards xmlns=\"" + V4_0.getXmlNamespace() + "\">" +
+			"<vcard>" +
+				"<fn><text>John Doe</text></fn>" +
+			"</vcard>" +
+		"</vcards>";
+		//@formatter:on
+
+		assertEquals(expected, sw.toString());
+	}
+
+	@Test
+	public void write_empty() throws Exception {
+		writer.close();
+
+		String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><vcards xmlns=\"" + V4_0.getXmlNamespace() + "\"/>";
+		assertEquals(expected, sw.toString());
+	}
+
+	@Test
+	public void write_escaping() throws Exception {
+		VCard vcard = new VCard();
+		vcard.addNote("<one> & \"two\"\r\nthree");
+		Note note = vcard.addNote("four");
+		note.setGroup("a\"b");
+		writer.write(vcard);
+		writer.close();
+
+		//@formatter:off
+		String expected =
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+		"<vcards xmlns=\"" + V4_0.getXmlNamespace() + "\">" +
+			"<vcard>" +
+				"<note><text>&lt;one&gt; &amp; \"two\"&#13;\nthree</text></note>" +
+				"<group name=\"a&quot;b\">" +
+					"<note><text>four</text></note>" +
+				"</group>" +
+			"</vcard>" +
+		"</vcards>";
+		//@formatter:on
+
+		assertEquals(expected, sw.toString());
+
+		List<VCard> vcards = new XCardDocument(sw.toString()).getVCards();
+		assertEquals("<one> & \"two\"\r\nthree", vcards.get(0).getNotes().get(0).getValue());
+	}
+
+	@Test
+	public void write_xml_property() throws Exception {
+		VCard vcard = new VCard();
+		Xml xml = new Xml("<foo xmlns=\"http://example.com\" a=\"b\">bar<car/></foo>");
+		xml.setParameter("x-foo", "bar");
+		vcard.addXml(xml);
+		writer.write(vcard);
+		writer.close();
+
+		//@formatter:off
+		String expected =
+		"<vcards xmlns=\"" + V4_0.getXmlNamespace() + "\">" +
+			"<vcard>" +
+				"<foo xmlns=\"http://example.com\" a=\"b\">" +
+					"<parameters xmlns=\"" + V4_0.getXmlNamespace() + "\">" +
+						"<x-foo><unknown>bar</unknown></x-foo>" +
+					"</parameters>" +
+					"bar<car/>" +
+				"</foo>" +
+			"</vcard>" +
+		"</vcards>";
+		//@formatter:on
+
+		assertXMLEqual(expected, sw.toString());
+	}
+
+	@Test
+	public void write_extended_properties() throws Exception {
+		writer.registerScribe(new LuckyNumScribe());
+		writer.registerScribe(new SalaryScribe());
+
+		VCard vcard = new VCard();
+		vcard.addProperty(new LuckyNumProperty(24));
+		vcard.addProperty(new SalaryProperty(1000000));
+		writer.write(vcard);
+		writer.close();
+
+		//@formatter:off
+		String expected =
+		"<vcards xmlns=\"" + V4_0.getXmlNamespace() + "\">" +
+			"<vcard>" +
+				"<a:lucky-num xmlns:a=\"http://luckynum.com\">24</a:lucky-num>" +
+				"<x-salary>1000000</x-salary>" +
+			"</vcard>" +
+		"</vcards>";
+		//@formatter:on
+
+		assertXMLEqual(expected, sw.toString());
+	}
+
+	@Test
+	public void same_as_XCardWriter() throws Exception {
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+
+		Address adr = new Address();
+		adr.setStreetAddress("123 Main St");
+		adr.setLocality("Austin");
+		adr.getTypes().add(AddressType.WORK);
+		vcard.addAddress(adr);
+
+		Telephone tel = new Telephone(new TelUri.Builder("+1-555-555-1234").extension("101").build());
+		tel.getTypes().add(TelephoneType.WORK);
+		tel.setPref(1);
+		vcard.addTelephoneNumber(tel);
+
+		StringWriter expected = new StringWriter();
+		XCardWriter xcardWriter = new XCardWriter(expected);
+		xcardWriter.write(vcard);
+		xcardWriter.close();
+
+		writer.setAddProdId(true);
+		writer.write(vcard);
+		writer.close();
+
+		assertXMLEqual(expected.toString(), sw.toString());
+	}
+
+	@Test
+	public void write_prettyPrint() throws Exception {
+		StringWriter sw = new StringWriter();
+		XCardStreamWriter writer = new XCardStreamWriter(sw, new XCardOutputProperties(2, "1.1"));
+		writer.setAddProdId(false);
+
+		VCard vcard = new VCard();
+		FormattedName fn = vcard.setFormattedName("John Doe");
+		fn.setParameter("x-foo", "bar");
+		Note note = vcard.addNote("note");
+		note.setGroup("group");
+		writer.write(vcard);
+		writer.close();
+
+		String nl = NEWLINE;
+		//@formatter:off
+		String expected =
+		"<?xml version=\"1.1\" encoding=\"UTF-8\"?><vcards xmlns=\"" + V4_0.getXmlNamespace() + "\">" + nl +
+		"  <vcard>" + nl +
+		"    <fn>" + nl +
+		"      <parameters>" + nl +
+		"        <x-foo>" + nl +
+		"          <unknown>bar</unknown>" + nl +
+		"        </x-foo>" + nl +
+		"      </parameters>" + nl +
+		"      <text>John Doe</text>" + nl +
+		"    </fn>" + nl +
+		"    <group name=\"group\">" + nl +
+		"      <note>" + nl +
+		"        <text>note</text>" + nl +
+		"      </note>" + nl +
+		"    </group>" + nl +
+		"  </vcard>" + nl +
+		"</vcards>" + nl;
+		//@formatter:on
+
+		assertEquals(expected, sw.toString());
+	}
+
+	@Test
+	public void write_simple_values() throws Exception {
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+		vcard.addNote("").setLanguage("en");
+		vcard.addUrl("http://example.com");
+		vcard.setCategories("one", "two");
+		vcard.addCategories(new Categories());
+		vcard.setNickname("Johnny");
+		writer.write(vcard);
+		writer.close();
+
+		//@formatter:off
+		String expected =
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+		"<vcards xmlns=\"" + V4_0.getXmlNamespace() + "\">" +
+			"<vcard>" +
+				"<fn><text>John Doe</text></fn>" +
+				"<note><parameters><language><language-tag>en</language-tag></language></parameters><text/></note>" +
+				"<url><uri>http://example.com</uri></url>" +
+				"<categories><text>one</text><text>two</text></categories>" +
+				"<categories><text/></categories>" +
+				"<nickname><text>Johnny</text></nickname>" +
+			"</vcard>" +
+		"</vcards>";
+		//@formatter:on
+
+		assertEquals(expected, sw.toString());
+	}
+
+	@Test
+	public void write_simple_values_custom_scribe() throws Exception {
+		writer.registerScribe(new FormattedNameScribe() {
+			@Override
+			protected String _writeValue(FormattedName property) {
+				return property.getValue().toUpperCase();
+			}
+		});
+
+		VCard vcard = new VCard();
+		vcard.setFormattedName("John Doe");
+		writer.write(vcard);
+		writer.close();
+
+		assertTrue(sw.toString().contains("<fn><text>JOHN DOE</text></fn>"));
+	}
+
+	@Test
+	public void write_non_unicode_encoding() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XCardStreamWriter writer = new XCardStreamWriter(new OutputStreamWriter(out, "ISO-8859-1"));
+		writer.setAddProdId(false);
+
+		VCard vcard = new VCard();
+		vcard.setFormattedName("éƝ");
+		writer.write(vcard);
+		writer.close();
+
+		String xml = out.toString("ISO-8859-1");
+		assertTrue(xml.startsWith("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>"));
+		assertTrue(xml.contains("<text>é&#x19d;</text>"));
+	}
+
+	@Test
+	public void write_non_unicode_encoding_surrogate_pairs() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XCardStreamWriter writer = new XCardStreamWriter(new OutputStreamWriter(out, "ISO-8859-1"));
+		writer.setAddProdId(false);
+
+		VCard vcard = new VCard();
+		vcard.setFormattedName("a\ud83d\ude00b");
+		writer.write(vcard);
+		writer.close();
+
+		String xml = out.toString("ISO-8859-1");
+		assertTrue(xml.contains("<text>a&#x1f600;b</text>"));
+	}
+}
@@ -0,0 +1,97 @@
+package ezvcard.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class ByteBufferPoolTest {
+	@Test
+	public void acquire_release() {
+		ByteBufferPool pool = new ByteBufferPool(16, 2, false);
+
+		ByteBuffer buffer = pool.acquire();
+		assertEquals(16, buffer.capacity());
+		assertFalse(buffer.isDirect());
+		buffer.put((byte) 1);
+
+		pool.release(buffer);
+		assertEquals(1, pool.size());
+
+		ByteBuffer buffer2 = pool.acquire();
+		assertSame(buffer, buffer2);
+		assertEquals(0, buffer2.position());
+		assertEquals(0, pool.size());
+
+		assertNotSame(buffer2, pool.acquire());
+	}
+
+	@Test
+	public void direct() {
+		ByteBufferPool pool = new ByteBufferPool();
+		assertTrue(pool.acquire().isDirect());
+		assertEquals(8192, pool.getBufferSize());
+	}
+
+	@Test
+	public void release_max_pooled() {
+		ByteBufferPool pool = new ByteBufferPool(16, 2, false);
+		ByteBuffer one = pool.acquire();
+		ByteBuffer two = pool.acquire();
+		ByteBuffer three = pool.acquire();
+		pool.release(one);
+		pool.release(two);
+		pool.release(three);
+		assertEquals(2, pool.size());
+	}
+
+	@Test
+	public void release_foreign_buffer() {
+		ByteBufferPool pool = new ByteBufferPool(16, 2, false);
+		pool.release(ByteBuffer.allocate(32));
+		pool.release(ByteBuffer.allocateDirect(16));
+		assertEquals(0, pool.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_size() {
+		new ByteBufferPool(0, 2, false);
+	}
+}
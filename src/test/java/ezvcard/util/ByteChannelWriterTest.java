@@ -0,0 +1,191 @@
+package ezvcard.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import ezvcard.VCard;
+import ezvcard.VCardVersion;
+import ezvcard.io.text.VCardWriter;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class ByteChannelWriterTest {
+	private final Charset utf8 = Charset.forName("UTF-8");
+
+	@Test
+	public void write() throws Exception {
+		ChannelStub channel = new ChannelStub(Integer.MAX_VALUE);
+		ByteChannelWriter writer = new ByteChannelWriter(channel, utf8, new ByteBufferPool(4, 2, false), 100);
+
+		writer.write("one two three é");
+		writer.write(new char[] { 'x', 'y' }, 1, 1);
+		writer.write('!');
+		writer.close();
+
+		assertArrayEquals("one two three éy!".getBytes("UTF-8"), channel.out.toByteArray());
+		assertFalse(channel.isOpen());
+	}
+
+	@Test
+	public void write_surrogate_pair_split() throws Exception {
+		ChannelStub channel = new ChannelStub(Integer.MAX_VALUE);
+		ByteChannelWriter writer = new ByteChannelWriter(channel, utf8);
+
+		String str = "a📰b";
+		writer.write(str.substring(0, 2));
+		writer.write(str.substring(2));
+		writer.close();
+
+		assertArrayEquals(str.getBytes("UTF-8"), channel.out.toByteArray());
+	}
+
+	@Test
+	public void flush() throws Exception {
+		ChannelStub channel = new ChannelStub(Integer.MAX_VALUE);
+		ByteChannelWriter writer = new ByteChannelWriter(channel, utf8);
+
+		writer.write("test");
+		assertEquals(0, channel.out.size());
+		assertEquals(4, writer.getPendingBytes());
+
+		writer.flush();
+		assertEquals("test", channel.out.toString("UTF-8"));
+		assertEquals(0, writer.getPendingBytes());
+	}
+
+	@Test
+	public void back_pressure() throws Exception {
+		ChannelStub channel = new ChannelStub(0);
+		ByteChannelWriter writer = new ByteChannelWriter(channel, utf8, new ByteBufferPool(4, 2, false), 10);
+
+		writer.write("0123456789");
+		writer.flush();
+		assertEquals(0, channel.out.size());
+		assertEquals(10, writer.getPendingBytes());
+		assertFalse(writer.isWritable());
+		assertFalse(writer.drain());
+
+		channel.limit = 3;
+		assertFalse(writer.drain());
+		assertTrue(writer.isWritable());
+
+		channel.limit = Integer.MAX_VALUE;
+		assertTrue(writer.drain());
+		assertEquals("0123456789", channel.out.toString("UTF-8"));
+	}
+
+	@Test
+	public void close_with_pending_data() throws Exception {
+		ChannelStub channel = new ChannelStub(0);
+		ByteChannelWriter writer = new ByteChannelWriter(channel, utf8);
+
+		writer.write("test");
+		try {
+			writer.close();
+			fail();
+		} catch (IOException e) {
+			//expected
+		}
+		assertFalse(channel.isOpen());
+	}
+
+	@Test(expected = IOException.class)
+	public void write_after_close() throws Exception {
+		ByteChannelWriter writer = new ByteChannelWriter(new ChannelStub(Integer.MAX_VALUE), utf8);
+		writer.close();
+		writer.write("test");
+	}
+
+	@Test
+	public void vcard_writer() throws Exception {
+		ChannelStub channel = new ChannelStub(Integer.MAX_VALUE);
+		VCardWriter writer = new VCardWriter(channel, VCardVersion.V4_0);
+		writer.setAddProdId(false);
+
+		VCard vcard = new VCard();
+		vcard.setFormattedName("Jöhn Doe");
+		writer.write(vcard);
+		writer.close();
+
+		//@formatter:off
+		String expected =
+		"BEGIN:VCARD\r\n" +
+		"VERSION:4.0\r\n" +
+		"FN:Jöhn Doe\r\n" +
+		"END:VCARD\r\n";
+		//@formatter:on
+
+		assertEquals(expected, channel.out.toString("UTF-8"));
+	}
+
+	/**
+	 * Only accepts a limited number of bytes per write, like a non-blocking
+	 * socket channel.
+	 */
+	private static class ChannelStub implements WritableByteChannel {
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private int limit;
+		private boolean open = true;
+
+		public ChannelStub(int limit) {
+			this.limit = limit;
+		}
+
+		public int write(ByteBuffer src) {
+			int count = Math.min(limit, src.remaining());
+			for (int i = 0; i < count; i++) {
+				out.write(src.get());
+			}
+			return count;
+		}
+
+		public boolean isOpen() {
+			return open;
+		}
+
+		public void close() {
+			open = false;
+		}
+	}
+}
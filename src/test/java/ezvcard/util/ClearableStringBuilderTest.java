@@ -1,6 +1,7 @@
 package ezvcard.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -74,6 +75,26 @@ public class ClearableStringBuilderTest {
 		assertEquals("", sb.get());
 	}
 
+	@Test
+	public void getAndClear_pool() {
+		StringPool pool = new StringPool();
+
+		sb.append("foo");
+		String first = sb.getAndClear(pool);
+		assertEquals("foo", first);
+		assertEquals("", sb.get());
+
+		sb.append("foo");
+		assertSame(first, sb.getAndClear(pool));
+	}
+
+	@Test
+	public void getAndClear_null_pool() {
+		sb.append("foo");
+		assertEquals("foo", sb.getAndClear(null));
+		assertEquals("", sb.get());
+	}
+
 	@Test
 	public void append() {
 		sb.append('f').append("oo").append(" bar!".toCharArray(), 0, 4);
@@ -0,0 +1,156 @@
+package ezvcard.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class FixedDecimalFormatTest {
+	//Germany uses "," as the decimal separator, but "." should still be used
+	@ClassRule
+	public static final DefaultLocaleRule localeRule = new DefaultLocaleRule(Locale.GERMANY);
+
+	@Test
+	public void format() {
+		assertEquals("12.888889", FixedDecimalFormat.format(12.8888888, 6));
+		assertEquals("12.88", FixedDecimalFormat.format(12.88, 6));
+		assertEquals("12.0", FixedDecimalFormat.format(12, 6));
+		assertEquals("-12.388889", FixedDecimalFormat.format(-12.3888888, 6));
+		assertEquals("0.000001", FixedDecimalFormat.format(0.000001, 6));
+		assertEquals("12.89", FixedDecimalFormat.format(12.888, 2));
+		assertEquals("13", FixedDecimalFormat.format(12.888, 0));
+		assertEquals("13", FixedDecimalFormat.format(12.888, -1));
+		assertEquals("1500.0", FixedDecimalFormat.format(1500, 6));
+	}
+
+	@Test
+	public void format_half_even() {
+		//ties are rounded to the nearest even number
+		assertEquals("2", FixedDecimalFormat.format(2.5, 0));
+		assertEquals("4", FixedDecimalFormat.format(3.5, 0));
+
+		//the exact binary values are not ties
+		assertEquals("0.0", FixedDecimalFormat.format(0.0000005, 6)); //4.99999999999999977e-7
+		assertEquals("0.000003", FixedDecimalFormat.format(0.0000025, 6)); //2.50000000000000010e-6
+	}
+
+	@Test
+	public void format_near_ties_differ_from_VCardFloatFormatter() {
+		//DecimalFormat treats these as ties, but their exact binary values are slightly larger
+		assertEquals("0.001", FixedDecimalFormat.format(0.0005, 3)); //5.00000000000000010e-4
+		assertEquals("0.0001", FixedDecimalFormat.format(0.00005, 4)); //5.00000000000000024e-5
+		assertEquals("0.00001", FixedDecimalFormat.format(0.000005, 5)); //5.00000000000000041e-6
+		assertEquals("0.00000001", FixedDecimalFormat.format(0.000000005, 8)); //5.00000000000000010e-9
+		assertEquals("-0.001", FixedDecimalFormat.format(-0.0005, 3));
+	}
+
+	@Test
+	public void format_negative_zero() {
+		assertEquals("-0.0", FixedDecimalFormat.format(-0.0, 6));
+		assertEquals("-0.0", FixedDecimalFormat.format(-0.0000001, 6));
+	}
+
+	@Test
+	public void format_same_as_VCardFloatFormatter() {
+		Random random = new Random(1);
+		for (int decimals = 0; decimals <= 8; decimals++) {
+			VCardFloatFormatter formatter = new VCardFloatFormatter(decimals);
+			for (int i = 0; i < 10000; i++) {
+				double value;
+				switch (i % 3) {
+				case 0:
+					value = (random.nextDouble() - 0.5) * 360;
+					break;
+				case 1:
+					value = (random.nextInt(2000000) + 0.5) / Math.pow(10, random.nextInt(9));
+					break;
+				default:
+					value = Double.longBitsToDouble(random.nextLong());
+					break;
+				}
+
+				assertEquals(formatter.format(value), FixedDecimalFormat.format(value, decimals));
+			}
+		}
+	}
+
+	@Test
+	public void append() {
+		StringBuilder sb = new StringBuilder("geo:");
+		FixedDecimalFormat.append(sb, 40.714623, 6).append(',');
+		FixedDecimalFormat.append(sb, -74.006605, 6);
+		assertEquals("geo:40.714623,-74.006605", sb.toString());
+	}
+
+	@Test
+	public void parse() {
+		assertEquals(Double.valueOf(40.714623), Double.valueOf(FixedDecimalFormat.parse("40.714623")));
+		assertEquals(Double.valueOf(-74.006605), Double.valueOf(FixedDecimalFormat.parse("-74.006605")));
+		assertEquals(Double.valueOf(1.5), Double.valueOf(FixedDecimalFormat.parse("+1.5")));
+		assertEquals(Double.valueOf(0.5), Double.valueOf(FixedDecimalFormat.parse(".5")));
+		assertEquals(Double.valueOf(-0.0), Double.valueOf(FixedDecimalFormat.parse("-0")));
+		assertEquals(Double.valueOf(1.5e10), Double.valueOf(FixedDecimalFormat.parse("1.5e10")));
+		assertEquals(Double.valueOf(12.0), Double.valueOf(FixedDecimalFormat.parse(" 12 ")));
+		assertEquals(Double.valueOf(56.78), Double.valueOf(FixedDecimalFormat.parse("12.34,56.78", 6, 11)));
+	}
+
+	@Test
+	public void parse_same_as_parseDouble() {
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; i++) {
+			String value = Double.toString((random.nextDouble() - 0.5) * 360);
+			assertEquals(Double.valueOf(value), Double.valueOf(FixedDecimalFormat.parse(value)));
+
+			value = FixedDecimalFormat.format((random.nextDouble() - 0.5) * 360, random.nextInt(10));
+			assertEquals(Double.valueOf(value), Double.valueOf(FixedDecimalFormat.parse(value)));
+		}
+	}
+
+	@Test
+	public void parse_invalid() {
+		for (String value : new String[] { "", "-", ".", "1.2.3", "abc" }) {
+			try {
+				FixedDecimalFormat.parse(value);
+				fail("Expected NumberFormatException for \"" + value + "\"");
+			} catch (NumberFormatException e) {
+				//expected
+			}
+		}
+	}
+}
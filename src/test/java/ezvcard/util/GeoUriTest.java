@@ -168,6 +168,13 @@ public class GeoUriTest {
 		assertEquals("with = special & chars", uri.getParameter("param"));
 	}
 
+	@Test
+	public void parse_decode_special_chars_in_param_value_replacement_chars() {
+		GeoUri uri = GeoUri.parse("geo:12.34,56.78;param=%24%5c%2;param2=%zz");
+		assertEquals("$\\%2", uri.getParameter("param"));
+		assertEquals("%zz", uri.getParameter("param2"));
+	}
+
 	@Test
 	public void builder_crs() {
 		GeoUri uri = new GeoUri.Builder(12.34, 56.78).crs("123-valid").build();
@@ -291,6 +298,12 @@ public class GeoUriTest {
 		assertEquals("geo:12,46", uri.toString(-1));
 	}
 
+	@Test
+	public void toString_no_grouping_separators() {
+		GeoUri uri = new GeoUri.Builder(12.34, 45.67).uncertainty(1500.0).build();
+		assertEquals("geo:12.34,45.67;u=1500.0", uri.toString());
+	}
+
 	@Test
 	public void equals_contract() {
 		EqualsVerifier.forClass(GeoUri.class).usingGetClass().verify();
@@ -0,0 +1,111 @@
+package ezvcard.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class StringPoolTest {
+	@Test
+	public void get_char_array() {
+		StringPool pool = new StringPool();
+		char[] buffer = "xTYPEyTYPE".toCharArray();
+
+		String first = pool.get(buffer, 1, 4);
+		assertEquals("TYPE", first);
+		assertSame(first, pool.get(buffer, 6, 4));
+	}
+
+	@Test
+	public void get_char_sequence() {
+		StringPool pool = new StringPool();
+
+		String first = pool.get(new StringBuilder("HOME"));
+		assertEquals("HOME", first);
+		assertSame(first, pool.get(new StringBuilder("HOME")));
+		assertSame(first, pool.get("HOME".toCharArray(), 0, 4));
+	}
+
+	@Test
+	public void get_empty() {
+		StringPool pool = new StringPool();
+		assertEquals("", pool.get(new StringBuilder()));
+		assertEquals("", pool.get(new char[0], 0, 0));
+	}
+
+	@Test
+	public void get_long_token() {
+		StringPool pool = new StringPool(16, 4);
+
+		String first = pool.get(new StringBuilder("EMAIL"));
+		assertEquals("EMAIL", first);
+		assertNotSame(first, pool.get(new StringBuilder("EMAIL")));
+	}
+
+	@Test
+	public void collision() {
+		StringPool pool = new StringPool(1, 32);
+
+		String home = pool.get(new StringBuilder("HOME"));
+		String work = pool.get(new StringBuilder("WORK"));
+		assertEquals("WORK", work);
+
+		//HOME was evicted
+		String home2 = pool.get(new StringBuilder("HOME"));
+		assertEquals("HOME", home2);
+		assertNotSame(home, home2);
+	}
+
+	@Test
+	public void size() {
+		assertEquals(1, new StringPool(1, 32).size());
+		assertEquals(8, new StringPool(5, 32).size());
+		assertEquals(1024, new StringPool().size());
+	}
+
+	@Test
+	public void clear() {
+		StringPool pool = new StringPool();
+		String first = pool.get(new StringBuilder("TEL"));
+		pool.clear();
+		assertNotSame(first, pool.get(new StringBuilder("TEL")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid_size() {
+		new StringPool(0, 32);
+	}
+}
@@ -0,0 +1,142 @@
+package ezvcard.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ezvcard.property.ClientPidMap;
+import ezvcard.property.Uid;
+
+/*
+ Copyright (c) 2012-2016, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+ The views and conclusions contained in the software and documentation are those
+ of the authors and should not be interpreted as representing official policies, 
+ either expressed or implied, of the FreeBSD Project.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class UidGeneratorTest {
+	@After
+	public void after() {
+		UidGenerator.setDefault(null);
+	}
+
+	@Test
+	public void secure_random() {
+		assertVersion(UidGenerator.SECURE_RANDOM, 4);
+	}
+
+	@Test
+	public void thread_local_random() {
+		assertVersion(UidGenerator.THREAD_LOCAL_RANDOM, 4);
+	}
+
+	@Test
+	public void time_ordered() {
+		assertVersion(UidGenerator.TIME_ORDERED, 7);
+
+		long before = System.currentTimeMillis();
+		UUID uuid = UUID.fromString(UidGenerator.TIME_ORDERED.generate().substring(9));
+		long timestamp = uuid.getMostSignificantBits() >>> 16;
+		assertTrue(timestamp >= before);
+		assertTrue(timestamp <= System.currentTimeMillis() + 1);
+	}
+
+	@Test
+	public void time_ordered_increasing() throws Throwable {
+		List<List<String>> lists = new ArrayList<List<String>>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			final List<String> uris = new ArrayList<String>();
+			lists.add(uris);
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						uris.add(UidGenerator.TIME_ORDERED.generate());
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Set<String> all = new HashSet<String>();
+		for (List<String> uris : lists) {
+			for (int i = 1; i < uris.size(); i++) {
+				assertTrue(uris.get(i).compareTo(uris.get(i - 1)) > 0);
+			}
+			all.addAll(uris);
+		}
+		assertEquals(40000, all.size());
+	}
+
+	@Test
+	public void setDefault() {
+		assertSame(UidGenerator.SECURE_RANDOM, UidGenerator.getDefault());
+
+		UidGenerator.setDefault(new UidGenerator() {
+			@Override
+			public String generate() {
+				return "urn:uuid:" + new UUID(0, 1);
+			}
+		});
+		assertEquals("urn:uuid:00000000-0000-0000-0000-000000000001", Uid.random().getValue());
+		assertEquals("urn:uuid:00000000-0000-0000-0000-000000000001", ClientPidMap.random(1).getUri());
+
+		UidGenerator.setDefault(null);
+		assertSame(UidGenerator.SECURE_RANDOM, UidGenerator.getDefault());
+	}
+
+	private static void assertVersion(UidGenerator generator, int version) {
+		Set<String> uris = new HashSet<String>();
+		for (int i = 0; i < 1000; i++) {
+			String uri = generator.generate();
+			assertTrue(uri, uri.matches("urn:uuid:[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}"));
+
+			UUID uuid = UUID.fromString(uri.substring(9));
+			assertEquals("urn:uuid:" + uuid, uri);
+			assertEquals(version, uuid.version());
+			assertEquals(2, uuid.variant());
+
+			uris.add(uri);
+		}
+		assertEquals(1000, uris.size());
+	}
+}
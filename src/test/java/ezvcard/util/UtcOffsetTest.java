@@ -2,6 +2,7 @@ package ezvcard.util;
 
 import static ezvcard.util.TestUtils.buildTimezone;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import nl.jqno.equalsverifier.EqualsVerifier;
 
@@ -116,6 +117,15 @@ public class UtcOffsetTest {
 		assertParseInvalid("four"); //expected number of characters, but they are not numbers
 	}
 
+	@Test
+	public void parse_common_offsets_are_shared() {
+		assertSame(UtcOffset.parse("-05:00"), UtcOffset.parse("-0500"));
+		assertSame(UtcOffset.parse("+0545"), UtcOffset.parse("+5:45"));
+		assertEquals(new UtcOffset(false, 0, 30), UtcOffset.parse("-00:30"));
+		assertEquals(new UtcOffset(true, 5, 1), UtcOffset.parse("+05:01"));
+		assertEquals(new UtcOffset(true, 25, 0), UtcOffset.parse("+25:00"));
+	}
+
 	@Test
 	public void parse_timezone() {
 		UtcOffset expected = new UtcOffset(true, 1, 0);
@@ -4,6 +4,7 @@ import static ezvcard.util.TestUtils.buildTimezone;
 import static ezvcard.util.TestUtils.date;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -125,4 +126,19 @@ public class VCardDateFormatTest {
 		tz = VCardDateFormat.parseTimeZoneId("Bogus/Timezone");
 		assertNull(tz);
 	}
+
+	@Test
+	public void parseTimezoneId_cached() {
+		TimeZone tz1 = VCardDateFormat.parseTimeZoneId("Europe/Paris");
+		TimeZone tz2 = VCardDateFormat.parseTimeZoneId("Europe/Paris");
+		assertEquals(tz1, tz2);
+		assertNotSame(tz1, tz2);
+
+		//modifying the returned object does not affect the cache
+		tz1.setID("Modified");
+		assertEquals("Europe/Paris", VCardDateFormat.parseTimeZoneId("Europe/Paris").getID());
+
+		assertNull(VCardDateFormat.parseTimeZoneId("Bogus/Timezone"));
+		assertNull(VCardDateFormat.parseTimeZoneId("Bogus/Timezone"));
+	}
 }
@@ -2,13 +2,17 @@ package ezvcard.util;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -134,6 +138,71 @@ public class XmlUtilsTest {
 		XmlUtils.toDocument(xml);
 	}
 
+	@Test
+	public void toDocument_doctype() throws Exception {
+		//@formatter:off
+		String xml =
+		"<?xml version=\"1.0\"?>\n" +
+		"<!DOCTYPE root [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>\n" +
+		"<root>&xxe;</root>";
+		//@formatter:on
+
+		try {
+			XmlUtils.toDocument(xml);
+			fail();
+		} catch (SAXException e) {
+			//expected
+		}
+
+		//the thread's parser can still be used after an error
+		Document document = XmlUtils.toDocument("<root/>");
+		assertEquals("root", document.getDocumentElement().getLocalName());
+	}
+
+	@Test
+	public void toDocument_multiple_threads() throws Exception {
+		final int threads = 4;
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		List<Thread> list = new ArrayList<Thread>();
+		for (int i = 0; i < threads; i++) {
+			final int id = i;
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 50; j++) {
+							String xml = "<root id=\"" + id + "-" + j + "\"/>";
+							Document document = XmlUtils.toDocument(xml);
+							assertEquals(id + "-" + j, document.getDocumentElement().getAttribute("id"));
+							assertEquals(id + "-" + j, XmlUtils.toDocument(XmlUtils.toString(document)).getDocumentElement().getAttribute("id"));
+						}
+					} catch (Throwable t) {
+						errors.add(t);
+					}
+				}
+			};
+			list.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : list) {
+			thread.join();
+		}
+		assertEquals(errors.toString(), 0, errors.size());
+	}
+
+	@Test
+	public void toString_output_properties_not_kept() throws Exception {
+		Document document = XmlUtils.toDocument("<root/>");
+
+		Map<String, String> outputProperties = new HashMap<String, String>();
+		outputProperties.put(OutputKeys.OMIT_XML_DECLARATION, "yes");
+		assertFalse(XmlUtils.toString(document, outputProperties).startsWith("<?xml"));
+
+		//the thread's transformer is reset before it is used again
+		assertTrue(XmlUtils.toString(document).startsWith("<?xml"));
+	}
+
 	@Test
 	public void toString_() throws Exception {
 		Document expected = XmlUtils.toDocument(xml);